@@ -0,0 +1,68 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.AppuntamentoService;
+import com.example.demo.support.DatiSinteticiGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifica disponibilità slot (chiamata ad ogni prenotazione e dal calendario).
+ *
+ * Esecuzione:
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.args="AppuntamentoServiceBenchmark"
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppuntamentoServiceBenchmark {
+
+    /**
+     * Slot richiesti: ciclo fisso di date realistiche (passate, vicine, future).
+     */
+    @State(Scope.Thread)
+    public static class Slot {
+        private final LocalDateTime[] date = new LocalDateTime[1024];
+        private int indice;
+
+        @Setup
+        public void prepara() {
+            DatiSinteticiGenerator generatore = new DatiSinteticiGenerator(DatabaseSintetico.SEME + 1);
+            for (int i = 0; i < date.length; i++) {
+                date[i] = generatore.dataLavorativa(-30, 60);
+            }
+        }
+
+        LocalDateTime prossimo() {
+            return date[indice++ & (date.length - 1)];
+        }
+    }
+
+    private AppuntamentoService appuntamentoService;
+
+    @Setup
+    public void setup(DatabaseSintetico database) {
+        appuntamentoService = database.bean(AppuntamentoService.class);
+    }
+
+    @Benchmark
+    public boolean isSlotDisponibile(Slot slot) {
+        return appuntamentoService.isSlotDisponibile(slot.prossimo());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.support.DatiSinteticiGenerator;
+import com.example.demo.validator.AppuntamentoValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validazione delle regole di business di una prenotazione (nessun database).
+ *
+ * Esecuzione:
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.args="AppuntamentoValidatorBenchmark -prof gc"
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppuntamentoValidatorBenchmark {
+
+    private final AppuntamentoValidator validator = new AppuntamentoValidator();
+
+    private Appuntamento valido;
+    private Appuntamento emailNonValida;
+
+    @Setup
+    public void setup() {
+        DatiSinteticiGenerator generatore = new DatiSinteticiGenerator(DatabaseSintetico.SEME);
+        valido = generatore.appuntamentoValido();
+        emailNonValida = generatore.appuntamentoValido();
+        emailNonValida.setEmail("mario.rossi@example");
+    }
+
+    @Benchmark
+    public Appuntamento validaAppuntamentoCorretto() {
+        validator.valida(valido);
+        return valido;
+    }
+
+    @Benchmark
+    public String validaAppuntamentoConErrore() {
+        try {
+            validator.valida(emailNonValida);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+}
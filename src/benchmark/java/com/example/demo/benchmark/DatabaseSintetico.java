@@ -0,0 +1,62 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.ServiziApplication;
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.repository.ContattoRepository;
+import com.example.demo.repository.LavoroRepository;
+import com.example.demo.support.DatiSinteticiGenerator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Applicazione completa su H2 embedded popolata con dati sintetici.
+ *
+ * Il volume si sceglie da riga di comando, es:
+ *   -Djmh.args="Statistiche -p appuntamenti=1000,10000,50000"
+ * Contatti e lavori sono proporzionali (1/5 e 1/20 degli appuntamenti).
+ * Il seme è fisso: ogni esecuzione lavora sugli stessi dati.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+public class DatabaseSintetico {
+
+    public static final long SEME = 42L;
+
+    @Param({"1000", "10000"})
+    public int appuntamenti;
+
+    private ConfigurableApplicationContext contesto;
+
+    @Setup(Level.Trial)
+    public void avvia() {
+        contesto = new SpringApplicationBuilder(ServiziApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:benchmark" + appuntamenti + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "logging.level.root=WARN",
+                "logging.level.com.example.demo=WARN")
+            .run();
+
+        DatiSinteticiGenerator generatore = new DatiSinteticiGenerator(SEME);
+        bean(AppuntamentoRepository.class).inserisciTutti(generatore.appuntamenti(appuntamenti));
+        bean(ContattoRepository.class).inserisciTutti(generatore.contatti(Math.max(1, appuntamenti / 5)));
+        bean(LavoroRepository.class).inserisciTutti(generatore.lavori(Math.max(1, appuntamenti / 20)));
+    }
+
+    @TearDown(Level.Trial)
+    public void chiudi() {
+        contesto.close();
+    }
+
+    public <T> T bean(Class<T> tipo) {
+        return contesto.getBean(tipo);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.EmailTemplateEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.demo.service.EmailTemplateEngine.valori;
+
+/**
+ * Costo di rendering di una singola email.
+ *
+ * Confronta i template precompilati con i corpi costruiti a mano prima dei template:
+ * concatenazione (EmailService) e String.format (CandidaturaService).
+ *
+ * Esecuzione:
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.args="EmailTemplate -f 1 -prof gc"
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy 'alle ore' HH:mm");
+    private static final String POSIZIONE = "Muratore";
+
+    private EmailTemplateEngine engine;
+    private Map<String, Object> valori;
+    private Map<String, Object> valoriCandidatura;
+
+    private String nomeCliente;
+    private String cognomeCliente;
+    private LocalDateTime dataAppuntamento;
+    private String tipoServizio;
+    private String indirizzo;
+    private String telefono;
+    private String email;
+    private String descrizione;
+
+    @Setup
+    public void setup() {
+        engine = new EmailTemplateEngine();
+        nomeCliente = "Mario";
+        cognomeCliente = "Rossi";
+        dataAppuntamento = LocalDateTime.of(2025, 10, 16, 14, 30);
+        tipoServizio = "Ristrutturazione bagno";
+        indirizzo = "Via Roma 1, Torino";
+        telefono = "3331234567";
+        email = "mario.rossi@example.com";
+        descrizione = "Rifacimento completo del bagno con sostituzione sanitari";
+        valori = valori(
+            "nomeCliente", nomeCliente,
+            "cognomeCliente", cognomeCliente,
+            "email", email,
+            "telefono", telefono,
+            "dataAppuntamento", dataAppuntamento,
+            "tipoServizio", tipoServizio,
+            "indirizzo", indirizzo,
+            "descrizione", descrizione);
+        valoriCandidatura = valori(
+            "nome", nomeCliente,
+            "cognome", cognomeCliente,
+            "posizioneRichiesta", POSIZIONE,
+            "dataInvio", dataAppuntamento,
+            "email", email,
+            "telefono", telefono);
+    }
+
+    /**
+     * Notifica admin: template solo testo (oggetto + corpo).
+     */
+    @Benchmark
+    public EmailTemplateEngine.EmailRenderizzata templateSoloTesto() {
+        return engine.render("admin-nuovo-appuntamento.v1", valori);
+    }
+
+    /**
+     * Conferma appuntamento: template multipart (oggetto + testo + HTML).
+     */
+    @Benchmark
+    public EmailTemplateEngine.EmailRenderizzata templateMultipart() {
+        return engine.render("appuntamento-confermato.v1", valori);
+    }
+
+    /**
+     * Stessa notifica admin costruita come faceva EmailService prima dei template.
+     */
+    @Benchmark
+    public String concatenazioneOriginale() {
+        String dataOraFormattata = dataAppuntamento.format(DATE_FORMATTER);
+        return "🔔 NUOVO APPUNTAMENTO DA GESTIRE\n\n" +
+            "Un cliente ha appena richiesto un appuntamento sul sito.\n" +
+            "Accedi alla dashboard admin per confermare o rifiutare.\n\n" +
+            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
+            "📋 DETTAGLI APPUNTAMENTO:\n" +
+            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
+            "Cliente: " + nomeCliente + " " + cognomeCliente + "\n" +
+            "Telefono: " + telefono + "\n" +
+            "Email: " + email + "\n\n" +
+            "Data/Ora richiesta: " + dataOraFormattata + "\n" +
+            "Servizio: " + tipoServizio + "\n" +
+            "Luogo: " + (indirizzo != null ? indirizzo : "Non specificato") + "\n\n" +
+            "Descrizione lavoro:\n" +
+            (descrizione != null ? descrizione : "Nessuna descrizione fornita") + "\n\n" +
+            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
+            "⚡ AZIONI RAPIDE:\n" +
+            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
+            "👉 Accedi alla dashboard: http://localhost:8080/admin/dashboard\n" +
+            "👉 Gestisci appuntamenti: http://localhost:8080/admin/appuntamenti\n\n" +
+            "⚠️ IMPORTANTE: Rispondi entro 24 ore per non perdere il cliente!\n\n" +
+            "Servizi Edili Elvis SRL - Sistema Gestionale";
+    }
+
+    /**
+     * Conferma candidatura: template solo testo.
+     */
+    @Benchmark
+    public EmailTemplateEngine.EmailRenderizzata templateCandidatura() {
+        return engine.render("candidatura-ricevuta.v1", valoriCandidatura);
+    }
+
+    /**
+     * Stessa conferma candidatura costruita con String.format come in CandidaturaService.
+     */
+    @Benchmark
+    public String stringFormatOriginale() {
+        return String.format(
+            "Gentile %s %s,\n\n" +
+            "Abbiamo ricevuto la tua candidatura per la posizione di %s.\n\n" +
+            "La tua candidatura è stata registrata con successo e verrà valutata dal nostro team.\n" +
+            "Ti contatteremo al più presto per comunicarti l'esito della selezione.\n\n" +
+            "Dati della candidatura:\n" +
+            "- Posizione: %s\n" +
+            "- Data invio: %s\n" +
+            "- Email: %s\n" +
+            "- Telefono: %s\n\n" +
+            "Grazie per il tuo interesse!\n\n" +
+            "Cordiali saluti,\n" +
+            "RISTRUTTURAZIONI EDILI ELVIS SRLS\n" +
+            "Tel: +39 320 709 7442\n" +
+            "Email: ristrutturazioniedili.elvis@gmail.com",
+            nomeCliente,
+            cognomeCliente,
+            POSIZIONE,
+            POSIZIONE,
+            dataAppuntamento.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
+            email,
+            telefono
+        );
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.service.ImportazioneCsvService;
+import com.example.demo.service.ScrittoreCsv;
+import com.example.demo.support.DatiSinteticiGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importazione CSV dello storico appuntamenti: lettura, validazione e batch insert.
+ *
+ * Il file (100k righe sintetiche) viene generato una volta in memoria; prima
+ * di ogni importazione la tabella viene svuotata. Una singola esecuzione dura
+ * secondi, per questo il modo è SingleShotTime.
+ *
+ * Esecuzione:
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.args="ImportazioneCsvBenchmark -p appuntamenti=1000"
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportazioneCsvBenchmark {
+
+    @Param({"100000"})
+    public int righe;
+
+    private ImportazioneCsvService importazioneCsvService;
+    private AppuntamentoRepository appuntamentoRepository;
+    private byte[] file;
+
+    @Setup
+    public void setup(DatabaseSintetico database) throws IOException {
+        importazioneCsvService = database.bean(ImportazioneCsvService.class);
+        appuntamentoRepository = database.bean(AppuntamentoRepository.class);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ScrittoreCsv csv = new ScrittoreCsv(out)) {
+            csv.intestazione("data_appuntamento", "stato", "nome", "cognome", "email", "telefono",
+                "servizio", "indirizzo", "descrizione", "data_creazione");
+            for (Appuntamento a : new DatiSinteticiGenerator(DatabaseSintetico.SEME).appuntamenti(righe)) {
+                csv.campo(a.getDataAppuntamento());
+                csv.campo(a.getStato());
+                csv.campo(a.getNomeCliente());
+                csv.campo(a.getCognomeCliente());
+                csv.campo(a.getEmail());
+                csv.campo(a.getTelefono());
+                csv.campo(a.getTipoServizio());
+                csv.campo(a.getIndirizzo());
+                csv.campo(a.getDescrizione());
+                csv.campo(a.getDataCreazione());
+                csv.fineRiga();
+            }
+        }
+        file = out.toByteArray();
+    }
+
+    @Setup(Level.Invocation)
+    public void svuota() {
+        appuntamentoRepository.deleteAllInBatch();
+    }
+
+    @Benchmark
+    public ImportazioneCsvService.Risultato importaAppuntamenti() throws IOException {
+        return importazioneCsvService.importaAppuntamenti(
+            new InputStreamReader(new ByteArrayInputStream(file), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.service.IndiceCandidature;
+import com.example.demo.support.DatiSinteticiGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ricerca full-text sulle candidature (indice in memoria, nessun database).
+ *
+ * Il vocabolario dei dati sintetici è piccolo: ogni termine compare in quasi
+ * tutte le candidature, quindi è il caso peggiore per le liste dell'indice.
+ *
+ * Esecuzione:
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.args="IndiceCandidatureBenchmark"
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndiceCandidatureBenchmark {
+
+    @Param({"10000", "50000"})
+    public int candidature;
+
+    private IndiceCandidature indice;
+    private Candidatura daAggiornare;
+
+    @Setup
+    public void setup() {
+        indice = new IndiceCandidature();
+        ReflectionTestUtils.setField(indice, "meterRegistry", new SimpleMeterRegistry());
+        List<Candidatura> dati = new DatiSinteticiGenerator(DatabaseSintetico.SEME).candidature(candidature);
+        long id = 1;
+        for (Candidatura c : dati) {
+            c.setId(id++);
+            indice.aggiorna(c);
+        }
+        daAggiornare = dati.get(dati.size() / 2);
+    }
+
+    @Benchmark
+    public List<IndiceCandidature.Risultato> cercaUnTermine() {
+        return indice.cerca("piastrellista", null, 20);
+    }
+
+    @Benchmark
+    public List<IndiceCandidature.Risultato> cercaTreTerminiComuni() {
+        return indice.cerca("intonaco piastrelle impianti", null, 20);
+    }
+
+    @Benchmark
+    public List<IndiceCandidature.Risultato> cercaConFiltroStato() {
+        return indice.cerca("muratore intonaco tetto", "Nuovo", 20);
+    }
+
+    @Benchmark
+    public IndiceCandidature aggiornaCandidatura() {
+        indice.aggiorna(daAggiornare);
+        return indice;
+    }
+}
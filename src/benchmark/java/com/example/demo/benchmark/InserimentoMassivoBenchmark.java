@@ -0,0 +1,123 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Lavoro;
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.repository.LavoroRepository;
+import com.example.demo.support.DatiSinteticiGenerator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import di molte righe: inserisciTutti (batch JDBC) contro saveAll.
+ *
+ * Ogni invocazione inserisce entità nuove in tabelle svuotate. Oltre al tempo
+ * JMH riporta due contatori dalle statistiche di Hibernate: "istruzioni"
+ * (PreparedStatement eseguiti) e "righe" (entità inserite). Con il batch il
+ * rapporto istruzioni/righe è circa 0.04 (un blocco ogni 50 righe più la
+ * sequenza); se torna vicino a 1 il batch si è perso (es: un'entità con
+ * IDENTITY o batch_size a 0).
+ *
+ * Esecuzione:
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.args="InserimentoMassivoBenchmark -p appuntamenti=1000"
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InserimentoMassivoBenchmark {
+
+    @Param({"10000"})
+    public int righe;
+
+    private AppuntamentoRepository appuntamentoRepository;
+    private LavoroRepository lavoroRepository;
+    private Statistics statistiche;
+    private DatiSinteticiGenerator generatore;
+
+    private List<Appuntamento> appuntamenti;
+    private List<Lavoro> lavori;
+
+    @Setup
+    public void setup(DatabaseSintetico database) {
+        appuntamentoRepository = database.bean(AppuntamentoRepository.class);
+        lavoroRepository = database.bean(LavoroRepository.class);
+        statistiche = database.bean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        generatore = new DatiSinteticiGenerator(DatabaseSintetico.SEME);
+    }
+
+    @Setup(Level.Invocation)
+    public void preparaRighe() {
+        appuntamentoRepository.deleteAllInBatch();
+        lavoroRepository.deleteAll();
+        appuntamenti = generatore.appuntamenti(righe);
+        lavori = generatore.lavori(righe / 10);
+        statistiche.clear();
+    }
+
+    @Benchmark
+    public int appuntamentiInserisciTutti(Contatori contatori) {
+        int inserite = appuntamentoRepository.inserisciTutti(appuntamenti);
+        contatori.registra(statistiche);
+        return inserite;
+    }
+
+    @Benchmark
+    public int appuntamentiSaveAll(Contatori contatori) {
+        int inserite = appuntamentoRepository.saveAll(appuntamenti).size();
+        contatori.registra(statistiche);
+        return inserite;
+    }
+
+    /** Lavori con le foto: anche le righe delle due collezioni vanno a blocchi. */
+    @Benchmark
+    public int lavoriConFotoInserisciTutti(Contatori contatori) {
+        int inserite = lavoroRepository.inserisciTutti(lavori);
+        contatori.registra(statistiche);
+        return inserite;
+    }
+
+    /**
+     * Istruzioni e righe per iterazione, riportate da JMH accanto al tempo.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Contatori {
+
+        public long istruzioni;
+        public long righe;
+
+        @Setup(Level.Iteration)
+        public void azzera() {
+            istruzioni = 0;
+            righe = 0;
+        }
+
+        void registra(Statistics statistiche) {
+            istruzioni += statistiche.getPrepareStatementCount();
+            righe += statistiche.getEntityInsertCount();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Lavoro;
+import com.example.demo.service.AppuntamentoService;
+import com.example.demo.service.LavoroService;
+import com.example.demo.service.StatisticheService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializzazione JSON dei payload delle API REST (/api/*), con l'ObjectMapper
+ * configurato da Spring Boot. I dati vengono caricati una volta: si misura
+ * solo la serializzazione, non le query.
+ *
+ * Esecuzione:
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.args="JsonSerializationBenchmark -prof gc"
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    // GET /api/appuntamenti
+    private List<Appuntamento> appuntamenti;
+    // GET /api/lavori/visibili
+    private List<Lavoro> lavori;
+    // GET /api/stats/dashboard
+    private Map<String, Object> statistiche;
+
+    @Setup
+    public void setup(DatabaseSintetico database) {
+        objectMapper = database.bean(ObjectMapper.class);
+        appuntamenti = database.bean(AppuntamentoService.class).getAllAppuntamenti();
+        // Le foto sono @ElementCollection lazy: in produzione le carica open-in-view durante la serializzazione
+        TransactionTemplate transazione = new TransactionTemplate(database.bean(PlatformTransactionManager.class));
+        lavori = transazione.execute(stato -> {
+            List<Lavoro> pubblicati = database.bean(LavoroService.class).getLavoriPubblicati();
+            pubblicati.forEach(l -> {
+                l.getFotoPrima().size();
+                l.getFotoDopo().size();
+            });
+            return pubblicati;
+        });
+        statistiche = database.bean(StatisticheService.class).getStatisticheDashboard();
+    }
+
+    @Benchmark
+    public byte[] listaAppuntamenti() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(appuntamenti);
+    }
+
+    @Benchmark
+    public byte[] lavoriVisibili() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(lavori);
+    }
+
+    @Benchmark
+    public byte[] statisticheDashboard() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(statistiche);
+    }
+}
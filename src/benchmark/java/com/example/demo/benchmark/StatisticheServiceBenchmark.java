@@ -0,0 +1,52 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.StatisticheService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistiche della dashboard admin e dell'API /api/stats.
+ *
+ * Esecuzione:
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.args="StatisticheServiceBenchmark"
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticheServiceBenchmark {
+
+    private StatisticheService statisticheService;
+
+    @Setup
+    public void setup(DatabaseSintetico database) {
+        statisticheService = database.bean(StatisticheService.class);
+    }
+
+    @Benchmark
+    public Map<String, Object> statisticheDashboard() {
+        return statisticheService.getStatisticheDashboard();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> statisticheMensili() {
+        return statisticheService.getStatisticheMensili(12);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Esecutori per il lavoro fuori dalla richiesta HTTP (@Async).
+ *
+ * ESECUTORE "esecutoreNotifiche":
+ * Email e post-elaborazioni che partono DOPO il commit (es: candidatura ricevuta).
+ * È limitato di proposito: un'ondata di candidature dopo un annuncio non deve
+ * aprire decine di connessioni SMTP né riempire la memoria di task in attesa.
+ *
+ * - Thread di piattaforma: 2..4 thread, coda di 100 task; a coda piena il task
+ *   gira nel thread chiamante (CallerRuns): più lento, ma nessuna email persa
+ * - Thread virtuali (spring.threads.virtual.enabled=true): un thread virtuale
+ *   per task, con al massimo "thread-max" task contemporanei (gli altri attendono)
+ *
+ * ESECUTORE "esecutoreEstrazioneCv":
+ * Estrazione del testo dai CV (PDF/DOCX) dopo il commit della candidatura.
+ * Lavoro di CPU: sempre thread di piattaforma, pochi e a bassa priorità.
+ * A coda piena il task viene RIFIUTATO (mai eseguito nel thread della richiesta):
+ * la riga resta IN_CODA nel database e la riprende il controllo periodico.
+ *
+ * ESECUTORE "esecutoreDashboard":
+ * Widget della dashboard admin caricati in parallelo (DashboardAggregationService).
+ * Task brevi e quasi solo attesa del database: un thread virtuale per widget
+ * se abilitati, altrimenti un piccolo pool fisso. A pool occupato il widget è
+ * RIFIUTATO e torna come segnaposto: mai eseguito nel thread della richiesta,
+ * dove nessuna scadenza lo fermerebbe. Ogni widget conta le sue query sul
+ * ContatoreSql della richiesta che lo ha avviato (budget SQL per richiesta).
+ *
+ * ESECUTORE "esecutoreEventiAdmin":
+ * Invio degli eventi Server-Sent Events alle dashboard admin aperte
+ * (CanaleEventiAdmin). Chi pubblica l'evento non scrive mai sulle connessioni:
+ * ogni connessione viene svuotata qui. A pool pieno il task è rifiutato e la
+ * connessione viene ripresa al prossimo evento o heartbeat.
+ *
+ * CONFIGURAZIONE (application.properties):
+ * - notifiche.esecutore.thread-min / thread-max / coda
+ * - cv.estrazione.thread / coda
+ * - dashboard.esecutore.thread
+ * - admin.eventi.thread
+ *
+ * Questi esecutori non sostituiscono applicationTaskExecutor di Spring Boot
+ * (@Async senza nome, richieste MVC asincrone): spring.task.execution.mode=force
+ * lo fa creare anche in loro presenza.
+ *
+ * Le metriche executor.* del pool (attivi, coda, completati) sono esportate
+ * automaticamente da Spring Boot Actuator.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Bean
+    public TaskExecutor esecutoreNotifiche(
+            @Value("${spring.threads.virtual.enabled:false}") boolean threadVirtuali,
+            @Value("${notifiche.esecutore.thread-min:2}") int threadMin,
+            @Value("${notifiche.esecutore.thread-max:4}") int threadMax,
+            @Value("${notifiche.esecutore.coda:100}") int coda) {
+        if (threadVirtuali) {
+            SimpleAsyncTaskExecutor esecutore = new SimpleAsyncTaskExecutor("notifiche-");
+            esecutore.setVirtualThreads(true);
+            esecutore.setConcurrencyLimit(threadMax);
+            return esecutore;
+        }
+        ThreadPoolTaskExecutor esecutore = new ThreadPoolTaskExecutor();
+        esecutore.setThreadNamePrefix("notifiche-");
+        esecutore.setCorePoolSize(threadMin);
+        esecutore.setMaxPoolSize(threadMax);
+        esecutore.setQueueCapacity(coda);
+        esecutore.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // Allo spegnimento finisce le email già accodate
+        esecutore.setWaitForTasksToCompleteOnShutdown(true);
+        esecutore.setAwaitTerminationSeconds(30);
+        return esecutore;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor esecutoreEstrazioneCv(
+            @Value("${cv.estrazione.thread:1}") int thread,
+            @Value("${cv.estrazione.coda:100}") int coda) {
+        ThreadPoolTaskExecutor esecutore = new ThreadPoolTaskExecutor();
+        esecutore.setThreadNamePrefix("estrazione-cv-");
+        esecutore.setCorePoolSize(thread);
+        esecutore.setMaxPoolSize(thread);
+        esecutore.setQueueCapacity(coda);
+        esecutore.setThreadPriority(Thread.MIN_PRIORITY);
+        // AbortPolicy (predefinita): a coda piena TaskRejectedException, gestita da EstrazioneCvService
+        return esecutore;
+    }
+
+    @Bean
+    public TaskExecutor esecutoreDashboard(
+            @Value("${spring.threads.virtual.enabled:false}") boolean threadVirtuali,
+            @Value("${dashboard.esecutore.thread:6}") int thread) {
+        if (threadVirtuali) {
+            SimpleAsyncTaskExecutor esecutore = new SimpleAsyncTaskExecutor("dashboard-");
+            esecutore.setVirtualThreads(true);
+            esecutore.setTaskDecorator(DataSourceMisurato.ContatoreSql::propaga);
+            return esecutore;
+        }
+        ThreadPoolTaskExecutor esecutore = new ThreadPoolTaskExecutor();
+        esecutore.setThreadNamePrefix("dashboard-");
+        esecutore.setCorePoolSize(thread);
+        esecutore.setMaxPoolSize(thread);
+        esecutore.setQueueCapacity(0);
+        esecutore.setTaskDecorator(DataSourceMisurato.ContatoreSql::propaga);
+        // AbortPolicy (predefinita): TaskRejectedException → segnaposto in DashboardAggregationService
+        return esecutore;
+    }
+
+    @Bean
+    public TaskExecutor esecutoreEventiAdmin(
+            @Value("${spring.threads.virtual.enabled:false}") boolean threadVirtuali,
+            @Value("${admin.eventi.thread:2}") int thread) {
+        if (threadVirtuali) {
+            SimpleAsyncTaskExecutor esecutore = new SimpleAsyncTaskExecutor("eventi-admin-");
+            esecutore.setVirtualThreads(true);
+            return esecutore;
+        }
+        ThreadPoolTaskExecutor esecutore = new ThreadPoolTaskExecutor();
+        esecutore.setThreadNamePrefix("eventi-admin-");
+        esecutore.setCorePoolSize(thread);
+        esecutore.setMaxPoolSize(thread);
+        esecutore.setQueueCapacity(100);
+        // AbortPolicy (predefinita): la connessione resta in attesa del prossimo evento o heartbeat
+        return esecutore;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Cache di secondo livello di Hibernate (JCache in memoria con Caffeine).
+ *
+ * I lavori del portfolio (con le liste di foto) sono letti a ogni visita e
+ * modificati di rado; appuntamenti e contatti sono riletti per id dalle pagine
+ * di dettaglio admin. Queste entità restano in memoria tra una richiesta e
+ * l'altra (READ_WRITE: ogni salvataggio o eliminazione aggiorna la cache
+ * nella stessa transazione, nessun dato vecchio dopo il commit).
+ *
+ * REGIONI:
+ * - lavori, lavori-foto-prima, lavori-foto-dopo: entità Lavoro e collezioni foto
+ * - lavori-query: risultati delle liste pubbliche (per pubblicato, per categoria),
+ *   invalidati da Hibernate a ogni scrittura sulla tabella lavoro
+ * - appuntamenti, contatti: entità lette per id
+ * - default-update-timestamps-region: ultima modifica per tabella, MAI limitata
+ *   né a scadenza (se perdesse una voce, una query in cache potrebbe sembrare valida)
+ *
+ * Ogni contesto Spring crea il proprio CacheManager: più contesti nello stesso
+ * processo (es: i test) non condividono mai le regioni.
+ * Dopo un ripristino del database le regioni vanno svuotate (BackupRestoreService).
+ *
+ * METRICHE (hibernate-micrometer, con hibernate.generate_statistics=true):
+ * - hibernate.second.level.cache.requests (tag region + result hit/miss)
+ * - hibernate.second.level.cache.puts / evictions (tag region)
+ * - hibernate.cache.query.requests (tag result)
+ *
+ * CONFIGURAZIONE (application.properties):
+ * - cache.l2.dimensione-max  → voci massime per regione (default 1000)
+ * - cache.l2.scadenza-minuti → durata di una voce dall'ultima scrittura (default 30)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Configuration
+public class CacheConfig {
+
+    static final List<String> REGIONI = List.of(
+        "lavori", "lavori-foto-prima", "lavori-foto-dopo", "lavori-query",
+        "appuntamenti", "contatti", "default-query-results-region");
+
+    static final String REGIONE_TIMESTAMP = "default-update-timestamps-region";
+
+    @Bean
+    public CacheManager cacheManagerHibernate(
+            @Value("${cache.l2.dimensione-max:1000}") long dimensioneMax,
+            @Value("${cache.l2.scadenza-minuti:30}") long scadenzaMinuti) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("servizi-l2-" + UUID.randomUUID()), CacheConfig.class.getClassLoader());
+
+        CaffeineConfiguration<Object, Object> limitata = new CaffeineConfiguration<>();
+        limitata.setMaximumSize(OptionalLong.of(dimensioneMax));
+        limitata.setExpireAfterWrite(OptionalLong.of(Duration.ofMinutes(scadenzaMinuti).toNanos()));
+        REGIONI.forEach(regione -> cacheManager.createCache(regione, limitata));
+
+        cacheManager.createCache(REGIONE_TIMESTAMP, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    /**
+     * Passa a Hibernate il CacheManager già configurato: una regione non prevista
+     * qui fa fallire l'avvio invece di nascere senza limiti.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer cacheSecondoLivello(CacheManager cacheManagerHibernate) {
+        return proprieta -> {
+            proprieta.put(ConfigSettings.CACHE_MANAGER, cacheManagerHibernate);
+            proprieta.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
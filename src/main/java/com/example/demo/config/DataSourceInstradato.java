@@ -0,0 +1,179 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Instradamento delle connessioni tra database primario e replica in sola lettura.
+ *
+ * Le transazioni @Transactional(readOnly = true) (pagine pubbliche dei lavori,
+ * statistiche, dashboard admin) leggono dalla replica con un pool separato;
+ * tutto il resto va al primario. Una query pesante sulle statistiche non
+ * occupa più le connessioni che servono alle prenotazioni.
+ *
+ * Va usato dietro a un LazyConnectionDataSourceProxy: la connessione vera si
+ * apre alla prima istruzione, quando il flag readOnly della transazione è già noto.
+ * Con open-in-view Hibernate deve restituire la connessione a fine transazione
+ * (hibernate.connection.handling_mode=DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION):
+ * altrimenti la prima transazione della richiesta decide per tutte le altre,
+ * e una scrittura dopo una lettura andrebbe alla replica.
+ *
+ * QUANDO SI LEGGE COMUNQUE DAL PRIMARIO:
+ * - replica in ritardo oltre ritardoMax o non raggiungibile (verificaReplica,
+ *   chiamata a intervalli); anche prima del primo controllo
+ * - per ritardoMax dopo ogni transazione di scrittura: chi ha appena salvato
+ *   (e la cache di secondo livello) non rilegge mai un dato vecchio
+ * - connessione alla replica fallita: si ripiega sul primario nella stessa richiesta
+ *
+ * METRICHE:
+ * - datasource.letture (Counter, tag destinazione replica/primaria)
+ * - datasource.replica.ritardo (Gauge, secondi; NaN se non raggiungibile)
+ * - datasource.replica.utilizzabile (Gauge, 1/0)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public class DataSourceInstradato extends AbstractDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceInstradato.class);
+
+    private static final int TIMEOUT_CONTROLLO_SECONDI = 2;
+
+    private final DataSource primaria;
+    private final DataSource replica;
+    private final long ritardoMaxNanos;
+    private final String queryRitardo;
+    private final LongSupplier orologio;
+
+    private final Counter lettureReplica;
+    private final Counter letturePrimaria;
+
+    private volatile boolean replicaUtilizzabile;
+    private volatile double ritardoSecondi = Double.NaN;
+    private volatile long ultimaScrittura;
+
+    /**
+     * @param ritardoMax   Ritardo massimo accettato per leggere dalla replica
+     * @param queryRitardo Query eseguita sulla replica: una riga, una colonna con il ritardo in secondi
+     */
+    public DataSourceInstradato(DataSource primaria, DataSource replica, Duration ritardoMax,
+                                String queryRitardo, MeterRegistry meterRegistry) {
+        this(primaria, replica, ritardoMax, queryRitardo, meterRegistry, System::nanoTime);
+    }
+
+    DataSourceInstradato(DataSource primaria, DataSource replica, Duration ritardoMax,
+                         String queryRitardo, MeterRegistry meterRegistry, LongSupplier orologio) {
+        this.primaria = primaria;
+        this.replica = replica;
+        this.ritardoMaxNanos = ritardoMax.toNanos();
+        this.queryRitardo = queryRitardo;
+        this.orologio = orologio;
+        this.ultimaScrittura = orologio.getAsLong() - ritardoMaxNanos;
+
+        lettureReplica = meterRegistry.counter("datasource.letture", "destinazione", "replica");
+        letturePrimaria = meterRegistry.counter("datasource.letture", "destinazione", "primaria");
+        Gauge.builder("datasource.replica.ritardo", this, d -> d.ritardoSecondi)
+            .description("Ritardo della replica in secondi")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("datasource.replica.utilizzabile", this, d -> d.replicaUtilizzabile ? 1 : 0)
+            .description("1 se le letture vanno alla replica")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return apri(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return apri(ds -> ds.getConnection(username, password));
+    }
+
+    private Connection apri(Apertura apertura) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registraScrittura();
+            return apertura.apri(primaria);
+        }
+        if (replicaUtilizzabile && orologio.getAsLong() - ultimaScrittura >= ritardoMaxNanos) {
+            try {
+                Connection connessione = apertura.apri(replica);
+                lettureReplica.increment();
+                return connessione;
+            } catch (SQLException e) {
+                cambiaStato(false, "connessione fallita: " + e.getMessage());
+            }
+        }
+        letturePrimaria.increment();
+        return apertura.apri(primaria);
+    }
+
+    /**
+     * In una transazione di scrittura: al commit riparte la finestra in cui
+     * le letture restano sul primario.
+     */
+    private void registraScrittura() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ultimaScrittura = orologio.getAsLong();
+                }
+            });
+        }
+    }
+
+    /**
+     * Misura il ritardo della replica e decide se usarla per le letture.
+     */
+    public void verificaReplica() {
+        try (Connection connessione = replica.getConnection();
+             Statement istruzione = connessione.createStatement()) {
+            istruzione.setQueryTimeout(TIMEOUT_CONTROLLO_SECONDI);
+            try (ResultSet risultato = istruzione.executeQuery(queryRitardo)) {
+                risultato.next();
+                ritardoSecondi = risultato.getDouble(1);
+            }
+            boolean entroLimite = ritardoSecondi * 1_000_000_000L <= ritardoMaxNanos;
+            cambiaStato(entroLimite, "ritardo " + ritardoSecondi + " s");
+        } catch (SQLException e) {
+            ritardoSecondi = Double.NaN;
+            cambiaStato(false, "non raggiungibile: " + e.getMessage());
+        }
+    }
+
+    public boolean isReplicaUtilizzabile() {
+        return replicaUtilizzabile;
+    }
+
+    private void cambiaStato(boolean utilizzabile, String motivo) {
+        if (replicaUtilizzabile != utilizzabile) {
+            replicaUtilizzabile = utilizzabile;
+            if (utilizzabile) {
+                logger.info("Letture di nuovo sulla replica ({})", motivo);
+            } else {
+                logger.warn("Letture spostate sul database primario: replica {}", motivo);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Apertura {
+        Connection apri(DataSource dataSource) throws SQLException;
+    }
+}
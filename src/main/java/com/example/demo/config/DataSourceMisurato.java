@@ -0,0 +1,242 @@
+package com.example.demo.config;
+
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Proxy JDBC leggero che misura ogni istruzione SQL eseguita.
+ *
+ * FUNZIONAMENTO:
+ * - DataSource → Connection → Statement sono avvolti da proxy JDK (nessuna dipendenza esterna)
+ * - Ogni execute/executeQuery/executeUpdate/executeBatch viene cronometrato
+ * - Conteggio e tempo si sommano al ContatoreSql della richiesta HTTP corrente
+ *   (ThreadLocal aperto da FiltroBudgetSql); fuori da una richiesta (job schedulati)
+ *   non si conta nulla ma le query lente vengono comunque segnalate
+ * - I task che la richiesta passa a un esecutore (es: widget della dashboard)
+ *   contano sullo stesso ContatoreSql se avvolti con ContatoreSql.propaga
+ *
+ * QUERY LENTE:
+ * Sopra la soglia configurata viene notificata la "forma" della query: SQL con
+ * i segnaposto "?" e i TIPI dei parametri (es: LocalDateTime, String), mai i valori,
+ * così nei log non finiscono email o telefoni dei clienti.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public final class DataSourceMisurato {
+
+    /**
+     * Query che ha superato la soglia di lentezza.
+     *
+     * @param sql       SQL con segnaposto, come preparato da Hibernate
+     * @param parametri Tipi dei parametri in ordine (es: "(LocalDateTime, String)")
+     * @param durata    Tempo di esecuzione
+     * @param endpoint  Richiesta HTTP in corso, null se fuori da una richiesta
+     */
+    public record QueryLenta(String sql, String parametri, Duration durata, String endpoint) {}
+
+    /**
+     * Istruzioni SQL e tempo DB accumulati da una richiesta HTTP.
+     * Contatori atomici: i task propagati scrivono da più thread insieme.
+     */
+    public static final class ContatoreSql {
+        private static final ThreadLocal<ContatoreSql> CORRENTE = new ThreadLocal<>();
+
+        private final String endpoint;
+        private final AtomicInteger istruzioni = new AtomicInteger();
+        private final AtomicLong nanos = new AtomicLong();
+
+        private ContatoreSql(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * Inizia il conteggio per il thread corrente.
+         */
+        public static ContatoreSql inizia(String endpoint) {
+            ContatoreSql contatore = new ContatoreSql(endpoint);
+            CORRENTE.set(contatore);
+            return contatore;
+        }
+
+        /**
+         * Chiude il conteggio del thread corrente (da chiamare sempre in un finally).
+         */
+        public static void termina() {
+            CORRENTE.remove();
+        }
+
+        static ContatoreSql corrente() {
+            return CORRENTE.get();
+        }
+
+        /**
+         * Avvolge un task da eseguire in un altro thread (TaskDecorator degli
+         * esecutori): le sue istruzioni si sommano al contatore del thread che
+         * lo ha creato. Fuori da una richiesta il task resta com'è.
+         */
+        public static Runnable propaga(Runnable task) {
+            ContatoreSql contatore = CORRENTE.get();
+            if (contatore == null) {
+                return task;
+            }
+            return () -> {
+                ContatoreSql precedente = CORRENTE.get();
+                CORRENTE.set(contatore);
+                try {
+                    task.run();
+                } finally {
+                    // Thread di un pool: ritorna com'era prima del task
+                    if (precedente != null) {
+                        CORRENTE.set(precedente);
+                    } else {
+                        CORRENTE.remove();
+                    }
+                }
+            };
+        }
+
+        public int getIstruzioni() {
+            return istruzioni.get();
+        }
+
+        public Duration getTempo() {
+            return Duration.ofNanos(nanos.get());
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+    }
+
+    private DataSourceMisurato() {
+    }
+
+    /**
+     * Avvolge un DataSource: tutte le interfacce dell'originale restano visibili
+     * (es: HikariConfigMXBean per le metriche del pool) e unwrap() arriva all'originale.
+     *
+     * @param originale   DataSource da misurare
+     * @param sogliaLenta Durata oltre la quale una query è considerata lenta
+     * @param suLenta     Notifica delle query lente (log, metriche)
+     */
+    public static DataSource avvolgi(DataSource originale, Duration sogliaLenta, Consumer<QueryLenta> suLenta) {
+        Class<?>[] interfacce = ClassUtils.getAllInterfacesForClass(originale.getClass(), originale.getClass().getClassLoader());
+        return (DataSource) Proxy.newProxyInstance(
+            DataSourceMisurato.class.getClassLoader(),
+            interfacce,
+            new Avvolgente(originale, new Misuratore(sogliaLenta.toNanos(), suLenta)));
+    }
+
+    private record Misuratore(long sogliaLentaNanos, Consumer<QueryLenta> suLenta) {
+
+        void registra(String sql, Map<Integer, String> parametri, long nanos) {
+            ContatoreSql contatore = ContatoreSql.corrente();
+            if (contatore != null) {
+                contatore.istruzioni.incrementAndGet();
+                contatore.nanos.addAndGet(nanos);
+            }
+            if (nanos >= sogliaLentaNanos) {
+                suLenta.accept(new QueryLenta(sql, forma(parametri), Duration.ofNanos(nanos),
+                    contatore != null ? contatore.endpoint : null));
+            }
+        }
+
+        private static String forma(Map<Integer, String> parametri) {
+            StringJoiner tipi = new StringJoiner(", ", "(", ")");
+            parametri.values().forEach(tipi::add);
+            return tipi.toString();
+        }
+    }
+
+    /**
+     * DataSource e Connection: avvolge gli oggetti JDBC restituiti.
+     */
+    private record Avvolgente(Object originale, Misuratore misuratore) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("unwrap") && args != null && ((Class<?>) args[0]).isInstance(originale)) {
+                return originale;
+            }
+            Object risultato = chiama(originale, method, args);
+            Class<?> tipo = method.getReturnType();
+            if (risultato instanceof Connection) {
+                return Proxy.newProxyInstance(DataSourceMisurato.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, new Avvolgente(risultato, misuratore));
+            }
+            if (risultato instanceof Statement && Statement.class.isAssignableFrom(tipo)) {
+                // Per prepareStatement/prepareCall l'SQL è noto subito, per createStatement all'esecuzione
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                Class<?> interfaccia = CallableStatement.class.isAssignableFrom(tipo) ? CallableStatement.class
+                    : PreparedStatement.class.isAssignableFrom(tipo) ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(DataSourceMisurato.class.getClassLoader(),
+                    new Class<?>[] {interfaccia}, new IstruzioneMisurata((Statement) risultato, sql, misuratore));
+            }
+            return risultato;
+        }
+    }
+
+    /**
+     * Statement/PreparedStatement: cronometra le esecuzioni e annota i tipi dei parametri.
+     */
+    private static final class IstruzioneMisurata implements InvocationHandler {
+        private final Statement originale;
+        private final String sqlPreparato;
+        private final Misuratore misuratore;
+        private final Map<Integer, String> parametri = new TreeMap<>();
+
+        IstruzioneMisurata(Statement originale, String sqlPreparato, Misuratore misuratore) {
+            this.originale = originale;
+            this.sqlPreparato = sqlPreparato;
+            this.misuratore = misuratore;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            if (nome.startsWith("execute")) {
+                long inizio = System.nanoTime();
+                try {
+                    return chiama(originale, method, args);
+                } finally {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : sqlPreparato;
+                    misuratore.registra(sql, parametri, System.nanoTime() - inizio);
+                }
+            }
+            if (nome.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                parametri.put(indice, nome.equals("setNull") || args[1] == null
+                    ? "null" : args[1].getClass().getSimpleName());
+            } else if (nome.equals("clearParameters")) {
+                parametri.clear();
+            } else if (nome.equals("unwrap") && args != null && ((Class<?>) args[0]).isInstance(originale)) {
+                return originale;
+            }
+            return chiama(originale, method, args);
+        }
+    }
+
+    private static Object chiama(Object destinatario, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(destinatario, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
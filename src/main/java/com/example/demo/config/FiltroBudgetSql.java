@@ -0,0 +1,104 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Filtro che conta le istruzioni SQL e il tempo DB di ogni richiesta HTTP.
+ *
+ * Per ogni richiesta:
+ * - Apre il ContatoreSql del thread (riempito da DataSourceMisurato)
+ * - A fine richiesta (vista Thymeleaf compresa, dove scattano i caricamenti lazy)
+ *   registra le metriche per endpoint:
+ *     http.sql.istruzioni (DistributionSummary) e http.sql.tempo (Timer),
+ *     con tag metodo + uri (pattern del controller, es: /lavori/{id})
+ * - Se si supera il budget di istruzioni o di tempo DB: log WARN e
+ *   contatore http.sql.fuori.budget → così un N+1 diventa un numero visibile
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public class FiltroBudgetSql extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FiltroBudgetSql.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int budgetIstruzioni;
+    private final Duration budgetTempo;
+
+    public FiltroBudgetSql(MeterRegistry meterRegistry, int budgetIstruzioni, Duration budgetTempo) {
+        this.meterRegistry = meterRegistry;
+        this.budgetIstruzioni = budgetIstruzioni;
+        this.budgetTempo = budgetTempo;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Risorse statiche: nessun accesso al database.
+        // Esportazioni CSV: una sola query, ma il tempo DB cresce con le righe per costruzione
+        String uri = request.getRequestURI();
+        return uri.startsWith("/css/") || uri.startsWith("/js/")
+            || uri.startsWith("/images/") || uri.startsWith("/uploads/")
+            || uri.startsWith("/admin/export/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        DataSourceMisurato.ContatoreSql contatore =
+            DataSourceMisurato.ContatoreSql.inizia(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            DataSourceMisurato.ContatoreSql.termina();
+            registra(request, contatore);
+        }
+    }
+
+    private void registra(HttpServletRequest request, DataSourceMisurato.ContatoreSql contatore) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Solo pattern noti come tag: gli URI reali (con id) esploderebbero la cardinalità
+        String uri = pattern != null ? pattern.toString() : "NON_MAPPATO";
+        String metodo = request.getMethod();
+
+        DistributionSummary.builder("http.sql.istruzioni")
+            .description("Istruzioni SQL eseguite per richiesta HTTP")
+            .tag("metodo", metodo)
+            .tag("uri", uri)
+            .register(meterRegistry)
+            .record(contatore.getIstruzioni());
+        Timer.builder("http.sql.tempo")
+            .description("Tempo speso nel database per richiesta HTTP")
+            .tag("metodo", metodo)
+            .tag("uri", uri)
+            .register(meterRegistry)
+            .record(contatore.getTempo());
+
+        boolean troppeIstruzioni = contatore.getIstruzioni() > budgetIstruzioni;
+        boolean troppoTempo = contatore.getTempo().compareTo(budgetTempo) > 0;
+        if (troppeIstruzioni || troppoTempo) {
+            Counter.builder("http.sql.fuori.budget")
+                .description("Richieste HTTP oltre il budget SQL")
+                .tag("metodo", metodo)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .increment();
+            logger.warn("Budget SQL superato: {} → {} istruzioni (budget {}), {} ms nel DB (budget {} ms)",
+                contatore.getEndpoint(), contatore.getIstruzioni(), budgetIstruzioni,
+                contatore.getTempo().toMillis(), budgetTempo.toMillis());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Rileva i thread virtuali "inchiodati" al carrier (pinning) tramite JFR.
+ *
+ * Un thread virtuale che si blocca su I/O dentro un blocco synchronized (o in
+ * codice nativo) non libera il thread di piattaforma sottostante: con molti casi
+ * simili si torna ai limiti del pool classico. JFR emette l'evento
+ * jdk.VirtualThreadPinned per ogni blocco più lungo della soglia.
+ *
+ * Attivo solo con spring.threads.virtual.enabled=true.
+ *
+ * RISULTATO:
+ * - Metrica thread.virtuali.pinning con tag "origine" (primo metodo del nostro codice
+ *   nello stack, altrimenti il primo frame)
+ * - Log WARN con lo stack la PRIMA volta per ogni origine (poi solo conteggio)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class MonitorPinning {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitorPinning.class);
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+    private static final String PACCHETTO_APPLICAZIONE = "com.example.demo.";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${thread.virtuali.pinning.soglia-ms:20}")
+    private long sogliaMs;
+
+    private final Set<String> originiSegnalate = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    @PostConstruct
+    void avvia() {
+        stream = new RecordingStream();
+        stream.enable(EVENTO).withThreshold(Duration.ofMillis(sogliaMs)).withStackTrace();
+        stream.onEvent(EVENTO, this::registra);
+        stream.startAsync();
+        logger.info("Monitor pinning thread virtuali attivo (soglia {} ms)", sogliaMs);
+    }
+
+    @PreDestroy
+    void chiudi() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    void registra(RecordedEvent evento) {
+        List<RecordedFrame> frames = evento.getStackTrace() != null
+            ? evento.getStackTrace().getFrames() : List.of();
+        String origine = origine(frames);
+        Counter.builder("thread.virtuali.pinning")
+            .description("Thread virtuali bloccati sul carrier oltre la soglia")
+            .tag("origine", origine)
+            .register(meterRegistry)
+            .increment();
+        if (originiSegnalate.add(origine)) {
+            logger.warn("Thread virtuale bloccato sul carrier per {} ms in {}:\n{}",
+                evento.getDuration().toMillis(), origine,
+                frames.stream().limit(12).map(f -> "    at " + descrivi(f)).collect(Collectors.joining("\n")));
+        }
+    }
+
+    private static String origine(List<RecordedFrame> frames) {
+        return frames.stream()
+            .filter(f -> f.getMethod().getType().getName().startsWith(PACCHETTO_APPLICAZIONE))
+            .findFirst()
+            .or(() -> frames.stream().findFirst())
+            .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName())
+            .orElse("sconosciuta");
+    }
+
+    private static String descrivi(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+            + (frame.getLineNumber() > 0 ? ":" + frame.getLineNumber() : "");
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Monitoraggio SQL per richiesta: budget di istruzioni e query lente.
+ *
+ * COMPONENTI:
+ * - DataSourceMisurato: proxy sul DataSource che cronometra ogni istruzione
+ * - FiltroBudgetSql: conta istruzioni e tempo DB di ogni richiesta HTTP
+ *
+ * CONFIGURAZIONE (application.properties):
+ * - sql.monitoraggio.attivo       → true/false (default true)
+ * - sql.budget.istruzioni         → istruzioni massime per richiesta (default 25)
+ * - sql.budget.tempo-ms           → tempo DB massimo per richiesta (default 500)
+ * - sql.query-lenta.soglia-ms     → soglia di log delle query lente (default 200)
+ *
+ * Esempio: la dashboard admin che carica tutte le tabelle con findAll() e poi
+ * le collezioni lazy dei lavori appare come "GET /admin/dashboard → 40 istruzioni".
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql.monitoraggio.attivo", havingValue = "true", matchIfMissing = true)
+public class MonitoraggioSqlConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitoraggioSqlConfig.class);
+
+    /**
+     * Avvolge il DataSource appena creato (prima che Hibernate lo usi).
+     * Metodo statico: i BeanPostProcessor vanno creati prima degli altri bean.
+     */
+    @Bean
+    static BeanPostProcessor dataSourceMisuratoPostProcessor(Environment environment,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        Duration soglia = Duration.ofMillis(environment.getProperty("sql.query-lenta.soglia-ms", Long.class, 200L));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Solo i pool che aprono davvero connessioni: instradamento e proxy
+                // della replica (ReplicaDataSourceConfig) non si misurano due volte
+                if (bean instanceof DataSource dataSource
+                        && !(bean instanceof DataSourceInstradato) && !(bean instanceof DelegatingDataSource)) {
+                    return DataSourceMisurato.avvolgi(dataSource, soglia, query -> segnalaLenta(query, meterRegistry));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroBudgetSql> filtroBudgetSql(
+            MeterRegistry meterRegistry,
+            @Value("${sql.budget.istruzioni:25}") int budgetIstruzioni,
+            @Value("${sql.budget.tempo-ms:500}") long budgetTempoMs) {
+        FilterRegistrationBean<FiltroBudgetSql> registrazione = new FilterRegistrationBean<>(
+            new FiltroBudgetSql(meterRegistry, budgetIstruzioni, Duration.ofMillis(budgetTempoMs)));
+        // Esterno a tutti gli altri filtri (sicurezza compresa)
+        registrazione.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registrazione;
+    }
+
+    private static void segnalaLenta(DataSourceMisurato.QueryLenta query, ObjectProvider<MeterRegistry> meterRegistry) {
+        logger.warn("Query lenta ({} ms) [{}]: {} parametri {}",
+            query.durata().toMillis(),
+            query.endpoint() != null ? query.endpoint() : "fuori richiesta",
+            query.sql(),
+            query.parametri());
+        meterRegistry.ifAvailable(registry -> registry.counter("sql.query.lente").increment());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Database primario + replica in sola lettura, attivi con datasource.replica.attiva=true.
+ *
+ * Senza questa proprietà resta il DataSource unico creato da Spring Boot.
+ * Con la replica ci sono due pool Hikari separati ("primaria" con le
+ * proprietà spring.datasource.*, "replica" con datasource.replica.*) e il
+ * DataSource usato da JPA, Flyway e JdbcTemplate li sceglie per transazione
+ * (DataSourceInstradato). Flyway migra solo il primario: la replica riceve
+ * lo schema dalla replicazione del database.
+ *
+ * CONFIGURAZIONE (application.properties):
+ * - datasource.replica.url / username / password  → connessione alla replica
+ * - datasource.replica.hikari.*                    → pool della replica (es: maximum-pool-size)
+ * - datasource.replica.ritardo-max-ms              → ritardo oltre cui si legge dal primario (default 2000)
+ * - datasource.replica.controllo-ms                → intervallo di misura del ritardo (default 5000)
+ * - datasource.replica.query-ritardo               → query che restituisce il ritardo in secondi
+ *   (default per PostgreSQL in streaming replication; "select 0" per due H2 in locale)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.attiva", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    // 0 se la replica è allineata (o è un primario), altrimenti secondi dall'ultima transazione applicata
+    private static final String RITARDO_POSTGRESQL = """
+        select case
+            when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+            else extract(epoch from now() - pg_last_xact_replay_timestamp())
+        end""";
+
+    @Autowired
+    private ObjectProvider<DataSourceInstradato> dataSourceInstradato;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties proprieta) {
+        HikariDataSource primaria = proprieta.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaria.setPoolName("primaria");
+        return primaria;
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource dataSourceReplica(
+            @Value("${datasource.replica.url}") String url,
+            @Value("${datasource.replica.username:}") String username,
+            @Value("${datasource.replica.password:}") String password) {
+        HikariDataSource replica = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(url)
+            .username(username)
+            .password(password)
+            .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        // Replica irraggiungibile: si ripiega presto sul primario invece di attendere 30 s,
+        // e se è spenta all'avvio il pool parte comunque (l'applicazione usa il primario)
+        replica.setConnectionTimeout(2_000);
+        replica.setInitializationFailTimeout(-1);
+        return replica;
+    }
+
+    @Bean
+    public DataSourceInstradato dataSourceInstradato(
+            @Qualifier("dataSourcePrimaria") DataSource primaria,
+            @Qualifier("dataSourceReplica") DataSource replica,
+            @Value("${datasource.replica.ritardo-max-ms:2000}") long ritardoMaxMs,
+            @Value("${datasource.replica.query-ritardo:}") String queryRitardo,
+            MeterRegistry meterRegistry) {
+        return new DataSourceInstradato(primaria, replica, Duration.ofMillis(ritardoMaxMs),
+            queryRitardo.isBlank() ? RITARDO_POSTGRESQL : queryRitardo, meterRegistry);
+    }
+
+    /**
+     * DataSource dell'applicazione: la connessione vera (primario o replica)
+     * si sceglie alla prima istruzione, quando readOnly è già impostato.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceInstradato dataSourceInstradato) {
+        return new LazyConnectionDataSourceProxy(dataSourceInstradato);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.controllo-ms:5000}")
+    public void controllaReplica() {
+        dataSourceInstradato.ifAvailable(DataSourceInstradato::verificaReplica);
+    }
+}
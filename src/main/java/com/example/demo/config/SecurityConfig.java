@@ -24,6 +24,7 @@ import org.springframework.security.web.SecurityFilterChain;
  * ARCHITETTURA SICUREZZA:
  * - Tutto il sito pubblico (/, /lavori, /contatti, /prenota) → LIBERO
  * - Area admin (/admin/**) → RICHIEDE LOGIN con ruolo ADMIN
+ * - Feed calendario (/admin/calendario.ics) → token segreto nell'URL
  * - Risorse statiche (CSS, JS, immagini, uploads) → LIBERE
  * 
  * IMPORTANTE: Le credenziali admin sono salvate IN MEMORIA (non database).
@@ -40,8 +41,9 @@ public class SecurityConfig {
      * Configura la catena di filtri di sicurezza (chi può accedere a cosa).
      * 
      * REGOLE DI ACCESSO:
-     * 1. /admin/** → Solo utenti autenticati con ruolo ADMIN
-     * 2. Tutto il resto → Pubblico (nessuna autenticazione richiesta)
+     * 1. /admin/calendario.ics → Libero, il controller verifica il token
+     * 2. /admin/** → Solo utenti autenticati con ruolo ADMIN
+     * 3. Tutto il resto → Pubblico (nessuna autenticazione richiesta)
      * 
      * FORM LOGIN:
      * - Pagina login personalizzata: /admin/login
@@ -65,6 +67,8 @@ public class SecurityConfig {
         http
             // CONFIGURAZIONE AUTORIZZAZIONI URL
             .authorizeHttpRequests(authorize -> authorize
+                // Feed calendario: protetto dal token nell'URL (i calendari non fanno login)
+                .requestMatchers("/admin/calendario.ics").permitAll()
                 // Area admin protetta - solo per utenti con ruolo ADMIN
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 // Sito pubblico e risorse statiche - accessibili a tutti
@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Esecutori applicativi che seguono la modalità thread virtuali.
+ *
+ * MODALITÀ (opt-in, variabile d'ambiente VIRTUAL_THREADS=true):
+ * spring.threads.virtual.enabled=true fa girare su thread virtuali le richieste
+ * Tomcat, i task @Scheduled e l'esecutore @Async di Spring. Gli esecutori creati
+ * a mano dai nostri service (campagne email, backup manuale) passano da qui
+ * per fare lo stesso.
+ *
+ * NON su thread virtuali: il pool di compressione dei backup (lavoro di CPU,
+ * numero di thread = core: i thread virtuali non darebbero nulla).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public final class ThreadVirtuali {
+
+    private ThreadVirtuali() {
+    }
+
+    /**
+     * Esecutore a thread singolo (i task vengono eseguiti uno dopo l'altro).
+     *
+     * @param nome     Nome del thread (visibile in log e thread dump)
+     * @param virtuale true per un thread virtuale, false per un thread di piattaforma daemon
+     */
+    public static ExecutorService singoloThread(String nome, boolean virtuale) {
+        ThreadFactory fabbrica = virtuale
+            ? Thread.ofVirtual().name(nome).factory()
+            : Thread.ofPlatform().name(nome).daemon(true).factory();
+        return Executors.newSingleThreadExecutor(fabbrica);
+    }
+}
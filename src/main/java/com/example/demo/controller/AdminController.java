@@ -4,18 +4,29 @@ import com.example.demo.model.Lavoro;
 import com.example.demo.model.Appuntamento;
 import com.example.demo.model.Contatto;
 import com.example.demo.model.Candidatura;
+import com.example.demo.model.CandidaturaRiga;
+import com.example.demo.repository.FiltroCandidature;
+import com.example.demo.service.FileStorageService;
 import com.example.demo.service.LavoroService;
 import com.example.demo.service.AppuntamentoService;
+import com.example.demo.service.CanaleEventiAdmin;
 import com.example.demo.service.ContattoService;
 import com.example.demo.service.CandidaturaService;
-import com.example.demo.service.StatisticheService;
-import com.example.demo.service.BackupService;
+import com.example.demo.service.EstrazioneCvService;
+import com.example.demo.service.DashboardAggregationService;
+import com.example.demo.service.DashboardService;
+import com.example.demo.service.BackupJobService;
+import com.example.demo.service.BackupRestoreService;
 import com.example.demo.service.ReminderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.File;
@@ -23,8 +34,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Controller
@@ -41,19 +55,40 @@ public class AdminController {
     private ContattoService contattoService;
     
     @Autowired
-    private StatisticheService statisticheService;
+    private DashboardService dashboardService;
+
+    @Autowired
+    private DashboardAggregationService dashboardAggregationService;
+
+    @Autowired
+    private CanaleEventiAdmin canaleEventiAdmin;
+    
+    @Autowired
+    private BackupJobService backupJobService;
     
     @Autowired
-    private BackupService backupService;
+    private BackupRestoreService backupRestoreService;
     
     @Autowired
     private ReminderService reminderService;
     
     @Autowired
     private CandidaturaService candidaturaService;
+
+    @Autowired
+    private EstrazioneCvService estrazioneCvService;
+    
+    @Autowired
+    private FileStorageService fileStorageService;
     
     private static final String UPLOAD_DIR = "src/main/resources/static/uploads/";
 
+    // Risultati massimi della ricerca full-text candidature
+    private static final int RISULTATI_RICERCA_CANDIDATURE = 200;
+
+    // Righe per pagina della lista candidature
+    private static final int CANDIDATURE_PER_PAGINA = 50;
+
     @GetMapping("/login")
     public String loginPage(@RequestParam(value = "error", required = false) String error, Model model) {
         if (error != null) {
@@ -62,34 +97,143 @@ public class AdminController {
         return "admin/login";
     }
 
+    /**
+     * Dashboard: solo il guscio della pagina, i widget arrivano con /admin/dashboard/dati
+     * (caricati in parallelo, vedi DashboardAggregationService). I singoli widget
+     * restano disponibili anche da /admin/dashboard/widget/*
+     */
     @GetMapping("/dashboard")
-    public String dashboard(Model model) {
-        // Dati base per la dashboard
-        model.addAttribute("appuntamenti", appuntamentoService.getAllAppuntamenti());
-        model.addAttribute("contatti", contattoService.getContattiNonLetti());
-        model.addAttribute("lavori", lavoroService.getAllLavori());
-        
-        // Candidature
-        model.addAttribute("candidature", candidaturaService.trovaTutte());
-        model.addAttribute("candidatureStats", candidaturaService.getStatistiche());
-        
-        // NUOVO: Statistiche complete per analytics
-        model.addAttribute("stats", statisticheService.getStatisticheDashboard());
-        model.addAttribute("statsMensili", statisticheService.getStatisticheMensili(6)); // Ultimi 6 mesi
-        
+    public String dashboard() {
         return "admin/dashboard";
     }
+
+    /**
+     * Tutti i widget della dashboard in una risposta, caricati in parallelo.
+     * Un widget lento o in errore torna come { "disponibile": false } senza ritardare gli altri.
+     */
+    @GetMapping("/dashboard/dati")
+    @ResponseBody
+    public Map<String, Object> datiDashboard() {
+        return dashboardAggregationService.caricaTutti();
+    }
+
+    /**
+     * Eventi in tempo reale (Server-Sent Events): nuove prenotazioni, contatti e candidature.
+     * Alla riconnessione il browser invia Last-Event-ID e riceve gli eventi persi
+     * (o "ricarica" se il server nel frattempo è stato riavviato).
+     */
+    @GetMapping(value = "/eventi", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter eventi(@RequestHeader(value = "Last-Event-ID", required = false) String ultimoIdRicevuto) {
+        return canaleEventiAdmin.apri(ultimoIdRicevuto);
+    }
+
+    /**
+     * Widget KPI: contatori di appuntamenti, contatti, candidature e lavori
+     */
+    @GetMapping("/dashboard/widget/kpi")
+    @ResponseBody
+    public Map<String, Object> widgetKpi() {
+        return dashboardService.kpi();
+    }
+
+    /**
+     * Widget prossimi appuntamenti (da oggi, al massimo 50)
+     */
+    @GetMapping("/dashboard/widget/appuntamenti")
+    @ResponseBody
+    public List<Map<String, Object>> widgetAppuntamenti(@RequestParam(value = "limite", defaultValue = "10") int limite) {
+        return dashboardService.prossimiAppuntamenti(limite);
+    }
+
+    /**
+     * Widget contatti non letti (più recenti, al massimo 50)
+     */
+    @GetMapping("/dashboard/widget/contatti")
+    @ResponseBody
+    public List<Map<String, Object>> widgetContatti(@RequestParam(value = "limite", defaultValue = "10") int limite) {
+        return dashboardService.contattiNonLetti(limite);
+    }
+
+    /**
+     * Widget trend mensile appuntamenti (al massimo 24 mesi)
+     */
+    @GetMapping("/dashboard/widget/trend")
+    @ResponseBody
+    public List<Map<String, Object>> widgetTrend(@RequestParam(value = "mesi", defaultValue = "6") int mesi) {
+        return dashboardService.trend(mesi);
+    }
+
+    /**
+     * Widget ultime candidature (al massimo 50)
+     */
+    @GetMapping("/dashboard/widget/candidature")
+    @ResponseBody
+    public List<CandidaturaRiga> widgetCandidature(@RequestParam(value = "limite", defaultValue = "5") int limite) {
+        return dashboardService.ultimeCandidature(limite);
+    }
     
     /**
      * Endpoint per eseguire backup manuale on-demand.
+     * Il backup parte in background: la dashboard ne segue l'avanzamento
+     * interrogando /admin/backup/stato. Click ripetuti non avviano un secondo backup.
      */
     @PostMapping("/backup")
     public String eseguiBackup(RedirectAttributes redirectAttributes) {
-        boolean successo = backupService.backupManuale();
-        if (successo) {
-            redirectAttributes.addFlashAttribute("success", "✅ Backup eseguito con successo!");
-        } else {
-            redirectAttributes.addFlashAttribute("error", "❌ Errore durante il backup. Controlla i log.");
+        // avvia() restituisce sempre un job in corso: l'esito arriva da /admin/backup/stato
+        BackupJobService.StatoBackup stato = backupJobService.avvia();
+        redirectAttributes.addFlashAttribute("success", "⏳ Backup avviato in background (job #" + stato.id() + ")");
+        return "redirect:/admin/dashboard";
+    }
+    
+    /**
+     * Stato dell'ultimo job (backup manuale o verifica) in JSON (polling dalla dashboard).
+     * 204 se non è mai stato avviato un job.
+     */
+    @GetMapping("/backup/stato")
+    @ResponseBody
+    public ResponseEntity<BackupJobService.StatoBackup> statoBackup() {
+        BackupJobService.StatoBackup stato = backupJobService.stato();
+        return stato != null ? ResponseEntity.ok(stato) : ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * Verifica l'integrità di un archivio di backup (CRC + SHA-256 del manifest).
+     * Senza parametro verifica gli ultimi archivi database e uploads.
+     * La verifica parte in background come il backup: avanzamento ed esito
+     * arrivano da /admin/backup/stato.
+     */
+    @PostMapping("/backup/verifica")
+    public String verificaBackup(@RequestParam(value = "archivio", required = false) String archivio,
+                                 RedirectAttributes redirectAttributes) {
+        try {
+            BackupJobService.StatoBackup stato = backupJobService.avviaVerifica(archivio);
+            if (stato.tipo() == BackupJobService.TipoJob.VERIFICA) {
+                redirectAttributes.addFlashAttribute("success", "🔍 Verifica avviata in background (job #" + stato.id() + ")");
+            } else {
+                redirectAttributes.addFlashAttribute("error", "⏳ Backup #" + stato.id() + " in corso: riprova la verifica al termine");
+            }
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "Errore nella verifica: " + e.getMessage());
+        }
+        return "redirect:/admin/dashboard";
+    }
+    
+    /**
+     * Ripristina database o uploads da un archivio di backup scelto dall'admin.
+     * Il tipo è dedotto dal nome (…_database.zip / …_uploads.zip).
+     */
+    @PostMapping("/backup/ripristina")
+    public String ripristinaBackup(@RequestParam("archivio") String archivio, RedirectAttributes redirectAttributes) {
+        try {
+            Path path = backupRestoreService.risolviArchivio(archivio);
+            BackupRestoreService.EsitoRipristino esito = archivio.endsWith("_database.zip")
+                ? backupRestoreService.ripristinaDatabase(path)
+                : backupRestoreService.ripristinaUploads(path);
+            redirectAttributes.addFlashAttribute("success", "♻️ Ripristino " + esito.tipo() + " completato da "
+                + esito.archivio() + " (" + esito.entryRipristinate() + " file)");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "❌ Ripristino non eseguito: " + e.getMessage());
         }
         return "redirect:/admin/dashboard";
     }
@@ -275,26 +419,82 @@ public class AdminController {
     // === GESTIONE CANDIDATURE ===
     
     /**
-     * Lista tutte le candidature
+     * Lista candidature, a pagine di CANDIDATURE_PER_PAGINA righe (più recenti prima)
+     *
+     * Filtri combinabili: stato, posizione, livello, provincia, disponibilità.
+     * Pagine successive con "dopoData" + "dopoId" (ultima riga della pagina
+     * precedente): paginazione a chiave, ogni pagina costa come la prima.
+     *
+     * Con "q" (es: ?q=muratore cartongesso patentino) mostra i risultati della
+     * ricerca full-text ordinati per rilevanza, sempre filtrabili per stato.
+     * Con "duplicati=true" mostra solo le candidature segnalate come possibili duplicati,
+     * con la stessa paginazione e gli stessi filtri della lista.
      */
     @GetMapping("/candidature")
     public String gestioneCandidature(
             @RequestParam(value = "stato", required = false) String stato,
+            @RequestParam(value = "posizione", required = false) String posizione,
+            @RequestParam(value = "livello", required = false) String livello,
+            @RequestParam(value = "provincia", required = false) String provincia,
+            @RequestParam(value = "disponibilita", required = false) String disponibilita,
+            @RequestParam(value = "dopoData", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dopoData,
+            @RequestParam(value = "dopoId", required = false) Long dopoId,
+            @RequestParam(value = "q", required = false) String ricerca,
+            @RequestParam(value = "duplicati", defaultValue = "false") boolean soloDuplicati,
             Model model) {
         
-        List<Candidatura> candidature;
-        if (stato != null && !stato.isEmpty()) {
-            candidature = candidaturaService.trovaPerStato(stato);
+        FiltroCandidature filtro = new FiltroCandidature(stato, posizione, livello, provincia, disponibilita,
+            soloDuplicati);
+        List<CandidaturaRiga> candidature;
+        if (!soloDuplicati && ricerca != null && !ricerca.isBlank()) {
+            candidature = candidaturaService.cerca(ricerca, filtro.stato(), RISULTATI_RICERCA_CANDIDATURE);
         } else {
-            candidature = candidaturaService.trovaTutte();
+            CandidaturaService.PaginaCandidature pagina =
+                candidaturaService.trovaPagina(filtro, dopoData, dopoId, CANDIDATURE_PER_PAGINA);
+            candidature = pagina.righe();
+            model.addAttribute("pagina", pagina);
         }
         
         model.addAttribute("candidature", candidature);
         model.addAttribute("stats", candidaturaService.getStatistiche());
-        model.addAttribute("statoFiltro", stato);
+        model.addAttribute("filtro", filtro);
+        model.addAttribute("statoFiltro", filtro.stato());
+        model.addAttribute("primaPagina", dopoId == null);
+        model.addAttribute("ricerca", ricerca);
+        model.addAttribute("soloDuplicati", soloDuplicati);
+        model.addAttribute("numeroDuplicati", candidaturaService.contaPossibiliDuplicati());
         
         return "admin/candidature";
     }
+
+    /**
+     * Ricerca full-text candidature in JSON (id, punteggio, termini trovati e dati principali)
+     *
+     * Esempio: GET /admin/candidature/cerca?q=muratore cartongesso patentino&stato=Nuovo&limite=20
+     */
+    @GetMapping("/candidature/cerca")
+    @ResponseBody
+    public List<Map<String, Object>> cercaCandidature(
+            @RequestParam("q") String ricerca,
+            @RequestParam(value = "stato", required = false) String stato,
+            @RequestParam(value = "limite", defaultValue = "20") int limite) {
+        return candidaturaService.cercaConPunteggio(ricerca, stato, Math.min(limite, RISULTATI_RICERCA_CANDIDATURE))
+            .stream()
+            .map(trovata -> {
+                CandidaturaRiga c = trovata.candidatura();
+                Map<String, Object> riga = new LinkedHashMap<>();
+                riga.put("id", c.id());
+                riga.put("nomeCompleto", c.getNomeCompleto());
+                riga.put("posizioneRichiesta", c.posizioneRichiesta());
+                riga.put("stato", c.stato());
+                riga.put("dataInvio", c.dataInvio());
+                riga.put("punteggio", Math.round(trovata.punteggio() * 1000) / 1000.0);
+                riga.put("terminiTrovati", trovata.terminiTrovati());
+                return riga;
+            })
+            .toList();
+    }
     
     /**
      * Dettaglio candidatura
@@ -304,6 +504,7 @@ public class AdminController {
         try {
             Candidatura candidatura = candidaturaService.trovaPerID(id);
             model.addAttribute("candidatura", candidatura);
+            model.addAttribute("testoCv", estrazioneCvService.trova(id).orElse(null));
             return "admin/dettaglio-candidatura";
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Candidatura non trovata");
@@ -329,6 +530,20 @@ public class AdminController {
         return "redirect:/admin/candidature/" + id;
     }
     
+    /**
+     * Toglie la segnalazione di possibile duplicato
+     */
+    @PostMapping("/candidature/{id}/non-duplicato")
+    public String ignoraDuplicatoCandidatura(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        try {
+            candidaturaService.ignoraDuplicato(id);
+            redirectAttributes.addFlashAttribute("success", "Segnalazione di duplicato rimossa");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "Errore nel rimuovere la segnalazione: " + e.getMessage());
+        }
+        return "redirect:/admin/candidature/" + id;
+    }
+    
     /**
      * Rispondi a una candidatura
      */
@@ -402,6 +617,7 @@ public class AdminController {
         // Salva il file
         Path filepath = Paths.get(UPLOAD_DIR + filename);
         Files.write(filepath, file.getBytes());
+        fileStorageService.registraDimensione("foto-lavoro", file.getSize());
 
         return filename;
     }
@@ -0,0 +1,57 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.CalendarioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Controller per l'abbonamento al calendario degli appuntamenti confermati.
+ *
+ * ENDPOINTS:
+ * - GET /admin/calendario.ics?token=... → Feed iCalendar (Google Calendar,
+ *   calendario di iPhone, Outlook: "aggiungi calendario da URL")
+ *
+ * ACCESSO:
+ * I calendari non sanno fare il login: l'URL è libero in SecurityConfig e
+ * protetto dal token (calendario.token). Token sbagliato o feed non
+ * configurato → 404, come se l'indirizzo non esistesse.
+ *
+ * RICHIESTE CONDIZIONALI:
+ * La risposta ha un ETag forte; se il calendario lo rimanda in If-None-Match
+ * e nulla è cambiato risponde 304 senza corpo (vedi CalendarioService).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Controller
+public class CalendarioController {
+
+    private static final MediaType TEXT_CALENDAR = MediaType.parseMediaType("text/calendar;charset=UTF-8");
+
+    @Autowired
+    private CalendarioService calendarioService;
+
+    @GetMapping("/admin/calendario.ics")
+    public ResponseEntity<byte[]> calendario(@RequestParam(required = false) String token, WebRequest webRequest) {
+        if (!calendarioService.isTokenValido(token)) {
+            return ResponseEntity.notFound().build();
+        }
+        CalendarioService.Feed feed = calendarioService.getFeed();
+        // Imposta 304 e l'ETag nella risposta se If-None-Match coincide
+        if (webRequest.checkNotModified(feed.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .contentType(TEXT_CALENDAR)
+            .eTag(feed.etag())
+            // Dati personali: nessuna copia nei proxy, e il client chiede sempre conferma
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .body(feed.corpo());
+    }
+}
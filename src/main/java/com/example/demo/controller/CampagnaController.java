@@ -0,0 +1,103 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Campagna;
+import com.example.demo.service.CampagnaService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.util.List;
+
+/**
+ * Controller admin per le campagne email.
+ *
+ * ENDPOINTS:
+ * - GET  /admin/campagne               → Elenco campagne + form nuova campagna
+ * - POST /admin/campagne               → Crea campagna (BOZZA)
+ * - POST /admin/campagne/{id}/avvia    → Avvia o riprende l'invio
+ * - POST /admin/campagne/{id}/pausa    → Mette in pausa
+ * - POST /admin/campagne/{id}/annulla  → Annulla
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Controller
+@RequestMapping("/admin/campagne")
+public class CampagnaController {
+
+    // Stati candidatura usati nell'area admin
+    private static final List<String> STATI_CANDIDATURA =
+        List.of("Nuovo", "In Valutazione", "Contattato", "Accettato", "Rifiutato");
+
+    @Autowired
+    private CampagnaService campagnaService;
+
+    @GetMapping
+    public String elenco(Model model) {
+        if (!model.containsAttribute("campagna")) {
+            model.addAttribute("campagna", new Campagna());
+        }
+        preparaModello(model);
+        return "admin/campagne";
+    }
+
+    @PostMapping
+    public String crea(@Valid @ModelAttribute("campagna") Campagna campagna,
+                       BindingResult result,
+                       Model model,
+                       RedirectAttributes redirectAttributes) {
+        if (result.hasErrors()) {
+            preparaModello(model);
+            return "admin/campagne";
+        }
+        try {
+            Campagna salvata = campagnaService.crea(campagna);
+            redirectAttributes.addFlashAttribute("success", "✅ Campagna \"" + salvata.getNome()
+                + "\" creata: " + campagnaService.contaDestinatari(salvata) + " destinatari");
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", "❌ Filtro destinatari non valido");
+        }
+        return "redirect:/admin/campagne";
+    }
+
+    @PostMapping("/{id}/avvia")
+    public String avvia(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        if (campagnaService.avvia(id)) {
+            redirectAttributes.addFlashAttribute("success", "📨 Invio campagna avviato");
+        } else {
+            redirectAttributes.addFlashAttribute("error", "❌ La campagna non può essere avviata nel suo stato attuale");
+        }
+        return "redirect:/admin/campagne";
+    }
+
+    @PostMapping("/{id}/pausa")
+    public String pausa(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        if (campagnaService.pausa(id)) {
+            redirectAttributes.addFlashAttribute("success", "⏸️ Campagna in pausa (dopo il blocco in corso)");
+        } else {
+            redirectAttributes.addFlashAttribute("error", "❌ La campagna non è in corso");
+        }
+        return "redirect:/admin/campagne";
+    }
+
+    @PostMapping("/{id}/annulla")
+    public String annulla(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        if (campagnaService.annulla(id)) {
+            redirectAttributes.addFlashAttribute("success", "🗑️ Campagna annullata");
+        } else {
+            redirectAttributes.addFlashAttribute("error", "❌ La campagna è già conclusa");
+        }
+        return "redirect:/admin/campagne";
+    }
+
+    private void preparaModello(Model model) {
+        model.addAttribute("campagne", campagnaService.trovaTutte());
+        model.addAttribute("statiAppuntamento", Appuntamento.StatoAppuntamento.values());
+        model.addAttribute("statiCandidatura", STATI_CANDIDATURA);
+    }
+}
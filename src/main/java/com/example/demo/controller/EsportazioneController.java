@@ -0,0 +1,62 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.EsportazioneCsvService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Controller admin per l'esportazione dei dati in CSV (apribile con Excel).
+ *
+ * ENDPOINTS:
+ * - GET /admin/export/appuntamenti.csv → Tutti gli appuntamenti
+ * - GET /admin/export/contatti.csv     → Tutti i messaggi di contatto
+ * - GET /admin/export/candidature.csv  → Tutte le candidature
+ *
+ * Il CSV viene scritto direttamente nella risposta mentre si leggono le
+ * righe (vedi EsportazioneCsvService): nessun file temporaneo, nessun limite
+ * di righe. Il nome del file contiene la data, es: appuntamenti-2025-10-20.csv
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Controller
+@RequestMapping("/admin/export")
+public class EsportazioneController {
+
+    @Autowired
+    private EsportazioneCsvService esportazioneCsvService;
+
+    @GetMapping("/appuntamenti.csv")
+    public void appuntamenti(HttpServletResponse response) throws IOException {
+        esportazioneCsvService.esportaAppuntamenti(preparaRisposta(response, "appuntamenti").getOutputStream());
+    }
+
+    @GetMapping("/contatti.csv")
+    public void contatti(HttpServletResponse response) throws IOException {
+        esportazioneCsvService.esportaContatti(preparaRisposta(response, "contatti").getOutputStream());
+    }
+
+    @GetMapping("/candidature.csv")
+    public void candidature(HttpServletResponse response) throws IOException {
+        esportazioneCsvService.esportaCandidature(preparaRisposta(response, "candidature").getOutputStream());
+    }
+
+    private static HttpServletResponse preparaRisposta(HttpServletResponse response, String nome) {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename(nome + "-" + LocalDate.now() + ".csv")
+            .build()
+            .toString());
+        // Dati personali: né il browser né eventuali proxy devono conservarne una copia
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        return response;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.ImportazioneCsvService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.PayloadTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Controller admin per l'importazione CSV dello storico (vedi ImportazioneCsvService).
+ *
+ * ENDPOINTS (corpo della richiesta = file CSV, Content-Type text/csv):
+ * - POST /admin/import/appuntamenti → Appuntamenti passati
+ * - POST /admin/import/lavori       → Lavori del portfolio
+ *
+ * Il file arriva come corpo della richiesta e non come multipart: viene letto
+ * mentre arriva, senza copia temporanea su disco. Dalle pagine admin lo invia
+ * il pulsante "Importa CSV".
+ *
+ * DIMENSIONE MASSIMA (importazione.dimensione-max, default 20MB):
+ * Controllata su Content-Length prima di leggere e, per i corpi chunked,
+ * byte per byte durante la lettura.
+ *
+ * RISPOSTA (JSON):
+ * - 200 {importate, scartate, errori: [{riga, messaggio}]}
+ * - 400 {errore} se mancano colonne obbligatorie o il file è malformato
+ * - 413 {errore} se il file supera la dimensione massima
+ *   (in questi casi non viene importato nulla)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@RestController
+@RequestMapping("/admin/import")
+public class ImportazioneController {
+
+    @Autowired
+    private ImportazioneCsvService importazioneCsvService;
+
+    @Value("${importazione.dimensione-max:20MB}")
+    private DataSize dimensioneMax;
+
+    @PostMapping(value = "/appuntamenti", consumes = "text/csv")
+    public ImportazioneCsvService.Risultato appuntamenti(HttpServletRequest request) throws IOException {
+        return importazioneCsvService.importaAppuntamenti(corpo(request));
+    }
+
+    @PostMapping(value = "/lavori", consumes = "text/csv")
+    public ImportazioneCsvService.Risultato lavori(HttpServletRequest request) throws IOException {
+        return importazioneCsvService.importaLavori(corpo(request));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> fileNonValido(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("errore", e.getMessage()));
+    }
+
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<Map<String, String>> fileTroppoGrande(PayloadTooLargeException e) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+            .body(Map.of("errore", "File oltre " + (dimensioneMax.toMegabytes() > 0
+                ? dimensioneMax.toMegabytes() + "MB" : dimensioneMax.toKilobytes() + "KB")));
+    }
+
+    private Reader corpo(HttpServletRequest request) throws IOException {
+        long massimo = dimensioneMax.toBytes();
+        if (request.getContentLengthLong() > massimo) {
+            throw new PayloadTooLargeException(null);
+        }
+        return new InputStreamReader(new CorpoLimitato(request.getInputStream(), massimo), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Corpo della richiesta che si interrompe oltre il massimo (anche senza Content-Length).
+     */
+    private static final class CorpoLimitato extends FilterInputStream {
+        private long rimanenti;
+
+        CorpoLimitato(InputStream in, long massimo) {
+            super(in);
+            this.rimanenti = massimo;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                conta(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                conta(n);
+            }
+            return n;
+        }
+
+        private void conta(int letti) {
+            rimanenti -= letti;
+            if (rimanenti < 0) {
+                throw new PayloadTooLargeException(null);
+            }
+        }
+    }
+}
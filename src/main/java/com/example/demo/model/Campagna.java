@@ -0,0 +1,102 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Campagna email verso un gruppo di destinatari (clienti o candidati).
+ *
+ * AVANZAMENTO:
+ * I destinatari vengono letti in ordine di email e inviati a blocchi.
+ * Dopo ogni blocco viene salvata l'ultima email elaborata (ultimoDestinatario):
+ * se l'applicazione si ferma, la campagna riparte dal destinatario successivo.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Entity
+@Table(name = "campagne")
+@Data
+@NoArgsConstructor
+public class Campagna {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "campagne_seq")
+    @SequenceGenerator(name = "campagne_seq", sequenceName = "campagne_seq", allocationSize = 50)
+    private Long id;
+
+    @NotBlank(message = "Il nome della campagna è obbligatorio")
+    @Size(max = 100)
+    @Column(nullable = false, length = 100)
+    private String nome;
+
+    // A chi è rivolta la campagna
+    @NotNull(message = "Scegli i destinatari")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private TipoDestinatari tipoDestinatari;
+
+    // Stato dell'appuntamento (es: CONFERMATO) o della candidatura (es: "In Valutazione")
+    @NotBlank(message = "Lo stato dei destinatari è obbligatorio")
+    @Column(nullable = false, length = 50)
+    private String filtroStato;
+
+    // Solo per i clienti: intervallo della data appuntamento (facoltativo)
+    private LocalDateTime filtroDataDa;
+
+    private LocalDateTime filtroDataA;
+
+    @NotBlank(message = "L'oggetto è obbligatorio")
+    @Size(max = 200)
+    @Column(nullable = false, length = 200)
+    private String oggetto;
+
+    @NotBlank(message = "Il testo è obbligatorio")
+    @Column(nullable = false, length = 5000)
+    private String testo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatoCampagna stato = StatoCampagna.BOZZA;
+
+    // Cursore: ultima email elaborata (ordine alfabetico)
+    @Column(length = 100)
+    private String ultimoDestinatario;
+
+    private int inviati = 0;
+
+    private int falliti = 0;
+
+    // Destinatari trovati all'avvio (solo indicativo)
+    private int totaleStimato = 0;
+
+    @Column(length = 500)
+    private String ultimoErrore;
+
+    @Column(nullable = false)
+    private LocalDateTime dataCreazione = LocalDateTime.now();
+
+    private LocalDateTime dataAvvio;
+
+    private LocalDateTime dataFine;
+
+    public enum TipoDestinatari {
+        CLIENTI,    // Email degli appuntamenti
+        CANDIDATI   // Email delle candidature
+    }
+
+    public enum StatoCampagna {
+        BOZZA,
+        IN_CORSO,
+        IN_PAUSA,
+        COMPLETATA,
+        INTERROTTA,  // Errore SMTP: riprendibile dall'admin
+        ANNULLATA
+    }
+}
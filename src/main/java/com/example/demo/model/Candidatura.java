@@ -11,19 +11,33 @@ import java.time.LocalDateTime;
 
 /**
  * Model per le candidature "Lavora con noi"
+ *
+ * INDICI (lista admin: ordinata per dataInvio, id decrescenti, paginata a chiave):
+ * - (dataInvio, id): lista senza filtri
+ * - (stato | posizioneRichiesta | provincia, dataInvio, id): un filtro, già ordinato
+ * - (stato, posizioneRichiesta, dataInvio, id): la combinazione più usata
+ * Livello di esperienza e disponibilità hanno pochi valori: si filtrano sulle
+ * righe lette da questi indici, senza indici propri.
  * 
  * @author Firmato $₿420
  * @since 2025
  */
 @Entity
-@Table(name = "candidature")
+@Table(name = "candidature", indexes = {
+    @Index(name = "idx_candidature_data", columnList = "dataInvio, id"),
+    @Index(name = "idx_candidature_stato_data", columnList = "stato, dataInvio, id"),
+    @Index(name = "idx_candidature_posizione_data", columnList = "posizioneRichiesta, dataInvio, id"),
+    @Index(name = "idx_candidature_provincia_data", columnList = "provincia, dataInvio, id"),
+    @Index(name = "idx_candidature_stato_posizione_data", columnList = "stato, posizioneRichiesta, dataInvio, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Candidatura {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "candidature_seq")
+    @SequenceGenerator(name = "candidature_seq", sequenceName = "candidature_seq", allocationSize = 50)
     private Long id;
 
     // Dati Anagrafici
@@ -154,6 +168,16 @@ public class Candidatura {
     @Column(columnDefinition = "TEXT")
     private String messaggioRisposta;
 
+    // Possibile duplicato (IndiceDuplicati): candidatura esistente più simile al momento dell'invio
+    @Column
+    private Long possibileDuplicatoDi;
+
+    @Column
+    private Double somiglianzaDuplicato;
+
+    @Column(length = 200)
+    private String motivoDuplicato;
+
     @PrePersist
     protected void onCreate() {
         dataInvio = LocalDateTime.now();
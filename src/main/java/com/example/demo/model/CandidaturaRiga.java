@@ -0,0 +1,44 @@
+package com.example.demo.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Riga della lista candidature in admin: solo le colonne mostrate in tabella,
+ * senza i campi TEXT (esperienze, competenze, messaggi, note).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public record CandidaturaRiga(
+    Long id,
+    LocalDateTime dataInvio,
+    String nome,
+    String cognome,
+    LocalDate dataNascita,
+    String citta,
+    String provincia,
+    String posizioneRichiesta,
+    String livelloEsperienza,
+    String disponibilita,
+    String email,
+    String telefono,
+    String cvFileName,
+    String stato,
+    Long possibileDuplicatoDi,
+    String motivoDuplicato
+) {
+
+    // Metodo helper per il nome completo
+    public String getNomeCompleto() {
+        return nome + " " + cognome;
+    }
+
+    // Metodo helper per età
+    public Integer getEta() {
+        if (dataNascita != null) {
+            return LocalDate.now().getYear() - dataNascita.getYear();
+        }
+        return null;
+    }
+}
@@ -2,6 +2,8 @@ package com.example.demo.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 /**
@@ -26,11 +28,14 @@ import java.time.LocalDateTime;
  * @since 2025
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contatti")
 public class Contatto {
     
-    // ID univoco generato automaticamente dal database
+    // ID univoco da sequenza: 50 valori per chiamata, gli insert possono andare in batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contatto_seq")
+    @SequenceGenerator(name = "contatto_seq", sequenceName = "contatto_seq", allocationSize = 50)
     private Long id;
     
     // Nome del mittente (obbligatorio)
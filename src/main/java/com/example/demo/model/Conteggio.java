@@ -0,0 +1,10 @@
+package com.example.demo.model;
+
+/**
+ * Risultato di una query di conteggio raggruppata (es: appuntamenti per tipo di servizio).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public record Conteggio(String chiave, Long totale) {
+}
@@ -0,0 +1,10 @@
+package com.example.demo.model;
+
+/**
+ * Appuntamenti creati in un mese, per stato (grafico trend della dashboard).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public record ConteggioMensile(Integer anno, Integer mese, Appuntamento.StatoAppuntamento stato, Long totale) {
+}
@@ -0,0 +1,10 @@
+package com.example.demo.model;
+
+/**
+ * Destinatario di una campagna email: una riga per indirizzo (già deduplicato).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public record DestinatarioCampagna(String email, String nome) {
+}
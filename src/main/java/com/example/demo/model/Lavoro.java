@@ -1,6 +1,8 @@
 package com.example.demo.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +15,9 @@ import java.util.List;
  * - lavoro_foto_prima (lista URL foto prima del lavoro)
  * - lavoro_foto_dopo (lista URL foto dopo il lavoro)
  * 
+ * CACHE: lavoro e liste foto stanno nella cache di secondo livello
+ * (regioni "lavori", "lavori-foto-prima", "lavori-foto-dopo", vedi CacheConfig).
+ * 
  * Un lavoro è un progetto completato dall'azienda che viene mostrato
  * nella sezione portfolio del sito per dimostrare competenze ed esperienza.
  * 
@@ -26,11 +31,14 @@ import java.util.List;
  * @since 2025
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "lavori")
 public class Lavoro {
     
-    // ID univoco generato automaticamente dal database
+    // ID univoco da sequenza: 50 valori per chiamata, gli insert possono andare in batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lavoro_seq")
+    @SequenceGenerator(name = "lavoro_seq", sequenceName = "lavoro_seq", allocationSize = 50)
     private Long id;
     
     // Titolo breve del lavoro (es: "Ristrutturazione Villa Rossi")
@@ -61,6 +69,7 @@ public class Lavoro {
      * Ogni URL punta a: /uploads/lavori/[uuid].jpg
      */
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "lavori-foto-prima")
     @CollectionTable(name = "lavoro_foto_prima", joinColumns = @JoinColumn(name = "lavoro_id"))
     @Column(name = "foto_url")
     private List<String> fotoPrima = new ArrayList<>();
@@ -74,6 +83,7 @@ public class Lavoro {
      * Ogni URL punta a: /uploads/lavori/[uuid].jpg
      */
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "lavori-foto-dopo")
     @CollectionTable(name = "lavoro_foto_dopo", joinColumns = @JoinColumn(name = "lavoro_id"))
     @Column(name = "foto_url")
     private List<String> fotoDopo = new ArrayList<>();
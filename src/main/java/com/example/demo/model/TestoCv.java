@@ -0,0 +1,107 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Testo estratto dal CV di una candidatura (e stato dell'estrazione).
+ *
+ * Tabella separata da "candidature": le liste e le ricerche sulle candidature
+ * non caricano mai il testo dei CV.
+ *
+ * La riga nasce IN_CODA nella stessa transazione che salva la candidatura:
+ * è la coda persistente dell'estrazione (sopravvive a un riavvio).
+ *
+ * Il testo è salvato compresso (GZIP, UTF-8): un CV di 3-4 pagine
+ * occupa pochi KB.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Entity
+@Table(name = "testi_cv", indexes = @Index(name = "idx_testi_cv_stato_tentativo", columnList = "stato, prossimoTentativo"))
+@Data
+@NoArgsConstructor
+public class TestoCv {
+
+    // Stesso ID della candidatura
+    @Id
+    private Long candidaturaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatoEstrazione stato = StatoEstrazione.IN_CODA;
+
+    private int tentativi = 0;
+
+    // Prima esecuzione possibile (ritardata dopo un errore)
+    @Column(nullable = false)
+    private LocalDateTime prossimoTentativo;
+
+    @Lob
+    @Column(length = 1_000_000)
+    private byte[] testoCompresso;
+
+    // Caratteri del testo estratto (non compresso)
+    private Integer caratteri;
+
+    @Column(length = 500)
+    private String ultimoErrore;
+
+    private LocalDateTime dataEstrazione;
+
+    public enum StatoEstrazione {
+        IN_CODA,          // Da estrarre (anche dopo un errore, in attesa del prossimo tentativo)
+        COMPLETATA,       // Testo disponibile e indicizzato
+        FALLITA,          // Tentativi esauriti
+        NON_SUPPORTATO    // Formato senza estrattore (es: .doc)
+    }
+
+    /**
+     * Nuova riga in coda per una candidatura appena salvata.
+     */
+    public static TestoCv inCoda(Long candidaturaId) {
+        TestoCv testo = new TestoCv();
+        testo.setCandidaturaId(candidaturaId);
+        testo.setProssimoTentativo(LocalDateTime.now());
+        return testo;
+    }
+
+    /**
+     * Testo decompresso (null se non ancora estratto).
+     */
+    public String getTesto() {
+        if (testoCompresso == null) {
+            return null;
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(testoCompresso))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Testo CV illeggibile per candidatura " + candidaturaId, e);
+        }
+    }
+
+    /**
+     * Salva il testo compresso e il numero di caratteri.
+     */
+    public void setTesto(String testo) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, testo.length() / 3));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(testo.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        testoCompresso = buffer.toByteArray();
+        caratteri = testo.length();
+    }
+}
@@ -1,10 +1,20 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Conteggio;
+import com.example.demo.model.ConteggioMensile;
+import com.example.demo.model.DestinatarioCampagna;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository per l'accesso ai dati degli Appuntamenti nel database.
@@ -23,7 +33,7 @@ import java.util.List;
  * @since 2025
  */
 @Repository
-public interface AppuntamentoRepository extends JpaRepository<Appuntamento, Long> {
+public interface AppuntamentoRepository extends JpaRepository<Appuntamento, Long>, InserimentoMassivo<Appuntamento> {
     
     /**
      * Trova tutti gli appuntamenti di un cliente tramite email.
@@ -61,4 +71,125 @@ public interface AppuntamentoRepository extends JpaRepository<Appuntamento, Long
      * @return Lista appuntamenti nell'intervallo specificato
      */
     List<Appuntamento> findByDataAppuntamentoBetween(LocalDateTime start, LocalDateTime end);
-}
\ No newline at end of file
+    
+    /**
+     * Appuntamenti con uno stato in un intervallo di date, dal più vicino.
+     * Usato dal feed del calendario (CONFERMATO, finestra mobile attorno a oggi).
+     * 
+     * Query SQL generata automaticamente:
+     * SELECT * FROM appuntamento WHERE stato = ? AND data_appuntamento BETWEEN ? AND ?
+     * ORDER BY data_appuntamento ASC
+     * (indice idx_appuntamento_stato_data: ricerca e ordinamento senza sort)
+     */
+    List<Appuntamento> findByStatoAndDataAppuntamentoBetweenOrderByDataAppuntamentoAsc(
+            Appuntamento.StatoAppuntamento stato, LocalDateTime da, LocalDateTime a);
+    
+    /**
+     * Destinatari di una campagna email: un cliente per indirizzo email,
+     * filtrati per stato e data appuntamento, a blocchi ordinati per email.
+     * 
+     * Paginazione "keyset": invece di OFFSET si passa l'ultima email già
+     * elaborata (dopo), così ogni blocco costa uguale e una campagna
+     * interrotta può ripartire esattamente da dove si era fermata.
+     * 
+     * @param stato Stato degli appuntamenti (es: CONFERMATO)
+     * @param da Inizio intervallo data appuntamento (incluso)
+     * @param a Fine intervallo data appuntamento (escluso)
+     * @param dopo Ultima email elaborata ("" per partire dall'inizio)
+     * @param limite Dimensione del blocco
+     * @return Destinatari successivi, in minuscolo e ordinati per email
+     */
+    @Query("""
+        select new com.example.demo.model.DestinatarioCampagna(lower(a.email), min(a.nomeCliente))
+        from Appuntamento a
+        where a.stato = :stato
+          and a.dataAppuntamento >= :da and a.dataAppuntamento < :a
+          and lower(a.email) > :dopo
+        group by lower(a.email)
+        order by lower(a.email)
+        """)
+    List<DestinatarioCampagna> findDestinatariCampagna(@Param("stato") Appuntamento.StatoAppuntamento stato,
+                                                       @Param("da") LocalDateTime da,
+                                                       @Param("a") LocalDateTime a,
+                                                       @Param("dopo") String dopo,
+                                                       Pageable limite);
+    
+    /**
+     * Numero di destinatari distinti per una campagna (stessi filtri di findDestinatariCampagna).
+     */
+    @Query("""
+        select count(distinct lower(a.email))
+        from Appuntamento a
+        where a.stato = :stato
+          and a.dataAppuntamento >= :da and a.dataAppuntamento < :a
+        """)
+    long countDestinatariCampagna(@Param("stato") Appuntamento.StatoAppuntamento stato,
+                                  @Param("da") LocalDateTime da,
+                                  @Param("a") LocalDateTime a);
+    
+    // ==================== AGGREGATI PER LA DASHBOARD ====================
+    // Contano nel database invece di caricare tutte le righe: il costo non
+    // cresce con il numero di appuntamenti restituiti.
+    
+    /**
+     * Numero di appuntamenti in uno stato.
+     */
+    long countByStato(Appuntamento.StatoAppuntamento stato);
+    
+    /**
+     * Numero di appuntamenti in uno stato con una motivazione (es: annullati con motivo).
+     */
+    long countByStatoAndMotivazioneRifiutoIsNotNull(Appuntamento.StatoAppuntamento stato);
+    
+    /**
+     * Numero di appuntamenti creati nell'intervallo [da, a).
+     */
+    @Query("select count(a) from Appuntamento a where a.dataCreazione >= :da and a.dataCreazione < :a")
+    long countCreatiTra(@Param("da") LocalDateTime da, @Param("a") LocalDateTime a);
+    
+    /**
+     * Tipi di servizio più richiesti, dal più frequente.
+     * 
+     * @param limite Es: PageRequest.of(0, 5) per i primi cinque
+     */
+    @Query("""
+        select new com.example.demo.model.Conteggio(a.tipoServizio, count(a))
+        from Appuntamento a
+        group by a.tipoServizio
+        order by count(a) desc, a.tipoServizio
+        """)
+    List<Conteggio> findServiziPiuRichiesti(Pageable limite);
+    
+    /**
+     * Appuntamenti creati dal giorno indicato, raggruppati per anno, mese e stato.
+     */
+    @Query("""
+        select new com.example.demo.model.ConteggioMensile(
+            year(a.dataCreazione), month(a.dataCreazione), a.stato, count(a))
+        from Appuntamento a
+        where a.dataCreazione >= :da
+        group by year(a.dataCreazione), month(a.dataCreazione), a.stato
+        """)
+    List<ConteggioMensile> contaPerMeseEStato(@Param("da") LocalDateTime da);
+    
+    /**
+     * Prossimi appuntamenti da una data in poi, i più vicini prima.
+     * 
+     * @param limite Es: PageRequest.of(0, 10)
+     */
+    List<Appuntamento> findByDataAppuntamentoGreaterThanEqualOrderByDataAppuntamentoAsc(LocalDateTime da, Pageable limite);
+
+    /**
+     * Tutti gli appuntamenti in ordine di id, letti a blocchi con un cursore (esportazione CSV).
+     * 
+     * Va consumato dentro una transazione e chiuso (try-with-resources).
+     * Le entità sono in sola lettura e non passano dalla cache di secondo
+     * livello; chi scorre deve svuotare periodicamente l'EntityManager.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Appuntamento> streamAllByOrderByIdAsc();
+}
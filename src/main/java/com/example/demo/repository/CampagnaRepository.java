@@ -0,0 +1,60 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Campagna;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository per le campagne email
+ *
+ * Gli aggiornamenti durante l'invio sono UPDATE mirati (non save dell'entità)
+ * così non sovrascrivono un cambio di stato fatto nel frattempo dall'admin
+ * (es: pausa mentre un blocco è in invio).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Repository
+public interface CampagnaRepository extends JpaRepository<Campagna, Long> {
+
+    // Tutte le campagne, più recenti prima
+    List<Campagna> findAllByOrderByDataCreazioneDesc();
+
+    // Campagne in un certo stato (es: IN_CORSO da riprendere all'avvio)
+    List<Campagna> findByStato(Campagna.StatoCampagna stato);
+
+    // Salva l'avanzamento dopo un blocco di email
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        update Campagna c
+        set c.ultimoDestinatario = :cursore, c.inviati = c.inviati + :inviati, c.falliti = c.falliti + :falliti
+        where c.id = :id
+        """)
+    int registraAvanzamento(@Param("id") Long id,
+                            @Param("cursore") String cursore,
+                            @Param("inviati") int inviati,
+                            @Param("falliti") int falliti);
+
+    // Cambia stato solo se la campagna è in uno degli stati attesi; restituisce 0 se no
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        update Campagna c
+        set c.stato = :nuovo, c.ultimoErrore = :errore, c.dataFine = :dataFine
+        where c.id = :id and c.stato in :attesi
+        """)
+    int cambiaStato(@Param("id") Long id,
+                    @Param("attesi") Collection<Campagna.StatoCampagna> attesi,
+                    @Param("nuovo") Campagna.StatoCampagna nuovo,
+                    @Param("errore") String errore,
+                    @Param("dataFine") LocalDateTime dataFine);
+}
@@ -1,20 +1,31 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Candidatura;
+import com.example.demo.model.DestinatarioCampagna;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository per le candidature
+ *
+ * La lista paginata dell'admin (filtri combinati + keyset) è in CandidaturaRepositoryImpl.
  * 
  * @author Firmato $₿420
  * @since 2025
  */
 @Repository
-public interface CandidaturaRepository extends JpaRepository<Candidatura, Long> {
+public interface CandidaturaRepository extends JpaRepository<Candidatura, Long>, CandidaturaRepositoryCustom,
+        InserimentoMassivo<Candidatura> {
 
     // Trova per stato
     List<Candidatura> findByStatoOrderByDataInvioDesc(String stato);
@@ -36,4 +47,46 @@ public interface CandidaturaRepository extends JpaRepository<Candidatura, Long>
 
     // Trova per email
     List<Candidatura> findByEmailOrderByDataInvioDesc(String email);
+
+    // Candidature segnalate come possibili duplicati (IndiceDuplicati); la lista è trovaPagina con soloDuplicati
+    long countByPossibileDuplicatoDiIsNotNull();
+
+    // Destinatari di una campagna email: un candidato per email, a blocchi dopo l'ultima email elaborata
+    @Query("""
+        select new com.example.demo.model.DestinatarioCampagna(lower(c.email), min(c.nome))
+        from Candidatura c
+        where c.stato = :stato and lower(c.email) > :dopo
+        group by lower(c.email)
+        order by lower(c.email)
+        """)
+    List<DestinatarioCampagna> findDestinatariCampagna(@Param("stato") String stato,
+                                                       @Param("dopo") String dopo,
+                                                       Pageable limite);
+
+    // Numero di destinatari distinti per una campagna
+    @Query("select count(distinct lower(c.email)) from Candidatura c where c.stato = :stato")
+    long countDestinatariCampagna(@Param("stato") String stato);
+
+    // Candidature con CV ma senza riga in testi_cv (salvate prima dell'estrazione), a blocchi dopo l'ultimo id
+    @Query("""
+        select c.id from Candidatura c
+        where c.cvFilePath is not null and c.id > :dopo
+          and not exists (select t.candidaturaId from TestoCv t where t.candidaturaId = c.id)
+        order by c.id
+        """)
+    List<Long> findIdConCvSenzaTesto(@Param("dopo") long dopo, Pageable limite);
+
+    /**
+     * Tutte le candidature in ordine di id, lette a blocchi con un cursore (esportazione CSV).
+     * 
+     * Va consumato dentro una transazione e chiuso (try-with-resources).
+     * Le entità sono in sola lettura e non passano dalla cache di secondo
+     * livello; chi scorre deve svuotare periodicamente l'EntityManager.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Candidatura> streamAllByOrderByIdAsc();
 }
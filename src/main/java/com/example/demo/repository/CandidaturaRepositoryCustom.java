@@ -0,0 +1,35 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.CandidaturaRiga;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Query della lista candidature che Spring Data non deriva dal nome del metodo.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public interface CandidaturaRepositoryCustom {
+
+    /**
+     * Una pagina della lista admin, più recenti prima, con paginazione a chiave (keyset).
+     *
+     * Invece di OFFSET (che rilegge e scarta tutte le righe delle pagine precedenti)
+     * si riparte dall'ultima riga vista: WHERE (dataInvio, id) &lt; (dopoData, dopoId).
+     * Il costo di una pagina non cresce con la profondità della pagina.
+     *
+     * @param filtro   Filtri combinati in AND (solo quelli valorizzati finiscono nella query)
+     * @param dopoData dataInvio dell'ultima riga della pagina precedente (null = prima pagina)
+     * @param dopoId   id dell'ultima riga della pagina precedente (null = prima pagina)
+     * @param limite   Righe da leggere
+     */
+    List<CandidaturaRiga> trovaPagina(FiltroCandidature filtro, LocalDateTime dopoData, Long dopoId, int limite);
+
+    /**
+     * Righe della lista admin per id (es: risultati della ricerca full-text), in ordine qualsiasi.
+     */
+    List<CandidaturaRiga> trovaRighe(Collection<Long> ids);
+}
@@ -0,0 +1,93 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.model.CandidaturaRiga;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementazione di CandidaturaRepositoryCustom con la Criteria API.
+ *
+ * Ogni filtro vuoto viene omesso dalla query (niente "(:stato is null or c.stato = :stato)"):
+ * così il database vede condizioni semplici e può usare gli indici compositi
+ * dichiarati su Candidatura (stato, posizione, provincia + dataInvio, id).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public class CandidaturaRepositoryImpl implements CandidaturaRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CandidaturaRiga> trovaPagina(FiltroCandidature filtro, LocalDateTime dopoData, Long dopoId, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CandidaturaRiga> query = cb.createQuery(CandidaturaRiga.class);
+        Root<Candidatura> c = query.from(Candidatura.class);
+        seleziona(cb, query, c);
+
+        List<Predicate> condizioni = new ArrayList<>();
+        uguale(cb, condizioni, c.get("stato"), filtro.stato());
+        uguale(cb, condizioni, c.get("posizioneRichiesta"), filtro.posizione());
+        uguale(cb, condizioni, c.get("livelloEsperienza"), filtro.livelloEsperienza());
+        uguale(cb, condizioni, c.get("provincia"), filtro.provincia());
+        uguale(cb, condizioni, c.get("disponibilita"), filtro.disponibilita());
+        if (filtro.soloDuplicati()) {
+            condizioni.add(cb.isNotNull(c.get("possibileDuplicatoDi")));
+        }
+
+        if (dopoData != null && dopoId != null) {
+            // (dataInvio, id) < (dopoData, dopoId): l'id separa le candidature con la stessa data
+            Path<LocalDateTime> dataInvio = c.get("dataInvio");
+            Path<Long> id = c.get("id");
+            condizioni.add(cb.or(
+                cb.lessThan(dataInvio, dopoData),
+                cb.and(cb.equal(dataInvio, dopoData), cb.lessThan(id, dopoId))));
+        }
+
+        query.where(condizioni.toArray(Predicate[]::new));
+        query.orderBy(cb.desc(c.get("dataInvio")), cb.desc(c.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limite).getResultList();
+    }
+
+    @Override
+    public List<CandidaturaRiga> trovaRighe(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CandidaturaRiga> query = cb.createQuery(CandidaturaRiga.class);
+        Root<Candidatura> c = query.from(Candidatura.class);
+        seleziona(cb, query, c);
+        query.where(c.get("id").in(ids));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * Proiezione: solo le colonne della tabella admin, nessun campo TEXT.
+     */
+    private static void seleziona(CriteriaBuilder cb, CriteriaQuery<CandidaturaRiga> query, Root<Candidatura> c) {
+        query.select(cb.construct(CandidaturaRiga.class,
+            c.get("id"), c.get("dataInvio"), c.get("nome"), c.get("cognome"), c.get("dataNascita"),
+            c.get("citta"), c.get("provincia"), c.get("posizioneRichiesta"), c.get("livelloEsperienza"),
+            c.get("disponibilita"), c.get("email"), c.get("telefono"), c.get("cvFileName"),
+            c.get("stato"), c.get("possibileDuplicatoDi"), c.get("motivoDuplicato")));
+    }
+
+    private static void uguale(CriteriaBuilder cb, List<Predicate> condizioni, Path<String> campo, String valore) {
+        if (valore != null) {
+            condizioni.add(cb.equal(campo, valore));
+        }
+    }
+}
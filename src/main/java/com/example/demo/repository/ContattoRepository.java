@@ -1,9 +1,14 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Contatto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository per l'accesso ai dati dei Contatti nel database.
@@ -16,7 +21,7 @@ import java.util.List;
  * @since 2025
  */
 @Repository
-public interface ContattoRepository extends JpaRepository<Contatto, Long> {
+public interface ContattoRepository extends JpaRepository<Contatto, Long>, InserimentoMassivo<Contatto> {
     
     /**
      * Filtra i contatti per stato di lettura.
@@ -44,4 +49,34 @@ public interface ContattoRepository extends JpaRepository<Contatto, Long> {
      * @return Lista completa di tutti i contatti
      */
     List<Contatto> findAllByOrderByDataInvioDesc();
-}
\ No newline at end of file
+    
+    /**
+     * Come findByLettoOrderByDataInvioDesc, limitato (es: ultimi 10 non letti per la dashboard).
+     * 
+     * @param letto  true per messaggi già letti, false per nuovi messaggi
+     * @param limite Es: PageRequest.of(0, 10)
+     */
+    List<Contatto> findByLettoOrderByDataInvioDesc(boolean letto, Pageable limite);
+    
+    /**
+     * Conta i contatti per stato di lettura.
+     * 
+     * Query SQL generata automaticamente:
+     * SELECT COUNT(*) FROM contatto WHERE letto = ?
+     */
+    long countByLetto(boolean letto);
+
+    /**
+     * Tutti i contatti in ordine di id, letti a blocchi con un cursore (esportazione CSV).
+     * 
+     * Va consumato dentro una transazione e chiuso (try-with-resources).
+     * Le entità sono in sola lettura e non passano dalla cache di secondo
+     * livello; chi scorre deve svuotare periodicamente l'EntityManager.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Contatto> streamAllByOrderByIdAsc();
+}
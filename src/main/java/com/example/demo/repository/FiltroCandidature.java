@@ -0,0 +1,56 @@
+package com.example.demo.repository;
+
+import java.util.Locale;
+
+/**
+ * Filtri combinabili della lista candidature (null = nessun filtro su quel campo).
+ *
+ * @param stato              Nuovo, In Valutazione, Contattato, Accettato, Rifiutato
+ * @param posizione          Posizione richiesta, es: "Muratore"
+ * @param livelloEsperienza  Livello, es: "Senior (5+ anni)"
+ * @param provincia          Sigla, es: "RM"
+ * @param disponibilita      Disponibilità, es: "Immediata"
+ * @param soloDuplicati      Solo le candidature segnalate come possibili duplicati
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public record FiltroCandidature(
+    String stato,
+    String posizione,
+    String livelloEsperienza,
+    String provincia,
+    String disponibilita,
+    boolean soloDuplicati
+) {
+
+    public FiltroCandidature {
+        // I parametri vuoti dei form ("?stato=") valgono come "tutti"
+        stato = pulito(stato);
+        posizione = pulito(posizione);
+        livelloEsperienza = pulito(livelloEsperienza);
+        provincia = pulito(provincia);
+        disponibilita = pulito(disponibilita);
+        if (provincia != null) {
+            provincia = provincia.toUpperCase(Locale.ROOT);
+        }
+    }
+
+    public FiltroCandidature(String stato, String posizione, String livelloEsperienza, String provincia,
+                             String disponibilita) {
+        this(stato, posizione, livelloEsperienza, provincia, disponibilita, false);
+    }
+
+    public static FiltroCandidature nessuno() {
+        return new FiltroCandidature(null, null, null, null, null);
+    }
+
+    public boolean isVuoto() {
+        return stato == null && posizione == null && livelloEsperienza == null
+            && provincia == null && disponibilita == null && !soloDuplicati;
+    }
+
+    private static String pulito(String valore) {
+        return valore == null || valore.isBlank() ? null : valore.strip();
+    }
+}
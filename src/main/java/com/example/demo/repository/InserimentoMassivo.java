@@ -0,0 +1,31 @@
+package com.example.demo.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Inserimento di molte entità nuove in una volta (import, dati di prova).
+ *
+ * A differenza di saveAll(), che tiene in memoria tutte le entità fino alla
+ * fine della transazione, qui la sessione viene scaricata e svuotata ogni
+ * hibernate.jdbc.batch_size righe: gli INSERT partono a blocchi (batch JDBC)
+ * e la memoria resta costante anche con decine di migliaia di righe.
+ *
+ * Le entità inserite non finiscono nella cache di secondo livello.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public interface InserimentoMassivo<T> {
+
+    /**
+     * Inserisce tutte le entità (nuove, senza id) in un'unica transazione.
+     *
+     * ATTENZIONE: svuota il contesto di persistenza; se chiamato dentro una
+     * transazione già aperta, le entità caricate prima diventano detached.
+     *
+     * @param entita Entità da inserire: dopo la chiamata hanno l'id assegnato
+     * @return Numero di righe inserite
+     */
+    @Transactional
+    int inserisciTutti(Iterable<? extends T> entita);
+}
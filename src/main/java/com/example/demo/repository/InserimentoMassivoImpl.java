@@ -0,0 +1,48 @@
+package com.example.demo.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Implementazione di InserimentoMassivo, condivisa da tutti i repository che la estendono.
+ *
+ * Gli id arrivano dalle sequenze (50 per chiamata): persist() non esegue
+ * nessun INSERT, Hibernate li raccoglie e li invia a blocchi a ogni flush().
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public class InserimentoMassivoImpl<T> implements InserimentoMassivo<T> {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int dimensioneBlocco;
+
+    @Override
+    public int inserisciTutti(Iterable<? extends T> entita) {
+        Session sessione = entityManager.unwrap(Session.class);
+        CacheMode precedente = sessione.getCacheMode();
+        // Un import non deve riempire la cache (limitata) a scapito delle entità lette davvero
+        sessione.setCacheMode(CacheMode.IGNORE);
+        int inserite = 0;
+        try {
+            for (T nuova : entita) {
+                entityManager.persist(nuova);
+                if (++inserite % dimensioneBlocco == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        } finally {
+            sessione.setCacheMode(precedente);
+        }
+        return inserite;
+    }
+}
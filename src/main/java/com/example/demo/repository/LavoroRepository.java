@@ -1,7 +1,10 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Lavoro;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -12,11 +15,16 @@ import java.util.List;
  * I metodi custom usano la naming convention di Spring Data JPA per generare
  * automaticamente le query SQL.
  * 
+ * Le liste pubbliche (per pubblicazione e per categoria) usano la cache delle
+ * query di Hibernate (regione "lavori-query", vedi CacheConfig): la lista di id
+ * resta in memoria finché la tabella lavoro non cambia, i lavori arrivano
+ * dalla cache delle entità.
+ * 
  * @author Firmato $₿420
  * @since 2025
  */
 @Repository
-public interface LavoroRepository extends JpaRepository<Lavoro, Long> {
+public interface LavoroRepository extends JpaRepository<Lavoro, Long>, InserimentoMassivo<Lavoro> {
     
     /**
      * Filtra i lavori per stato di pubblicazione.
@@ -32,6 +40,10 @@ public interface LavoroRepository extends JpaRepository<Lavoro, Long> {
      * @param pubblicato true per lavori pubblicati, false per nascosti
      * @return Lista lavori filtrati per stato pubblicazione
      */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "lavori-query")
+    })
     List<Lavoro> findByPubblicatoOrderByDataFineDesc(boolean pubblicato);
     
     /**
@@ -46,5 +58,17 @@ public interface LavoroRepository extends JpaRepository<Lavoro, Long> {
      * @param categoria La categoria da filtrare
      * @return Lista lavori della categoria specificata
      */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "lavori-query")
+    })
     List<Lavoro> findByCategoriaOrderByDataFineDesc(String categoria);
-}
\ No newline at end of file
+    
+    /**
+     * Conta i lavori per stato di pubblicazione.
+     * 
+     * Query SQL generata automaticamente:
+     * SELECT COUNT(*) FROM lavoro WHERE pubblicato = ?
+     */
+    long countByPubblicato(boolean pubblicato);
+}
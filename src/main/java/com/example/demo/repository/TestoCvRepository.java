@@ -0,0 +1,30 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.TestoCv;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository per i testi estratti dai CV (coda di estrazione compresa)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Repository
+public interface TestoCvRepository extends JpaRepository<TestoCv, Long> {
+
+    // Righe da (ri)lavorare: in coda e con il prossimo tentativo già scaduto
+    List<TestoCv> findByStatoAndProssimoTentativoLessThanEqualOrderByProssimoTentativo(
+        TestoCv.StatoEstrazione stato, LocalDateTime adesso, Pageable limite);
+
+    // Testi di un blocco di candidature (ricostruzione dell'indice)
+    List<TestoCv> findByCandidaturaIdInAndStato(Collection<Long> candidatureId, TestoCv.StatoEstrazione stato);
+
+    // Dimensione della coda (metrica)
+    long countByStato(TestoCv.StatoEstrazione stato);
+}
@@ -0,0 +1,16 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Appuntamento;
+
+/**
+ * Evento pubblicato quando una nuova prenotazione è stata salvata.
+ *
+ * I listener (@TransactionalEventListener) lo ricevono dopo il commit; senza
+ * transazione attiva (salvataggio diretto dal repository) subito dopo il save.
+ *
+ * @param appuntamento L'appuntamento appena salvato (con ID)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public record AppuntamentoCreato(Appuntamento appuntamento) {}
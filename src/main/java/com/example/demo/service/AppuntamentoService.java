@@ -2,7 +2,10 @@ package com.example.demo.service;
 
 import com.example.demo.model.Appuntamento;
 import com.example.demo.repository.AppuntamentoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -39,6 +42,14 @@ public class AppuntamentoService {
     @Autowired
     private WhatsAppService whatsAppService;
     
+    // Metriche: durata verifica slot e creazione prenotazioni (per esito)
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Eventi di dominio (es: AppuntamentoCreato → dashboard admin in tempo reale)
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Verifica se uno slot orario è disponibile per un nuovo appuntamento.
      * 
@@ -65,6 +76,16 @@ public class AppuntamentoService {
      * @return true se lo slot è libero, false se occupato
      */
     public boolean isSlotDisponibile(LocalDateTime dataOraRichiesta) {
+        Timer.Sample misura = Timer.start(meterRegistry);
+        boolean disponibile = verificaSlot(dataOraRichiesta);
+        misura.stop(Timer.builder("slot.verifica")
+            .description("Durata verifica disponibilità slot")
+            .tag("esito", disponibile ? "libero" : "occupato")
+            .register(meterRegistry));
+        return disponibile;
+    }
+    
+    private boolean verificaSlot(LocalDateTime dataOraRichiesta) {
         // Calcola l'intervallo temporale dello slot richiesto (1 ora)
         LocalDateTime inizioSlot = dataOraRichiesta;
         LocalDateTime fineSlot = dataOraRichiesta.plusHours(1);
@@ -114,6 +135,27 @@ public class AppuntamentoService {
      * @throws IllegalStateException se lo slot è già occupato
      */
     public Appuntamento creaAppuntamento(Appuntamento appuntamento) {
+        Timer.Sample misura = Timer.start(meterRegistry);
+        String esito = "errore";
+        try {
+            Appuntamento saved = registraAppuntamento(appuntamento);
+            esito = "creata";
+            return saved;
+        } catch (IllegalStateException e) {
+            if ("FASCIA_ORARIA_NON_DISPONIBILE".equals(e.getMessage())) {
+                esito = "slot_occupato";
+            }
+            throw e;
+        } finally {
+            // Include l'invio delle notifiche: è il tempo che attende il cliente
+            misura.stop(Timer.builder("prenotazione.creazione")
+                .description("Durata creazione prenotazione, notifiche comprese")
+                .tag("esito", esito)
+                .register(meterRegistry));
+        }
+    }
+    
+    private Appuntamento registraAppuntamento(Appuntamento appuntamento) {
         // STEP 1: Verifica disponibilità dello slot prima di procedere
         if (!isSlotDisponibile(appuntamento.getDataAppuntamento())) {
             // Slot occupato - lancia eccezione che verrà gestita dal controller
@@ -122,6 +164,7 @@ public class AppuntamentoService {
         
         // STEP 2: Slot libero - salva l'appuntamento nel database
         Appuntamento saved = appuntamentoRepository.save(appuntamento);
+        eventPublisher.publishEvent(new AppuntamentoCreato(saved));
         
         // STEP 3: Invia email di conferma ricezione al cliente (NON bloccante)
         try {
@@ -0,0 +1,258 @@
+package com.example.demo.service;
+
+import com.example.demo.config.ThreadVirtuali;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service per eseguire backup manuale e verifica degli archivi in background.
+ *
+ * FUNZIONALITÀ:
+ * - Il backup lanciato dalla dashboard non blocca più la richiesta HTTP
+ * - Anche la verifica (CRC + SHA-256 di ogni entry) gira qui: su un archivio
+ *   uploads di qualche GB richiede minuti, troppi per il thread della richiesta
+ * - Single-flight: se un job è già in corso, i click successivi
+ *   restituiscono lo stesso job invece di avviarne un altro
+ * - Avanzamento consultabile (byte, file, percentuale, ETA) per la barra
+ *   di progresso della dashboard
+ *
+ * Il backup notturno (@Scheduled in BackupService) non passa da qui, ma i due
+ * non si sovrappongono perché BackupService li serializza con un lock.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Service
+public class BackupJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackupJobService.class);
+
+    public enum StatoJob { IN_CORSO, COMPLETATO, FALLITO }
+
+    public enum TipoJob { BACKUP, VERIFICA }
+
+    /**
+     * Fotografia dello stato del job, serializzata in JSON per la dashboard.
+     * "esito" riassume il risultato della verifica (null per il backup).
+     */
+    public record StatoBackup(
+        long id,
+        TipoJob tipo,
+        StatoJob stato,
+        LocalDateTime avviato,
+        LocalDateTime terminato,
+        long bytesElaborati,
+        long bytesTotali,
+        int fileElaborati,
+        int fileTotali,
+        int percentuale,
+        Long etaSecondi,
+        String esito
+    ) {}
+
+    /**
+     * Risultato di un job concluso.
+     */
+    private record Esito(boolean ok, String messaggio) {}
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private BackupRestoreService backupRestoreService;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean threadVirtuali;
+
+    // Un solo thread: al massimo un job alla volta (creato al primo avvio)
+    private ExecutorService executor;
+
+    // Lock e non synchronized: avvia() legge il filesystem (stima) e un thread
+    // virtuale dentro un blocco synchronized resterebbe bloccato sul carrier
+    private final ReentrantLock avvio = new ReentrantLock();
+
+    private final AtomicReference<Job> jobCorrente = new AtomicReference<>();
+    private long prossimoId = 1;
+
+    /**
+     * Avvia un backup manuale, oppure restituisce il job già in corso.
+     *
+     * @return Stato del job (nuovo o esistente)
+     */
+    public StatoBackup avvia() {
+        avvio.lock();
+        try {
+            Job corrente = jobCorrente.get();
+            if (corrente != null && corrente.stato == StatoJob.IN_CORSO) {
+                return corrente.fotografia();
+            }
+            return lancia(new Job(prossimoId++, TipoJob.BACKUP, backupService.stimaDimensione()),
+                job -> new Esito(backupService.backupManuale(job::aggiorna), null));
+        } finally {
+            avvio.unlock();
+        }
+    }
+
+    /**
+     * Avvia la verifica di un archivio (o degli ultimi archivi database e
+     * uploads se non indicato), oppure restituisce il job già in corso.
+     *
+     * @param archivio Nome dell'archivio in backups/, null o vuoto per gli ultimi
+     * @return Stato del job (nuovo o esistente)
+     * @throws IllegalArgumentException se l'archivio non esiste
+     * @throws IllegalStateException    se non c'è nessun backup da verificare
+     */
+    public StatoBackup avviaVerifica(String archivio) throws IOException {
+        avvio.lock();
+        try {
+            Job corrente = jobCorrente.get();
+            if (corrente != null && corrente.stato == StatoJob.IN_CORSO) {
+                return corrente.fotografia();
+            }
+
+            boolean ultimi = archivio == null || archivio.isBlank();
+            List<Path> archivi = ultimi
+                ? backupRestoreService.ultimiBackup()
+                : List.of(backupRestoreService.risolviArchivio(archivio));
+            if (archivi.isEmpty()) {
+                throw new IllegalStateException("Nessun backup da verificare");
+            }
+            return lancia(new Job(prossimoId++, TipoJob.VERIFICA, backupRestoreService.stimaVerifica(archivi)),
+                job -> verifica(job, ultimi ? null : archivi.get(0)));
+        } finally {
+            avvio.unlock();
+        }
+    }
+
+    /**
+     * Stato dell'ultimo job (in corso o concluso), null se mai eseguito.
+     */
+    public StatoBackup stato() {
+        Job job = jobCorrente.get();
+        return job != null ? job.fotografia() : null;
+    }
+
+    // Chiamato con il lock "avvio" preso
+    private StatoBackup lancia(Job job, Function<Job, Esito> compito) {
+        jobCorrente.set(job);
+        if (executor == null) {
+            executor = ThreadVirtuali.singoloThread("backup-manuale", threadVirtuali);
+        }
+        executor.execute(() -> esegui(job, compito));
+        return job.fotografia();
+    }
+
+    private void esegui(Job job, Function<Job, Esito> compito) {
+        Esito esito;
+        try {
+            esito = compito.apply(job);
+        } catch (RuntimeException e) {
+            logger.error("Errore job {} #{}", job.tipo, job.id, e);
+            esito = new Esito(false, null);
+        }
+        job.termina(esito);
+    }
+
+    private Esito verifica(Job job, Path archivio) {
+        Collection<BackupRestoreService.EsitoVerifica> esiti = archivio == null
+            ? backupRestoreService.verificaUltimi(job::aggiorna).values()
+            : List.of(backupRestoreService.verificaArchivio(archivio, job::aggiorna));
+        String messaggio = esiti.stream()
+            .map(e -> e.valido()
+                ? "✅ " + e.archivio() + " (" + e.entryVerificate() + " file verificati)"
+                : "❌ " + e.archivio() + ": " + e.errori())
+            .collect(Collectors.joining(" · "));
+        return new Esito(!esiti.isEmpty() && esiti.stream().allMatch(BackupRestoreService.EsitoVerifica::valido),
+            messaggio);
+    }
+
+    @PreDestroy
+    void chiudi() {
+        avvio.lock();
+        try {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        } finally {
+            avvio.unlock();
+        }
+    }
+
+    /**
+     * Stato mutabile del job: scritto dal thread del job, letto dalle richieste di polling.
+     */
+    private static final class Job {
+        private final long id;
+        private final TipoJob tipo;
+        private final LocalDateTime avviato = LocalDateTime.now();
+        private final long inizioNanos = System.nanoTime();
+        private final long bytesTotali;
+        private final int fileTotali;
+
+        private volatile StatoJob stato = StatoJob.IN_CORSO;
+        private volatile LocalDateTime terminato;
+        private volatile long bytesElaborati;
+        private volatile int fileElaborati;
+        private volatile String esito;
+
+        Job(long id, TipoJob tipo, BackupService.Stima stima) {
+            this.id = id;
+            this.tipo = tipo;
+            this.bytesTotali = stima.bytes();
+            this.fileTotali = stima.file();
+        }
+
+        void aggiorna(long bytes, int file) {
+            bytesElaborati = bytes;
+            fileElaborati = file;
+        }
+
+        void termina(Esito risultato) {
+            esito = risultato.messaggio();
+            terminato = LocalDateTime.now();
+            stato = risultato.ok() ? StatoJob.COMPLETATO : StatoJob.FALLITO;
+        }
+
+        StatoBackup fotografia() {
+            StatoJob statoAttuale = stato;
+            long bytes = bytesElaborati;
+            int percentuale;
+            if (statoAttuale == StatoJob.COMPLETATO) {
+                percentuale = 100;
+            } else if (bytesTotali > 0) {
+                // La stima può essere superata se nel frattempo sono arrivati nuovi upload
+                percentuale = (int) Math.min(99, bytes * 100 / bytesTotali);
+            } else {
+                percentuale = 0;
+            }
+            return new StatoBackup(id, tipo, statoAttuale, avviato, terminato, bytes, bytesTotali,
+                fileElaborati, fileTotali, percentuale, eta(statoAttuale, bytes), esito);
+        }
+
+        private Long eta(StatoJob statoAttuale, long bytes) {
+            if (statoAttuale != StatoJob.IN_CORSO || bytes == 0 || bytesTotali <= bytes) {
+                return statoAttuale == StatoJob.IN_CORSO ? null : 0L;
+            }
+            // Proiezione lineare sulla velocità media fin qui
+            long trascorsoNanos = System.nanoTime() - inizioNanos;
+            long restantiNanos = (long) ((double) trascorsoNanos * (bytesTotali - bytes) / bytes);
+            return Duration.ofNanos(restantiNanos).toSeconds();
+        }
+    }
+}
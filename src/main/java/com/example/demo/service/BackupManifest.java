@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manifest di integrità scritto come ultima entry di ogni archivio di backup.
+ *
+ * FORMATO (testo UTF-8, una riga per file):
+ *   sha256  crc32  dimensione  nome
+ *
+ * Esempio:
+ *   9f86d0...0a08  3610a686  48213  lavori/0077a182.jpg
+ *
+ * Le righe che iniziano con "#" sono commenti (versione del formato, data).
+ * Il nome è l'ultimo campo così può contenere spazi.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public final class BackupManifest {
+
+    // Nome dell'entry dentro lo ZIP
+    public static final String NOME_ENTRY = "MANIFEST.sha256";
+
+    private static final String INTESTAZIONE = "# servizi-backup-manifest v1";
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * Una riga del manifest.
+     */
+    public record Voce(String nome, long dimensione, long crc, byte[] sha256) {
+        public String sha256Hex() {
+            return HEX.formatHex(sha256);
+        }
+    }
+
+    private BackupManifest() {
+    }
+
+    /**
+     * Serializza le voci nel formato testuale del manifest.
+     */
+    public static byte[] scrivi(List<Voce> voci) {
+        StringBuilder sb = new StringBuilder(64 + voci.size() * 120);
+        sb.append(INTESTAZIONE).append('\n');
+        sb.append("# creato: ").append(java.time.LocalDateTime.now()).append('\n');
+        for (Voce v : voci) {
+            sb.append(v.sha256Hex()).append("  ")
+              .append(String.format("%08x", v.crc())).append("  ")
+              .append(v.dimensione()).append("  ")
+              .append(v.nome()).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Legge un manifest e restituisce le voci indicizzate per nome entry.
+     *
+     * @throws IOException se il formato non è valido
+     */
+    public static Map<String, Voce> leggi(InputStream in) throws IOException {
+        Map<String, Voce> voci = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String riga;
+        int numero = 0;
+        while ((riga = reader.readLine()) != null) {
+            numero++;
+            if (riga.isBlank() || riga.startsWith("#")) {
+                continue;
+            }
+            String[] campi = riga.split(" {2}", 4);
+            if (campi.length != 4) {
+                throw new IOException("Manifest non valido alla riga " + numero);
+            }
+            try {
+                Voce voce = new Voce(campi[3], Long.parseLong(campi[2]),
+                    Long.parseLong(campi[1], 16), HEX.parseHex(campi[0]));
+                voci.put(voce.nome(), voce);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Manifest non valido alla riga " + numero, e);
+            }
+        }
+        return voci;
+    }
+}
@@ -0,0 +1,642 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationVersion;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Service per la verifica e il ripristino dei backup prodotti da BackupService.
+ *
+ * FUNZIONALITÀ:
+ * - Verifica di un archivio senza estrarlo su disco: ogni entry viene letta
+ *   in streaming e confrontata con CRC-32 e SHA-256 del manifest
+ * - Verifica automatica ogni mattina alle 6:30 degli ultimi archivi notturni
+ *   → una corruzione silenziosa si scopre il giorno dopo, non durante un guasto
+ * - Verifica su richiesta dalla dashboard, eseguita in background da
+ *   BackupJobService con l'avanzamento entry per entry
+ * - Ripristino della cartella uploads con estrazione parallela
+ * - Ripristino del database H2 (anche con l'applicazione avviata): cache di
+ *   secondo livello, calendario e indici delle candidature (ricerca full-text
+ *   e duplicati) vengono ricostruiti dai dati ripristinati
+ *
+ * SICUREZZA DEL RIPRISTINO:
+ * - L'archivio viene SEMPRE verificato prima di toccare i dati
+ * - Uploads: estratti in una cartella temporanea e scambiati solo a fine
+ *   estrazione; la cartella precedente resta come "uploads.pre-ripristino-*"
+ * - Database: prima del ripristino viene salvato uno script SQL del
+ *   database corrente in backups/ (riutilizzato se il ripristino fallisce)
+ * - Protezione da path traversal ("zip slip") sui nomi delle entry
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Service
+public class BackupRestoreService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackupRestoreService.class);
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String ENTRY_DATABASE = "servizi.mv.db";
+    private static final List<String> TIPI = List.of("database", "uploads");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Per svuotare la cache di secondo livello dopo il ripristino del database
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CalendarioService calendarioService;
+
+    // Indici in memoria costruiti all'avvio dal database: vanno ricostruiti dopo il ripristino
+    @Autowired
+    private IndiceCandidature indiceCandidature;
+
+    @Autowired
+    private IndiceDuplicati indiceDuplicati;
+
+    // Porta lo schema ripristinato alla versione dell'applicazione
+    @Autowired
+    private Flyway flyway;
+
+    @Value("${spring.datasource.username:sa}")
+    private String dbUsername;
+
+    @Value("${spring.datasource.password:}")
+    private String dbPassword;
+
+    // Thread per l'estrazione parallela degli uploads
+    @Value("${backup.ripristino.thread:4}")
+    private int threadRipristino;
+
+    // Ultimo esito di verifica per tipo di archivio ("database", "uploads")
+    private final Map<String, EsitoVerifica> ultimeVerifiche = new ConcurrentHashMap<>();
+
+    /**
+     * Esito della verifica di un archivio.
+     */
+    public record EsitoVerifica(String archivio, boolean valido, boolean manifestPresente, int entryVerificate,
+                                long bytesVerificati, List<String> errori, Duration durata, LocalDateTime data) {}
+
+    /**
+     * Esito di un ripristino.
+     */
+    public record EsitoRipristino(String archivio, String tipo, int entryRipristinate, long bytesRipristinati,
+                                  String copiaPrecedente, Duration durata) {}
+
+    // ========================================================================
+    // ELENCO ARCHIVI
+    // ========================================================================
+
+    /**
+     * Elenca gli archivi di backup disponibili, dal più recente.
+     * I nomi iniziano con il timestamp (yyyy-MM-dd_HH-mm) quindi l'ordine
+     * alfabetico inverso coincide con quello cronologico.
+     */
+    public List<Path> elencaBackup() throws IOException {
+        Path dir = Paths.get(BackupService.BACKUP_DIR);
+        if (!Files.exists(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> lista = Files.list(dir)) {
+            return lista.filter(p -> p.getFileName().toString().endsWith(".zip"))
+                .sorted(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed())
+                .toList();
+        }
+    }
+
+    /**
+     * Ultimi archivi database e uploads presenti (quelli della verifica senza archivio scelto).
+     */
+    public List<Path> ultimiBackup() throws IOException {
+        List<Path> ultimi = new ArrayList<>();
+        for (String tipo : TIPI) {
+            ultimoBackup(tipo).ifPresent(ultimi::add);
+        }
+        return ultimi;
+    }
+
+    /**
+     * Ultimo archivio di un certo tipo ("database" o "uploads").
+     */
+    public Optional<Path> ultimoBackup(String tipo) throws IOException {
+        String suffisso = "_" + tipo + ".zip";
+        return elencaBackup().stream()
+            .filter(p -> p.getFileName().toString().endsWith(suffisso))
+            .findFirst();
+    }
+
+    /**
+     * Risolve il nome di un archivio scelto dall'admin dentro la cartella backups.
+     *
+     * @throws IllegalArgumentException se il nome non è valido o l'archivio non esiste
+     */
+    public Path risolviArchivio(String nomeFile) {
+        if (nomeFile == null || !nomeFile.matches("[A-Za-z0-9_.-]+\\.zip")) {
+            throw new IllegalArgumentException("Nome archivio non valido");
+        }
+        Path archivio = Paths.get(BackupService.BACKUP_DIR).resolve(nomeFile);
+        if (!Files.isRegularFile(archivio)) {
+            throw new IllegalArgumentException("Archivio non trovato: " + nomeFile);
+        }
+        return archivio;
+    }
+
+    public Map<String, EsitoVerifica> getUltimeVerifiche() {
+        return Map.copyOf(ultimeVerifiche);
+    }
+
+    // ========================================================================
+    // VERIFICA
+    // ========================================================================
+
+    /**
+     * Verifica automatica degli ultimi backup notturni, ogni giorno alle 6:30.
+     *
+     * PERCHÉ ALLE 6:30?
+     * - Il backup parte alle 3:00 e con molte foto può durare a lungo
+     * - L'esito è già disponibile quando l'admin apre la dashboard al mattino
+     */
+    @Scheduled(cron = "0 30 6 * * ?")
+    public void verificaAutomatica() {
+        verificaUltimi(BackupService.Avanzamento.NESSUNO);
+    }
+
+    /**
+     * Verifica gli ultimi archivi database e uploads (ogni mattina o su
+     * richiesta dalla dashboard tramite BackupJobService).
+     *
+     * @param avanzamento Byte compressi ed entry verificati, sommati sui due archivi
+     * @return Esiti di questa verifica per tipo (vuoto se non ci sono backup)
+     */
+    public Map<String, EsitoVerifica> verificaUltimi(BackupService.Avanzamento avanzamento) {
+        Map<String, EsitoVerifica> esiti = new LinkedHashMap<>();
+        long bytesPrecedenti = 0;
+        int entryPrecedenti = 0;
+        for (String tipo : TIPI) {
+            try {
+                Optional<Path> ultimo = ultimoBackup(tipo);
+                if (ultimo.isEmpty()) {
+                    logger.info("Nessun backup {} da verificare", tipo);
+                    continue;
+                }
+                long bytesBase = bytesPrecedenti;
+                int entryBase = entryPrecedenti;
+                EsitoVerifica esito = verificaArchivio(ultimo.get(),
+                    (bytes, entry) -> avanzamento.aggiorna(bytesBase + bytes, entryBase + entry));
+                bytesPrecedenti += Files.size(ultimo.get());
+                entryPrecedenti += esito.entryVerificate();
+                ultimeVerifiche.put(tipo, esito);
+                esiti.put(tipo, esito);
+                if (esito.valido()) {
+                    logger.info("✅ Backup {} verificato: {} ({} file, {} ms)",
+                        tipo, esito.archivio(), esito.entryVerificate(), esito.durata().toMillis());
+                } else {
+                    logger.error("❌ BACKUP {} CORROTTO: {} → {}", tipo, esito.archivio(), esito.errori());
+                }
+            } catch (Exception e) {
+                logger.error("Errore verifica automatica backup {}", tipo, e);
+            }
+        }
+        return esiti;
+    }
+
+    /**
+     * Dimensione degli archivi da verificare, per avanzamento ed ETA della
+     * verifica in background. Legge solo la central directory: un archivio
+     * illeggibile conta 0 entry (l'errore lo riporta la verifica).
+     */
+    public BackupService.Stima stimaVerifica(List<Path> archivi) throws IOException {
+        long bytes = 0;
+        int entry = 0;
+        for (Path archivio : archivi) {
+            bytes += Files.size(archivio);
+            try (ZipFile zip = new ZipFile(archivio.toFile())) {
+                entry += (int) zip.stream()
+                    .filter(e -> !e.isDirectory() && !BackupManifest.NOME_ENTRY.equals(e.getName()))
+                    .count();
+            } catch (IOException e) {
+                logger.warn("Central directory di {} illeggibile: {}", archivio.getFileName(), e.getMessage());
+            }
+        }
+        return new BackupService.Stima(bytes, entry);
+    }
+
+    /**
+     * Verifica un archivio leggendolo in streaming, senza estrarlo su disco.
+     *
+     * CONTROLLI:
+     * 1. La central directory è leggibile (archivio non troncato)
+     * 2. Il CRC-32 calcolato coincide con quello dello ZIP
+     * 3. Dimensione e SHA-256 coincidono con il manifest
+     * 4. Tutti i file del manifest sono presenti nell'archivio
+     *
+     * Gli archivi creati prima del manifest vengono verificati solo con il CRC.
+     *
+     * @param archivio Percorso dell'archivio
+     * @return Esito con l'elenco degli errori trovati (vuoto se valido)
+     */
+    public EsitoVerifica verificaArchivio(Path archivio) {
+        return verificaArchivio(archivio, BackupService.Avanzamento.NESSUNO);
+    }
+
+    /**
+     * Come {@link #verificaArchivio(Path)}, segnalando dopo ogni entry i byte
+     * compressi letti e le entry verificate (barra di progresso della dashboard).
+     */
+    public EsitoVerifica verificaArchivio(Path archivio, BackupService.Avanzamento avanzamento) {
+        long inizio = System.nanoTime();
+        List<String> errori = new ArrayList<>();
+        int entryVerificate = 0;
+        long bytesVerificati = 0;
+        long bytesCompressi = 0;
+        boolean manifestPresente = false;
+
+        try (ZipFile zip = new ZipFile(archivio.toFile())) {
+            Map<String, BackupManifest.Voce> manifest = leggiManifest(zip);
+            manifestPresente = manifest != null;
+            Set<String> attese = manifestPresente ? new HashSet<>(manifest.keySet()) : Set.of();
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || BackupManifest.NOME_ENTRY.equals(entry.getName())) {
+                    continue;
+                }
+                try (InputStream in = zip.getInputStream(entry)) {
+                    Impronta impronta = calcolaImpronta(in, null, buffer);
+                    String errore = confronta(entry, impronta, manifestPresente ? manifest.get(entry.getName()) : null, manifestPresente);
+                    if (errore != null) {
+                        errori.add(errore);
+                    }
+                    bytesVerificati += impronta.dimensione();
+                } catch (IOException e) {
+                    errori.add(entry.getName() + ": illeggibile (" + e.getMessage() + ")");
+                }
+                if (manifestPresente) {
+                    attese.remove(entry.getName());
+                }
+                entryVerificate++;
+                bytesCompressi += Math.max(entry.getCompressedSize(), 0);
+                avanzamento.aggiorna(bytesCompressi, entryVerificate);
+            }
+            attese.forEach(nome -> errori.add(nome + ": presente nel manifest ma mancante nell'archivio"));
+        } catch (IOException e) {
+            errori.add("Archivio illeggibile: " + e.getMessage());
+        }
+
+        EsitoVerifica esito = new EsitoVerifica(archivio.getFileName().toString(), errori.isEmpty(), manifestPresente,
+            entryVerificate, bytesVerificati, List.copyOf(errori), Duration.ofNanos(System.nanoTime() - inizio),
+            LocalDateTime.now());
+        meterRegistry.counter("backup.verifica", "esito", esito.valido() ? "ok" : "corrotto").increment();
+        return esito;
+    }
+
+    // ========================================================================
+    // RIPRISTINO UPLOADS
+    // ========================================================================
+
+    /**
+     * Ripristina la cartella uploads da un archivio, estraendo i file in parallelo.
+     *
+     * WORKFLOW:
+     * 1. Verifica completa dell'archivio (nessuna modifica se corrotto)
+     * 2. Estrazione parallela in "uploads.ripristino-*" (accanto a uploads)
+     *    con ricontrollo di SHA-256 di ogni file scritto
+     * 3. Scambio: uploads → uploads.pre-ripristino-*, cartella estratta → uploads
+     *
+     * @param archivio Archivio "*_uploads.zip"
+     * @throws IOException se l'archivio non è valido o l'estrazione fallisce
+     */
+    public EsitoRipristino ripristinaUploads(Path archivio) throws IOException {
+        long inizio = System.nanoTime();
+        verificaPrimaDelRipristino(archivio);
+
+        Path uploads = Paths.get(BackupService.UPLOADS_PATH).toAbsolutePath().normalize();
+        String timestamp = LocalDateTime.now().format(TIMESTAMP);
+        Path staging = uploads.resolveSibling(uploads.getFileName() + ".ripristino-" + timestamp);
+        Path precedente = uploads.resolveSibling(uploads.getFileName() + ".pre-ripristino-" + timestamp);
+        Files.createDirectories(staging);
+
+        int entry = 0;
+        long bytes = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threadRipristino));
+        try (ZipFile zip = new ZipFile(archivio.toFile())) {
+            Map<String, BackupManifest.Voce> manifest = leggiManifest(zip);
+            List<Future<Long>> estrazioni = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry zipEntry = entries.nextElement();
+                if (zipEntry.isDirectory() || BackupManifest.NOME_ENTRY.equals(zipEntry.getName())) {
+                    continue;
+                }
+                Path destinazione = destinazioneSicura(staging, zipEntry.getName());
+                BackupManifest.Voce voce = manifest != null ? manifest.get(zipEntry.getName()) : null;
+                estrazioni.add(pool.submit(() -> estrai(zip, zipEntry, destinazione, voce)));
+            }
+            for (Future<Long> f : estrazioni) {
+                bytes += attendi(f);
+                entry++;
+            }
+        } catch (IOException | RuntimeException e) {
+            eliminaRicorsivo(staging);
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Scambio delle cartelle (rename nella stessa directory padre)
+        boolean esistente = Files.exists(uploads);
+        if (esistente) {
+            Files.move(uploads, precedente);
+        }
+        Files.move(staging, uploads);
+
+        logger.info("♻️ Uploads ripristinati da {} ({} file, {} byte)", archivio.getFileName(), entry, bytes);
+        return new EsitoRipristino(archivio.getFileName().toString(), "uploads", entry, bytes,
+            esistente ? precedente.toString() : null, Duration.ofNanos(System.nanoTime() - inizio));
+    }
+
+    // ========================================================================
+    // RIPRISTINO DATABASE
+    // ========================================================================
+
+    /**
+     * Ripristina il database H2 da un archivio, senza fermare l'applicazione.
+     *
+     * Il file .mv.db non può essere sostituito mentre il database è aperto,
+     * quindi il ripristino passa da uno script SQL:
+     * 1. Verifica dell'archivio ed estrazione del file in una cartella temporanea
+     * 2. SCRIPT TO della copia estratta (aperta come database separato)
+     * 3. SCRIPT TO del database corrente in backups/ (copia di sicurezza)
+     * 4. DROP ALL OBJECTS + RUNSCRIPT sul database in uso
+     * 5. Flyway migrate: un archivio di una versione precedente (senza
+     *    flyway_schema_history, tabelle nuove o sequenze degli id) viene
+     *    aggiornato come all'avvio, altrimenti ogni insert fallirebbe
+     * 6. Svuotamento della cache di secondo livello (entità e query di prima del ripristino)
+     * Se il passo 4 o 5 fallisce, viene ricaricata la copia di sicurezza.
+     *
+     * Un archivio con uno schema più recente dell'applicazione (creato da una
+     * versione successiva) viene rifiutato prima di toccare il database.
+     *
+     * @param archivio Archivio "*_database.zip"
+     * @throws IllegalStateException se il database in uso non è H2 o l'archivio è più recente dello schema
+     */
+    public EsitoRipristino ripristinaDatabase(Path archivio) throws IOException, SQLException {
+        long inizio = System.nanoTime();
+        verificaPrimaDelRipristino(archivio);
+
+        Path tempDir = Files.createTempDirectory("servizi-ripristino");
+        try (Connection live = dataSource.getConnection()) {
+            if (!"H2".equalsIgnoreCase(live.getMetaData().getDatabaseProductName())) {
+                throw new IllegalStateException("Il ripristino da archivio è disponibile solo per il database H2");
+            }
+
+            // STEP 1: Estrai il file del database
+            Path fileEstratto = tempDir.resolve(ENTRY_DATABASE);
+            long bytes;
+            try (ZipFile zip = new ZipFile(archivio.toFile())) {
+                ZipEntry entry = zip.getEntry(ENTRY_DATABASE);
+                if (entry == null) {
+                    throw new IOException("L'archivio non contiene " + ENTRY_DATABASE);
+                }
+                Map<String, BackupManifest.Voce> manifest = leggiManifest(zip);
+                bytes = estrai(zip, entry, fileEstratto, manifest != null ? manifest.get(ENTRY_DATABASE) : null);
+            }
+
+            // STEP 2: Dump della copia estratta (rifiutata se più recente dell'applicazione)
+            Path dump = tempDir.resolve("ripristino.sql");
+            String urlCopia = "jdbc:h2:file:" + tempDir.resolve("servizi").toAbsolutePath().toString().replace('\\', '/');
+            try (Connection copia = DriverManager.getConnection(urlCopia, dbUsername, dbPassword);
+                 Statement st = copia.createStatement()) {
+                verificaVersioneSchema(copia);
+                st.execute("SCRIPT TO " + letterale(dump));
+                st.execute("SHUTDOWN");
+            }
+
+            // STEP 3: Copia di sicurezza del database corrente
+            Files.createDirectories(Paths.get(BackupService.BACKUP_DIR));
+            Path sicurezza = Paths.get(BackupService.BACKUP_DIR,
+                LocalDateTime.now().format(TIMESTAMP) + "_pre-ripristino.sql").toAbsolutePath();
+            try (Statement st = live.createStatement()) {
+                st.execute("SCRIPT TO " + letterale(sicurezza));
+            }
+
+            // STEP 4: Sostituzione del contenuto del database in uso
+            try (Statement st = live.createStatement()) {
+                st.execute("DROP ALL OBJECTS");
+                st.execute("RUNSCRIPT FROM " + letterale(dump));
+                // STEP 5: Archivio di una versione precedente → aggiornato come all'avvio
+                flyway.migrate();
+            } catch (SQLException | RuntimeException e) {
+                logger.error("Ripristino database fallito, ricarico la copia di sicurezza {}", sicurezza, e);
+                try (Statement st = live.createStatement()) {
+                    st.execute("DROP ALL OBJECTS");
+                    st.execute("RUNSCRIPT FROM " + letterale(sicurezza));
+                }
+                throw e;
+            } finally {
+                // Il database è stato riscritto fuori da Hibernate: nessuna voce in cache è più valida
+                entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+                calendarioService.invalida();
+                indiceCandidature.ricostruisci();
+                indiceDuplicati.ricostruisci();
+            }
+
+            logger.info("♻️ Database ripristinato da {} (copia di sicurezza: {})", archivio.getFileName(), sicurezza);
+            return new EsitoRipristino(archivio.getFileName().toString(), "database", 1, bytes,
+                sicurezza.toString(), Duration.ofNanos(System.nanoTime() - inizio));
+        } finally {
+            eliminaRicorsivo(tempDir);
+        }
+    }
+
+    // ========================================================================
+    // HELPER
+    // ========================================================================
+
+    /**
+     * Rifiuta un archivio con migrazioni che questa versione non conosce.
+     * Un archivio senza flyway_schema_history è di prima di Flyway: migrate()
+     * lo registra alla versione 1 come all'avvio.
+     */
+    private void verificaVersioneSchema(Connection copia) throws SQLException {
+        MigrationInfo corrente = flyway.info().current();
+        MigrationVersion versioneApplicazione = corrente != null ? corrente.getVersion() : MigrationVersion.EMPTY;
+        try (ResultSet tabelle = copia.getMetaData().getTables(null, null, "flyway_schema_history", null)) {
+            if (!tabelle.next()) {
+                return;
+            }
+        }
+        try (Statement st = copia.createStatement();
+             ResultSet versioni = st.executeQuery(
+                 "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" AND \"version\" IS NOT NULL")) {
+            while (versioni.next()) {
+                MigrationVersion versione = MigrationVersion.fromVersion(versioni.getString(1));
+                if (versione.compareTo(versioneApplicazione) > 0) {
+                    throw new IllegalStateException("L'archivio ha lo schema alla versione " + versione
+                        + ", più recente di quella dell'applicazione (" + versioneApplicazione + ")");
+                }
+            }
+        }
+    }
+
+    private void verificaPrimaDelRipristino(Path archivio) throws IOException {
+        EsitoVerifica verifica = verificaArchivio(archivio);
+        if (!verifica.valido()) {
+            throw new IOException("Archivio non valido, ripristino annullato: " + verifica.errori());
+        }
+    }
+
+    private Map<String, BackupManifest.Voce> leggiManifest(ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(BackupManifest.NOME_ENTRY);
+        if (entry == null) {
+            return null;
+        }
+        try (InputStream in = zip.getInputStream(entry)) {
+            return BackupManifest.leggi(in);
+        }
+    }
+
+    /**
+     * Estrae una entry su disco calcolando CRC e SHA-256 durante la scrittura.
+     */
+    private long estrai(ZipFile zip, ZipEntry entry, Path destinazione, BackupManifest.Voce voce) throws IOException {
+        Files.createDirectories(destinazione.getParent());
+        Impronta impronta;
+        try (InputStream in = zip.getInputStream(entry);
+             OutputStream out = Files.newOutputStream(destinazione)) {
+            impronta = calcolaImpronta(in, out, new byte[BUFFER_SIZE]);
+        }
+        String errore = confronta(entry, impronta, voce, voce != null);
+        if (errore != null) {
+            throw new IOException(errore);
+        }
+        return impronta.dimensione();
+    }
+
+    private Impronta calcolaImpronta(InputStream in, OutputStream copia, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        MessageDigest sha = sha256();
+        long dimensione = 0;
+        int letti;
+        while ((letti = in.read(buffer)) != -1) {
+            crc.update(buffer, 0, letti);
+            sha.update(buffer, 0, letti);
+            dimensione += letti;
+            if (copia != null) {
+                copia.write(buffer, 0, letti);
+            }
+        }
+        return new Impronta(crc.getValue(), sha.digest(), dimensione);
+    }
+
+    /**
+     * Confronta l'impronta calcolata con CRC dello ZIP e voce del manifest.
+     *
+     * @return Descrizione dell'errore, oppure null se tutto coincide
+     */
+    private String confronta(ZipEntry entry, Impronta impronta, BackupManifest.Voce voce, boolean manifestPresente) {
+        if (entry.getCrc() != -1 && entry.getCrc() != impronta.crc()) {
+            return entry.getName() + ": CRC non valido";
+        }
+        if (!manifestPresente) {
+            return null;
+        }
+        if (voce == null) {
+            return entry.getName() + ": non presente nel manifest";
+        }
+        if (voce.dimensione() != impronta.dimensione()) {
+            return entry.getName() + ": dimensione " + impronta.dimensione() + " invece di " + voce.dimensione();
+        }
+        if (!MessageDigest.isEqual(voce.sha256(), impronta.sha256())) {
+            return entry.getName() + ": SHA-256 non corrispondente";
+        }
+        return null;
+    }
+
+    private Path destinazioneSicura(Path base, String nomeEntry) throws IOException {
+        Path destinazione = base.resolve(nomeEntry).normalize();
+        if (!destinazione.startsWith(base)) {
+            throw new IOException("Entry con percorso non consentito: " + nomeEntry);
+        }
+        return destinazione;
+    }
+
+    private long attendi(Future<Long> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ripristino interrotto", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    private static String letterale(Path path) {
+        return "'" + path.toString().replace('\\', '/').replace("'", "''") + "'";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+
+    private static void eliminaRicorsivo(Path dir) {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    logger.warn("Impossibile eliminare {}", p);
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Impossibile pulire {}", dir);
+        }
+    }
+
+    private record Impronta(long crc, byte[] sha256, long dimensione) {}
+}
@@ -1,15 +1,26 @@
 package com.example.demo.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.nio.file.*;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 /**
  * Service per backup automatico del database e file.
@@ -17,7 +28,11 @@ import java.util.zip.ZipOutputStream;
  * FUNZIONALITÀ:
  * - Backup automatico ogni notte alle 3:00
  * - Backup manuale on-demand dall'admin
- * - Compressione ZIP per risparmiare spazio
+ * - Compressione ZIP parallela su pool limitato (vedi ParallelZipWriter)
+ * - Foto e PDF salvati senza ricompressione (già compressi)
+ * - Scrittura in streaming con memoria limitata
+ * - Metriche: durata, byte e throughput (MB/s) di ogni archivio
+ * - Manifest SHA-256 in ogni archivio (verificato da BackupRestoreService)
  * - Conserva ultimi 30 backup, elimina i vecchi
  * - Backup separati per database e foto
  * 
@@ -34,11 +49,52 @@ import java.util.zip.ZipOutputStream;
 @Service
 public class BackupService {
     
-    private final String BACKUP_DIR = "backups/";
-    private final String DATABASE_PATH = "data/servizi.mv.db"; // H2 database file
-    private final String UPLOADS_PATH = "src/main/resources/static/uploads/";
+    // Percorsi condivisi con BackupRestoreService (ripristino e verifica)
+    static final String BACKUP_DIR = "backups/";
+    static final String DATABASE_PATH = "data/servizi.mv.db"; // H2 database file
+    static final String UPLOADS_PATH = "src/main/resources/static/uploads/";
     private final int MAX_BACKUPS_TO_KEEP = 30;
     
+    // Thread di compressione (default: core disponibili, lasciandone uno al sito)
+    @Value("${backup.compressione.thread:0}")
+    private int threadCompressione;
+    
+    // Livello Deflater: 6 = default zlib, buon compromesso velocità/dimensione
+    @Value("${backup.compressione.livello:6}")
+    private int livelloCompressione;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Un solo backup alla volta (notturno e manuale non si sovrappongono)
+    private final ReentrantLock esecuzione = new ReentrantLock();
+    
+    /**
+     * Callback di avanzamento: byte e file elaborati dall'inizio del backup
+     * (database + uploads). Usato da BackupJobService per la dashboard.
+     */
+    @FunctionalInterface
+    public interface Avanzamento {
+        Avanzamento NESSUNO = (bytes, file) -> { };
+        
+        void aggiorna(long bytesElaborati, int fileElaborati);
+    }
+    
+    /**
+     * Stima della dimensione di un backup completo (per calcolare l'ETA).
+     */
+    public record Stima(long bytes, int file) {}
+    
+    /**
+     * Risultato di un singolo archivio di backup (usato per log e metriche).
+     */
+    public record RisultatoBackup(String archivio, int entry, long bytesLetti, long bytesScritti, Duration durata) {
+        public double throughputMBs() {
+            double secondi = Math.max(durata.toMillis(), 1) / 1000.0;
+            return (bytesLetti / (1024.0 * 1024.0)) / secondi;
+        }
+    }
+    
     /**
      * Esegue backup automatico ogni notte alle 3:00.
      * 
@@ -53,20 +109,28 @@ public class BackupService {
      */
     @Scheduled(cron = "0 0 3 * * ?")
     public void backupAutomatico() {
+        esecuzione.lock();
+        Timer.Sample misura = Timer.start(meterRegistry);
+        String esito = "errore";
         try {
             System.out.println("⏰ Inizio backup automatico: " + LocalDateTime.now());
             
             // Esegui backup database e upload
-            backupDatabase();
-            backupUploads();
+            AvanzamentoCumulativo avanzamento = new AvanzamentoCumulativo(Avanzamento.NESSUNO);
+            backupDatabase(avanzamento);
+            backupUploads(avanzamento);
             
             // Pulisci backup vecchi (oltre 30 giorni)
             pulisciBackupVecchi();
             
             System.out.println("✅ Backup automatico completato!");
+            esito = "ok";
         } catch (Exception e) {
             System.err.println("❌ Errore backup automatico: " + e.getMessage());
             // TODO: Inviare email all'admin per notificare errore
+        } finally {
+            registraEsecuzione(misura, "automatico", esito);
+            esecuzione.unlock();
         }
     }
     
@@ -77,21 +141,68 @@ public class BackupService {
      * @return true se backup riuscito, false se errore
      */
     public boolean backupManuale() {
+        return backupManuale(Avanzamento.NESSUNO);
+    }
+    
+    /**
+     * Backup manuale con notifica dell'avanzamento.
+     * Se è già in corso un altro backup (es: quello notturno) attende la sua fine.
+     * 
+     * @param avanzamento Callback invocata dopo ogni file scritto
+     * @return true se backup riuscito, false se errore
+     */
+    public boolean backupManuale(Avanzamento avanzamento) {
+        esecuzione.lock();
+        Timer.Sample misura = Timer.start(meterRegistry);
+        String esito = "errore";
         try {
             System.out.println("🔧 Backup manuale avviato dall'admin");
-            backupDatabase();
-            backupUploads();
+            AvanzamentoCumulativo cumulativo = new AvanzamentoCumulativo(avanzamento);
+            backupDatabase(cumulativo);
+            backupUploads(cumulativo);
+            esito = "ok";
             return true;
         } catch (Exception e) {
             System.err.println("❌ Errore backup manuale: " + e.getMessage());
             return false;
+        } finally {
+            registraEsecuzione(misura, "manuale", esito);
+            esecuzione.unlock();
+        }
+    }
+    
+    /**
+     * Stima byte e numero di file di un backup completo (database + uploads).
+     * Legge solo i metadati dei file, non il contenuto.
+     */
+    public Stima stimaDimensione() {
+        long bytes = 0;
+        int file = 0;
+        try {
+            Path dbPath = Paths.get(DATABASE_PATH);
+            if (Files.exists(dbPath)) {
+                bytes += Files.size(dbPath);
+                file++;
+            }
+            Path uploadsPath = Paths.get(UPLOADS_PATH);
+            if (Files.exists(uploadsPath)) {
+                try (Stream<Path> walk = Files.walk(uploadsPath)) {
+                    for (Path p : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                        bytes += Files.size(p);
+                        file++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Impossibile stimare la dimensione del backup: " + e.getMessage());
         }
+        return new Stima(bytes, file);
     }
     
     /**
      * Backup del file database H2 compresso in ZIP.
      */
-    private void backupDatabase() throws IOException {
+    private void backupDatabase(AvanzamentoCumulativo avanzamento) throws IOException {
         Path dbPath = Paths.get(DATABASE_PATH);
         if (!Files.exists(dbPath)) {
             System.out.println("⚠️ Database non trovato, skip backup");
@@ -101,24 +212,16 @@ public class BackupService {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm"));
         String zipFilename = BACKUP_DIR + timestamp + "_database.zip";
         
-        // Crea directory backup se non esiste
-        Files.createDirectories(Paths.get(BACKUP_DIR));
+        RisultatoBackup risultato = scriviArchivio(zipFilename, "database",
+            List.of(new FileDaArchiviare(dbPath, "servizi.mv.db")), avanzamento);
         
-        // Comprimi database in ZIP
-        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFilename))) {
-            ZipEntry entry = new ZipEntry("servizi.mv.db");
-            zos.putNextEntry(entry);
-            Files.copy(dbPath, zos);
-            zos.closeEntry();
-        }
-        
-        System.out.println("💾 Database backup: " + zipFilename);
+        System.out.println("💾 Database backup: " + descrivi(risultato));
     }
     
     /**
      * Backup della cartella uploads (foto lavori) compressa in ZIP.
      */
-    private void backupUploads() throws IOException {
+    private void backupUploads(AvanzamentoCumulativo avanzamento) throws IOException {
         Path uploadsPath = Paths.get(UPLOADS_PATH);
         if (!Files.exists(uploadsPath)) {
             System.out.println("⚠️ Cartella uploads non trovata, skip backup");
@@ -128,27 +231,163 @@ public class BackupService {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm"));
         String zipFilename = BACKUP_DIR + timestamp + "_uploads.zip";
         
-        // Crea directory backup se non esiste
+        // Files.walk tiene aperti i descrittori delle directory: va sempre chiuso
+        List<FileDaArchiviare> files;
+        try (Stream<Path> walk = Files.walk(uploadsPath)) {
+            files = walk.filter(Files::isRegularFile)
+                .map(path -> new FileDaArchiviare(path, uploadsPath.relativize(path).toString()))
+                .toList();
+        }
+        
+        RisultatoBackup risultato = scriviArchivio(zipFilename, "uploads", files, avanzamento);
+        
+        System.out.println("📁 Uploads backup: " + descrivi(risultato));
+    }
+    
+    /**
+     * Scrive un archivio ZIP comprimendo le entry in parallelo.
+     * 
+     * FUNZIONAMENTO:
+     * - Pool di compressione limitato (coda piena → il chiamante comprime da sé)
+     * - Il file viene scritto prima come ".tmp" e rinominato solo a fine
+     *   scrittura: un backup interrotto non lascia mai uno ZIP troncato
+     * - Registra durata, byte letti/scritti e throughput come metriche
+     */
+    private RisultatoBackup scriviArchivio(String zipFilename, String tipo, List<FileDaArchiviare> files,
+                                           AvanzamentoCumulativo avanzamento) throws IOException {
         Files.createDirectories(Paths.get(BACKUP_DIR));
+        Path destinazione = Paths.get(zipFilename);
+        Path temporaneo = Paths.get(zipFilename + ".tmp");
         
-        // Comprimi cartella uploads in ZIP
-        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFilename))) {
-            Files.walk(uploadsPath)
-                .filter(path -> !Files.isDirectory(path))
-                .forEach(path -> {
-                    try {
-                        String zipPath = uploadsPath.relativize(path).toString();
-                        ZipEntry entry = new ZipEntry(zipPath);
-                        zos.putNextEntry(entry);
-                        Files.copy(path, zos);
-                        zos.closeEntry();
-                    } catch (IOException e) {
-                        System.err.println("Errore backup file: " + path);
-                    }
-                });
+        int thread = numeroThread();
+        ExecutorService pool = creaPoolCompressione(thread);
+        long inizio = System.nanoTime();
+        try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(temporaneo), 256 * 1024);
+             ParallelZipWriter zip = new ParallelZipWriter(fileOut, pool, thread * 2, livelloCompressione)) {
+            // Il manifest non è un file del backup: non conta nell'avanzamento
+            zip.setProgressListener((nome, bytes, entry) -> {
+                if (!BackupManifest.NOME_ENTRY.equals(nome)) {
+                    avanzamento.aggiorna(bytes, entry);
+                }
+            });
+            
+            for (FileDaArchiviare file : files) {
+                zip.aggiungi(file.path(), file.nomeEntry());
+            }
+            // Manifest con SHA-256 di ogni file: usato da verifica e ripristino
+            zip.aggiungiManifest();
+            zip.finish();
+            if (zip.getEntrySaltate() > 0) {
+                // File eliminati durante il backup (es: lavoro cancellato): si prosegue
+                System.err.println("⚠️ File non più presenti, saltati: " + zip.getEntrySaltate());
+            }
+            
+            Duration durata = Duration.ofNanos(System.nanoTime() - inizio);
+            RisultatoBackup risultato = new RisultatoBackup(zipFilename, zip.getNumeroEntry(),
+                zip.getBytesLetti(), zip.getBytesScritti(), durata);
+            fileOut.close();
+            avanzamento.archivioCompletato();
+            Files.move(temporaneo, destinazione, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            registraMetriche(tipo, risultato);
+            return risultato;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaneo);
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * Pool limitato per la compressione: thread fissi e coda corta.
+     * Con coda piena il lavoro viene eseguito dal thread del backup stesso
+     * (CallerRunsPolicy), così non si accumulano file in memoria.
+     */
+    private ExecutorService creaPoolCompressione(int thread) {
+        AtomicInteger contatore = new AtomicInteger();
+        return new ThreadPoolExecutor(thread, thread, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(thread * 2),
+            r -> {
+                Thread t = new Thread(r, "backup-zip-" + contatore.incrementAndGet());
+                t.setDaemon(true);
+                t.setPriority(Thread.NORM_PRIORITY - 1);
+                return t;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    private int numeroThread() {
+        if (threadCompressione > 0) {
+            return threadCompressione;
+        }
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+    
+    private void registraMetriche(String tipo, RisultatoBackup risultato) {
+        Timer.builder("backup.durata")
+            .description("Durata scrittura archivio di backup")
+            .tag("tipo", tipo)
+            .register(meterRegistry)
+            .record(risultato.durata());
+        DistributionSummary.builder("backup.bytes")
+            .description("Byte letti per archivio di backup")
+            .baseUnit("bytes")
+            .tag("tipo", tipo)
+            .register(meterRegistry)
+            .record(risultato.bytesLetti());
+        DistributionSummary.builder("backup.throughput")
+            .description("Throughput di compressione del backup")
+            .baseUnit("MB/s")
+            .tag("tipo", tipo)
+            .register(meterRegistry)
+            .record(risultato.throughputMBs());
+    }
+    
+    // Durata complessiva (database + uploads + pulizia), per modalità ed esito
+    private void registraEsecuzione(Timer.Sample misura, String modalita, String esito) {
+        misura.stop(Timer.builder("backup.esecuzione")
+            .description("Durata complessiva di un backup")
+            .tag("modalita", modalita)
+            .tag("esito", esito)
+            .register(meterRegistry));
+    }
+    
+    private String descrivi(RisultatoBackup r) {
+        return String.format("%s (%d file, %.1f MB → %.1f MB in %d ms, %.1f MB/s)",
+            r.archivio(), r.entry(), r.bytesLetti() / 1048576.0, r.bytesScritti() / 1048576.0,
+            r.durata().toMillis(), r.throughputMBs());
+    }
+    
+    private record FileDaArchiviare(Path path, String nomeEntry) {}
+    
+    /**
+     * Somma l'avanzamento dei singoli archivi (database, poi uploads)
+     * in un unico contatore dall'inizio del backup. Conta solo i file
+     * archiviati: il manifest di ogni archivio resta fuori, come nella Stima.
+     */
+    private static final class AvanzamentoCumulativo {
+        private final Avanzamento destinazione;
+        private long bytesArchiviPrecedenti = 0;
+        private int fileArchiviPrecedenti = 0;
+        private long bytesArchivio = 0;
+        private int fileArchivio = 0;
+        
+        AvanzamentoCumulativo(Avanzamento destinazione) {
+            this.destinazione = destinazione;
         }
         
-        System.out.println("📁 Uploads backup: " + zipFilename);
+        void aggiorna(long bytes, int file) {
+            bytesArchivio = bytes;
+            fileArchivio = file;
+            destinazione.aggiorna(bytesArchiviPrecedenti + bytes, fileArchiviPrecedenti + file);
+        }
+        
+        void archivioCompletato() {
+            bytesArchiviPrecedenti += bytesArchivio;
+            fileArchiviPrecedenti += fileArchivio;
+            bytesArchivio = 0;
+            fileArchivio = 0;
+        }
     }
     
     /**
@@ -160,8 +399,8 @@ public class BackupService {
         
         LocalDateTime cutoffDate = LocalDateTime.now().minusDays(MAX_BACKUPS_TO_KEEP);
         
-        Files.list(backupPath)
-            .filter(path -> {
+        try (Stream<Path> lista = Files.list(backupPath)) {
+            lista.filter(path -> {
                 try {
                     return Files.getLastModifiedTime(path)
                         .toInstant()
@@ -178,5 +417,6 @@ public class BackupService {
                     System.err.println("Errore eliminazione backup: " + path);
                 }
             });
+        }
     }
 }
@@ -0,0 +1,300 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.repository.AppuntamentoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service per il feed iCalendar (RFC 5545) degli appuntamenti confermati.
+ *
+ * I calendari del telefono interrogano il feed ogni pochi minuti: il corpo
+ * viene generato una volta, tenuto in memoria già serializzato con il suo
+ * ETag, e rigenerato solo se serve. Le richieste con If-None-Match uguale
+ * ricevono 304 senza toccare il database.
+ *
+ * QUANDO SI RIGENERA:
+ * - Dopo il commit di un inserimento, modifica o eliminazione di un
+ *   Appuntamento (listener post-commit di Hibernate: prenotazioni, conferme,
+ *   rifiuti, eliminazioni e importazioni CSV, da qualsiasi service)
+ * - Al cambio di giorno: la finestra mobile si sposta
+ * - Dopo un ripristino del database (invalida())
+ *
+ * FEED:
+ * - Appuntamenti CONFERMATO da giorni-passati fa a giorni-futuri da oggi
+ * - Un evento di 1 ora per appuntamento, orari in UTC (nessun VTIMEZONE)
+ * - UID stabile per id: il calendario aggiorna l'evento invece di duplicarlo
+ * - DTSTAMP = data di creazione: a parità di appuntamenti il corpo (e l'ETag)
+ *   resta identico anche dopo un riavvio
+ *
+ * CONFIGURAZIONE (application.properties):
+ * - calendario.token           → token segreto nell'URL; vuoto = feed disabilitato
+ * - calendario.giorni-passati  → default 30
+ * - calendario.giorni-futuri   → default 180
+ * - calendario.fuso            → fuso degli orari salvati (default Europe/Rome)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Service
+public class CalendarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalendarioService.class);
+
+    private static final int DURATA_ORE = 1;
+    // RFC 5545 §3.1: righe di al massimo 75 byte, le successive iniziano con uno spazio
+    private static final int BYTE_PER_RIGA = 75;
+    private static final DateTimeFormatter FORMATO_UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${calendario.token:}")
+    private String token;
+
+    @Value("${calendario.giorni-passati:30}")
+    private int giorniPassati;
+
+    @Value("${calendario.giorni-futuri:180}")
+    private int giorniFuturi;
+
+    @Value("${calendario.fuso:Europe/Rome}")
+    private ZoneId fuso;
+
+    // Incrementata dopo ogni commit che tocca un appuntamento
+    private final AtomicLong versione = new AtomicLong();
+    private final ReentrantLock generazione = new ReentrantLock();
+    private volatile Feed feed;
+
+    /**
+     * Corpo del feed già serializzato.
+     *
+     * @param etag ETag forte (tra virgolette), hash del corpo
+     */
+    public record Feed(byte[] corpo, String etag, long versione, LocalDate giorno) {
+    }
+
+    @PostConstruct
+    public void registraListener() {
+        EventListenerRegistry registro = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        ModificheAppuntamenti listener = new ModificheAppuntamenti();
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    /**
+     * Confronto a tempo costante: la risposta non rivela quanti caratteri sono giusti.
+     */
+    public boolean isTokenValido(String ricevuto) {
+        if (token.isBlank() || ricevuto == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), ricevuto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Feed aggiornato: quello in memoria se nessun appuntamento è cambiato
+     * da quando è stato generato (e il giorno è lo stesso), altrimenti nuovo.
+     */
+    public Feed getFeed() {
+        Feed attuale = feed;
+        if (isValido(attuale)) {
+            return attuale;
+        }
+        // Un solo thread rigenera; gli altri attendono e usano il risultato
+        generazione.lock();
+        try {
+            attuale = feed;
+            if (!isValido(attuale)) {
+                attuale = genera();
+                feed = attuale;
+            }
+            return attuale;
+        } finally {
+            generazione.unlock();
+        }
+    }
+
+    /**
+     * Scarta il feed in memoria (es: database ripristinato fuori da Hibernate).
+     */
+    public void invalida() {
+        versione.incrementAndGet();
+    }
+
+    private boolean isValido(Feed candidato) {
+        return candidato != null
+            && candidato.versione() == versione.get()
+            && candidato.giorno().equals(LocalDate.now(fuso));
+    }
+
+    private Feed genera() {
+        // Letta prima della query: una modifica durante la generazione la fa ripetere alla richiesta dopo
+        long versioneLetta = versione.get();
+        LocalDate oggi = LocalDate.now(fuso);
+        List<Appuntamento> confermati = appuntamentoRepository
+            .findByStatoAndDataAppuntamentoBetweenOrderByDataAppuntamentoAsc(
+                Appuntamento.StatoAppuntamento.CONFERMATO,
+                oggi.minusDays(giorniPassati).atStartOfDay(),
+                oggi.plusDays(giorniFuturi + 1L).atStartOfDay());
+
+        StringBuilder ics = new StringBuilder(512 + confermati.size() * 400);
+        riga(ics, "BEGIN:VCALENDAR");
+        riga(ics, "VERSION:2.0");
+        riga(ics, "PRODID:-//Servizi Edili Elvis//Appuntamenti//IT");
+        riga(ics, "CALSCALE:GREGORIAN");
+        riga(ics, "METHOD:PUBLISH");
+        riga(ics, "X-WR-CALNAME:" + testo("Appuntamenti confermati"));
+        riga(ics, "X-WR-TIMEZONE:" + fuso.getId());
+        for (Appuntamento a : confermati) {
+            riga(ics, "BEGIN:VEVENT");
+            riga(ics, "UID:appuntamento-" + a.getId() + "@servizi-edili-elvis");
+            riga(ics, "DTSTAMP:" + utc(a.getDataCreazione() != null ? a.getDataCreazione() : a.getDataAppuntamento()));
+            riga(ics, "DTSTART:" + utc(a.getDataAppuntamento()));
+            riga(ics, "DTEND:" + utc(a.getDataAppuntamento().plusHours(DURATA_ORE)));
+            riga(ics, "SUMMARY:" + testo(a.getTipoServizio() + " - " + a.getNomeCliente() + " " + a.getCognomeCliente()));
+            if (a.getIndirizzo() != null && !a.getIndirizzo().isBlank()) {
+                riga(ics, "LOCATION:" + testo(a.getIndirizzo()));
+            }
+            riga(ics, "DESCRIPTION:" + testo("Telefono: " + a.getTelefono() + "\nEmail: " + a.getEmail()
+                + (a.getDescrizione() != null && !a.getDescrizione().isBlank() ? "\n\n" + a.getDescrizione() : "")));
+            riga(ics, "STATUS:CONFIRMED");
+            riga(ics, "END:VEVENT");
+        }
+        riga(ics, "END:VCALENDAR");
+
+        byte[] corpo = ics.toString().getBytes(StandardCharsets.UTF_8);
+        logger.debug("Feed calendario rigenerato: {} appuntamenti, {} byte", confermati.size(), corpo.length);
+        return new Feed(corpo, etag(corpo), versioneLetta, oggi);
+    }
+
+    private String utc(LocalDateTime locale) {
+        return locale.atZone(fuso).withZoneSameInstant(ZoneOffset.UTC).format(FORMATO_UTC);
+    }
+
+    /**
+     * Valore TEXT di RFC 5545: \ ; , e a capo con escape.
+     */
+    private static String testo(String valore) {
+        StringBuilder risultato = new StringBuilder(valore.length() + 8);
+        for (int i = 0; i < valore.length(); i++) {
+            char c = valore.charAt(i);
+            switch (c) {
+                case '\\', ';', ',' -> risultato.append('\\').append(c);
+                case '\n' -> risultato.append("\\n");
+                case '\r' -> { }
+                default -> risultato.append(c);
+            }
+        }
+        return risultato.toString();
+    }
+
+    /**
+     * Aggiunge una riga terminata da CRLF, piegata ogni 75 byte UTF-8
+     * senza spezzare un carattere.
+     */
+    private static void riga(StringBuilder ics, String contenuto) {
+        int byteRiga = 0;
+        for (int i = 0; i < contenuto.length(); ) {
+            int codice = contenuto.codePointAt(i);
+            int byteCarattere = codice < 0x80 ? 1 : codice < 0x800 ? 2 : codice < 0x10000 ? 3 : 4;
+            if (byteRiga + byteCarattere > BYTE_PER_RIGA) {
+                ics.append("\r\n ");
+                byteRiga = 1;
+            }
+            ics.appendCodePoint(codice);
+            byteRiga += byteCarattere;
+            i += Character.charCount(codice);
+        }
+        ics.append("\r\n");
+    }
+
+    private static String etag(byte[] corpo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(corpo);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+
+    /**
+     * Listener Hibernate chiamato dopo il commit: una transazione annullata
+     * non invalida il feed, e chi lo rigenera legge già i dati nuovi.
+     */
+    private class ModificheAppuntamenti implements PostCommitInsertEventListener,
+            PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return persister.getMappedClass() == Appuntamento.class;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (event.getEntity() instanceof Appuntamento) {
+                invalida();
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (event.getEntity() instanceof Appuntamento) {
+                invalida();
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Appuntamento) {
+                invalida();
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+    }
+}
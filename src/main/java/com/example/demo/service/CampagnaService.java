@@ -0,0 +1,373 @@
+package com.example.demo.service;
+
+import com.example.demo.config.ThreadVirtuali;
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Campagna;
+import com.example.demo.model.Campagna.StatoCampagna;
+import com.example.demo.model.DestinatarioCampagna;
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.repository.CampagnaRepository;
+import com.example.demo.repository.CandidaturaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.SendFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import static com.example.demo.service.EmailTemplateEngine.valori;
+
+/**
+ * Service per le campagne email a molti destinatari.
+ *
+ * FUNZIONALITÀ:
+ * - Destinatari: clienti (appuntamenti per stato e periodo) o candidati (per stato)
+ * - Un'email per indirizzo, anche se il cliente ha più appuntamenti
+ * - Invio a blocchi: ogni blocco usa una sola connessione SMTP
+ * - Limite di velocità (token bucket) per minuto e per giorno, in linea con le quote del provider
+ * - Avanzamento salvato dopo ogni blocco: pausa, ripresa e riavvio dell'applicazione
+ *   ripartono dal destinatario successivo
+ *
+ * WORKFLOW:
+ * 1. L'admin crea la campagna (BOZZA)
+ * 2. Avvia → IN_CORSO, l'invio procede in background
+ * 3. Pausa → IN_PAUSA (effettiva alla fine del blocco in corso)
+ * 4. Fine destinatari → COMPLETATA; errore di connessione o autenticazione
+ *    SMTP → INTERROTTA (riprendibile). I destinatari rifiutati dal server
+ *    contano come falliti e l'invio prosegue, anche se lo è un blocco intero
+ *
+ * NOTA: se l'applicazione si ferma dopo l'invio di un blocco ma prima del
+ * salvataggio, quel blocco (al massimo campagne.blocco email) viene reinviato.
+ *
+ * NOTA: i limiti di velocità sono solo in memoria. Dopo un riavvio anche il
+ * limite giornaliero riparte pieno, quindi nello stesso giorno si possono
+ * superare campagne.limite.giornaliero email: a quel punto è la quota del
+ * provider a rifiutare l'invio (campagna INTERROTTA, da riprendere il giorno dopo).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Service
+public class CampagnaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CampagnaService.class);
+
+    private static final String TEMPLATE = "campagna.v1";
+
+    // Intervallo "aperto" per i filtri data non impostati (valori accettati da tutti i database)
+    private static final LocalDateTime DATA_MINIMA = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime DATA_MASSIMA = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    @Autowired
+    private CampagnaRepository campagnaRepository;
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private CandidaturaRepository candidaturaRepository;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private EmailTemplateEngine templateEngine;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    // Email per blocco (una connessione SMTP per blocco)
+    @Value("${campagne.blocco:10}")
+    private int dimensioneBlocco;
+
+    // Quote Gmail: ~20 email/minuto senza essere segnalati, 500/giorno per account personali
+    @Value("${campagne.limite.per-minuto:20}")
+    private int limitePerMinuto;
+
+    @Value("${campagne.limite.raffica:10}")
+    private int raffica;
+
+    @Value("${campagne.limite.giornaliero:450}")
+    private int limiteGiornaliero;
+
+    private TokenBucketRateLimiter limitePerMinutoBucket;
+    private TokenBucketRateLimiter limiteGiornalieroBucket;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean threadVirtuali;
+
+    // Un solo thread: le campagne vengono inviate una dopo l'altra e condividono le quote
+    private ExecutorService executor;
+
+    // Campagne già in coda/in invio (evita doppi avvii)
+    private final Set<Long> inEsecuzione = ConcurrentHashMap.newKeySet();
+
+    // Bucket in memoria: a ogni avvio ripartono pieni (vedi NOTA nella Javadoc della classe)
+    @PostConstruct
+    void inizializzaLimiti() {
+        limitePerMinutoBucket = new TokenBucketRateLimiter(raffica, limitePerMinuto, Duration.ofMinutes(1));
+        limiteGiornalieroBucket = new TokenBucketRateLimiter(limiteGiornaliero, limiteGiornaliero, Duration.ofDays(1));
+    }
+
+    @PreDestroy
+    synchronized void chiudi() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // Creato al primo invio, quando la modalità thread virtuali è già nota
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = ThreadVirtuali.singoloThread("campagne-email", threadVirtuali);
+        }
+        return executor;
+    }
+
+    /**
+     * Riprende le campagne rimaste IN_CORSO (es: dopo un riavvio o un deploy).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void riprendiCampagneInCorso() {
+        for (Campagna campagna : campagnaRepository.findByStato(StatoCampagna.IN_CORSO)) {
+            logger.info("Ripresa campagna {} '{}' dopo {}", campagna.getId(), campagna.getNome(), campagna.getUltimoDestinatario());
+            accoda(campagna.getId());
+        }
+    }
+
+    public List<Campagna> trovaTutte() {
+        return campagnaRepository.findAllByOrderByDataCreazioneDesc();
+    }
+
+    public Campagna trovaPerId(Long id) {
+        return campagnaRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Campagna non trovata"));
+    }
+
+    /**
+     * Crea una nuova campagna in BOZZA.
+     */
+    public Campagna crea(Campagna campagna) {
+        if (campagna.getTipoDestinatari() == Campagna.TipoDestinatari.CLIENTI) {
+            // Valida lo stato appuntamento (lancia IllegalArgumentException se non esiste)
+            Appuntamento.StatoAppuntamento.valueOf(campagna.getFiltroStato());
+        }
+        campagna.setId(null);
+        campagna.setStato(StatoCampagna.BOZZA);
+        campagna.setUltimoDestinatario(null);
+        campagna.setInviati(0);
+        campagna.setFalliti(0);
+        campagna.setDataCreazione(LocalDateTime.now());
+        Campagna salvata = campagnaRepository.save(campagna);
+        logger.info("Campagna {} creata: {} destinatari stimati", salvata.getId(), contaDestinatari(salvata));
+        return salvata;
+    }
+
+    /**
+     * Numero di destinatari distinti che riceveranno la campagna.
+     */
+    public long contaDestinatari(Campagna campagna) {
+        return switch (campagna.getTipoDestinatari()) {
+            case CLIENTI -> appuntamentoRepository.countDestinatariCampagna(
+                Appuntamento.StatoAppuntamento.valueOf(campagna.getFiltroStato()),
+                dataDa(campagna), dataA(campagna));
+            case CANDIDATI -> candidaturaRepository.countDestinatariCampagna(campagna.getFiltroStato());
+        };
+    }
+
+    /**
+     * Avvia (o riprende) l'invio di una campagna.
+     *
+     * @return true se la campagna è stata messa in invio
+     */
+    public boolean avvia(Long id) {
+        Campagna campagna = trovaPerId(id);
+        int aggiornate = campagnaRepository.cambiaStato(id,
+            EnumSet.of(StatoCampagna.BOZZA, StatoCampagna.IN_PAUSA, StatoCampagna.INTERROTTA),
+            StatoCampagna.IN_CORSO, null, null);
+        if (aggiornate == 0) {
+            return false;
+        }
+        if (campagna.getDataAvvio() == null) {
+            campagna = trovaPerId(id);
+            campagna.setDataAvvio(LocalDateTime.now());
+            campagna.setTotaleStimato((int) contaDestinatari(campagna));
+            campagnaRepository.save(campagna);
+        }
+        accoda(id);
+        return true;
+    }
+
+    /**
+     * Mette in pausa una campagna: si ferma alla fine del blocco in corso.
+     */
+    public boolean pausa(Long id) {
+        return campagnaRepository.cambiaStato(id, EnumSet.of(StatoCampagna.IN_CORSO),
+            StatoCampagna.IN_PAUSA, null, null) > 0;
+    }
+
+    /**
+     * Annulla definitivamente una campagna non ancora conclusa.
+     */
+    public boolean annulla(Long id) {
+        return campagnaRepository.cambiaStato(id,
+            EnumSet.of(StatoCampagna.BOZZA, StatoCampagna.IN_CORSO, StatoCampagna.IN_PAUSA, StatoCampagna.INTERROTTA),
+            StatoCampagna.ANNULLATA, null, LocalDateTime.now()) > 0;
+    }
+
+    private void accoda(Long id) {
+        if (inEsecuzione.add(id)) {
+            executor().execute(() -> {
+                try {
+                    esegui(id);
+                } finally {
+                    inEsecuzione.remove(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * Ciclo di invio: un blocco alla volta finché ci sono destinatari
+     * e la campagna resta IN_CORSO.
+     */
+    void esegui(Long id) {
+        try {
+            while (true) {
+                Campagna campagna = campagnaRepository.findById(id).orElse(null);
+                if (campagna == null || campagna.getStato() != StatoCampagna.IN_CORSO) {
+                    return;
+                }
+
+                List<DestinatarioCampagna> blocco = prossimoBlocco(campagna);
+                if (blocco.isEmpty()) {
+                    campagnaRepository.cambiaStato(id, EnumSet.of(StatoCampagna.IN_CORSO),
+                        StatoCampagna.COMPLETATA, null, LocalDateTime.now());
+                    logger.info("Campagna {} completata: {} inviate, {} fallite",
+                        id, campagna.getInviati(), campagna.getFalliti());
+                    return;
+                }
+
+                // Attende i gettoni: il blocco può essere accorciato se la quota è quasi finita
+                int permessi = acquisisciPermessi(blocco.size());
+                blocco = blocco.subList(0, permessi);
+
+                int falliti;
+                try {
+                    falliti = inviaBlocco(campagna, blocco);
+                } catch (MailException e) {
+                    // Errore di connessione/autenticazione: il cursore non avanza e il blocco verrà reinviato
+                    logger.error("Campagna {} interrotta: {}", id, e.getMessage());
+                    campagnaRepository.cambiaStato(id, EnumSet.of(StatoCampagna.IN_CORSO),
+                        StatoCampagna.INTERROTTA, tronca(e.getMessage()), null);
+                    return;
+                }
+
+                String cursore = blocco.get(blocco.size() - 1).email();
+                campagnaRepository.registraAvanzamento(id, cursore, blocco.size() - falliti, falliti);
+            }
+        } catch (InterruptedException e) {
+            // Spegnimento: la campagna resta IN_CORSO e riparte al prossimo avvio
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Errore inatteso nella campagna {}", id, e);
+            campagnaRepository.cambiaStato(id, EnumSet.of(StatoCampagna.IN_CORSO),
+                StatoCampagna.INTERROTTA, tronca(e.getMessage()), null);
+        }
+    }
+
+    private List<DestinatarioCampagna> prossimoBlocco(Campagna campagna) {
+        String dopo = campagna.getUltimoDestinatario() != null ? campagna.getUltimoDestinatario() : "";
+        PageRequest limite = PageRequest.of(0, dimensioneBlocco);
+        return switch (campagna.getTipoDestinatari()) {
+            case CLIENTI -> appuntamentoRepository.findDestinatariCampagna(
+                Appuntamento.StatoAppuntamento.valueOf(campagna.getFiltroStato()),
+                dataDa(campagna), dataA(campagna), dopo, limite);
+            case CANDIDATI -> candidaturaRepository.findDestinatariCampagna(campagna.getFiltroStato(), dopo, limite);
+        };
+    }
+
+    private int acquisisciPermessi(int richiesti) throws InterruptedException {
+        int perMinuto = limitePerMinutoBucket.acquisisci(richiesti);
+        int giornalieri = limiteGiornalieroBucket.acquisisci(perMinuto);
+        if (giornalieri < perMinuto) {
+            limitePerMinutoBucket.restituisci(perMinuto - giornalieri);
+        }
+        return giornalieri;
+    }
+
+    /**
+     * Invia un blocco su una sola connessione SMTP.
+     *
+     * @return Numero di email rifiutate dal server (destinatario non valido ecc.),
+     *         anche tutte quelle del blocco
+     * @throws MailException per errori di connessione o autenticazione
+     */
+    private int inviaBlocco(Campagna campagna, List<DestinatarioCampagna> blocco) {
+        SimpleMailMessage[] messaggi = new SimpleMailMessage[blocco.size()];
+        for (int i = 0; i < messaggi.length; i++) {
+            DestinatarioCampagna destinatario = blocco.get(i);
+            messaggi[i] = templateEngine.render(TEMPLATE, valori(
+                    "oggetto", campagna.getOggetto(),
+                    "nome", destinatario.nome(),
+                    "testo", campagna.getTesto()))
+                .messaggioTesto(fromEmail, destinatario.email());
+        }
+        try {
+            mailSender.send(messaggi);
+            return 0;
+        } catch (MailSendException e) {
+            Collection<Exception> errori = e.getFailedMessages().values();
+            if (errori.isEmpty() || !errori.stream().allMatch(CampagnaService::destinatarioRifiutato)) {
+                throw e;
+            }
+            logger.warn("Campagna {}: {} email del blocco rifiutate", campagna.getId(), errori.size());
+            return errori.size();
+        }
+    }
+
+    /**
+     * Errore del singolo destinatario (RCPT TO rifiutato: casella inesistente,
+     * dominio non valido...). Connessione caduta, mittente rifiutato o quota
+     * del provider esaurita non hanno indirizzi non validi: riguardano tutto
+     * il resto della campagna.
+     */
+    private static boolean destinatarioRifiutato(Exception errore) {
+        return errore instanceof SendFailedException rifiuto
+            && rifiuto.getInvalidAddresses() != null
+            && rifiuto.getInvalidAddresses().length > 0;
+    }
+
+    private static LocalDateTime dataDa(Campagna campagna) {
+        return campagna.getFiltroDataDa() != null ? campagna.getFiltroDataDa() : DATA_MINIMA;
+    }
+
+    private static LocalDateTime dataA(Campagna campagna) {
+        return campagna.getFiltroDataA() != null ? campagna.getFiltroDataA() : DATA_MASSIMA;
+    }
+
+    private static String tronca(String messaggio) {
+        if (messaggio == null) {
+            return null;
+        }
+        return messaggio.length() > 500 ? messaggio.substring(0, 500) : messaggio;
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Candidatura;
+import com.example.demo.model.Contatto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Canale Server-Sent Events verso le dashboard admin aperte (/admin/eventi).
+ *
+ * Nuove prenotazioni, contatti e candidature arrivano alla dashboard appena
+ * salvati, senza ricaricare la pagina né interrogare il server a intervalli.
+ *
+ * WORKFLOW:
+ * 1. I service pubblicano AppuntamentoCreato, ContattoRicevuto, CandidaturaRicevuta
+ * 2. Dopo il commit il canale crea un EventoAdmin compatto (id progressivo,
+ *    tipo, id della riga, breve descrizione) e lo mette nel buffer circolare
+ * 3. L'evento va nella coda di ogni connessione; l'invio avviene su
+ *    "esecutoreEventiAdmin", mai nel thread che ha salvato la riga
+ *
+ * RIPRESA DOPO DISCONNESSIONE:
+ * Il browser (EventSource) si riconnette da solo inviando Last-Event-ID.
+ * Gli eventi successivi ancora nel buffer (admin.eventi.buffer) vengono
+ * rinviati; se sono già usciti dal buffer arriva l'evento "ricarica" e la
+ * pagina ricarica i widget.
+ *
+ * L'id SSE è "epoca-numero": l'epoca cambia a ogni avvio e il numero riparte
+ * da 1. Un Last-Event-ID di un avvio precedente (numero che può coincidere
+ * con uno nuovo) non viene mai confrontato col buffer: riceve "ricarica".
+ *
+ * CONNESSIONI LENTE:
+ * Ogni connessione ha una coda limitata (admin.eventi.coda-connessione).
+ * Se si riempie, la connessione viene chiusa invece di accumulare memoria:
+ * alla riconnessione il browser recupera gli eventi dal buffer. Chi pubblica
+ * la segna soltanto come chiusa: complete() attende l'invio in corso verso
+ * il client lento e gira su "esecutoreEventiAdmin", fuori dal lock.
+ * Un heartbeat (commento SSE) ogni admin.eventi.heartbeat-ms tiene aperti
+ * proxy e firewall e fa emergere le connessioni morte.
+ *
+ * METRICHE:
+ * - admin.eventi.connessioni (Gauge): dashboard collegate
+ * - admin.eventi.pubblicati (Counter, tag tipo)
+ * - admin.eventi.connessioni.chiuse (Counter, tag motivo lenta/errore)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Service
+public class CanaleEventiAdmin {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanaleEventiAdmin.class);
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM HH:mm");
+
+    // Attesa suggerita al browser prima di riconnettersi
+    private static final long RICONNESSIONE_MS = 3_000;
+
+    // Elementi di servizio nella coda di una connessione (oltre agli EventoAdmin)
+    private static final Object HEARTBEAT = new Object();
+    private static final Object RICARICA = new Object();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("esecutoreEventiAdmin")
+    private TaskExecutor esecutore;
+
+    @Value("${admin.eventi.buffer:200}")
+    private int dimensioneBuffer;
+
+    @Value("${admin.eventi.coda-connessione:50}")
+    private int codaConnessione;
+
+    @Value("${admin.eventi.connessioni-max:20}")
+    private int connessioniMax;
+
+    @Value("${admin.eventi.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    // Buffer circolare: l'evento con id N sta in posizione N % dimensione (protetto da "this")
+    private EventoAdmin[] buffer;
+    private long ultimoId;
+
+    // Prefisso degli id SSE, diverso a ogni avvio (istante di avvio in base 36)
+    private String epoca;
+
+    private final Set<Connessione> connessioni = ConcurrentHashMap.newKeySet();
+    // Chiuse ma con la risposta HTTP ancora da completare (sull'esecutore)
+    private final Set<Connessione> daCompletare = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Evento inviato alla dashboard: solo quanto serve per la notifica,
+     * i dettagli si aprono dalla pagina della riga.
+     */
+    public record EventoAdmin(long id, String tipo, Long riferimento, String descrizione, LocalDateTime data) {}
+
+    @PostConstruct
+    void inizializza() {
+        buffer = new EventoAdmin[dimensioneBuffer];
+        epoca = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+        Gauge.builder("admin.eventi.connessioni", connessioni, Set::size)
+            .description("Dashboard admin collegate agli eventi in tempo reale")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Apre una nuova connessione SSE, rinviando gli eventi persi dopo ultimoIdRicevuto.
+     *
+     * @param ultimoIdRicevuto Valore dell'header Last-Event-ID (null alla prima connessione)
+     * @throws ResponseStatusException 503 se le connessioni aperte sono già admin.eventi.connessioni-max
+     */
+    public SseEmitter apri(String ultimoIdRicevuto) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        registra(emitter, ultimoIdRicevuto);
+        return emitter;
+    }
+
+    /**
+     * Collega l'emitter al canale: rinvio dal buffer e iscrizione avvengono
+     * insieme, così nessun evento pubblicato nel frattempo va perso o duplicato.
+     * Anche il limite di connessioni si controlla nello stesso lock.
+     *
+     * @throws ResponseStatusException 503 se le connessioni aperte sono già admin.eventi.connessioni-max
+     */
+    void registra(SseEmitter emitter, String ultimoIdRicevuto) {
+        Connessione connessione = new Connessione(emitter);
+        emitter.onCompletion(connessione::dimentica);
+        emitter.onTimeout(connessione::dimentica);
+        emitter.onError(errore -> connessione.dimentica());
+
+        synchronized (this) {
+            if (connessioni.size() >= connessioniMax) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Troppe connessioni agli eventi admin");
+            }
+            long ricevuto = ultimoIdRicevuto != null ? numeroEvento(ultimoIdRicevuto) : ultimoId;
+            if (ricevuto < 0) {
+                // Id di prima di un riavvio: il buffer non li conosce più
+                connessione.accoda(RICARICA);
+            } else if (ricevuto < ultimoId) {
+                long persi = ultimoId - ricevuto;
+                if (persi > buffer.length || persi >= codaConnessione) {
+                    // Troppi eventi persi (o già usciti dal buffer): meglio ricaricare i widget
+                    connessione.accoda(RICARICA);
+                } else {
+                    for (long id = ricevuto + 1; id <= ultimoId; id++) {
+                        connessione.accoda(buffer[(int) (id % buffer.length)]);
+                    }
+                }
+            }
+            connessioni.add(connessione);
+        }
+        connessione.programmaInvio();
+        completaChiuse();
+    }
+
+    /**
+     * Numero dell'evento da un Last-Event-ID "epoca-numero" di questo avvio;
+     * -1 se l'epoca è un'altra, il numero non è ancora stato emesso o l'id è
+     * illeggibile. Chiamato con il lock su "this".
+     */
+    private long numeroEvento(String idSse) {
+        int separatore = idSse.lastIndexOf('-');
+        if (separatore < 0 || !idSse.substring(0, separatore).equals(epoca)) {
+            return -1;
+        }
+        try {
+            long numero = Long.parseLong(idSse.substring(separatore + 1));
+            return numero >= 0 && numero <= ultimoId ? numero : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Id SSE dell'evento con questo numero (Last-Event-ID alla riconnessione).
+     */
+    String idSse(long numero) {
+        return epoca + "-" + numero;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void suAppuntamentoCreato(AppuntamentoCreato evento) {
+        Appuntamento a = evento.appuntamento();
+        pubblica("appuntamento", a.getId(), a.getNomeCliente() + " " + a.getCognomeCliente()
+            + " · " + a.getTipoServizio()
+            + (a.getDataAppuntamento() != null ? " · " + a.getDataAppuntamento().format(FORMATO_DATA) : ""));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void suContattoRicevuto(ContattoRicevuto evento) {
+        Contatto c = evento.contatto();
+        pubblica("contatto", c.getId(), c.getNome() + " <" + c.getEmail() + ">");
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void suCandidaturaRicevuta(CandidaturaRicevuta evento) {
+        Candidatura c = evento.candidatura();
+        pubblica("candidatura", c.getId(), c.getNome() + " " + c.getCognome() + " · " + c.getPosizioneRichiesta());
+    }
+
+    /**
+     * Registra l'evento nel buffer e lo accoda su tutte le connessioni aperte.
+     * Non scrive mai sulla rete: ritorna subito anche con client lenti.
+     */
+    public void pubblica(String tipo, Long riferimento, String descrizione) {
+        synchronized (this) {
+            EventoAdmin evento = new EventoAdmin(++ultimoId, tipo, riferimento, descrizione, LocalDateTime.now());
+            buffer[(int) (evento.id() % buffer.length)] = evento;
+            // Dentro il lock: ogni connessione riceve gli eventi in ordine di id
+            connessioni.forEach(c -> c.accoda(evento));
+        }
+        meterRegistry.counter("admin.eventi.pubblicati", "tipo", tipo).increment();
+        connessioni.forEach(Connessione::programmaInvio);
+        completaChiuse();
+    }
+
+    /**
+     * Heartbeat: tiene vive le connessioni inattive e chiude quelle morte.
+     */
+    @Scheduled(fixedDelayString = "${admin.eventi.heartbeat-ms:25000}")
+    public void heartbeat() {
+        connessioni.forEach(c -> {
+            c.accoda(HEARTBEAT);
+            c.programmaInvio();
+        });
+        // Anche i completamenti rifiutati da un esecutore pieno
+        completaChiuse();
+    }
+
+    private void completaChiuse() {
+        daCompletare.forEach(Connessione::programmaCompletamento);
+    }
+
+    public int getNumeroConnessioni() {
+        return connessioni.size();
+    }
+
+    /**
+     * Una dashboard collegata: coda limitata e al massimo un invio in corso.
+     */
+    private final class Connessione {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> coda = new ArrayBlockingQueue<>(codaConnessione);
+        private final AtomicBoolean inInvio = new AtomicBoolean();
+        private volatile boolean chiusa;
+
+        Connessione(SseEmitter emitter) {
+            this.emitter = emitter;
+            coda.offer(SseEmitter.event().comment("connesso").reconnectTime(RICONNESSIONE_MS));
+        }
+
+        void accoda(Object elemento) {
+            if (!chiusa && !coda.offer(elemento)) {
+                // Client troppo lento: meglio chiudere che accumulare, riprenderà con Last-Event-ID
+                chiudi("lenta", null);
+            }
+        }
+
+        void programmaInvio() {
+            if (chiusa || coda.isEmpty() || !inInvio.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                esecutore.execute(this::svuota);
+            } catch (TaskRejectedException e) {
+                // Esecutore saturo: riprova al prossimo evento o heartbeat
+                inInvio.set(false);
+            }
+        }
+
+        private void svuota() {
+            try {
+                Object elemento;
+                while (!chiusa && (elemento = coda.poll()) != null) {
+                    emitter.send(messaggio(elemento));
+                }
+            } catch (IOException | IllegalStateException e) {
+                chiudi("errore", e);
+            } finally {
+                inInvio.set(false);
+            }
+            programmaInvio();
+            programmaCompletamento();
+        }
+
+        /**
+         * Segna la connessione come chiusa. Può girare nel thread di chi pubblica
+         * e dentro il lock: non tocca l'emitter, lo completa programmaCompletamento.
+         */
+        private void chiudi(String motivo, Exception errore) {
+            if (chiusa) {
+                return;
+            }
+            chiusa = true;
+            connessioni.remove(this);
+            coda.clear();
+            daCompletare.add(this);
+            meterRegistry.counter("admin.eventi.connessioni.chiuse", "motivo", motivo).increment();
+            logger.debug("Connessione eventi admin chiusa ({}): {}", motivo,
+                errore != null ? errore.getMessage() : "coda piena");
+        }
+
+        /**
+         * Completa la risposta HTTP sull'esecutore: complete() aspetta che
+         * finisca l'invio in corso, anche verso un client che non legge.
+         */
+        void programmaCompletamento() {
+            if (!daCompletare.contains(this)) {
+                return;
+            }
+            try {
+                esecutore.execute(() -> {
+                    if (daCompletare.remove(this)) {
+                        emitter.complete();
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                // Esecutore saturo: riprova al prossimo evento o heartbeat
+            }
+        }
+
+        /**
+         * Risposta già conclusa da Spring (completamento, timeout, errore).
+         */
+        void dimentica() {
+            connessioni.remove(this);
+            daCompletare.remove(this);
+        }
+    }
+
+    private SseEmitter.SseEventBuilder messaggio(Object elemento) {
+        if (elemento instanceof SseEmitter.SseEventBuilder gia) {
+            return gia;
+        }
+        if (elemento == HEARTBEAT) {
+            return SseEmitter.event().comment("heartbeat");
+        }
+        if (elemento == RICARICA) {
+            return SseEmitter.event().name("ricarica").data("{}", MediaType.APPLICATION_JSON);
+        }
+        EventoAdmin evento = (EventoAdmin) elemento;
+        return SseEmitter.event()
+            .id(idSse(evento.id()))
+            .name(evento.tipo())
+            .data(evento, MediaType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Candidatura;
+
+/**
+ * Evento pubblicato quando una nuova candidatura è stata salvata.
+ *
+ * Viene consegnato ai listener solo DOPO il commit della transazione di
+ * inserimento (@TransactionalEventListener): se l'inserimento fallisce,
+ * nessuna email parte.
+ *
+ * @param candidatura La candidatura appena salvata (con ID)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public record CandidaturaRicevuta(Candidatura candidatura) {}
@@ -1,14 +1,22 @@
 package com.example.demo.service;
 
 import com.example.demo.model.Candidatura;
+import com.example.demo.model.CandidaturaRiga;
 import com.example.demo.repository.CandidaturaRepository;
+import com.example.demo.repository.FiltroCandidature;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -17,12 +25,33 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.demo.service.EmailTemplateEngine.valori;
 
 /**
  * Service per la gestione delle candidature
+ *
+ * INVIO CANDIDATURA (a stadi, per tenere la connessione DB il meno possibile):
+ * 1. Controllo codice fiscale duplicato (query breve) e ricerca dei possibili
+ *    doppioni in memoria (IndiceDuplicati): segnalati all'admin, non bloccati
+ * 2. Scrittura del CV su disco, FUORI da ogni transazione
+ * 3. Transazione breve: INSERT, riga in coda per l'estrazione del testo del CV,
+ *    pubblicazione dell'evento CandidaturaRicevuta
+ * 4. Dopo il commit: email al candidato e all'admin sull'esecutore
+ *    "esecutoreNotifiche" (vedi AsyncConfig), la richiesta HTTP non le aspetta;
+ *    estrazione del testo del CV su "esecutoreEstrazioneCv" (EstrazioneCvService)
+ *
+ * Se l'INSERT fallisce il CV appena scritto viene cancellato.
+ *
+ * RICERCA FULL-TEXT:
+ * IndiceCandidature viene aggiornato dopo ogni commit (nuova candidatura,
+ * cambio stato, risposta, eliminazione): un rollback non lascia tracce nell'indice.
+ * Lo stesso vale per IndiceDuplicati (nuova candidatura, eliminazione).
  * 
  * @author Firmato $₿420
  * @since 2025
@@ -34,6 +63,13 @@ public class CandidaturaService {
 
     private final CandidaturaRepository candidaturaRepository;
     private final JavaMailSender mailSender;
+    private final EmailTemplateEngine templateEngine;
+    private final FileStorageService fileStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IndiceCandidature indiceCandidature;
+    private final EstrazioneCvService estrazioneCvService;
+    private final IndiceDuplicati indiceDuplicati;
 
     @Value("${spring.mail.username:noreply@serviziedilielvis.it}")
     private String fromEmail;
@@ -42,8 +78,12 @@ public class CandidaturaService {
 
     /**
      * Salva una nuova candidatura
+     *
+     * Non è @Transactional: la connessione serve solo per il controllo del CF
+     * e per l'INSERT, non durante l'upload del CV né durante l'invio delle email.
+     * Con open-in-view la connessione torna al pool al commit e non resta alla
+     * richiesta fino alla pagina di conferma (hibernate.connection.handling_mode).
      */
-    @Transactional
     public Candidatura salvaCandidatura(Candidatura candidatura, MultipartFile cvFile) throws IOException {
         log.info("Salvataggio nuova candidatura per: {} {}", candidatura.getNome(), candidatura.getCognome());
 
@@ -55,7 +95,16 @@ public class CandidaturaService {
             }
         }
 
-        // Upload CV se presente
+        // Possibile doppione (nome, data di nascita, email, telefono): lo vede l'admin
+        indiceDuplicati.cerca(candidatura).ifPresent(sospetto -> {
+            candidatura.setPossibileDuplicatoDi(sospetto.id());
+            candidatura.setSomiglianzaDuplicato(sospetto.somiglianza());
+            candidatura.setMotivoDuplicato(sospetto.motivo());
+            log.warn("Possibile duplicato della candidatura {} ({}, somiglianza {})",
+                sospetto.id(), sospetto.motivo(), String.format("%.2f", sospetto.somiglianza()));
+        });
+
+        // Upload CV se presente (nessuna connessione DB occupata)
         if (cvFile != null && !cvFile.isEmpty()) {
             // Usa il codice fiscale se disponibile, altrimenti genera un ID univoco
             String identificativo = candidatura.getCodiceFiscale() != null ? 
@@ -66,17 +115,60 @@ public class CandidaturaService {
             candidatura.setCvFilePath(cvPath);
         }
 
-        // Salva candidatura
-        Candidatura saved = candidaturaRepository.save(candidatura);
+        // Transazione breve: INSERT + evento (consegnato ai listener solo dopo il commit)
+        Candidatura saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                Candidatura inserita = candidaturaRepository.save(candidatura);
+                // Coda persistente dell'estrazione testo: stessa transazione dell'INSERT
+                estrazioneCvService.accoda(inserita);
+                eventPublisher.publishEvent(new CandidaturaRicevuta(inserita));
+                return inserita;
+            });
+        } catch (RuntimeException e) {
+            eliminaCvOrfano(candidatura.getCvFilePath());
+            throw e;
+        }
+
+        // Transazione già chiusa con commit: si può indicizzare subito
+        indiceCandidature.aggiorna(saved);
+        indiceDuplicati.aggiorna(saved);
+
+        log.info("Candidatura salvata con successo, ID: {}", saved.getId());
+        return saved;
+    }
+
+    /**
+     * Email di conferma al candidato e notifica all'admin.
+     *
+     * Gira dopo il commit sull'esecutore limitato delle notifiche: un SMTP lento
+     * rallenta solo questa coda, non la richiesta né il pool di connessioni.
+     */
+    @Async("esecutoreNotifiche")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void suCandidaturaRicevuta(CandidaturaRicevuta evento) {
+        Candidatura candidatura = evento.candidatura();
 
         // Invia email di conferma al candidato
-        inviaEmailConferma(saved);
+        inviaEmailConferma(candidatura);
 
         // Invia notifica all'admin
-        inviaNotificaAdmin(saved);
+        inviaNotificaAdmin(candidatura);
+    }
 
-        log.info("Candidatura salvata con successo, ID: {}", saved.getId());
-        return saved;
+    /**
+     * Cancella il CV scritto per una candidatura che non è stata salvata
+     */
+    private void eliminaCvOrfano(String cvPath) {
+        if (cvPath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(cvPath));
+            log.info("CV orfano eliminato: {}", cvPath);
+        } catch (IOException e) {
+            log.error("Errore nell'eliminazione del CV orfano {}", cvPath, e);
+        }
     }
 
     /**
@@ -99,6 +191,7 @@ public class CandidaturaService {
         // Salva file
         Path filePath = uploadPath.resolve(filename);
         Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        fileStorageService.registraDimensione("cv", file.getSize());
 
         log.info("CV caricato: {}", filename);
         return UPLOAD_DIR + filename;
@@ -111,6 +204,28 @@ public class CandidaturaService {
         return candidaturaRepository.findAllByOrderByDataInvioDesc();
     }
 
+    /**
+     * Una pagina della lista admin (righe senza campi TEXT), più recenti prima
+     *
+     * Paginazione a chiave: la pagina successiva parte da (dataInvio, id) dell'ultima
+     * riga, indicata da PaginaCandidature.prossimaData/prossimoId.
+     *
+     * @param filtro     Filtri combinati (stato, posizione, livello, provincia, disponibilità)
+     * @param dopoData   null per la prima pagina
+     * @param dopoId     null per la prima pagina
+     * @param dimensione Righe per pagina
+     */
+    public PaginaCandidature trovaPagina(FiltroCandidature filtro, LocalDateTime dopoData, Long dopoId, int dimensione) {
+        // Una riga in più per sapere se esiste una pagina successiva, senza COUNT
+        List<CandidaturaRiga> righe = candidaturaRepository.trovaPagina(filtro, dopoData, dopoId, dimensione + 1);
+        if (righe.size() <= dimensione) {
+            return new PaginaCandidature(righe, null, null);
+        }
+        List<CandidaturaRiga> pagina = righe.subList(0, dimensione);
+        CandidaturaRiga ultima = pagina.get(dimensione - 1);
+        return new PaginaCandidature(List.copyOf(pagina), ultima.dataInvio(), ultima.id());
+    }
+
     /**
      * Trova candidatura per ID
      */
@@ -137,7 +252,9 @@ public class CandidaturaService {
             candidatura.setNoteAdmin(note);
         }
         log.info("Stato candidatura {} aggiornato a: {}", id, nuovoStato);
-        return candidaturaRepository.save(candidatura);
+        Candidatura salvata = candidaturaRepository.save(candidatura);
+        dopoCommit(() -> indiceCandidature.aggiorna(salvata));
+        return salvata;
     }
 
     /**
@@ -154,7 +271,9 @@ public class CandidaturaService {
         inviaEmailRisposta(candidatura, messaggio);
 
         log.info("Risposta inviata per candidatura {}", id);
-        return candidaturaRepository.save(candidatura);
+        Candidatura salvata = candidaturaRepository.save(candidatura);
+        dopoCommit(() -> indiceCandidature.aggiorna(salvata));
+        return salvata;
     }
 
     /**
@@ -175,10 +294,81 @@ public class CandidaturaService {
             }
         }
 
+        estrazioneCvService.elimina(id);
         candidaturaRepository.deleteById(id);
+        dopoCommit(() -> {
+            indiceCandidature.rimuovi(id);
+            indiceDuplicati.rimuovi(id);
+        });
         log.info("Candidatura {} eliminata", id);
     }
 
+    /**
+     * Numero di candidature segnalate come possibili duplicati
+     */
+    public long contaPossibiliDuplicati() {
+        return candidaturaRepository.countByPossibileDuplicatoDiIsNotNull();
+    }
+
+    /**
+     * Toglie la segnalazione di duplicato (verificata dall'admin: persone diverse)
+     */
+    @Transactional
+    public Candidatura ignoraDuplicato(Long id) {
+        Candidatura candidatura = trovaPerID(id);
+        candidatura.setPossibileDuplicatoDi(null);
+        candidatura.setSomiglianzaDuplicato(null);
+        candidatura.setMotivoDuplicato(null);
+        log.info("Segnalazione di duplicato rimossa per candidatura {}", id);
+        return candidaturaRepository.save(candidatura);
+    }
+
+    /**
+     * Ricerca full-text per competenze, esperienze, certificazioni e lingue
+     *
+     * @param testo  Termini liberi, es: "muratore cartongesso patentino"
+     * @param stato  Filtro stato (null o vuoto = tutti)
+     * @param limite Numero massimo di risultati
+     * @return Righe della lista admin dalla più pertinente
+     */
+    public List<CandidaturaRiga> cerca(String testo, String stato, int limite) {
+        return cercaConPunteggio(testo, stato, limite).stream()
+            .map(CandidaturaTrovata::candidatura)
+            .toList();
+    }
+
+    /**
+     * Come cerca(), con punteggio di rilevanza e numero di termini trovati
+     */
+    public List<CandidaturaTrovata> cercaConPunteggio(String testo, String stato, int limite) {
+        List<IndiceCandidature.Risultato> risultati = indiceCandidature.cerca(
+            testo, stato == null || stato.isBlank() ? null : stato, limite);
+        // Una sola query (proiezione senza campi TEXT), poi si ripristina l'ordine per rilevanza
+        Map<Long, CandidaturaRiga> perId = candidaturaRepository.trovaRighe(
+                risultati.stream().map(IndiceCandidature.Risultato::id).toList()).stream()
+            .collect(Collectors.toMap(CandidaturaRiga::id, Function.identity()));
+        return risultati.stream()
+            .filter(r -> perId.containsKey(r.id()))
+            .map(r -> new CandidaturaTrovata(perId.get(r.id()), r.punteggio(), r.terminiTrovati()))
+            .toList();
+    }
+
+    /**
+     * Esegue l'azione dopo il commit della transazione corrente (subito se non c'è transazione)
+     */
+    private void dopoCommit(Runnable azione) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    azione.run();
+                }
+            });
+        } else {
+            azione.run();
+        }
+    }
+
     /**
      * Statistiche candidature
      */
@@ -198,35 +388,14 @@ public class CandidaturaService {
      */
     private void inviaEmailConferma(Candidatura candidatura) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(candidatura.getEmail());
-            message.setSubject("Candidatura ricevuta - Servizi Edili Elvis SRL");
-            message.setText(String.format(
-                "Gentile %s %s,\n\n" +
-                "Abbiamo ricevuto la tua candidatura per la posizione di %s.\n\n" +
-                "La tua candidatura è stata registrata con successo e verrà valutata dal nostro team.\n" +
-                "Ti contatteremo al più presto per comunicarti l'esito della selezione.\n\n" +
-                "Dati della candidatura:\n" +
-                "- Posizione: %s\n" +
-                "- Data invio: %s\n" +
-                "- Email: %s\n" +
-                "- Telefono: %s\n\n" +
-                "Grazie per il tuo interesse!\n\n" +
-                "Cordiali saluti,\n" +
-                "RISTRUTTURAZIONI EDILI ELVIS SRLS\n" +
-                "Tel: +39 320 709 7442\n" +
-                "Email: ristrutturazioniedili.elvis@gmail.com",
-                candidatura.getNome(),
-                candidatura.getCognome(),
-                candidatura.getPosizioneRichiesta(),
-                candidatura.getPosizioneRichiesta(),
-                candidatura.getDataInvio().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
-                candidatura.getEmail(),
-                candidatura.getTelefono()
-            ));
-
-            mailSender.send(message);
+            templateEngine.render("candidatura-ricevuta.v1", valori(
+                    "nome", candidatura.getNome(),
+                    "cognome", candidatura.getCognome(),
+                    "posizioneRichiesta", candidatura.getPosizioneRichiesta(),
+                    "dataInvio", candidatura.getDataInvio(),
+                    "email", candidatura.getEmail(),
+                    "telefono", candidatura.getTelefono()))
+                .invia(mailSender, fromEmail, candidatura.getEmail());
             log.info("Email di conferma inviata a: {}", candidatura.getEmail());
         } catch (Exception e) {
             log.error("Errore nell'invio email di conferma", e);
@@ -238,28 +407,14 @@ public class CandidaturaService {
      */
     private void inviaNotificaAdmin(Candidatura candidatura) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(fromEmail);
-            message.setSubject("Nuova candidatura ricevuta - " + candidatura.getPosizioneRichiesta());
-            message.setText(String.format(
-                "È stata ricevuta una nuova candidatura:\n\n" +
-                "Candidato: %s\n" +
-                "Posizione: %s\n" +
-                "Email: %s\n" +
-                "Telefono: %s\n" +
-                "Esperienza: %s\n" +
-                "Data invio: %s\n\n" +
-                "Accedi all'area admin per visualizzare i dettagli completi.",
-                candidatura.getNomeCompleto(),
-                candidatura.getPosizioneRichiesta(),
-                candidatura.getEmail(),
-                candidatura.getTelefono(),
-                candidatura.getLivelloEsperienza(),
-                candidatura.getDataInvio().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))
-            ));
-
-            mailSender.send(message);
+            templateEngine.render("admin-nuova-candidatura.v1", valori(
+                    "nomeCompleto", candidatura.getNomeCompleto(),
+                    "posizioneRichiesta", candidatura.getPosizioneRichiesta(),
+                    "email", candidatura.getEmail(),
+                    "telefono", candidatura.getTelefono(),
+                    "livelloEsperienza", candidatura.getLivelloEsperienza(),
+                    "dataInvio", candidatura.getDataInvio()))
+                .invia(mailSender, fromEmail, fromEmail);
             log.info("Notifica admin inviata per candidatura: {}", candidatura.getId());
         } catch (Exception e) {
             log.error("Errore nell'invio notifica admin", e);
@@ -271,34 +426,45 @@ public class CandidaturaService {
      */
     private void inviaEmailRisposta(Candidatura candidatura, String messaggio) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(candidatura.getEmail());
-            message.setSubject("Aggiornamento candidatura - Servizi Edili Elvis SRL");
-            message.setText(String.format(
-                "Gentile %s %s,\n\n" +
-                "Ti scriviamo in merito alla tua candidatura per la posizione di %s.\n\n" +
-                "%s\n\n" +
-                "Stato candidatura: %s\n\n" +
-                "Per qualsiasi informazione non esitare a contattarci.\n\n" +
-                "Cordiali saluti,\n" +
-                "RISTRUTTURAZIONI EDILI ELVIS SRLS\n" +
-                "Tel: +39 320 709 7442\n" +
-                "Email: ristrutturazioniedili.elvis@gmail.com",
-                candidatura.getNome(),
-                candidatura.getCognome(),
-                candidatura.getPosizioneRichiesta(),
-                messaggio,
-                candidatura.getStato()
-            ));
-
-            mailSender.send(message);
+            templateEngine.render("candidatura-risposta.v1", valori(
+                    "nome", candidatura.getNome(),
+                    "cognome", candidatura.getCognome(),
+                    "posizioneRichiesta", candidatura.getPosizioneRichiesta(),
+                    "messaggio", messaggio,
+                    "stato", candidatura.getStato()))
+                .invia(mailSender, fromEmail, candidatura.getEmail());
             log.info("Email di risposta inviata a: {}", candidatura.getEmail());
         } catch (Exception e) {
             log.error("Errore nell'invio email di risposta", e);
         }
     }
 
+    /**
+     * Risultato della ricerca full-text
+     */
+    public record CandidaturaTrovata(
+        CandidaturaRiga candidatura,
+        double punteggio,
+        int terminiTrovati
+    ) {}
+
+    /**
+     * Pagina della lista admin
+     *
+     * @param righe         Righe della pagina
+     * @param prossimaData  dataInvio da cui parte la pagina successiva (null = ultima pagina)
+     * @param prossimoId    id da cui parte la pagina successiva (null = ultima pagina)
+     */
+    public record PaginaCandidature(
+        List<CandidaturaRiga> righe,
+        LocalDateTime prossimaData,
+        Long prossimoId
+    ) {
+        public boolean haSuccessiva() {
+            return prossimoId != null;
+        }
+    }
+
     /**
      * Inner class per le statistiche
      */
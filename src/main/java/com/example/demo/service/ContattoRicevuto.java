@@ -0,0 +1,16 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Contatto;
+
+/**
+ * Evento pubblicato quando un nuovo messaggio dal form contatti è stato salvato.
+ *
+ * I listener (@TransactionalEventListener) lo ricevono dopo il commit; senza
+ * transazione attiva (salvataggio diretto dal repository) subito dopo il save.
+ *
+ * @param contatto Il contatto appena salvato (con ID)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public record ContattoRicevuto(Contatto contatto) {}
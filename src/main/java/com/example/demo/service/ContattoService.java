@@ -5,6 +5,7 @@ import com.example.demo.repository.ContattoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
@@ -39,6 +40,10 @@ public class ContattoService {
     @Autowired
     private EmailService emailService;
     
+    // Eventi di dominio (es: ContattoRicevuto → dashboard admin in tempo reale)
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Salva un nuovo contatto nel database.
      * 
@@ -53,6 +58,7 @@ public class ContattoService {
      */
     public Contatto salvaContatto(Contatto contatto) {
         Contatto saved = contattoRepository.save(contatto);
+        eventPublisher.publishEvent(new ContattoRicevuto(saved));
         
         // Invia notifica email all'admin (NON bloccante)
         try {
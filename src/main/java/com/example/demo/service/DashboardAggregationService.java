@@ -0,0 +1,133 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Caricamento in parallelo di tutti i widget della dashboard admin.
+ *
+ * I widget di DashboardService sono indipendenti tra loro: invece di
+ * interrogarli uno dopo l'altro (tempo = somma dei widget), partono tutti
+ * insieme sull'esecutore "esecutoreDashboard" (thread virtuali se abilitati)
+ * e la risposta arriva quando finisce il più lento (tempo = massimo dei widget).
+ *
+ * SCADENZA PER WIDGET:
+ * Ogni widget ha al massimo dashboard.widget.timeout-ms. Un widget lento o in
+ * errore torna come segnaposto { "disponibile": false, "motivo": ... } e la
+ * pagina mostra gli altri: un widget non blocca mai l'intera dashboard.
+ * La query di un widget scaduto non viene interrotta, ma nessuno la aspetta.
+ * Se l'esecutore è pieno il widget non parte affatto: segnaposto "occupato"
+ * subito, senza eseguirlo nel thread della richiesta.
+ *
+ * METRICHE:
+ * - dashboard.widget.durata (Timer, tag widget + esito ok/timeout/errore/occupato)
+ * - dashboard.caricamento.durata (Timer): tempo dell'intera dashboard
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Service
+public class DashboardAggregationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardAggregationService.class);
+
+    // Righe delle liste e mesi del trend caricati con la dashboard
+    static final int RIGHE_APPUNTAMENTI = 8;
+    static final int RIGHE_CONTATTI = 5;
+    static final int RIGHE_CANDIDATURE = 5;
+    static final int MESI_TREND = 6;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("esecutoreDashboard")
+    private TaskExecutor esecutore;
+
+    @Value("${dashboard.widget.timeout-ms:1500}")
+    private long timeoutMs;
+
+    /**
+     * Tutti i widget della dashboard, nell'ordine della pagina.
+     * Un widget non disponibile è sostituito dal suo segnaposto.
+     */
+    public Map<String, Object> caricaTutti() {
+        Timer.Sample totale = Timer.start(meterRegistry);
+
+        Map<String, CompletableFuture<Object>> widget = new LinkedHashMap<>();
+        widget.put("kpi", avvia("kpi", dashboardService::kpi));
+        widget.put("appuntamenti", avvia("appuntamenti",
+            () -> dashboardService.prossimiAppuntamenti(RIGHE_APPUNTAMENTI)));
+        widget.put("contatti", avvia("contatti", () -> dashboardService.contattiNonLetti(RIGHE_CONTATTI)));
+        widget.put("trend", avvia("trend", () -> dashboardService.trend(MESI_TREND)));
+        widget.put("candidature", avvia("candidature",
+            () -> dashboardService.ultimeCandidature(RIGHE_CANDIDATURE)));
+
+        // Ogni future termina entro la propria scadenza (valore o segnaposto): join non resta appeso
+        CompletableFuture.allOf(widget.values().toArray(CompletableFuture[]::new)).join();
+
+        Map<String, Object> dati = new LinkedHashMap<>();
+        widget.forEach((nome, risultato) -> dati.put(nome, risultato.join()));
+        totale.stop(meterRegistry.timer("dashboard.caricamento.durata"));
+        return dati;
+    }
+
+    private CompletableFuture<Object> avvia(String nome, Supplier<?> caricamento) {
+        Timer.Sample misura = Timer.start(meterRegistry);
+        CompletableFuture<Object> avviato;
+        try {
+            avviato = CompletableFuture.supplyAsync(caricamento::get, esecutore);
+        } catch (RejectedExecutionException e) {
+            registra(nome, "occupato", misura);
+            logger.warn("Widget dashboard '{}' non avviato: esecutore occupato", nome);
+            return CompletableFuture.completedFuture(segnaposto("occupato"));
+        }
+        return avviato
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .handle((valore, errore) -> {
+                if (errore == null) {
+                    registra(nome, "ok", misura);
+                    return valore;
+                }
+                Throwable causa = errore.getCause() != null ? errore.getCause() : errore;
+                if (causa instanceof TimeoutException) {
+                    registra(nome, "timeout", misura);
+                    logger.warn("Widget dashboard '{}' oltre {} ms: mostrato come non disponibile", nome, timeoutMs);
+                    return segnaposto("timeout");
+                }
+                registra(nome, "errore", misura);
+                logger.error("Widget dashboard '{}' in errore: {}", nome, causa.getMessage(), causa);
+                return segnaposto("errore");
+            });
+    }
+
+    private void registra(String widget, String esito, Timer.Sample misura) {
+        misura.stop(Timer.builder("dashboard.widget.durata")
+            .description("Tempo di caricamento di un widget della dashboard admin")
+            .tag("widget", widget)
+            .tag("esito", esito)
+            .register(meterRegistry));
+    }
+
+    static Map<String, Object> segnaposto(String motivo) {
+        return Map.of("disponibile", false, "motivo", motivo);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.CandidaturaRiga;
+import com.example.demo.model.Contatto;
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.repository.ContattoRepository;
+import com.example.demo.repository.FiltroCandidature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dati dei widget della dashboard admin, caricati dalla pagina in parallelo come JSON.
+ *
+ * La pagina /admin/dashboard è solo un guscio: ogni widget chiede il proprio
+ * frammento a /admin/dashboard/widget/{nome}. Ogni frammento è LIMITATO:
+ * conteggi fatti dal database oppure al massimo MAX_RIGHE righe, mai intere tabelle.
+ * Il tempo di caricamento non dipende da quanti appuntamenti, contatti o
+ * candidature ci sono.
+ *
+ * WIDGET:
+ * - kpi: contatori (appuntamenti per stato, contatti non letti, candidature, lavori)
+ * - appuntamenti: prossimi appuntamenti da oggi
+ * - contatti: ultimi messaggi non letti, con anteprima
+ * - trend: appuntamenti per mese (grafico)
+ * - candidature: ultime candidature ricevute
+ *
+ * Ogni widget legge in una sola transazione readOnly (una connessione, dalla
+ * replica se configurata).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Service
+@Transactional(readOnly = true)
+public class DashboardService {
+
+    // Righe massime per un widget a lista, mesi massimi per il trend
+    static final int MAX_RIGHE = 50;
+    static final int MAX_MESI = 24;
+
+    private static final int ANTEPRIMA_MESSAGGIO = 120;
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private ContattoRepository contattoRepository;
+
+    @Autowired
+    private StatisticheService statisticheService;
+
+    @Autowired
+    private CandidaturaService candidaturaService;
+
+    /**
+     * Contatori della dashboard (solo query di conteggio).
+     */
+    public Map<String, Object> kpi() {
+        Map<String, Object> kpi = new LinkedHashMap<>(statisticheService.getStatisticheDashboard());
+        CandidaturaService.CandidaturaStats candidature = candidaturaService.getStatistiche();
+        kpi.put("candidatureTotali", candidature.totale());
+        kpi.put("candidatureNuove", candidature.nuove());
+        kpi.put("candidatureDuplicati", candidaturaService.contaPossibiliDuplicati());
+        return kpi;
+    }
+
+    /**
+     * Prossimi appuntamenti da oggi, i più vicini prima.
+     */
+    public List<Map<String, Object>> prossimiAppuntamenti(int limite) {
+        return appuntamentoRepository.findByDataAppuntamentoGreaterThanEqualOrderByDataAppuntamentoAsc(
+                LocalDate.now().atStartOfDay(), PageRequest.of(0, limita(limite, MAX_RIGHE)))
+            .stream()
+            .map(DashboardService::riga)
+            .toList();
+    }
+
+    /**
+     * Ultimi contatti non letti, dal più recente.
+     */
+    public List<Map<String, Object>> contattiNonLetti(int limite) {
+        return contattoRepository.findByLettoOrderByDataInvioDesc(false, PageRequest.of(0, limita(limite, MAX_RIGHE)))
+            .stream()
+            .map(DashboardService::riga)
+            .toList();
+    }
+
+    /**
+     * Appuntamenti per mese: { mese, totale, confermati, annullati }, dal più vecchio.
+     */
+    public List<Map<String, Object>> trend(int mesi) {
+        return statisticheService.getStatisticheMensili(limita(mesi, MAX_MESI));
+    }
+
+    /**
+     * Ultime candidature ricevute (righe senza campi TEXT).
+     */
+    public List<CandidaturaRiga> ultimeCandidature(int limite) {
+        return candidaturaService.trovaPagina(FiltroCandidature.nessuno(), null, null, limita(limite, MAX_RIGHE))
+            .righe();
+    }
+
+    private static int limita(int valore, int massimo) {
+        return Math.max(1, Math.min(valore, massimo));
+    }
+
+    private static Map<String, Object> riga(Appuntamento a) {
+        Map<String, Object> riga = new LinkedHashMap<>();
+        riga.put("id", a.getId());
+        riga.put("cliente", a.getNomeCliente() + " " + a.getCognomeCliente());
+        riga.put("dataAppuntamento", a.getDataAppuntamento());
+        riga.put("tipoServizio", a.getTipoServizio());
+        riga.put("stato", a.getStato());
+        return riga;
+    }
+
+    private static Map<String, Object> riga(Contatto c) {
+        String messaggio = c.getMessaggio() == null ? "" : c.getMessaggio();
+        Map<String, Object> riga = new LinkedHashMap<>();
+        riga.put("id", c.getId());
+        riga.put("nome", c.getNome());
+        riga.put("email", c.getEmail());
+        riga.put("anteprima", messaggio.length() > ANTEPRIMA_MESSAGGIO
+            ? messaggio.substring(0, ANTEPRIMA_MESSAGGIO) + "…" : messaggio);
+        riga.put("dataInvio", c.getDataInvio());
+        return riga;
+    }
+}
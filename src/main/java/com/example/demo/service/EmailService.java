@@ -2,12 +2,16 @@ package com.example.demo.service;
 
 import com.example.demo.model.Appuntamento;
 import com.example.demo.model.Contatto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
-import java.time.format.DateTimeFormatter;
+
+import java.util.Map;
+
+import static com.example.demo.service.EmailTemplateEngine.valori;
 
 /**
  * Service per l'invio di email ai clienti.
@@ -25,6 +29,13 @@ import java.time.format.DateTimeFormatter;
  * - spring.mail.username (email mittente)
  * - spring.mail.password (password o app password)
  * 
+ * TESTI:
+ * Oggetto e corpo di ogni email sono template versionati in
+ * src/main/resources/email/ (vedi EmailTemplateEngine).
+ * 
+ * METRICHE:
+ * Ogni invio registra il timer "email.invio" con tag template ed esito (ok/errore).
+ * 
  * @author Firmato $₿420
  * @since 2025
  */
@@ -39,8 +50,15 @@ public class EmailService {
     @Value("${spring.mail.username}")
     private String fromEmail;
     
-    // Formatter per date in formato italiano leggibile (es: "16/10/2025 alle ore 14:30")
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy 'alle ore' HH:mm");
+    // Template precompilati all'avvio
+    @Autowired
+    private EmailTemplateEngine templateEngine;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Email dell'amministratore per le notifiche
+    private static final String ADMIN_EMAIL = "ristrutturazioniedili.elvis@gmail.com";
     
     /**
      * Invia email automatica di conferma ricezione appuntamento al cliente.
@@ -59,24 +77,7 @@ public class EmailService {
      * @param appuntamento L'appuntamento appena creato dal cliente
      */
     public void inviaEmailConfermaAppuntamento(Appuntamento appuntamento) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(appuntamento.getEmail());
-        message.setSubject("Conferma Appuntamento - Servizi Edili Elvis SRL");
-        message.setText(
-            "Gentile " + appuntamento.getNomeCliente() + " " + appuntamento.getCognomeCliente() + ",\n\n" +
-            "Grazie per aver prenotato un appuntamento con Servizi Edili Elvis SRL.\n\n" +
-            "Dettagli dell'appuntamento:\n" +
-            "Data e Ora: " + appuntamento.getDataAppuntamento() + "\n" +
-            "Servizio: " + appuntamento.getTipoServizio() + "\n" +
-            "Indirizzo: " + appuntamento.getIndirizzo() + "\n\n" +
-            "Descrizione: " + appuntamento.getDescrizione() + "\n\n" +
-            "Il nostro team ti contatterà a breve per confermare l'appuntamento.\n\n" +
-            "Cordiali saluti,\n" +
-            "Servizi Edili Elvis SRL"
-        );
-        
-        mailSender.send(message);
+        invia("appuntamento-ricevuto.v1", valoriAppuntamento(appuntamento), appuntamento.getEmail());
     }
     
     /**
@@ -94,18 +95,10 @@ public class EmailService {
      * @param risposta Il testo della risposta scritta dall'amministratore
      */
     public void inviaEmailRisposta(Contatto contatto, String risposta) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(contatto.getEmail());
-        message.setSubject("Risposta al tuo messaggio - Servizi Edili Elvis SRL");
-        message.setText(
-            "Gentile " + contatto.getNome() + ",\n\n" +
-            risposta + "\n\n" +
-            "Cordiali saluti,\n" +
-            "Servizi Edili Elvis SRL"
-        );
-        
-        mailSender.send(message);
+        invia("contatto-risposta.v1", valori(
+                "nome", contatto.getNome(),
+                "risposta", risposta),
+            contatto.getEmail());
     }
     
     /**
@@ -129,33 +122,7 @@ public class EmailService {
      * @param appuntamento L'appuntamento confermato dall'admin
      */
     public void inviaEmailConfermaAppuntamentoDaAdmin(Appuntamento appuntamento) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(appuntamento.getEmail());
-        message.setSubject("✅ Appuntamento Confermato - Servizi Edili Elvis SRL");
-        
-        String dataOraFormattata = appuntamento.getDataAppuntamento().format(DATE_FORMATTER);
-        
-        message.setText(
-            "Gentile " + appuntamento.getNomeCliente() + " " + appuntamento.getCognomeCliente() + ",\n\n" +
-            "Siamo lieti di confermare il tuo appuntamento con Servizi Edili Elvis SRL.\n\n" +
-            "📅 DETTAGLI APPUNTAMENTO CONFERMATO:\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
-            "Data e Ora: " + dataOraFormattata + "\n" +
-            "Servizio richiesto: " + appuntamento.getTipoServizio() + "\n" +
-            "Luogo intervento: " + (appuntamento.getIndirizzo() != null ? appuntamento.getIndirizzo() : "Da concordare") + "\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n\n" +
-            "Il nostro team sarà puntuale all'orario concordato.\n" +
-            "Ti ricordiamo che la durata prevista dell'appuntamento è di circa 1 ora.\n\n" +
-            "Per qualsiasi necessità, non esitare a contattarci:\n" +
-            "📞 Telefono: +39 320 709 7442\n" +
-            "📧 Email: ristrutturazioniedili.elvis@gmail.com\n\n" +
-            "Cordiali saluti,\n" +
-            "Il Team di RISTRUTTURAZIONI EDILI ELVIS SRLS\n" +
-            "www.serviziedilielvis.it"
-        );
-        
-        mailSender.send(message);
+        invia("appuntamento-confermato.v1", valoriAppuntamento(appuntamento), appuntamento.getEmail());
     }
     
     /**
@@ -167,38 +134,7 @@ public class EmailService {
      * @param appuntamento Il nuovo appuntamento ricevuto
      */
     public void inviaNotificaAdminNuovoAppuntamento(Appuntamento appuntamento) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo("ristrutturazioniedili.elvis@gmail.com"); // Email admin
-        message.setSubject("🔔 NUOVO APPUNTAMENTO RICEVUTO - Azione Richiesta");
-        
-        String dataOraFormattata = appuntamento.getDataAppuntamento().format(DATE_FORMATTER);
-        
-        message.setText(
-            "🔔 NUOVO APPUNTAMENTO DA GESTIRE\n\n" +
-            "Un cliente ha appena richiesto un appuntamento sul sito.\n" +
-            "Accedi alla dashboard admin per confermare o rifiutare.\n\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
-            "📋 DETTAGLI APPUNTAMENTO:\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
-            "Cliente: " + appuntamento.getNomeCliente() + " " + appuntamento.getCognomeCliente() + "\n" +
-            "Telefono: " + appuntamento.getTelefono() + "\n" +
-            "Email: " + appuntamento.getEmail() + "\n\n" +
-            "Data/Ora richiesta: " + dataOraFormattata + "\n" +
-            "Servizio: " + appuntamento.getTipoServizio() + "\n" +
-            "Luogo: " + (appuntamento.getIndirizzo() != null ? appuntamento.getIndirizzo() : "Non specificato") + "\n\n" +
-            "Descrizione lavoro:\n" +
-            (appuntamento.getDescrizione() != null ? appuntamento.getDescrizione() : "Nessuna descrizione fornita") + "\n\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
-            "⚡ AZIONI RAPIDE:\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
-            "👉 Accedi alla dashboard: http://localhost:8080/admin/dashboard\n" +
-            "👉 Gestisci appuntamenti: http://localhost:8080/admin/appuntamenti\n\n" +
-            "⚠️ IMPORTANTE: Rispondi entro 24 ore per non perdere il cliente!\n\n" +
-            "Servizi Edili Elvis SRL - Sistema Gestionale"
-        );
-        
-        mailSender.send(message);
+        invia("admin-nuovo-appuntamento.v1", valoriAppuntamento(appuntamento), ADMIN_EMAIL);
     }
     
     /**
@@ -207,26 +143,12 @@ public class EmailService {
      * @param contatto Il nuovo messaggio di contatto ricevuto
      */
     public void inviaNotificaAdminNuovoContatto(Contatto contatto) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo("ristrutturazioniedili.elvis@gmail.com"); // Email admin
-        message.setSubject("💬 NUOVO MESSAGGIO CONTATTO - " + contatto.getNome());
-        
-        message.setText(
-            "💬 NUOVO MESSAGGIO DA LEGGERE\n\n" +
-            "Un visitatore ha inviato un messaggio dal form contatti del sito.\n\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
-            "Da: " + contatto.getNome() + "\n" +
-            "Email: " + contatto.getEmail() + "\n" +
-            "Telefono: " + (contatto.getTelefono() != null ? contatto.getTelefono() : "Non fornito") + "\n\n" +
-            "Messaggio:\n" +
-            contatto.getMessaggio() + "\n\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
-            "👉 Rispondi dalla dashboard: http://localhost:8080/admin/contatti\n\n" +
-            "Servizi Edili Elvis SRL - Sistema Gestionale"
-        );
-        
-        mailSender.send(message);
+        invia("admin-nuovo-contatto.v1", valori(
+                "nome", contatto.getNome(),
+                "email", contatto.getEmail(),
+                "telefono", contatto.getTelefono(),
+                "messaggio", contatto.getMessaggio()),
+            ADMIN_EMAIL);
     }
     
     /**
@@ -256,33 +178,48 @@ public class EmailService {
      * @param motivazione La motivazione del rifiuto inserita dall'admin
      */
     public void inviaEmailRifiutoAppuntamento(Appuntamento appuntamento, String motivazione) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(appuntamento.getEmail());
-        message.setSubject("⚠️ Appuntamento Non Disponibile - Servizi Edili Elvis SRL");
-        
-        String dataOraFormattata = appuntamento.getDataAppuntamento().format(DATE_FORMATTER);
-        
-        message.setText(
-            "Gentile " + appuntamento.getNomeCliente() + " " + appuntamento.getCognomeCliente() + ",\n\n" +
-            "Ti ringraziamo per aver richiesto un appuntamento con Servizi Edili Elvis SRL.\n\n" +
-            "Purtroppo dobbiamo informarti che NON siamo disponibili per la data e l'ora richieste:\n\n" +
-            "📅 Data e Ora richieste: " + dataOraFormattata + "\n" +
-            "Servizio: " + appuntamento.getTipoServizio() + "\n\n" +
-            "MOTIVO:\n" +
-            motivazione + "\n\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
-            "Ti invitiamo a scegliere una nuova data e ora tramite il nostro sito:\n" +
-            "🌐 www.serviziedilielvis.it/prenota\n\n" +
-            "Oppure contattaci direttamente per concordare un nuovo appuntamento:\n" +
-            "📞 Telefono: +39 320 709 7442\n" +
-            "📧 Email: ristrutturazioniedili.elvis@gmail.com\n" +
-            "💬 WhatsApp: +39 320 709 7442\n\n" +
-            "Ci scusiamo per l'inconveniente e restiamo a tua disposizione.\n\n" +
-            "Cordiali saluti,\n" +
-            "Il Team di RISTRUTTURAZIONI EDILI ELVIS SRLS"
+        Map<String, Object> valori = valoriAppuntamento(appuntamento);
+        valori.put("motivazione", motivazione);
+        invia("appuntamento-rifiutato.v1", valori, appuntamento.getEmail());
+    }
+    
+    private void invia(String template, Map<String, ?> valori, String destinatario) {
+        inviaMisurato(meterRegistry, template,
+            () -> templateEngine.render(template, valori).invia(mailSender, fromEmail, destinatario));
+    }
+    
+    /**
+     * Esegue un invio misurandone durata ed esito (timer "email.invio").
+     * Condiviso con ReminderService, che usa un mittente proprio.
+     */
+    static void inviaMisurato(MeterRegistry meterRegistry, String template, Runnable invio) {
+        Timer.Sample misura = Timer.start(meterRegistry);
+        String esito = "errore";
+        try {
+            invio.run();
+            esito = "ok";
+        } finally {
+            misura.stop(Timer.builder("email.invio")
+                .description("Durata invio email (rendering + SMTP)")
+                .tag("template", template)
+                .tag("esito", esito)
+                .register(meterRegistry));
+        }
+    }
+    
+    /**
+     * Segnaposto comuni a tutte le email di un appuntamento.
+     */
+    static Map<String, Object> valoriAppuntamento(Appuntamento appuntamento) {
+        return valori(
+            "nomeCliente", appuntamento.getNomeCliente(),
+            "cognomeCliente", appuntamento.getCognomeCliente(),
+            "email", appuntamento.getEmail(),
+            "telefono", appuntamento.getTelefono(),
+            "dataAppuntamento", appuntamento.getDataAppuntamento(),
+            "tipoServizio", appuntamento.getTipoServizio(),
+            "indirizzo", appuntamento.getIndirizzo(),
+            "descrizione", appuntamento.getDescrizione()
         );
-        
-        mailSender.send(message);
     }
 }
\ No newline at end of file
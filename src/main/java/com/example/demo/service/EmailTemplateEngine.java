@@ -0,0 +1,307 @@
+package com.example.demo.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Motore di template per il corpo delle email.
+ *
+ * I testi delle email stanno in src/main/resources/email/ come file versionati:
+ *   nome.v1.txt   → oggetto + corpo in testo semplice (obbligatorio)
+ *   nome.v1.html  → corpo HTML (facoltativo: se presente l'email è multipart)
+ *
+ * La prima riga del .txt è l'oggetto ("Oggetto: ..."), seguita da una riga vuota.
+ *
+ * SEGNAPOSTO:
+ * - {{campo}}              → valore (stringa vuota se null)
+ * - {{campo?Testo}}        → valore, oppure "Testo" se null
+ * - {{campo|data}}         → data/ora "16/10/2025 alle ore 14:30"
+ * - {{campo|dataBreve}}    → data/ora "16/10/2025 14:30"
+ * Nei template HTML i valori vengono sempre escapati.
+ *
+ * PRESTAZIONI:
+ * I template vengono letti UNA volta all'avvio e spezzati in segmenti
+ * (testo fisso + segnaposto). Il rendering scrive i segmenti in uno
+ * StringBuilder riutilizzato per thread: nessuna concatenazione né
+ * String.format, le date sono formattate direttamente nel buffer.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Component
+public class EmailTemplateEngine {
+
+    private static final String CARTELLA = "classpath*:email/*.v*.*";
+    private static final String PREFISSO_OGGETTO = "Oggetto:";
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy 'alle ore' HH:mm");
+    private static final DateTimeFormatter FORMATO_DATA_BREVE = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Buffer riutilizzato: le email non superano qualche KB
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    /**
+     * Email pronta per l'invio. html è null se il template non ha la variante HTML.
+     */
+    public record EmailRenderizzata(String oggetto, String testo, String html) {
+
+        /**
+         * Versione solo testo, per gli invii a blocchi (JavaMailSender.send(SimpleMailMessage...)).
+         */
+        public SimpleMailMessage messaggioTesto(String da, String a) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(da);
+            message.setTo(a);
+            message.setSubject(oggetto);
+            message.setText(testo);
+            return message;
+        }
+
+        /**
+         * Invia l'email: SimpleMailMessage se solo testo, MimeMessage multipart se c'è l'HTML.
+         */
+        public void invia(JavaMailSender mailSender, String da, String a) {
+            if (html == null) {
+                mailSender.send(messaggioTesto(da, a));
+                return;
+            }
+            try {
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, true, StandardCharsets.UTF_8.name());
+                helper.setFrom(da);
+                helper.setTo(a);
+                helper.setSubject(oggetto);
+                helper.setText(testo, html);
+                mailSender.send(message);
+            } catch (MessagingException e) {
+                throw new MailPreparationException("Impossibile preparare l'email: " + oggetto, e);
+            }
+        }
+    }
+
+    // Chiave: "nome.v1"
+    private final Map<String, TemplateCompilato> template = new HashMap<>();
+
+    public EmailTemplateEngine() {
+        try {
+            Resource[] risorse = new PathMatchingResourcePatternResolver().getResources(CARTELLA);
+            Map<String, String> testi = new HashMap<>();
+            Map<String, String> html = new HashMap<>();
+            for (Resource risorsa : risorse) {
+                String nomeFile = risorsa.getFilename();
+                if (nomeFile == null) {
+                    continue;
+                }
+                String contenuto;
+                try (InputStream in = risorsa.getInputStream()) {
+                    contenuto = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                if (nomeFile.endsWith(".txt")) {
+                    testi.put(nomeFile.substring(0, nomeFile.length() - 4), contenuto);
+                } else if (nomeFile.endsWith(".html")) {
+                    html.put(nomeFile.substring(0, nomeFile.length() - 5), contenuto);
+                }
+            }
+            for (Map.Entry<String, String> voce : testi.entrySet()) {
+                template.put(voce.getKey(), compila(voce.getKey(), voce.getValue(), html.get(voce.getKey())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossibile caricare i template email", e);
+        }
+    }
+
+    /**
+     * Genera oggetto, testo e (se disponibile) HTML di un'email.
+     *
+     * @param nome Nome del template con versione (es: "appuntamento-confermato.v1")
+     * @param valori Valori dei segnaposto
+     * @throws IllegalArgumentException se il template non esiste
+     */
+    public EmailRenderizzata render(String nome, Map<String, ?> valori) {
+        TemplateCompilato compilato = template.get(nome);
+        if (compilato == null) {
+            throw new IllegalArgumentException("Template email non trovato: " + nome);
+        }
+        String oggetto = scrivi(compilato.oggetto(), valori, false);
+        String testo = scrivi(compilato.testo(), valori, false);
+        String html = compilato.html() != null ? scrivi(compilato.html(), valori, true) : null;
+        return new EmailRenderizzata(oggetto, testo, html);
+    }
+
+    /**
+     * Costruisce la mappa dei segnaposto da coppie chiave/valore (i valori possono essere null).
+     * Esempio: valori("nome", contatto.getNome(), "email", contatto.getEmail())
+     */
+    public static Map<String, Object> valori(Object... coppie) {
+        if (coppie.length % 2 != 0) {
+            throw new IllegalArgumentException("Servono coppie chiave/valore");
+        }
+        Map<String, Object> mappa = new HashMap<>(coppie.length);
+        for (int i = 0; i < coppie.length; i += 2) {
+            mappa.put((String) coppie[i], coppie[i + 1]);
+        }
+        return mappa;
+    }
+
+    /**
+     * Template caricati (nome con versione).
+     */
+    public Set<String> getNomiTemplate() {
+        return Collections.unmodifiableSet(template.keySet());
+    }
+
+    // ==================== COMPILAZIONE ====================
+
+    private record TemplateCompilato(Segmento[] oggetto, Segmento[] testo, Segmento[] html) {}
+
+    /**
+     * Segmento di un template: testo fisso (campo == null) oppure segnaposto.
+     */
+    private record Segmento(String testo, String campo, DateTimeFormatter formato, String predefinito) {}
+
+    private static TemplateCompilato compila(String nome, String testo, String html) {
+        String normalizzato = testo.replace("\r\n", "\n");
+        int fineRiga = normalizzato.indexOf('\n');
+        if (!normalizzato.startsWith(PREFISSO_OGGETTO) || fineRiga < 0) {
+            throw new IllegalStateException("Template " + nome + ": la prima riga deve essere '" + PREFISSO_OGGETTO + " ...'");
+        }
+        String oggetto = normalizzato.substring(PREFISSO_OGGETTO.length(), fineRiga).trim();
+        // Salta la riga vuota dopo l'oggetto
+        String corpo = normalizzato.substring(fineRiga + 1);
+        if (corpo.startsWith("\n")) {
+            corpo = corpo.substring(1);
+        }
+        // Il ritorno a capo finale del file non fa parte dell'email
+        if (corpo.endsWith("\n")) {
+            corpo = corpo.substring(0, corpo.length() - 1);
+        }
+        return new TemplateCompilato(
+            segmenta(nome, oggetto),
+            segmenta(nome, corpo),
+            html != null ? segmenta(nome, html.replace("\r\n", "\n")) : null
+        );
+    }
+
+    private static Segmento[] segmenta(String nome, String sorgente) {
+        List<Segmento> segmenti = new ArrayList<>();
+        int posizione = 0;
+        while (posizione < sorgente.length()) {
+            int apertura = sorgente.indexOf("{{", posizione);
+            if (apertura < 0) {
+                segmenti.add(new Segmento(sorgente.substring(posizione), null, null, null));
+                break;
+            }
+            int chiusura = sorgente.indexOf("}}", apertura);
+            if (chiusura < 0) {
+                throw new IllegalStateException("Template " + nome + ": segnaposto non chiuso in posizione " + apertura);
+            }
+            if (apertura > posizione) {
+                segmenti.add(new Segmento(sorgente.substring(posizione, apertura), null, null, null));
+            }
+            segmenti.add(segnaposto(nome, sorgente.substring(apertura + 2, chiusura).trim()));
+            posizione = chiusura + 2;
+        }
+        return segmenti.toArray(Segmento[]::new);
+    }
+
+    private static Segmento segnaposto(String nome, String espressione) {
+        String predefinito = null;
+        int interrogativo = espressione.indexOf('?');
+        if (interrogativo >= 0) {
+            predefinito = espressione.substring(interrogativo + 1);
+            espressione = espressione.substring(0, interrogativo).trim();
+        }
+        DateTimeFormatter formato = null;
+        int barra = espressione.indexOf('|');
+        if (barra >= 0) {
+            String filtro = espressione.substring(barra + 1).trim();
+            formato = switch (filtro) {
+                case "data" -> FORMATO_DATA;
+                case "dataBreve" -> FORMATO_DATA_BREVE;
+                default -> throw new IllegalStateException("Template " + nome + ": filtro sconosciuto '" + filtro + "'");
+            };
+            espressione = espressione.substring(0, barra).trim();
+        }
+        return new Segmento(null, espressione, formato, predefinito);
+    }
+
+    // ==================== RENDERING ====================
+
+    private static String scrivi(Segmento[] segmenti, Map<String, ?> valori, boolean escapeHtml) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        for (Segmento segmento : segmenti) {
+            if (segmento.campo() == null) {
+                sb.append(segmento.testo());
+                continue;
+            }
+            Object valore = valori.get(segmento.campo());
+            if (valore == null) {
+                if (segmento.predefinito() != null) {
+                    appendi(sb, segmento.predefinito(), escapeHtml);
+                }
+            } else if (segmento.formato() != null && valore instanceof TemporalAccessor data) {
+                segmento.formato().formatTo(data, sb);
+            } else if (valore instanceof CharSequence testo) {
+                appendi(sb, testo, escapeHtml);
+            } else {
+                appendi(sb, valore.toString(), escapeHtml);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendi(StringBuilder sb, CharSequence testo, boolean escapeHtml) {
+        int primo = escapeHtml ? primoDaEscapare(testo) : -1;
+        if (primo < 0) {
+            sb.append(testo);
+            return;
+        }
+        sb.append(testo, 0, primo);
+        for (int i = primo; i < testo.length(); i++) {
+            char c = testo.charAt(i);
+            switch (c) {
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&#39;");
+                // I messaggi scritti dall'admin vanno a capo anche in HTML
+                case '\n' -> sb.append("<br>\n");
+                default -> sb.append(c);
+            }
+        }
+    }
+
+    private static int primoDaEscapare(CharSequence testo) {
+        for (int i = 0; i < testo.length(); i++) {
+            switch (testo.charAt(i)) {
+                case '<', '>', '&', '"', '\'', '\n' -> {
+                    return i;
+                }
+                default -> { }
+            }
+        }
+        return -1;
+    }
+}
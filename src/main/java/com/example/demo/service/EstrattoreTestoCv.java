@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Estrae il testo semplice dai CV caricati dai candidati.
+ *
+ * FORMATI:
+ * - PDF: Apache PDFBox (prime 30 pagine, cache su file temporaneo, non in memoria)
+ * - DOCX: è uno ZIP con word/document.xml → letto con java.util.zip + StAX, senza librerie
+ * - DOC (Word 97-2003): non supportato (servirebbe Apache POI per un formato ormai raro)
+ *
+ * LIMITI (un CV malformato o enorme non deve bloccare il worker):
+ * - massimo 100.000 caratteri di testo
+ * - DOCX: XML senza DTD né entità esterne (niente XXE), document.xml al massimo 20 MB
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Component
+public class EstrattoreTestoCv {
+
+    static final int MAX_CARATTERI = 100_000;
+    private static final int MAX_PAGINE_PDF = 30;
+    private static final long MAX_XML_DOCX = 20L * 1024 * 1024;
+    private static final String NS_WORD = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    /**
+     * Tipo di documento dall'estensione: "pdf", "docx" oppure null se non supportato.
+     */
+    public String tipo(Path file) {
+        String nome = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (nome.endsWith(".pdf")) {
+            return "pdf";
+        }
+        if (nome.endsWith(".docx")) {
+            return "docx";
+        }
+        return null;
+    }
+
+    /**
+     * Testo del documento, con spazi normalizzati e tagliato a MAX_CARATTERI.
+     *
+     * @throws IOException             file mancante, corrotto o protetto da password
+     * @throws IllegalArgumentException formato non supportato
+     */
+    public String estrai(Path file) throws IOException {
+        String tipo = tipo(file);
+        if (tipo == null) {
+            throw new IllegalArgumentException("Formato CV non supportato: " + file.getFileName());
+        }
+        String testo = tipo.equals("pdf") ? estraiPdf(file) : estraiDocx(file);
+        return normalizza(testo);
+    }
+
+    private String estraiPdf(Path file) throws IOException {
+        try (PDDocument documento = Loader.loadPDF(file.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setEndPage(MAX_PAGINE_PDF);
+            return stripper.getText(documento);
+        }
+    }
+
+    private String estraiDocx(Path file) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            ZipEntry documento = zip.getEntry("word/document.xml");
+            if (documento == null) {
+                throw new IOException("DOCX senza word/document.xml");
+            }
+            if (documento.getSize() > MAX_XML_DOCX) {
+                throw new IOException("DOCX troppo grande: " + documento.getSize() + " byte di XML");
+            }
+            try (InputStream xml = zip.getInputStream(documento)) {
+                return testoWord(xml);
+            }
+        }
+    }
+
+    /**
+     * Testo dei paragrafi di word/document.xml: w:t è il testo, w:tab/w:br separatori, w:p un paragrafo.
+     */
+    static String testoWord(InputStream xml) throws IOException {
+        XMLInputFactory fabbrica = XMLInputFactory.newFactory();
+        fabbrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        fabbrica.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        StringBuilder testo = new StringBuilder();
+        try {
+            XMLStreamReader lettore = fabbrica.createXMLStreamReader(xml);
+            boolean inTesto = false;
+            while (lettore.hasNext() && testo.length() < MAX_CARATTERI) {
+                int evento = lettore.next();
+                if (evento == XMLStreamConstants.START_ELEMENT && NS_WORD.equals(lettore.getNamespaceURI())) {
+                    switch (lettore.getLocalName()) {
+                        case "t" -> inTesto = true;
+                        case "tab" -> testo.append('\t');
+                        case "br", "cr" -> testo.append('\n');
+                        default -> { }
+                    }
+                } else if (evento == XMLStreamConstants.END_ELEMENT && NS_WORD.equals(lettore.getNamespaceURI())) {
+                    switch (lettore.getLocalName()) {
+                        case "t" -> inTesto = false;
+                        case "p" -> testo.append('\n');
+                        default -> { }
+                    }
+                } else if (inTesto && (evento == XMLStreamConstants.CHARACTERS || evento == XMLStreamConstants.CDATA)) {
+                    testo.append(lettore.getText());
+                }
+            }
+            lettore.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("XML del DOCX non valido: " + e.getMessage(), e);
+        }
+        return testo.toString();
+    }
+
+    /**
+     * Spazi multipli → uno, al massimo una riga vuota di fila, taglio a MAX_CARATTERI.
+     */
+    static String normalizza(String testo) {
+        String compatto = testo
+            .replace('\u00A0', ' ')
+            .replaceAll("[ \\t\\x0B\\f\\r]+", " ")
+            .replaceAll(" ?\\n ?", "\n")
+            .replaceAll("\\n{3,}", "\n\n")
+            .strip();
+        return compatto.length() > MAX_CARATTERI ? compatto.substring(0, MAX_CARATTERI) : compatto;
+    }
+}
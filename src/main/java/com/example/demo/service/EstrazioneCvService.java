@@ -0,0 +1,278 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.model.TestoCv;
+import com.example.demo.repository.CandidaturaRepository;
+import com.example.demo.repository.TestoCvRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estrazione del testo dai CV in background, per la ricerca dentro i CV.
+ *
+ * WORKFLOW:
+ * 1. CandidaturaService.salvaCandidatura → accoda(): riga testi_cv IN_CODA nella
+ *    STESSA transazione dell'INSERT (coda persistente: un riavvio non perde nulla)
+ * 2. Dopo il commit (CandidaturaRicevuta) il lavoro va all'esecutore
+ *    "esecutoreEstrazioneCv": la richiesta di invio non estrae mai nulla
+ * 3. Worker: legge il file (nessuna connessione DB aperta durante il parsing),
+ *    salva il testo compresso, lo aggiunge a IndiceCandidature
+ * 4. Errore: nuovo tentativo dopo 1, 4, 16... minuti; esauriti i tentativi → FALLITA
+ * 5. Ogni minuto un controllo riprende le righe IN_CODA scadute (tentativi,
+ *    coda in memoria piena, lavori interrotti da un riavvio)
+ *
+ * CANDIDATURE PRECEDENTI:
+ * Le candidature salvate prima dell'estrazione hanno il CV ma nessuna riga
+ * testi_cv. All'avvio vengono messe IN_CODA a blocchi (una breve transazione
+ * per blocco); il controllo periodico le estrae poi BLOCCO_CONTROLLO alla volta.
+ * Quando non manca nulla costa una sola query.
+ *
+ * METRICHE:
+ * - cv.estrazione.coda (Gauge): task in attesa nell'esecutore
+ * - cv.estrazione.arretrato (Gauge): righe IN_CODA nel database (ultimo controllo)
+ * - cv.estrazione.durata (Timer, tag tipo + esito): throughput e tempi per formato
+ * - cv.estrazione.caratteri (DistributionSummary): dimensione del testo estratto
+ * - cv.estrazione.rifiutate (Counter): task rifiutati a coda piena (ripresi dal controllo)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Service
+public class EstrazioneCvService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstrazioneCvService.class);
+
+    private static final int BLOCCO_CONTROLLO = 50;
+    static final int BLOCCO_RECUPERO = 500;
+
+    @Autowired
+    private TestoCvRepository testoCvRepository;
+
+    @Autowired
+    private CandidaturaRepository candidaturaRepository;
+
+    @Autowired
+    private EstrattoreTestoCv estrattore;
+
+    @Autowired
+    private IndiceCandidature indiceCandidature;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("esecutoreEstrazioneCv")
+    private ThreadPoolTaskExecutor esecutore;
+
+    @Value("${cv.estrazione.tentativi-max:4}")
+    private int tentativiMax;
+
+    @Value("${cv.estrazione.ritardo-base-minuti:1}")
+    private long ritardoBaseMinuti;
+
+    // Candidature già affidate all'esecutore (niente doppioni tra evento e controllo periodico)
+    private final Set<Long> inLavorazione = ConcurrentHashMap.newKeySet();
+    private final AtomicLong arretrato = new AtomicLong();
+
+    @PostConstruct
+    void registraMetriche() {
+        Gauge.builder("cv.estrazione.coda", esecutore, e -> e.getThreadPoolExecutor().getQueue().size())
+            .description("CV in attesa di estrazione nell'esecutore")
+            .register(meterRegistry);
+        Gauge.builder("cv.estrazione.arretrato", arretrato, AtomicLong::get)
+            .description("CV in coda nel database all'ultimo controllo")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Mette in coda l'estrazione: da chiamare DENTRO la transazione che salva la candidatura.
+     */
+    public void accoda(Candidatura candidatura) {
+        if (candidatura.getCvFilePath() != null) {
+            testoCvRepository.save(TestoCv.inCoda(candidatura.getId()));
+        }
+    }
+
+    /**
+     * Dopo il commit della nuova candidatura: estrazione subito, in background.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void suCandidaturaRicevuta(CandidaturaRicevuta evento) {
+        if (evento.candidatura().getCvFilePath() != null) {
+            invia(evento.candidatura().getId());
+        }
+    }
+
+    /**
+     * Mette in coda le candidature con CV che non hanno ancora una riga testi_cv.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void accodaCandidaturePrecedenti() {
+        long dopo = 0;
+        int accodate = 0;
+        List<Long> blocco;
+        do {
+            blocco = candidaturaRepository.findIdConCvSenzaTesto(dopo, PageRequest.of(0, BLOCCO_RECUPERO));
+            if (blocco.isEmpty()) {
+                break;
+            }
+            // saveAll: una transazione per blocco
+            testoCvRepository.saveAll(blocco.stream().map(TestoCv::inCoda).toList());
+            accodate += blocco.size();
+            dopo = blocco.get(blocco.size() - 1);
+        } while (blocco.size() == BLOCCO_RECUPERO);
+
+        if (accodate > 0) {
+            logger.info("CV di {} candidature precedenti messi in coda per l'estrazione", accodate);
+        }
+    }
+
+    /**
+     * Riprende le righe in coda con il tentativo scaduto.
+     */
+    @Scheduled(fixedDelayString = "${cv.estrazione.controllo-ms:60000}", initialDelayString = "${cv.estrazione.controllo-ms:60000}")
+    public void riprendiInCoda() {
+        testoCvRepository.findByStatoAndProssimoTentativoLessThanEqualOrderByProssimoTentativo(
+                TestoCv.StatoEstrazione.IN_CODA, LocalDateTime.now(), PageRequest.of(0, BLOCCO_CONTROLLO))
+            .forEach(riga -> invia(riga.getCandidaturaId()));
+        arretrato.set(testoCvRepository.countByStato(TestoCv.StatoEstrazione.IN_CODA));
+    }
+
+    /**
+     * Testo e stato dell'estrazione (dettaglio candidatura in admin).
+     */
+    public Optional<TestoCv> trova(Long candidaturaId) {
+        return testoCvRepository.findById(candidaturaId);
+    }
+
+    /**
+     * Elimina il testo del CV (candidatura eliminata).
+     */
+    public void elimina(Long candidaturaId) {
+        testoCvRepository.deleteById(candidaturaId);
+    }
+
+    private void invia(Long candidaturaId) {
+        if (!inLavorazione.add(candidaturaId)) {
+            return;
+        }
+        try {
+            esecutore.execute(() -> {
+                try {
+                    estrai(candidaturaId);
+                } finally {
+                    inLavorazione.remove(candidaturaId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Coda piena: la riga resta IN_CODA, la riprende il controllo periodico
+            inLavorazione.remove(candidaturaId);
+            meterRegistry.counter("cv.estrazione.rifiutate").increment();
+            logger.warn("Coda estrazione CV piena, candidatura {} rimandata al prossimo controllo", candidaturaId);
+        }
+    }
+
+    /**
+     * Estrae, salva e indicizza il testo di un CV (gira sul worker).
+     */
+    void estrai(Long candidaturaId) {
+        TestoCv riga = testoCvRepository.findById(candidaturaId).orElse(null);
+        if (riga == null || riga.getStato() != TestoCv.StatoEstrazione.IN_CODA) {
+            return;
+        }
+        Candidatura candidatura = candidaturaRepository.findById(candidaturaId).orElse(null);
+        if (candidatura == null || candidatura.getCvFilePath() == null) {
+            // Candidatura eliminata nel frattempo: la riga non serve più
+            testoCvRepository.delete(riga);
+            return;
+        }
+
+        Path file = Paths.get(candidatura.getCvFilePath());
+        String tipo = estrattore.tipo(file);
+        if (tipo == null) {
+            riga.setStato(TestoCv.StatoEstrazione.NON_SUPPORTATO);
+            testoCvRepository.save(riga);
+            registraEsito("altro", "non_supportato", Timer.start(meterRegistry));
+            return;
+        }
+
+        Timer.Sample misura = Timer.start(meterRegistry);
+        String testo;
+        try {
+            testo = estrattore.estrai(file);
+        } catch (Exception e) {
+            registraErrore(riga, tipo, e, misura);
+            return;
+        }
+
+        if (!candidaturaRepository.existsById(candidaturaId)) {
+            // Eliminata durante l'estrazione: non ricreare la riga
+            return;
+        }
+        riga.setTesto(testo);
+        riga.setStato(TestoCv.StatoEstrazione.COMPLETATA);
+        riga.setDataEstrazione(LocalDateTime.now());
+        riga.setUltimoErrore(null);
+        testoCvRepository.save(riga);
+        indiceCandidature.aggiornaCv(candidaturaId, testo);
+
+        DistributionSummary.builder("cv.estrazione.caratteri")
+            .description("Caratteri di testo estratti da un CV")
+            .register(meterRegistry)
+            .record(testo.length());
+        registraEsito(tipo, "completata", misura);
+        logger.info("Testo CV estratto per candidatura {}: {} caratteri ({})", candidaturaId, testo.length(), tipo);
+    }
+
+    private void registraErrore(TestoCv riga, String tipo, Exception errore, Timer.Sample misura) {
+        riga.setTentativi(riga.getTentativi() + 1);
+        String messaggio = errore.getClass().getSimpleName() + ": " + errore.getMessage();
+        riga.setUltimoErrore(messaggio.length() > 500 ? messaggio.substring(0, 500) : messaggio);
+        boolean esauriti = riga.getTentativi() >= tentativiMax;
+        if (esauriti) {
+            riga.setStato(TestoCv.StatoEstrazione.FALLITA);
+        } else {
+            // 1, 4, 16... minuti
+            long attesa = ritardoBaseMinuti * (1L << (2 * (riga.getTentativi() - 1)));
+            riga.setProssimoTentativo(LocalDateTime.now().plusMinutes(attesa));
+        }
+        testoCvRepository.save(riga);
+        registraEsito(tipo, esauriti ? "fallita" : "errore", misura);
+        logger.warn("Estrazione CV fallita per candidatura {} (tentativo {}/{}): {}",
+            riga.getCandidaturaId(), riga.getTentativi(), tentativiMax, messaggio);
+    }
+
+    private void registraEsito(String tipo, String esito, Timer.Sample misura) {
+        misura.stop(Timer.builder("cv.estrazione.durata")
+            .description("Durata estrazione testo dai CV")
+            .tag("tipo", tipo)
+            .tag("esito", esito)
+            .register(meterRegistry));
+    }
+}
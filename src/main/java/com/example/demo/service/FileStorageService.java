@@ -1,5 +1,8 @@
 package com.example.demo.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -7,7 +10,9 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service dedicato alla gestione sicura dei file caricati.
@@ -34,6 +39,12 @@ public class FileStorageService {
     private final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
     private final List<String> ALLOWED_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "gif", "webp");
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Metrica upload.dimensione registrata una volta per tipo (foto, cv, ...)
+    private final Map<String, DistributionSummary> dimensioniUpload = new ConcurrentHashMap<>();
+    
     /**
      * Salva un file con validazioni di sicurezza.
      * 
@@ -80,11 +91,28 @@ public class FileStorageService {
         // STEP 3: Salva file su disco
         Path filePath = uploadPath.resolve(safeFilename);
         Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        registraDimensione(subfolder, file.getSize());
         
         // STEP 4: Restituisci URL relativo
         return "/uploads/" + subfolder + "/" + safeFilename;
     }
     
+    /**
+     * Registra la dimensione di un file caricato nella metrica upload.dimensione.
+     * Usato anche dagli upload che non passano da saveFile (CV, foto dei lavori).
+     * 
+     * @param tipo Tag "tipo" della metrica (es: "cv", "foto-lavoro")
+     * @param bytes Dimensione del file
+     */
+    public void registraDimensione(String tipo, long bytes) {
+        dimensioniUpload.computeIfAbsent(tipo, t -> DistributionSummary.builder("upload.dimensione")
+                .description("Dimensione dei file caricati")
+                .baseUnit("bytes")
+                .tag("tipo", t)
+                .register(meterRegistry))
+            .record(bytes);
+    }
+    
     /**
      * Elimina un file dal disco.
      * 
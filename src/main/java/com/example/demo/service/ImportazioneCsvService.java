@@ -0,0 +1,346 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Lavoro;
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.repository.InserimentoMassivo;
+import com.example.demo.repository.LavoroRepository;
+import com.example.demo.validator.AppuntamentoValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Service per l'importazione CSV di appuntamenti passati e lavori del portfolio
+ * (migrazione dal vecchio gestionale).
+ *
+ * WORKFLOW (una riga alla volta, memoria costante):
+ * 1. LettoreCsv legge la riga e la converte nell'entità
+ * 2. Validazione: per gli appuntamenti le regole di AppuntamentoValidator
+ *    tranne "data futura" e "preavviso" (validaStorico), più le lunghezze
+ *    delle colonne; per i lavori titolo, lunghezze e date coerenti
+ * 3. Le righe valide si accumulano in un blocco di BLOCCO entità, inserito
+ *    con inserisciTutti (batch JDBC) in una transazione breve; le righe
+ *    scartate finiscono nel risultato con numero di riga e motivo
+ *
+ * COSA NON FA (a differenza di creaAppuntamento):
+ * - Nessun controllo di sovrapposizione con gli altri appuntamenti
+ * - Nessuna email, WhatsApp o evento per la dashboard
+ *
+ * TRANSAZIONI:
+ * Lettura e validazione avvengono FUORI da ogni transazione: un upload lento
+ * non tiene occupata una connessione del pool. Solo l'inserimento di ogni
+ * blocco apre una transazione (inserisciTutti). Se il database rifiuta un
+ * blocco o la lettura si interrompe, i blocchi già inseriti vengono eliminati:
+ * non resta nulla di importato a metà e il file si può ricaricare così com'è.
+ *
+ * Anche con open-in-view la connessione torna al pool al commit di ogni
+ * blocco (hibernate.connection.handling_mode) e inserisciTutti svuota il
+ * contesto di persistenza: tra un blocco e l'altro non resta occupato nulla.
+ *
+ * FORMATO:
+ * Intestazione con i nomi di colonna (come l'esportazione CSV), separatore
+ * ";" o ",". Date "yyyy-MM-dd" o "dd/MM/yyyy", con ora "HH:mm" o "HH:mm:ss".
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Service
+public class ImportazioneCsvService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportazioneCsvService.class);
+
+    // Righe valide tenute in memoria tra due inserimenti
+    static final int BLOCCO = 500;
+    // Errori riportati nel dettaglio: oltre si contano soltanto (il file è probabilmente sbagliato)
+    static final int MAX_ERRORI_RIPORTATI = 100;
+
+    private static final int MAX_TESTO = 255;
+    private static final String SEPARATORE_FOTO = "|";
+
+    private static final DateTimeFormatter DATA_ISO = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final DateTimeFormatter DATA_ITALIANA = DateTimeFormatter.ofPattern("dd/MM/uuuu");
+    private static final DateTimeFormatter DATA_ORA_ISO = new DateTimeFormatterBuilder()
+        .append(DateTimeFormatter.ISO_LOCAL_DATE)
+        .appendPattern("[ ]['T']HH:mm[:ss]")
+        .toFormatter();
+    private static final DateTimeFormatter DATA_ORA_ITALIANA = DateTimeFormatter.ofPattern("dd/MM/uuuu HH:mm[:ss]");
+
+    private static final String[] COLONNE_APPUNTAMENTI =
+        {"data_appuntamento", "nome", "cognome", "email", "telefono", "servizio"};
+    private static final String[] COLONNE_LAVORI = {"titolo"};
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private LavoroRepository lavoroRepository;
+
+    @Autowired
+    private AppuntamentoValidator appuntamentoValidator;
+
+    /**
+     * Colonne obbligatorie: data_appuntamento, nome, cognome, email, telefono, servizio.
+     * Facoltative: stato (default COMPLETATO), indirizzo, descrizione,
+     * data_creazione (default la data dell'appuntamento, così le statistiche
+     * per mese non contano lo storico come appena arrivato), motivazione_rifiuto,
+     * data_annullamento. La colonna id dell'esportazione viene ignorata.
+     *
+     * @throws IllegalArgumentException se mancano colonne obbligatorie o il file è malformato
+     */
+    public Risultato importaAppuntamenti(Reader in) throws IOException {
+        return importa("appuntamenti", in, COLONNE_APPUNTAMENTI, appuntamentoRepository, Appuntamento::getId,
+            this::appuntamento);
+    }
+
+    /**
+     * Colonna obbligatoria: titolo. Facoltative: descrizione, cliente, luogo,
+     * categoria, data_inizio, data_fine, pubblicato (1/0, true/false, si/no;
+     * default no: i lavori importati si rivedono prima di mostrarli sul sito),
+     * foto_prima e foto_dopo (URL separati da "|", file già in /uploads).
+     *
+     * @throws IllegalArgumentException se manca la colonna titolo o il file è malformato
+     */
+    public Risultato importaLavori(Reader in) throws IOException {
+        return importa("lavori", in, COLONNE_LAVORI, lavoroRepository, Lavoro::getId, this::lavoro);
+    }
+
+    private <T, R extends JpaRepository<T, Long> & InserimentoMassivo<T>> Risultato importa(
+            String tipo, Reader in, String[] obbligatorie, R repository, Function<T, Long> id,
+            Function<LettoreCsv, T> conversione) throws IOException {
+        long inizio = System.nanoTime();
+        LettoreCsv csv = new LettoreCsv(in);
+        if (!csv.leggiIntestazione()) {
+            throw new IllegalArgumentException("File vuoto");
+        }
+        List<String> mancanti = new ArrayList<>();
+        for (String colonna : obbligatorie) {
+            if (!csv.haColonna(colonna)) {
+                mancanti.add(colonna);
+            }
+        }
+        if (!mancanti.isEmpty()) {
+            throw new IllegalArgumentException("Colonne obbligatorie mancanti: " + String.join(", ", mancanti));
+        }
+
+        List<T> blocco = new ArrayList<>(BLOCCO);
+        List<ErroreRiga> errori = new ArrayList<>();
+        // Id delle righe già inserite: da eliminare se l'importazione non arriva in fondo
+        List<Long> inseriti = new ArrayList<>();
+        long scartate = 0;
+        try {
+            while (csv.prossimaRiga()) {
+                try {
+                    blocco.add(conversione.apply(csv));
+                } catch (IllegalArgumentException e) {
+                    scartate++;
+                    if (errori.size() < MAX_ERRORI_RIPORTATI) {
+                        errori.add(new ErroreRiga(csv.getRiga(), e.getMessage()));
+                    }
+                    continue;
+                }
+                if (blocco.size() == BLOCCO) {
+                    inserisci(repository, blocco, id, inseriti);
+                }
+            }
+            inserisci(repository, blocco, id, inseriti);
+        } catch (IOException | RuntimeException e) {
+            annulla(tipo, repository, inseriti, e);
+            throw e;
+        }
+
+        logger.info("Importazione {}: {} righe importate, {} scartate in {} ms",
+            tipo, inseriti.size(), scartate, (System.nanoTime() - inizio) / 1_000_000);
+        return new Risultato(inseriti.size(), scartate, errori);
+    }
+
+    private static <T> void inserisci(InserimentoMassivo<T> repository, List<T> blocco, Function<T, Long> id,
+                                      List<Long> inseriti) {
+        // Transazione breve: solo il tempo degli INSERT del blocco
+        repository.inserisciTutti(blocco);
+        for (T entita : blocco) {
+            inseriti.add(id.apply(entita));
+        }
+        blocco.clear();
+    }
+
+    /**
+     * Elimina i blocchi già inseriti di un'importazione interrotta.
+     */
+    private static void annulla(String tipo, JpaRepository<?, Long> repository, List<Long> inseriti, Exception causa) {
+        if (inseriti.isEmpty()) {
+            return;
+        }
+        try {
+            repository.deleteAllById(inseriti);
+            logger.warn("Importazione {} interrotta ({}): eliminate le {} righe già inserite",
+                tipo, causa.getMessage(), inseriti.size());
+        } catch (RuntimeException e) {
+            causa.addSuppressed(e);
+            logger.error("Importazione {} interrotta: {} righe già inserite non eliminate", tipo, inseriti.size(), e);
+        }
+    }
+
+    private Appuntamento appuntamento(LettoreCsv csv) {
+        Appuntamento a = new Appuntamento();
+        a.setDataAppuntamento(dataOra(csv, "data_appuntamento", true));
+        a.setNomeCliente(testo(csv, "nome", MAX_TESTO));
+        a.setCognomeCliente(testo(csv, "cognome", MAX_TESTO));
+        a.setEmail(testo(csv, "email", MAX_TESTO));
+        a.setTelefono(testo(csv, "telefono", MAX_TESTO));
+        a.setTipoServizio(testo(csv, "servizio", MAX_TESTO));
+        a.setIndirizzo(testo(csv, "indirizzo", MAX_TESTO));
+        a.setDescrizione(testo(csv, "descrizione", 1000));
+        a.setMotivazioneRifiuto(testo(csv, "motivazione_rifiuto", 2000));
+        a.setDataAnnullamento(dataOra(csv, "data_annullamento", false));
+        LocalDateTime creazione = dataOra(csv, "data_creazione", false);
+        a.setDataCreazione(creazione != null ? creazione : a.getDataAppuntamento());
+
+        String stato = testo(csv, "stato", MAX_TESTO);
+        if (stato == null) {
+            a.setStato(Appuntamento.StatoAppuntamento.COMPLETATO);
+        } else {
+            try {
+                a.setStato(Appuntamento.StatoAppuntamento.valueOf(
+                    stato.toUpperCase(Locale.ROOT).replace(' ', '_')));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Stato non valido: " + stato);
+            }
+        }
+
+        appuntamentoValidator.validaStorico(a);
+        return a;
+    }
+
+    private Lavoro lavoro(LettoreCsv csv) {
+        Lavoro l = new Lavoro();
+        l.setTitolo(testo(csv, "titolo", MAX_TESTO));
+        if (l.getTitolo() == null) {
+            throw new IllegalArgumentException("Il titolo è obbligatorio");
+        }
+        l.setDescrizione(testo(csv, "descrizione", 2000));
+        l.setCliente(testo(csv, "cliente", MAX_TESTO));
+        l.setLuogo(testo(csv, "luogo", MAX_TESTO));
+        l.setCategoria(testo(csv, "categoria", MAX_TESTO));
+        l.setDataInizio(data(csv, "data_inizio"));
+        l.setDataFine(data(csv, "data_fine"));
+        if (l.getDataInizio() != null && l.getDataFine() != null && l.getDataFine().isBefore(l.getDataInizio())) {
+            throw new IllegalArgumentException("data_fine precedente a data_inizio");
+        }
+        l.setPubblicato(siNo(csv, "pubblicato"));
+        foto(csv, "foto_prima", l.getFotoPrima()::add);
+        foto(csv, "foto_dopo", l.getFotoDopo()::add);
+        return l;
+    }
+
+    /**
+     * Testo della colonna, null se vuoto. Toglie l'apostrofo che l'esportazione
+     * aggiunge davanti a = + - @ (protezione dalle formule di Excel).
+     */
+    private static String testo(LettoreCsv csv, String colonna, int lunghezzaMax) {
+        String valore = csv.campo(colonna);
+        if (valore == null || valore.isEmpty()) {
+            return null;
+        }
+        if (valore.length() > 1 && valore.charAt(0) == '\'' && "=+-@".indexOf(valore.charAt(1)) >= 0) {
+            valore = valore.substring(1);
+        }
+        if (valore.length() > lunghezzaMax) {
+            throw new IllegalArgumentException(colonna + " oltre " + lunghezzaMax + " caratteri");
+        }
+        return valore;
+    }
+
+    private static LocalDateTime dataOra(LettoreCsv csv, String colonna, boolean obbligatoria) {
+        String valore = csv.campo(colonna);
+        if (valore == null || valore.isEmpty()) {
+            if (obbligatoria) {
+                throw new IllegalArgumentException(colonna + " obbligatoria");
+            }
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(valore, valore.indexOf('/') > 0 ? DATA_ORA_ITALIANA : DATA_ORA_ISO);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(colonna + " non valida: " + valore);
+        }
+    }
+
+    private static LocalDate data(LettoreCsv csv, String colonna) {
+        String valore = csv.campo(colonna);
+        if (valore == null || valore.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(valore, valore.indexOf('/') > 0 ? DATA_ITALIANA : DATA_ISO);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(colonna + " non valida: " + valore);
+        }
+    }
+
+    private static boolean siNo(LettoreCsv csv, String colonna) {
+        String valore = csv.campo(colonna);
+        if (valore == null || valore.isEmpty()) {
+            return false;
+        }
+        return switch (valore.toLowerCase(Locale.ROOT)) {
+            case "1", "true", "si", "sì", "s" -> true;
+            case "0", "false", "no", "n" -> false;
+            default -> throw new IllegalArgumentException(colonna + " non valido: " + valore);
+        };
+    }
+
+    private static void foto(LettoreCsv csv, String colonna, Consumer<String> aggiungi) {
+        String valore = csv.campo(colonna);
+        if (valore == null || valore.isEmpty()) {
+            return;
+        }
+        int inizio = 0;
+        while (inizio <= valore.length()) {
+            int fine = valore.indexOf(SEPARATORE_FOTO, inizio);
+            if (fine < 0) {
+                fine = valore.length();
+            }
+            String url = valore.substring(inizio, fine).trim();
+            if (url.length() > MAX_TESTO) {
+                throw new IllegalArgumentException(colonna + ": URL oltre " + MAX_TESTO + " caratteri");
+            }
+            if (!url.isEmpty()) {
+                aggiungi.accept(url);
+            }
+            inizio = fine + 1;
+        }
+    }
+
+    /**
+     * Esito di un'importazione.
+     *
+     * @param importate Righe inserite nel database
+     * @param scartate  Righe non valide (tutte, anche oltre MAX_ERRORI_RIPORTATI)
+     * @param errori    Prime MAX_ERRORI_RIPORTATI righe scartate, con il motivo
+     */
+    public record Risultato(long importate, long scartate, List<ErroreRiga> errori) {
+    }
+
+    /**
+     * @param riga      Riga del file (1 = intestazione)
+     * @param messaggio Motivo dello scarto
+     */
+    public record ErroreRiga(long riga, String messaggio) {
+    }
+}
@@ -0,0 +1,497 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.model.TestoCv;
+import com.example.demo.repository.CandidaturaRepository;
+import com.example.demo.repository.TestoCvRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indice full-text in memoria sulle candidature (ricerca per competenze).
+ *
+ * CAMPI INDICIZZATI (due campi BM25 separati, punteggi sommati):
+ * - modulo: posizioneRichiesta, ultimoLavoro, titoloStudio, competenzeTecniche,
+ *   esperienzaPrecedente, certificazioni, lingue
+ * - cv: testo estratto dal CV (EstrazioneCvService), con peso minore: è lungo
+ *   e contiene anche termini non pertinenti (indirizzi, date, hobby)
+ *
+ * ANALISI DEL TESTO (Java puro, nessuna dipendenza):
+ * - Minuscolo, parole separate su tutto ciò che non è lettera/cifra (apostrofi compresi)
+ * - Via le parole vuote italiane ("di", "con", "nell", ...) e le parole di una lettera
+ * - Radice con StemmerItaliano: "muratori" e "muratore" sono lo stesso termine
+ *
+ * STRUTTURA:
+ * Per ogni campo: indice invertito termine → lista (posizione candidatura, occorrenze)
+ * su array di int, più la lunghezza di ogni documento. Le query con più termini ("muratore cartongesso patentino")
+ * sono ordinate con BM25: contano di più i termini rari e le candidature che ne
+ * contengono di più, normalizzando per la lunghezza del testo.
+ *
+ * SINCRONIZZAZIONE:
+ * - Costruito all'avvio (ApplicationReadyEvent) leggendo candidature e testi CV a blocchi
+ * - CandidaturaService lo aggiorna dopo ogni commit (salvataggio, cambio stato, eliminazione)
+ * - EstrazioneCvService aggiunge il testo del CV quando l'estrazione termina
+ *
+ * CONCORRENZA: ReadWriteLock, le ricerche girano in parallelo tra loro.
+ *
+ * METRICHE:
+ * - ricerca.candidature (Timer): durata delle ricerche
+ * - ricerca.candidature.documenti (Gauge): candidature nell'indice
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Component
+public class IndiceCandidature {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceCandidature.class);
+
+    // Parametri BM25 standard
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Peso del campo CV rispetto ai campi del modulo
+    private static final double PESO_CV = 0.5;
+
+    // Termini distinti considerati in una query (uno per bit nel conteggio dei trovati)
+    private static final int MAX_TERMINI_QUERY = 32;
+
+    private static final int BLOCCO_RICOSTRUZIONE = 500;
+    private static final int CAPACITA_INIZIALE = 1024;
+
+    private static final Set<String> PAROLE_VUOTE = Set.of(
+        "il", "lo", "la", "le", "gli", "un", "una", "uno", "di", "da", "in", "con", "su", "per",
+        "tra", "fra", "del", "della", "dello", "dei", "degli", "delle", "dell", "al", "allo", "alla",
+        "ai", "agli", "alle", "all", "dal", "dalla", "dai", "dalle", "dall", "nel", "nella", "nei",
+        "nelle", "nell", "sul", "sulla", "sui", "sulle", "sull", "col", "coi", "ed", "e", "o", "od",
+        "ma", "che", "non", "come", "anche", "sono", "ho", "ha", "hanno", "mi", "si", "ci", "ne",
+        "piu", "più", "molto", "mio", "mia", "miei", "mie", "questo", "questa", "quello", "quella");
+
+    /**
+     * Candidatura trovata dalla ricerca.
+     *
+     * @param id             ID della candidatura
+     * @param punteggio      Punteggio BM25 (più alto = più pertinente)
+     * @param terminiTrovati Quanti termini diversi della query compaiono nella candidatura
+     */
+    public record Risultato(Long id, double punteggio, int terminiTrovati) {}
+
+    @Autowired
+    private CandidaturaRepository candidaturaRepository;
+
+    @Autowired
+    private TestoCvRepository testoCvRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Ogni candidatura occupa una posizione densa (0..occupate), condivisa dai due campi:
+    // liste e punteggi sono array di int/double, senza un oggetto per coppia (termine, candidatura)
+    private final Map<Long, Integer> posizioni = new HashMap<>();
+    private final ArrayDeque<Integer> posizioniLibere = new ArrayDeque<>();
+    private long[] ids = new long[CAPACITA_INIZIALE];
+    private String[] stati = new String[CAPACITA_INIZIALE];
+    private int occupate;
+
+    private final Campo modulo = new Campo(1.0);
+    private final Campo cv = new Campo(PESO_CV);
+
+    /**
+     * Lista di un termine: posizioni delle candidature che lo contengono e occorrenze.
+     * Non ordinata: la rimozione sposta l'ultimo elemento al posto di quello tolto.
+     */
+    private static final class ListaPosting {
+        private int[] posizioni = new int[4];
+        private int[] occorrenze = new int[4];
+        private int dimensione;
+
+        void aggiungi(int posizione, int tf) {
+            if (dimensione == posizioni.length) {
+                posizioni = Arrays.copyOf(posizioni, dimensione * 2);
+                occorrenze = Arrays.copyOf(occorrenze, dimensione * 2);
+            }
+            posizioni[dimensione] = posizione;
+            occorrenze[dimensione++] = tf;
+        }
+
+        void rimuovi(int posizione) {
+            for (int i = 0; i < dimensione; i++) {
+                if (posizioni[i] == posizione) {
+                    dimensione--;
+                    posizioni[i] = posizioni[dimensione];
+                    occorrenze[i] = occorrenze[dimensione];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Un campo BM25: liste dei termini, lunghezze e termini di ogni documento.
+     */
+    private static final class Campo {
+        private final double peso;
+        private final Map<String, ListaPosting> postings = new HashMap<>();
+        private int[] lunghezze = new int[CAPACITA_INIZIALE];
+        private String[][] termini = new String[CAPACITA_INIZIALE][];
+        private int documenti;
+        private long lunghezzaTotale;
+
+        Campo(double peso) {
+            this.peso = peso;
+        }
+
+        void cresci(int capacita) {
+            lunghezze = Arrays.copyOf(lunghezze, capacita);
+            termini = Arrays.copyOf(termini, capacita);
+        }
+
+        boolean presente(int posizione) {
+            return termini[posizione] != null;
+        }
+
+        void imposta(int posizione, Map<String, Integer> occorrenze, int lunghezza) {
+            svuota(posizione);
+            for (Map.Entry<String, Integer> e : occorrenze.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), k -> new ListaPosting()).aggiungi(posizione, e.getValue());
+            }
+            termini[posizione] = occorrenze.keySet().toArray(String[]::new);
+            lunghezze[posizione] = lunghezza;
+            lunghezzaTotale += lunghezza;
+            documenti++;
+        }
+
+        void svuota(int posizione) {
+            if (termini[posizione] == null) {
+                return;
+            }
+            for (String termine : termini[posizione]) {
+                ListaPosting lista = postings.get(termine);
+                lista.rimuovi(posizione);
+                if (lista.dimensione == 0) {
+                    postings.remove(termine);
+                }
+            }
+            lunghezzaTotale -= lunghezze[posizione];
+            lunghezze[posizione] = 0;
+            termini[posizione] = null;
+            documenti--;
+        }
+
+        void azzera() {
+            postings.clear();
+            Arrays.fill(termini, null);
+            Arrays.fill(lunghezze, 0);
+            documenti = 0;
+            lunghezzaTotale = 0;
+        }
+
+        /**
+         * Somma il contributo BM25 di un termine della query.
+         *
+         * @param bit      Bit del termine nella maschera dei termini trovati
+         * @param ammessi  Posizioni che passano il filtro (null = tutte)
+         * @param n        Candidature nell'indice (per l'IDF)
+         */
+        void accumula(String termine, int bit, boolean[] ammessi, int n, double[] punteggi, int[] trovati) {
+            ListaPosting lista = postings.get(termine);
+            if (lista == null) {
+                return;
+            }
+            double lunghezzaMedia = documenti == 0 ? 1 : Math.max(1.0, (double) lunghezzaTotale / documenti);
+            double idf = Math.log(1 + (n - lista.dimensione + 0.5) / (lista.dimensione + 0.5));
+            for (int i = 0; i < lista.dimensione; i++) {
+                int p = lista.posizioni[i];
+                if (ammessi != null && !ammessi[p]) {
+                    continue;
+                }
+                int tf = lista.occorrenze[i];
+                double norma = K1 * (1 - B + B * lunghezze[p] / lunghezzaMedia);
+                punteggi[p] += peso * idf * tf * (K1 + 1) / (tf + norma);
+                trovati[p] |= bit;
+            }
+        }
+    }
+
+    /**
+     * Costruisce l'indice da zero leggendo candidature e testi dei CV a blocchi.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ricostruisci() {
+        long inizio = System.currentTimeMillis();
+        Gauge.builder("ricerca.candidature.documenti", this, IndiceCandidature::getNumeroDocumenti)
+            .description("Candidature presenti nell'indice di ricerca")
+            .register(meterRegistry);
+
+        lock.writeLock().lock();
+        try {
+            posizioni.clear();
+            posizioniLibere.clear();
+            Arrays.fill(stati, null);
+            occupate = 0;
+            modulo.azzera();
+            cv.azzera();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Page<Candidatura> blocco;
+        int pagina = 0;
+        do {
+            blocco = candidaturaRepository.findAll(PageRequest.of(pagina++, BLOCCO_RICOSTRUZIONE, Sort.by("id")));
+            blocco.forEach(this::aggiorna);
+            List<Long> idBlocco = blocco.map(Candidatura::getId).toList();
+            for (TestoCv testo : testoCvRepository.findByCandidaturaIdInAndStato(idBlocco, TestoCv.StatoEstrazione.COMPLETATA)) {
+                aggiornaCv(testo.getCandidaturaId(), testo.getTesto());
+            }
+        } while (blocco.hasNext());
+
+        logger.info("Indice candidature costruito: {} candidature ({} con CV), {} termini in {} ms",
+            getNumeroDocumenti(), getNumeroCv(), getNumeroTermini(), System.currentTimeMillis() - inizio);
+    }
+
+    /**
+     * Inserisce o sostituisce i campi del modulo di una candidatura (il testo del CV resta).
+     */
+    public void aggiorna(Candidatura candidatura) {
+        if (candidatura.getId() == null) {
+            return;
+        }
+        // Analisi del testo fuori dal lock: è la parte costosa
+        Map<String, Integer> occorrenze = new HashMap<>();
+        int lunghezza = analizza(occorrenze,
+            candidatura.getPosizioneRichiesta(), candidatura.getUltimoLavoro(),
+            candidatura.getTitoloStudio(), candidatura.getCompetenzeTecniche(),
+            candidatura.getEsperienzaPrecedente(), candidatura.getCertificazioni(),
+            candidatura.getLingue());
+
+        lock.writeLock().lock();
+        try {
+            int posizione = posizione(candidatura.getId());
+            stati[posizione] = candidatura.getStato();
+            modulo.imposta(posizione, occorrenze, lunghezza);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserisce o sostituisce il testo del CV di una candidatura.
+     */
+    public void aggiornaCv(Long id, String testo) {
+        Map<String, Integer> occorrenze = new HashMap<>();
+        int lunghezza = analizza(occorrenze, testo);
+
+        lock.writeLock().lock();
+        try {
+            cv.imposta(posizione(id), occorrenze, lunghezza);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Toglie una candidatura dall'indice (eliminazione), CV compreso.
+     */
+    public void rimuovi(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer posizione = posizioni.remove(id);
+            if (posizione == null) {
+                return;
+            }
+            modulo.svuota(posizione);
+            cv.svuota(posizione);
+            stati[posizione] = null;
+            posizioniLibere.push(posizione);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int analizza(Map<String, Integer> occorrenze, String... testi) {
+        int lunghezza = 0;
+        for (String testo : testi) {
+            for (String termine : termini(testo)) {
+                occorrenze.merge(termine, 1, Integer::sum);
+                lunghezza++;
+            }
+        }
+        return lunghezza;
+    }
+
+    /**
+     * Posizione della candidatura, assegnata al primo inserimento (da chiamare col write lock).
+     */
+    private int posizione(Long id) {
+        Integer esistente = posizioni.get(id);
+        if (esistente != null) {
+            return esistente;
+        }
+        int posizione;
+        if (!posizioniLibere.isEmpty()) {
+            posizione = posizioniLibere.pop();
+        } else {
+            if (occupate == ids.length) {
+                int capacita = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacita);
+                stati = Arrays.copyOf(stati, capacita);
+                modulo.cresci(capacita);
+                cv.cresci(capacita);
+            }
+            posizione = occupate++;
+        }
+        posizioni.put(id, posizione);
+        ids[posizione] = id;
+        return posizione;
+    }
+
+    /**
+     * Ricerca per rilevanza (BM25 sui due campi).
+     *
+     * @param query  Testo libero, es: "muratore cartongesso patentino"
+     * @param stato  Solo candidature in questo stato (null = tutte)
+     * @param limite Numero massimo di risultati
+     * @return Risultati dal più pertinente; a parità di punteggio prima i più recenti
+     */
+    public List<Risultato> cerca(String query, String stato, int limite) {
+        List<String> terminiQuery = termini(query).stream().distinct().limit(MAX_TERMINI_QUERY).toList();
+        if (terminiQuery.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        Timer.Sample misura = Timer.start(meterRegistry);
+        lock.readLock().lock();
+        try {
+            int n = posizioni.size();
+            boolean[] ammessi = null;
+            if (stato != null) {
+                ammessi = new boolean[occupate];
+                for (int p = 0; p < occupate; p++) {
+                    ammessi[p] = stato.equals(stati[p]);
+                }
+            }
+            double[] punteggi = new double[occupate];
+            int[] trovati = new int[occupate];
+            for (int t = 0; t < terminiQuery.size(); t++) {
+                modulo.accumula(terminiQuery.get(t), 1 << t, ammessi, n, punteggi, trovati);
+                cv.accumula(terminiQuery.get(t), 1 << t, ammessi, n, punteggi, trovati);
+            }
+            return migliori(punteggi, trovati, limite);
+        } finally {
+            lock.readLock().unlock();
+            misura.stop(Timer.builder("ricerca.candidature")
+                .description("Durata delle ricerche full-text sulle candidature")
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Primi "limite" risultati con un heap di dimensione limitata (niente ordinamento completo).
+     */
+    private List<Risultato> migliori(double[] punteggi, int[] trovati, int limite) {
+        Comparator<Risultato> ordine = Comparator.comparingDouble(Risultato::punteggio)
+            .thenComparing(Risultato::id);
+        PriorityQueue<Risultato> heap = new PriorityQueue<>(limite + 1, ordine);
+        for (int p = 0; p < punteggi.length; p++) {
+            if (trovati[p] == 0) {
+                continue;
+            }
+            if (heap.size() == limite) {
+                Risultato peggiore = heap.peek();
+                if (punteggi[p] < peggiore.punteggio()
+                    || (punteggi[p] == peggiore.punteggio() && ids[p] < peggiore.id())) {
+                    continue;
+                }
+            }
+            heap.add(new Risultato(ids[p], punteggi[p], Integer.bitCount(trovati[p])));
+            if (heap.size() > limite) {
+                heap.poll();
+            }
+        }
+        List<Risultato> risultati = new ArrayList<>(heap);
+        risultati.sort(ordine.reversed());
+        return risultati;
+    }
+
+    /**
+     * Tokenizzazione + parole vuote + stemming (usato per testi e query).
+     */
+    static List<String> termini(String testo) {
+        if (testo == null || testo.isBlank()) {
+            return List.of();
+        }
+        // NFC: "è" scritto come "e" + accento combinato diventa un solo carattere
+        String normalizzato = Normalizer.normalize(testo, Normalizer.Form.NFC).toLowerCase(Locale.ITALIAN);
+        List<String> termini = new ArrayList<>();
+        int inizio = -1;
+        for (int i = 0; i <= normalizzato.length(); i++) {
+            boolean carattereParola = i < normalizzato.length() && Character.isLetterOrDigit(normalizzato.charAt(i));
+            if (carattereParola && inizio < 0) {
+                inizio = i;
+            } else if (!carattereParola && inizio >= 0) {
+                String parola = normalizzato.substring(inizio, i);
+                if (parola.length() > 1 && !PAROLE_VUOTE.contains(parola)) {
+                    termini.add(StemmerItaliano.radice(parola));
+                }
+                inizio = -1;
+            }
+        }
+        return termini;
+    }
+
+    public int getNumeroDocumenti() {
+        lock.readLock().lock();
+        try {
+            return posizioni.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getNumeroCv() {
+        lock.readLock().lock();
+        try {
+            return cv.documenti;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getNumeroTermini() {
+        lock.readLock().lock();
+        try {
+            Set<String> tutti = new HashSet<>(modulo.postings.keySet());
+            tutti.addAll(cv.postings.keySet());
+            return tutti.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
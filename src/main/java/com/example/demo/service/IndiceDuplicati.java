@@ -0,0 +1,439 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.repository.CandidaturaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indice in memoria per riconoscere le candidature probabilmente duplicate.
+ *
+ * Il controllo sul codice fiscale in CandidaturaService blocca solo i doppioni
+ * esatti: chi non ha il codice fiscale (stranieri) o lo scrive con un errore
+ * può reinviare senza limiti. Qui si cercano i doppioni "quasi uguali" senza
+ * confrontare la nuova candidatura con tutte le altre.
+ *
+ * CHIAVI NORMALIZZATE (corrispondenza esatta, una HashMap per chiave):
+ * - email: minuscola, senza "+etichetta"; Gmail senza i punti nella parte locale
+ * - telefono: sole cifre, senza prefisso internazionale 0039/+39, ultime 10 cifre
+ * - nome + cognome + data di nascita: senza accenti, parole in ordine alfabetico
+ *   (nome e cognome invertiti sono la stessa persona)
+ * - primi 11 caratteri del codice fiscale (cognome, nome, data di nascita):
+ *   un errore su comune o carattere di controllo non nasconde il doppione
+ *
+ * FIRMA MINHASH + LSH (somiglianza approssimata, per errori di battitura):
+ * - Insieme di caratteristiche: trigrammi del nome completo, della parte locale
+ *   dell'email e del telefono, più la data di nascita
+ * - Firma: 48 minimi di funzioni hash diverse; la frazione di minimi uguali
+ *   stima la somiglianza di Jaccard tra due insiemi
+ * - LSH: la firma è divisa in 12 bande da 4 valori, ogni banda è un secchio di
+ *   una HashMap. Si confrontano solo le candidature che condividono almeno un
+ *   secchio: coppie con somiglianza 0,6 si incontrano con probabilità ~81%,
+ *   coppie con 0,8 con probabilità ~99,8%
+ *
+ * Una candidatura è segnalata se condivide una chiave esatta oppure se la
+ * somiglianza stimata supera la soglia. Il costo di una ricerca dipende dal
+ * numero di candidature nei secchi comuni, non dal totale.
+ *
+ * SINCRONIZZAZIONE: costruito all'avvio, aggiornato da CandidaturaService dopo il commit
+ * (nuova candidatura, eliminazione). CONCORRENZA: ReadWriteLock.
+ *
+ * CONFIGURAZIONE (application.properties):
+ * - candidature.duplicati.soglia: somiglianza minima stimata (default 0.6)
+ *
+ * METRICHE:
+ * - duplicati.controllo (Timer): durata della ricerca dei doppioni
+ * - duplicati.segnalati (Counter): candidature segnalate come possibili doppioni
+ * - duplicati.documenti (Gauge): candidature nell'indice
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@Component
+public class IndiceDuplicati {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceDuplicati.class);
+
+    static final int BANDE = 12;
+    static final int RIGHE_PER_BANDA = 4;
+    static final int NUMERO_HASH = BANDE * RIGHE_PER_BANDA;
+
+    private static final int BLOCCO_RICOSTRUZIONE = 500;
+
+    // Semi fissi: le firme restano confrontabili tra un riavvio e l'altro
+    private static final int[] SEMI = new SplittableRandom(0x5EED_D0B1L).ints(NUMERO_HASH).toArray();
+
+    private static final Set<String> DOMINI_GMAIL = Set.of("gmail.com", "googlemail.com");
+
+    /**
+     * Candidatura esistente probabilmente uguale a quella cercata.
+     *
+     * @param id          ID della candidatura esistente
+     * @param somiglianza Somiglianza di Jaccard stimata dalle firme (0..1)
+     * @param motivo      Chiavi esatte in comune (es: "email, telefono") o "dati simili"
+     */
+    public record Sospetto(Long id, double somiglianza, String motivo) {}
+
+    /**
+     * Chiavi e firma di una candidatura (tenute per poterla togliere dall'indice).
+     */
+    private record Voce(Map<String, String> chiavi, int[] firma, long[] secchi) {}
+
+    @Autowired
+    private CandidaturaRepository candidaturaRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${candidature.duplicati.soglia:0.6}")
+    private double soglia = 0.6;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Voce> voci = new HashMap<>();
+    private final Map<String, Set<Long>> perChiave = new HashMap<>();
+    private final Map<Long, Set<Long>> perSecchio = new HashMap<>();
+
+    /**
+     * Costruisce l'indice da zero leggendo le candidature a blocchi.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ricostruisci() {
+        long inizio = System.currentTimeMillis();
+        Gauge.builder("duplicati.documenti", this, IndiceDuplicati::getNumeroDocumenti)
+            .description("Candidature presenti nell'indice dei duplicati")
+            .register(meterRegistry);
+
+        lock.writeLock().lock();
+        try {
+            voci.clear();
+            perChiave.clear();
+            perSecchio.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Page<Candidatura> blocco;
+        int pagina = 0;
+        do {
+            blocco = candidaturaRepository.findAll(PageRequest.of(pagina++, BLOCCO_RICOSTRUZIONE, Sort.by("id")));
+            blocco.forEach(this::aggiorna);
+        } while (blocco.hasNext());
+
+        logger.info("Indice duplicati costruito: {} candidature, {} secchi LSH in {} ms",
+            getNumeroDocumenti(), getNumeroSecchi(), System.currentTimeMillis() - inizio);
+    }
+
+    /**
+     * Inserisce o sostituisce una candidatura (dopo il commit).
+     */
+    public void aggiorna(Candidatura candidatura) {
+        if (candidatura.getId() == null) {
+            return;
+        }
+        Voce voce = voce(candidatura);
+        lock.writeLock().lock();
+        try {
+            togli(candidatura.getId());
+            voci.put(candidatura.getId(), voce);
+            for (String chiave : voce.chiavi().values()) {
+                perChiave.computeIfAbsent(chiave, k -> new HashSet<>(2)).add(candidatura.getId());
+            }
+            for (long secchio : voce.secchi()) {
+                perSecchio.computeIfAbsent(secchio, k -> new HashSet<>(2)).add(candidatura.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Toglie una candidatura dall'indice (eliminazione).
+     */
+    public void rimuovi(Long id) {
+        lock.writeLock().lock();
+        try {
+            togli(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Candidatura esistente più simile a quella indicata, se supera i controlli.
+     *
+     * Ordine: più chiavi esatte in comune, poi somiglianza stimata più alta.
+     * La candidatura stessa (stesso ID) è esclusa.
+     */
+    public Optional<Sospetto> cerca(Candidatura candidatura) {
+        Timer.Sample misura = Timer.start(meterRegistry);
+        Voce voce = voce(candidatura);
+
+        Sospetto migliore = null;
+        int chiaviMigliore = -1;
+        lock.readLock().lock();
+        try {
+            // Candidati: chi condivide una chiave esatta o un secchio LSH
+            Map<Long, List<String>> motivi = new LinkedHashMap<>();
+            voce.chiavi().forEach((nome, chiave) -> {
+                for (Long id : perChiave.getOrDefault(chiave, Set.of())) {
+                    motivi.computeIfAbsent(id, k -> new ArrayList<>()).add(nome);
+                }
+            });
+            for (long secchio : voce.secchi()) {
+                for (Long id : perSecchio.getOrDefault(secchio, Set.of())) {
+                    motivi.putIfAbsent(id, new ArrayList<>());
+                }
+            }
+            motivi.remove(candidatura.getId());
+
+            for (Map.Entry<Long, List<String>> candidato : motivi.entrySet()) {
+                double somiglianza = somiglianza(voce.firma(), voci.get(candidato.getKey()).firma());
+                int chiaviComuni = candidato.getValue().size();
+                if (chiaviComuni == 0 && somiglianza < soglia) {
+                    continue;
+                }
+                if (chiaviComuni > chiaviMigliore
+                        || (chiaviComuni == chiaviMigliore && somiglianza > migliore.somiglianza())) {
+                    String motivo = chiaviComuni > 0 ? String.join(", ", candidato.getValue()) : "dati simili";
+                    migliore = new Sospetto(candidato.getKey(), somiglianza, motivo);
+                    chiaviMigliore = chiaviComuni;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        misura.stop(meterRegistry.timer("duplicati.controllo"));
+        if (migliore != null) {
+            meterRegistry.counter("duplicati.segnalati").increment();
+        }
+        return Optional.ofNullable(migliore);
+    }
+
+    public int getNumeroDocumenti() {
+        lock.readLock().lock();
+        try {
+            return voci.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getNumeroSecchi() {
+        lock.readLock().lock();
+        try {
+            return perSecchio.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void togli(Long id) {
+        Voce vecchia = voci.remove(id);
+        if (vecchia == null) {
+            return;
+        }
+        for (String chiave : vecchia.chiavi().values()) {
+            rimuoviDa(perChiave, chiave, id);
+        }
+        for (long secchio : vecchia.secchi()) {
+            rimuoviDa(perSecchio, secchio, id);
+        }
+    }
+
+    private static <K> void rimuoviDa(Map<K, Set<Long>> mappa, K chiave, Long id) {
+        Set<Long> ids = mappa.get(chiave);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            mappa.remove(chiave);
+        }
+    }
+
+    // ==================== CHIAVI E FIRMA ====================
+
+    private static Voce voce(Candidatura c) {
+        String nome = nomeNormalizzato(c.getNome(), c.getCognome());
+        String email = emailNormalizzata(c.getEmail());
+        String telefono = telefonoNormalizzato(c.getTelefono());
+
+        // Chiave → nome leggibile del motivo (solo le chiavi disponibili)
+        Map<String, String> chiavi = new LinkedHashMap<>();
+        if (!email.isEmpty()) {
+            chiavi.put("email", "e:" + email);
+        }
+        if (!telefono.isEmpty()) {
+            chiavi.put("telefono", "t:" + telefono);
+        }
+        if (!nome.isEmpty() && c.getDataNascita() != null) {
+            chiavi.put("nome e data di nascita", "n:" + nome + "|" + c.getDataNascita());
+        }
+        if (c.getCodiceFiscale() != null && c.getCodiceFiscale().strip().length() >= 11) {
+            chiavi.put("codice fiscale", "c:" + c.getCodiceFiscale().strip().toUpperCase(Locale.ROOT).substring(0, 11));
+        }
+
+        Set<String> caratteristiche = new HashSet<>();
+        trigrammi(caratteristiche, 'n', nome);
+        trigrammi(caratteristiche, 'e', email.contains("@") ? email.substring(0, email.indexOf('@')) : email);
+        trigrammi(caratteristiche, 't', telefono);
+        if (c.getDataNascita() != null) {
+            caratteristiche.add("d" + c.getDataNascita());
+        }
+
+        int[] firma = firma(caratteristiche);
+        // Con nessuna caratteristica la firma è tutta MAX_VALUE: niente secchi, altrimenti
+        // tutte le candidature vuote finirebbero nello stesso secchio
+        long[] secchi = caratteristiche.isEmpty() ? new long[0] : secchi(firma);
+        return new Voce(chiavi, firma, secchi);
+    }
+
+    /**
+     * Minimo di ogni funzione hash sull'insieme delle caratteristiche.
+     */
+    static int[] firma(Set<String> caratteristiche) {
+        int[] firma = new int[NUMERO_HASH];
+        Arrays.fill(firma, Integer.MAX_VALUE);
+        for (String caratteristica : caratteristiche) {
+            int base = mescola(caratteristica.hashCode());
+            for (int i = 0; i < NUMERO_HASH; i++) {
+                int h = mescola(base ^ SEMI[i]);
+                if (h < firma[i]) {
+                    firma[i] = h;
+                }
+            }
+        }
+        return firma;
+    }
+
+    /**
+     * Un secchio per banda: hash dei valori della banda, con il numero di banda incluso.
+     */
+    private static long[] secchi(int[] firma) {
+        long[] secchi = new long[BANDE];
+        for (int banda = 0; banda < BANDE; banda++) {
+            long h = banda + 1;
+            for (int r = 0; r < RIGHE_PER_BANDA; r++) {
+                h = h * 0x9E3779B97F4A7C15L + firma[banda * RIGHE_PER_BANDA + r];
+            }
+            secchi[banda] = h;
+        }
+        return secchi;
+    }
+
+    /**
+     * Frazione di minimi uguali: stima della somiglianza di Jaccard.
+     */
+    static double somiglianza(int[] a, int[] b) {
+        int uguali = 0;
+        for (int i = 0; i < NUMERO_HASH; i++) {
+            if (a[i] == b[i]) {
+                uguali++;
+            }
+        }
+        return (double) uguali / NUMERO_HASH;
+    }
+
+    // Finalizzatore di MurmurHash3: distribuisce bene anche hashCode simili
+    private static int mescola(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static void trigrammi(Set<String> caratteristiche, char campo, String testo) {
+        if (testo.isEmpty()) {
+            return;
+        }
+        String bordato = " " + testo + " ";
+        for (int i = 0; i + 3 <= bordato.length(); i++) {
+            caratteristiche.add(campo + bordato.substring(i, i + 3));
+        }
+    }
+
+    /**
+     * "D'Angelo José" + "Maria" → "angelo d jose maria" (senza accenti, parole in ordine).
+     */
+    static String nomeNormalizzato(String nome, String cognome) {
+        String unito = ((nome == null ? "" : nome) + " " + (cognome == null ? "" : cognome));
+        String senzaAccenti = Normalizer.normalize(unito, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .toLowerCase(Locale.ROOT);
+        TreeSet<String> parole = new TreeSet<>();
+        for (String parola : senzaAccenti.split("[^a-z]+")) {
+            if (!parola.isEmpty()) {
+                parole.add(parola);
+            }
+        }
+        return String.join(" ", parole);
+    }
+
+    /**
+     * "Mario.Rossi+lavoro@GMail.com" → "mariorossi@gmail.com".
+     */
+    static String emailNormalizzata(String email) {
+        if (email == null) {
+            return "";
+        }
+        String minuscola = email.strip().toLowerCase(Locale.ROOT);
+        int chiocciola = minuscola.lastIndexOf('@');
+        if (chiocciola <= 0) {
+            return minuscola;
+        }
+        String locale = minuscola.substring(0, chiocciola);
+        String dominio = minuscola.substring(chiocciola + 1);
+        int piu = locale.indexOf('+');
+        if (piu > 0) {
+            locale = locale.substring(0, piu);
+        }
+        if (DOMINI_GMAIL.contains(dominio)) {
+            locale = locale.replace(".", "");
+            dominio = "gmail.com";
+        }
+        return locale + "@" + dominio;
+    }
+
+    /**
+     * "+39 333 123 4567" / "0039333..." / "333-1234567" → "3331234567".
+     */
+    static String telefonoNormalizzato(String telefono) {
+        if (telefono == null) {
+            return "";
+        }
+        String cifre = telefono.replaceAll("\\D", "");
+        if (cifre.startsWith("00")) {
+            cifre = cifre.substring(2);
+        }
+        if (cifre.startsWith("39") && cifre.length() >= 12) {
+            cifre = cifre.substring(2);
+        }
+        return cifre.length() > 10 ? cifre.substring(cifre.length() - 10) : cifre;
+    }
+}
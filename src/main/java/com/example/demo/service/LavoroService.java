@@ -162,6 +162,7 @@ public class LavoroService {
         // STEP 3: Salva il file fisicamente su disco
         Path filePath = uploadPath.resolve(filename);
         Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        fileStorageService.registraDimensione("foto-lavoro", file.getSize());
         
         // STEP 4: Restituisci l'URL relativo per salvarlo nel database
         return "/uploads/lavori/" + filename;
@@ -0,0 +1,226 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lettore CSV in streaming: una riga alla volta, senza caricare il file.
+ *
+ * È la controparte di ScrittoreCsv per l'importazione:
+ * - BOM UTF-8 iniziale ignorato
+ * - Separatore ";" o "," scelto dalla riga di intestazione
+ * - Campi tra virgolette con "" come virgolette, separatori e a capo
+ * - Righe terminate da CRLF o LF; righe vuote saltate
+ *
+ * MEMORIA:
+ * Buffer di lettura fisso e un solo record alla volta. Un campo oltre
+ * MAX_CARATTERI_CAMPO (tipicamente virgolette non chiuse, che
+ * inghiottirebbero il resto del file) interrompe la lettura.
+ *
+ * Non thread-safe; non chiude il Reader.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public class LettoreCsv {
+
+    static final int MAX_CARATTERI_CAMPO = 10_000;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int FINE = -1;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int posizione;
+    private int letti;
+
+    private final StringBuilder campo = new StringBuilder();
+    private final List<String> campi = new ArrayList<>();
+    private final Map<String, Integer> colonne = new HashMap<>();
+    private char separatore = ';';
+    private long riga;
+    private long rigaSuccessiva = 1;
+
+    public LettoreCsv(Reader in) throws IOException {
+        this.in = in;
+        caricaPrimaRiga();
+        if (letti > 0 && buffer[0] == '\uFEFF') {
+            posizione = 1;
+        }
+    }
+
+    /**
+     * Legge l'intestazione e sceglie il separatore: ";" se compare nella
+     * prima riga, altrimenti ",". I nomi di colonna non distinguono maiuscole.
+     *
+     * @return false se il file è vuoto
+     */
+    public boolean leggiIntestazione() throws IOException {
+        if (!primaRigaContiene(';')) {
+            separatore = ',';
+        }
+        if (!prossimaRiga()) {
+            return false;
+        }
+        for (int i = 0; i < campi.size(); i++) {
+            colonne.putIfAbsent(campi.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return true;
+    }
+
+    /**
+     * Avanza al record successivo.
+     *
+     * @return false a fine file
+     * @throws IllegalArgumentException se un campo supera MAX_CARATTERI_CAMPO
+     */
+    public boolean prossimaRiga() throws IOException {
+        do {
+            if (!leggiRecord()) {
+                return false;
+            }
+        } while (campi.size() == 1 && campi.get(0).isEmpty());
+        return true;
+    }
+
+    public boolean haColonna(String nome) {
+        return colonne.containsKey(nome);
+    }
+
+    /**
+     * Valore della colonna nella riga corrente: null se la colonna non
+     * esiste o la riga è più corta, altrimenti il testo senza spazi ai lati.
+     */
+    public String campo(String nome) {
+        Integer indice = colonne.get(nome);
+        if (indice == null || indice >= campi.size()) {
+            return null;
+        }
+        return campi.get(indice).trim();
+    }
+
+    /**
+     * Numero di riga del file (1 = intestazione) dove inizia il record corrente.
+     */
+    public long getRiga() {
+        return riga;
+    }
+
+    private boolean leggiRecord() throws IOException {
+        campi.clear();
+        campo.setLength(0);
+        riga = rigaSuccessiva;
+        int c = leggi();
+        if (c == FINE) {
+            return false;
+        }
+        boolean traVirgolette = false;
+        while (true) {
+            if (traVirgolette) {
+                if (c == FINE) {
+                    throw new IllegalArgumentException("Riga " + riga + ": virgolette non chiuse");
+                }
+                if (c == '"') {
+                    int dopo = leggi();
+                    if (dopo == '"') {
+                        aggiungi('"');
+                    } else {
+                        traVirgolette = false;
+                        c = dopo;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        rigaSuccessiva++;
+                    }
+                    aggiungi((char) c);
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                traVirgolette = true;
+            } else if (c == separatore) {
+                chiudiCampo();
+            } else if (c == '\n' || c == FINE) {
+                rigaSuccessiva++;
+                chiudiCampo();
+                return true;
+            } else if (c == '\r') {
+                int dopo = leggi();
+                if (dopo != '\n' && dopo != FINE) {
+                    posizione--;
+                }
+                rigaSuccessiva++;
+                chiudiCampo();
+                return true;
+            } else {
+                aggiungi((char) c);
+            }
+            c = leggi();
+        }
+    }
+
+    private void aggiungi(char c) {
+        if (campo.length() == MAX_CARATTERI_CAMPO) {
+            throw new IllegalArgumentException(
+                "Riga " + riga + ": campo oltre " + MAX_CARATTERI_CAMPO + " caratteri (virgolette non chiuse?)");
+        }
+        campo.append(c);
+    }
+
+    private void chiudiCampo() {
+        campi.add(campo.toString());
+        campo.setLength(0);
+    }
+
+    /**
+     * Riempie il buffer finché contiene la prima riga intera (o è pieno):
+     * read() può restituire pochi caratteri alla volta, es: dal corpo di una richiesta HTTP.
+     */
+    private void caricaPrimaRiga() throws IOException {
+        while (letti < buffer.length && !primaRigaCompleta()) {
+            int n = in.read(buffer, letti, buffer.length - letti);
+            if (n < 0) {
+                return;
+            }
+            letti += n;
+        }
+    }
+
+    private boolean primaRigaCompleta() {
+        for (int i = 0; i < letti; i++) {
+            if (buffer[i] == '\n' || buffer[i] == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean primaRigaContiene(char carattere) {
+        for (int i = posizione; i < letti; i++) {
+            char c = buffer[i];
+            if (c == '\n' || c == '\r') {
+                return false;
+            }
+            if (c == carattere) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int leggi() throws IOException {
+        if (posizione == letti) {
+            int n = in.read(buffer, 0, buffer.length);
+            posizione = 0;
+            letti = Math.max(n, 0);
+            if (n <= 0) {
+                return FINE;
+            }
+        }
+        return buffer[posizione++];
+    }
+}
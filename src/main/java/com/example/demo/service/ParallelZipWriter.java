@@ -0,0 +1,587 @@
+package com.example.demo.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Scrittore ZIP che comprime le entry in parallelo su un pool limitato.
+ *
+ * PROBLEMA RISOLTO:
+ * ZipOutputStream comprime tutto nel thread chiamante: con qualche GB di foto
+ * il backup notturno occupa un solo core per molto tempo.
+ *
+ * FUNZIONAMENTO:
+ * 1. Ogni file viene affidato a un worker del pool che lo legge in memoria,
+ *    calcola CRC-32 e, se il formato è comprimibile, lo comprime (Deflater)
+ * 2. Il thread chiamante scrive le entry nell'ordine di invio, appena pronte
+ * 3. Al massimo {@code maxInFlight} entry sono in lavorazione contemporaneamente
+ *    → memoria limitata a circa maxInFlight × MAX_ENTRY_IN_MEMORIA
+ *
+ * FORMATI GIÀ COMPRESSI (jpg, png, webp, pdf, zip...):
+ * Salvati in modalità STORED (senza compressione): ricomprimerli costa CPU
+ * e non riduce la dimensione. Il worker calcola solo CRC e SHA-256 sui byte
+ * letti, che vengono scritti dalla memoria (una sola lettura dal disco).
+ *
+ * FILE GRANDI (oltre MAX_ENTRY_IN_MEMORIA, es: il file del database):
+ * Il thread di scrittura li legge una volta sola a blocchi di BLOCCO_PARALLELO
+ * (CRC-32 e SHA-256 sono sequenziali) e affida ogni blocco al pool, che lo
+ * comprime con gli ultimi 32KB del blocco precedente come dizionario, come
+ * pigz. I blocchi terminano con un SYNC_FLUSH e concatenati formano un unico
+ * stream deflate, scritto con data descriptor. Memoria limitata a circa
+ * maxInFlight blocchi. I formati già compressi usano il livello 0 (blocchi
+ * deflate non compressi): un overhead trascurabile, ma nessuna seconda lettura
+ * per calcolare il CRC prima dell'header.
+ *
+ * INTEGRITÀ:
+ * Per ogni entry vengono calcolati CRC-32 e SHA-256 nello stesso passaggio
+ * di lettura; getManifest() li restituisce per scrivere il manifest di backup.
+ *
+ * Supporta ZIP64 per archivi oltre 4GB (offset e numero di entry).
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public class ParallelZipWriter implements Closeable {
+
+    // Estensioni già compresse: salvate senza ricompressione
+    private static final Set<String> FORMATI_COMPRESSI = Set.of(
+        "jpg", "jpeg", "png", "gif", "webp", "pdf", "zip", "gz", "mp4", "mov", "docx", "xlsx");
+
+    // Sopra questa soglia il file non viene letto in memoria dal worker
+    static final long MAX_ENTRY_IN_MEMORIA = 8L * 1024 * 1024; // 8MB
+
+    // Blocco compresso da un worker per i file grandi e finestra deflate usata come dizionario
+    static final int BLOCCO_PARALLELO = 1024 * 1024; // 1MB
+    private static final int DIZIONARIO = 32 * 1024;
+
+    private static final long LIMITE_32BIT = 0xFFFFFFFFL;
+
+    private static final int METODO_STORED = 0;
+    private static final int METODO_DEFLATED = 8;
+    private static final int FLAG_UTF8 = 1 << 11;
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+
+    private final CountingOutputStream out;
+    private final ExecutorService pool;
+    private final int maxInFlight;
+    private final int livelloCompressione;
+    private final Deque<Future<EntryPreparata>> inLavorazione = new ArrayDeque<>();
+    private final List<EntryScritta> centralDirectory = new ArrayList<>();
+
+    private long bytesLetti = 0;
+    private int entrySaltate = 0;
+    private ProgressListener progressListener;
+    private boolean chiuso = false;
+
+    /**
+     * Listener opzionale notificato dopo ogni entry scritta.
+     * Usato per mostrare l'avanzamento dei backup nella dashboard.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void entryScritta(String nome, long bytesLettiTotali, int entryTotali);
+    }
+
+    /**
+     * @param destinazione Stream di destinazione (file di backup)
+     * @param pool Pool di worker per la compressione (non viene chiuso da questa classe)
+     * @param maxInFlight Numero massimo di entry in lavorazione contemporaneamente
+     * @param livelloCompressione Livello Deflater (1 = veloce ... 9 = massimo)
+     */
+    public ParallelZipWriter(OutputStream destinazione, ExecutorService pool, int maxInFlight, int livelloCompressione) {
+        this.out = new CountingOutputStream(destinazione);
+        this.pool = pool;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.livelloCompressione = livelloCompressione;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Accoda un file per l'inserimento nell'archivio.
+     * Se ci sono già maxInFlight entry in lavorazione, scrive prima la più vecchia.
+     *
+     * @param file File da aggiungere
+     * @param nomeEntry Percorso dell'entry dentro lo ZIP (separatore "/")
+     */
+    public void aggiungi(Path file, String nomeEntry) throws IOException {
+        if (chiuso) {
+            throw new IllegalStateException("Archivio già chiuso");
+        }
+        while (inLavorazione.size() >= maxInFlight) {
+            scriviPrimaPronta();
+        }
+        String nome = nomeEntry.replace('\\', '/');
+        boolean giaCompresso = FORMATI_COMPRESSI.contains(estensione(nome));
+        inLavorazione.addLast(pool.submit(() -> prepara(file, nome, giaCompresso)));
+    }
+
+    /**
+     * Aggiunge una entry piccola generata in memoria (es: manifest).
+     */
+    public void aggiungi(String nomeEntry, byte[] contenuto) throws IOException {
+        while (!inLavorazione.isEmpty()) {
+            scriviPrimaPronta();
+        }
+        EntryPreparata entry = comprimi(nomeEntry, contenuto, contenuto.length, LocalDateTime.now());
+        scriviEntry(entry);
+    }
+
+    /**
+     * Attende le entry in lavorazione e aggiunge il manifest di integrità
+     * (BackupManifest) con CRC-32 e SHA-256 di tutte le entry scritte.
+     */
+    public void aggiungiManifest() throws IOException {
+        while (!inLavorazione.isEmpty()) {
+            scriviPrimaPronta();
+        }
+        aggiungi(BackupManifest.NOME_ENTRY, BackupManifest.scrivi(getManifest()));
+    }
+
+    /**
+     * Scrive le entry rimanenti e la central directory.
+     * Non chiude lo stream di destinazione.
+     */
+    public void finish() throws IOException {
+        if (chiuso) return;
+        while (!inLavorazione.isEmpty()) {
+            scriviPrimaPronta();
+        }
+        scriviCentralDirectory();
+        out.flush();
+        chiuso = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!chiuso) {
+                inLavorazione.forEach(f -> f.cancel(true));
+                inLavorazione.clear();
+                chiuso = true;
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    public long getBytesLetti() {
+        return bytesLetti;
+    }
+
+    public long getBytesScritti() {
+        return out.count;
+    }
+
+    public int getNumeroEntry() {
+        return centralDirectory.size();
+    }
+
+    /**
+     * Voci del manifest (nome, dimensione, CRC-32, SHA-256) delle entry scritte finora.
+     */
+    public List<BackupManifest.Voce> getManifest() {
+        List<BackupManifest.Voce> voci = new ArrayList<>(centralDirectory.size());
+        for (EntryScritta e : centralDirectory) {
+            voci.add(new BackupManifest.Voce(new String(e.nome, StandardCharsets.UTF_8), e.dimensione, e.crc, e.sha256));
+        }
+        return voci;
+    }
+
+    /**
+     * Numero di file spariti tra l'accodamento e la lettura (es: foto eliminate
+     * durante il backup). Non sono un errore: vengono semplicemente saltati.
+     */
+    public int getEntrySaltate() {
+        return entrySaltate;
+    }
+
+    // ========================================================================
+    // WORKER: preparazione entry (eseguita sul pool)
+    // ========================================================================
+
+    private EntryPreparata prepara(Path file, String nome, boolean giaCompresso) throws IOException {
+        long dimensione;
+        LocalDateTime modificato;
+        try {
+            dimensione = Files.size(file);
+            modificato = LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        if (dimensione > MAX_ENTRY_IN_MEMORIA) {
+            // Troppo grande per la memoria: letto dal writer e compresso a blocchi sul pool
+            return new EntryPreparata(nome, METODO_DEFLATED, 0, dimensione, -1, null, file, modificato, null);
+        }
+
+        byte[] contenuto;
+        try {
+            contenuto = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (giaCompresso) {
+            // Solo CRC e SHA-256: i byte letti vengono scritti così come sono
+            CRC32 crc = new CRC32();
+            crc.update(contenuto);
+            return new EntryPreparata(nome, METODO_STORED, crc.getValue(), contenuto.length, contenuto.length,
+                contenuto, null, modificato, nuovoDigest().digest(contenuto));
+        }
+        return comprimi(nome, contenuto, contenuto.length, modificato);
+    }
+
+    private EntryPreparata comprimi(String nome, byte[] contenuto, long dimensione, LocalDateTime modificato) {
+        CRC32 crc = new CRC32();
+        crc.update(contenuto);
+        byte[] sha256 = nuovoDigest().digest(contenuto);
+
+        Deflater deflater = new Deflater(livelloCompressione, true);
+        try {
+            deflater.setInput(contenuto);
+            deflater.finish();
+            byte[] compresso = new byte[Math.max(64, contenuto.length / 2)];
+            int lunghezza = 0;
+            while (!deflater.finished()) {
+                if (lunghezza == compresso.length) {
+                    compresso = Arrays.copyOf(compresso, compresso.length * 2);
+                }
+                lunghezza += deflater.deflate(compresso, lunghezza, compresso.length - lunghezza);
+            }
+            return new EntryPreparata(nome, METODO_DEFLATED, crc.getValue(), dimensione, lunghezza,
+                Arrays.copyOf(compresso, lunghezza), null, modificato, sha256);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // ========================================================================
+    // WRITER: scrittura sequenziale sullo stream (thread chiamante)
+    // ========================================================================
+
+    private void scriviPrimaPronta() throws IOException {
+        EntryPreparata entry = attendi(inLavorazione.pollFirst());
+        if (entry == null) {
+            entrySaltate++;
+            return;
+        }
+        scriviEntry(entry);
+    }
+
+    private void scriviEntry(EntryPreparata entry) throws IOException {
+        long offset = out.count;
+        byte[] nome = entry.nome.getBytes(StandardCharsets.UTF_8);
+        boolean streaming = entry.datiCompressi == null;
+        int flag = FLAG_UTF8 | (streaming ? FLAG_DATA_DESCRIPTOR : 0);
+        // In streaming le dimensioni si conoscono solo alla fine e deflate può superare di poco
+        // l'originale (dati incomprimibili, SYNC_FLUSH): vicino ai 4GB si usa ZIP64 per prudenza
+        boolean zip64Entry = streaming
+            ? entry.dimensione + entry.dimensione / 100 + BLOCCO_PARALLELO >= LIMITE_32BIT
+            : entry.dimensione >= LIMITE_32BIT || entry.dimensioneCompressa >= LIMITE_32BIT;
+
+        // LOCAL FILE HEADER
+        writeInt(0x04034b50);
+        writeShort(zip64Entry ? 45 : 20);
+        writeShort(flag);
+        writeShort(entry.metodo);
+        writeInt(dosTime(entry.modificato));
+        writeInt(streaming ? 0 : entry.crc);
+        writeInt(zip64Entry ? LIMITE_32BIT : streaming ? 0 : entry.dimensioneCompressa);
+        writeInt(zip64Entry ? LIMITE_32BIT : streaming ? 0 : entry.dimensione);
+        writeShort(nome.length);
+        writeShort(zip64Entry ? 20 : 0);
+        out.write(nome);
+        if (zip64Entry) {
+            writeShort(0x0001);
+            writeShort(16);
+            writeLong(streaming ? 0 : entry.dimensione);
+            writeLong(streaming ? 0 : entry.dimensioneCompressa);
+        }
+
+        // DATI
+        EntryScritta scritta;
+        if (!streaming) {
+            out.write(entry.datiCompressi);
+            scritta = new EntryScritta(nome, entry.metodo, flag, entry.crc, entry.dimensione, entry.dimensioneCompressa, offset, entry.modificato, entry.sha256);
+        } else {
+            scritta = comprimiInParallelo(entry, nome, flag, offset, zip64Entry);
+        }
+
+        centralDirectory.add(scritta);
+        bytesLetti += scritta.dimensione;
+        if (progressListener != null) {
+            progressListener.entryScritta(entry.nome, bytesLetti, centralDirectory.size());
+        }
+    }
+
+    private EntryScritta comprimiInParallelo(EntryPreparata entry, byte[] nome, int flag, long offset,
+                                             boolean zip64) throws IOException {
+        int livello = FORMATI_COMPRESSI.contains(estensione(entry.nome)) ? Deflater.NO_COMPRESSION : livelloCompressione;
+        int maxBlocchi = Math.max(2, maxInFlight);
+        CRC32 crc = new CRC32();
+        MessageDigest sha = nuovoDigest();
+        Deque<Future<byte[]>> blocchi = new ArrayDeque<>();
+        long dimensione = 0;
+        long inizioDati = out.count;
+        try (InputStream in = Files.newInputStream(entry.file)) {
+            byte[] precedente = null;
+            boolean ultimo = false;
+            while (!ultimo) {
+                // Un blocco più corto (anche vuoto) è l'ultimo: chiude lo stream deflate
+                byte[] blocco = in.readNBytes(BLOCCO_PARALLELO);
+                ultimo = blocco.length < BLOCCO_PARALLELO;
+                crc.update(blocco);
+                sha.update(blocco);
+                dimensione += blocco.length;
+
+                byte[] dizionario = precedente;
+                boolean fine = ultimo;
+                blocchi.addLast(pool.submit(() -> comprimiBlocco(blocco, dizionario, fine, livello)));
+                precedente = blocco;
+                while (blocchi.size() >= maxBlocchi || (ultimo && !blocchi.isEmpty())) {
+                    out.write(attendi(blocchi.pollFirst()));
+                }
+            }
+        } finally {
+            blocchi.forEach(f -> f.cancel(true));
+        }
+        long dimensioneCompressa = out.count - inizioDati;
+        if (!zip64 && (dimensione >= LIMITE_32BIT || dimensioneCompressa >= LIMITE_32BIT)) {
+            throw new IOException("File cresciuto oltre 4GB durante il backup: " + entry.nome);
+        }
+
+        // DATA DESCRIPTOR (dimensioni a 8 byte solo per entry ZIP64)
+        writeInt(0x08074b50);
+        writeInt(crc.getValue());
+        if (zip64) {
+            writeLong(dimensioneCompressa);
+            writeLong(dimensione);
+        } else {
+            writeInt(dimensioneCompressa);
+            writeInt(dimensione);
+        }
+
+        return new EntryScritta(nome, METODO_DEFLATED, flag, crc.getValue(), dimensione, dimensioneCompressa, offset, entry.modificato, sha.digest());
+    }
+
+    /**
+     * Comprime un blocco di un file grande (eseguito sul pool).
+     * I blocchi intermedi terminano con SYNC_FLUSH (allineati al byte, senza
+     * BFINAL), l'ultimo con finish(): concatenati sono un solo stream deflate.
+     */
+    private static byte[] comprimiBlocco(byte[] blocco, byte[] precedente, boolean ultimo, int livello) {
+        Deflater deflater = new Deflater(livello, true);
+        try {
+            if (precedente != null) {
+                // Stessa finestra che avrebbe lo streaming: il rapporto di compressione quasi non cambia
+                int lunghezzaDizionario = Math.min(DIZIONARIO, precedente.length);
+                deflater.setDictionary(precedente, precedente.length - lunghezzaDizionario, lunghezzaDizionario);
+            }
+            deflater.setInput(blocco);
+            if (ultimo) {
+                deflater.finish();
+            }
+            int flush = ultimo ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+            byte[] compresso = new byte[blocco.length + blocco.length / 100 + 64];
+            int lunghezza = 0;
+            while (true) {
+                if (lunghezza == compresso.length) {
+                    compresso = Arrays.copyOf(compresso, compresso.length * 2);
+                }
+                int spazio = compresso.length - lunghezza;
+                int scritti = deflater.deflate(compresso, lunghezza, spazio, flush);
+                lunghezza += scritti;
+                // SYNC_FLUSH è completo quando resta spazio libero nel buffer
+                if (ultimo ? deflater.finished() : scritti < spazio) {
+                    return Arrays.copyOf(compresso, lunghezza);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void scriviCentralDirectory() throws IOException {
+        long inizioCentral = out.count;
+        for (EntryScritta e : centralDirectory) {
+            boolean zip64Dim = e.dimensione >= LIMITE_32BIT || e.dimensioneCompressa >= LIMITE_32BIT;
+            boolean zip64Off = e.offset >= LIMITE_32BIT;
+            int extra = (zip64Dim ? 16 : 0) + (zip64Off ? 8 : 0);
+
+            writeInt(0x02014b50);
+            writeShort(45);
+            writeShort(extra > 0 || (e.flag & FLAG_DATA_DESCRIPTOR) != 0 ? 45 : 20);
+            writeShort(e.flag);
+            writeShort(e.metodo);
+            writeInt(dosTime(e.modificato));
+            writeInt(e.crc);
+            writeInt(zip64Dim ? LIMITE_32BIT : e.dimensioneCompressa);
+            writeInt(zip64Dim ? LIMITE_32BIT : e.dimensione);
+            writeShort(e.nome.length);
+            writeShort(extra > 0 ? extra + 4 : 0);
+            writeShort(0); // commento
+            writeShort(0); // disco
+            writeShort(0); // attributi interni
+            writeInt(0);   // attributi esterni
+            writeInt(zip64Off ? LIMITE_32BIT : e.offset);
+            out.write(e.nome);
+            if (extra > 0) {
+                writeShort(0x0001);
+                writeShort(extra);
+                if (zip64Dim) {
+                    writeLong(e.dimensione);
+                    writeLong(e.dimensioneCompressa);
+                }
+                if (zip64Off) {
+                    writeLong(e.offset);
+                }
+            }
+        }
+        long fineCentral = out.count;
+        long dimensioneCentral = fineCentral - inizioCentral;
+        int numeroEntry = centralDirectory.size();
+        boolean zip64 = numeroEntry >= 0xFFFF || inizioCentral >= LIMITE_32BIT || dimensioneCentral >= LIMITE_32BIT;
+
+        if (zip64) {
+            // ZIP64 END OF CENTRAL DIRECTORY RECORD + LOCATOR
+            writeInt(0x06064b50);
+            writeLong(44);
+            writeShort(45);
+            writeShort(45);
+            writeInt(0);
+            writeInt(0);
+            writeLong(numeroEntry);
+            writeLong(numeroEntry);
+            writeLong(dimensioneCentral);
+            writeLong(inizioCentral);
+
+            writeInt(0x07064b50);
+            writeInt(0);
+            writeLong(fineCentral);
+            writeInt(1);
+        }
+
+        // END OF CENTRAL DIRECTORY
+        writeInt(0x06054b50);
+        writeShort(0);
+        writeShort(0);
+        writeShort(zip64 ? 0xFFFF : numeroEntry);
+        writeShort(zip64 ? 0xFFFF : numeroEntry);
+        writeInt(zip64 ? LIMITE_32BIT : dimensioneCentral);
+        writeInt(zip64 ? LIMITE_32BIT : inizioCentral);
+        writeShort(0);
+    }
+
+    // ========================================================================
+    // HELPER
+    // ========================================================================
+
+    private static <T> T attendi(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Backup interrotto", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    private static MessageDigest nuovoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+
+    private static String estensione(String nome) {
+        int punto = nome.lastIndexOf('.');
+        return punto < 0 ? "" : nome.substring(punto + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static long dosTime(LocalDateTime t) {
+        int anno = Math.max(1980, t.getYear());
+        return ((long) (anno - 1980) << 25) | ((long) t.getMonthValue() << 21) | ((long) t.getDayOfMonth() << 16)
+            | ((long) t.getHour() << 11) | ((long) t.getMinute() << 5) | (t.getSecond() >> 1);
+    }
+
+    private void writeShort(int v) throws IOException {
+        out.write(v & 0xFF);
+        out.write((v >>> 8) & 0xFF);
+    }
+
+    private void writeInt(long v) throws IOException {
+        writeShort((int) (v & 0xFFFF));
+        writeShort((int) ((v >>> 16) & 0xFFFF));
+    }
+
+    private void writeLong(long v) throws IOException {
+        writeInt(v & LIMITE_32BIT);
+        writeInt(v >>> 32);
+    }
+
+    private record EntryPreparata(String nome, int metodo, long crc, long dimensione, long dimensioneCompressa,
+                                  byte[] datiCompressi, Path file, LocalDateTime modificato, byte[] sha256) {}
+
+    private record EntryScritta(byte[] nome, int metodo, int flag, long crc, long dimensione,
+                                long dimensioneCompressa, long offset, LocalDateTime modificato, byte[] sha256) {}
+
+    /**
+     * OutputStream che conta i byte scritti (serve per gli offset ZIP).
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        private long count = 0;
+
+        CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -2,14 +2,15 @@ package com.example.demo.service;
 
 import com.example.demo.model.Appuntamento;
 import com.example.demo.repository.AppuntamentoRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 /**
@@ -26,6 +27,11 @@ import java.util.List;
  * - Finestra temporale: tra 24h e 23h prima dell'appuntamento
  * - Evita invii duplicati (flag interno o controllo temporale)
  * 
+ * METRICHE:
+ * - promemoria.batch.durata     → durata di ogni controllo orario
+ * - promemoria.batch.dimensione → appuntamenti da ricordare per controllo
+ * - email.invio (template appuntamento-promemoria.v1) → come EmailService
+ * 
  * @author Firmato $₿420
  * @since 2025
  */
@@ -38,7 +44,13 @@ public class ReminderService {
     @Autowired
     private JavaMailSender mailSender;
     
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy 'alle ore' HH:mm");
+    @Autowired
+    private EmailTemplateEngine templateEngine;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private static final String MITTENTE = "ristrutturazioniedili.elvis@gmail.com";
     
     /**
      * Verifica ogni ora se ci sono appuntamenti che necessitano di reminder.
@@ -55,6 +67,8 @@ public class ReminderService {
     @Scheduled(cron = "0 0 * * * ?")
     public void inviaReminderAutomatici() {
         System.out.println("⏰ Controllo appuntamenti per reminder: " + LocalDateTime.now());
+        Timer.Sample misura = Timer.start(meterRegistry);
+        int daRicordare = 0;
         
         // Calcola finestra temporale: tra 24h e 23h da ora
         LocalDateTime ora = LocalDateTime.now();
@@ -72,6 +86,7 @@ public class ReminderService {
             
             // Invia reminder solo se CONFERMATO e nella finestra
             if (app.getStato() == Appuntamento.StatoAppuntamento.CONFERMATO && nellaFinestra) {
+                daRicordare++;
                 try {
                     inviaReminderAppuntamento(app);
                     reminderInviati++;
@@ -85,6 +100,14 @@ public class ReminderService {
         if (reminderInviati > 0) {
             System.out.println("✅ Inviati " + reminderInviati + " reminder");
         }
+        
+        DistributionSummary.builder("promemoria.batch.dimensione")
+            .description("Appuntamenti da ricordare per ogni controllo orario")
+            .register(meterRegistry)
+            .record(daRicordare);
+        misura.stop(Timer.builder("promemoria.batch.durata")
+            .description("Durata del controllo orario dei promemoria")
+            .register(meterRegistry));
     }
     
     /**
@@ -100,42 +123,10 @@ public class ReminderService {
      * @param appuntamento L'appuntamento per cui inviare reminder
      */
     private void inviaReminderAppuntamento(Appuntamento appuntamento) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom("ristrutturazioniedili.elvis@gmail.com");
-        message.setTo(appuntamento.getEmail());
-        message.setSubject("⏰ PROMEMORIA APPUNTAMENTO DOMANI - Servizi Edili Elvis SRL");
-        
-        String dataOraFormattata = appuntamento.getDataAppuntamento().format(DATE_FORMATTER);
-        
-        message.setText(
-            "Gentile " + appuntamento.getNomeCliente() + " " + appuntamento.getCognomeCliente() + ",\n\n" +
-            "⏰ PROMEMORIA APPUNTAMENTO\n\n" +
-            "Ti ricordiamo che il tuo appuntamento con Servizi Edili Elvis SRL è previsto per DOMANI:\n\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
-            "📅 Data e Ora: " + dataOraFormattata + "\n" +
-            "🔧 Servizio: " + appuntamento.getTipoServizio() + "\n" +
-            "📍 Luogo: " + (appuntamento.getIndirizzo() != null ? appuntamento.getIndirizzo() : "Da confermare") + "\n" +
-            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n\n" +
-            "✅ CONFERMA LA TUA PRESENZA:\n" +
-            "Se confermi la tua presenza, non è necessario fare nulla.\n" +
-            "Il nostro team sarà puntuale all'appuntamento.\n\n" +
-            "❌ DEVI DISDIRE?\n" +
-            "Se non puoi più presentarti, ti preghiamo di avvisarci il prima possibile:\n" +
-            "📞 Telefono: +39 320 709 7442\n" +
-            "📧 Email: ristrutturazioniedili.elvis@gmail.com\n" +
-            "💬 WhatsApp: +39 3801590128\n\n" +
-            "⚠️ IMPORTANTE:\n" +
-            "- Durata prevista: circa 1 ora\n" +
-            "- Assicurati di essere disponibile all'orario concordato\n" +
-            "- Prepara eventuali documenti o informazioni necessarie\n\n" +
-            "Ti aspettiamo domani!\n\n" +
-            "Cordiali saluti,\n" +
-            "Il Team di Servizi Edili Elvis SRL\n" +
-            "📞 +39 3801590128\n" +
-            "📧 ristrutturazioniedili.elvis@gmail.com"
-        );
-        
-        mailSender.send(message);
+        // Testo + HTML (multipart): template appuntamento-promemoria.v1
+        EmailService.inviaMisurato(meterRegistry, "appuntamento-promemoria.v1", () ->
+            templateEngine.render("appuntamento-promemoria.v1", EmailService.valoriAppuntamento(appuntamento))
+                .invia(mailSender, MITTENTE, appuntamento.getEmail()));
     }
     
     /**
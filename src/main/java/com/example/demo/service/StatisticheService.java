@@ -1,13 +1,14 @@
 package com.example.demo.service;
 
 import com.example.demo.model.Appuntamento;
-import com.example.demo.model.Contatto;
-import com.example.demo.model.Lavoro;
+import com.example.demo.model.ConteggioMensile;
 import com.example.demo.repository.AppuntamentoRepository;
 import com.example.demo.repository.ContattoRepository;
 import com.example.demo.repository.LavoroRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.YearMonth;
@@ -29,10 +30,14 @@ import java.util.stream.Collectors;
  * Mostra queste statistiche nella dashboard admin per prendere
  * decisioni di business informate.
  * 
+ * Tutti i metodi girano in una transazione in sola lettura: con la replica
+ * attiva (ReplicaDataSourceConfig) le query pesanti non usano il pool del primario.
+ * 
  * @author Firmato $₿420
  * @since 2025
  */
 @Service
+@Transactional(readOnly = true)
 public class StatisticheService {
     
     @Autowired
@@ -47,58 +52,54 @@ public class StatisticheService {
     /**
      * Calcola statistiche complete per la dashboard admin.
      * 
+     * Solo query di conteggio (COUNT / GROUP BY): nessuna riga viene caricata in
+     * memoria, il tempo non cresce con il numero di appuntamenti e contatti.
+     * 
      * @return Mappa con tutte le statistiche chiave
      */
     public Map<String, Object> getStatisticheDashboard() {
         Map<String, Object> stats = new HashMap<>();
         
         // STATISTICHE APPUNTAMENTI
-        List<Appuntamento> tuttiAppuntamenti = appuntamentoRepository.findAll();
-        stats.put("totaleAppuntamenti", tuttiAppuntamenti.size());
-        stats.put("appuntamentiInAttesa", contaPerStato(tuttiAppuntamenti, Appuntamento.StatoAppuntamento.IN_ATTESA));
-        stats.put("appuntamentiConfermati", contaPerStato(tuttiAppuntamenti, Appuntamento.StatoAppuntamento.CONFERMATO));
-        stats.put("appuntamentiCompletati", contaPerStato(tuttiAppuntamenti, Appuntamento.StatoAppuntamento.COMPLETATO));
-        stats.put("appuntamentiAnnullati", contaPerStato(tuttiAppuntamenti, Appuntamento.StatoAppuntamento.ANNULLATO));
+        long inAttesa = appuntamentoRepository.countByStato(Appuntamento.StatoAppuntamento.IN_ATTESA);
+        long confermati = appuntamentoRepository.countByStato(Appuntamento.StatoAppuntamento.CONFERMATO);
+        long completati = appuntamentoRepository.countByStato(Appuntamento.StatoAppuntamento.COMPLETATO);
+        long annullati = appuntamentoRepository.countByStato(Appuntamento.StatoAppuntamento.ANNULLATO);
+        long totaleAppuntamenti = inAttesa + confermati + completati + annullati;
+        stats.put("totaleAppuntamenti", totaleAppuntamenti);
+        stats.put("appuntamentiInAttesa", inAttesa);
+        stats.put("appuntamentiConfermati", confermati);
+        stats.put("appuntamentiCompletati", completati);
+        stats.put("appuntamentiAnnullati", annullati);
         
         // TASSO DI CONVERSIONE (% appuntamenti confermati sul totale richieste)
-        long richieste = tuttiAppuntamenti.stream()
-            .filter(a -> a.getStato() != Appuntamento.StatoAppuntamento.IN_ATTESA)
-            .count();
-        long confermati = contaPerStato(tuttiAppuntamenti, Appuntamento.StatoAppuntamento.CONFERMATO);
-        long completati = contaPerStato(tuttiAppuntamenti, Appuntamento.StatoAppuntamento.COMPLETATO);
+        long richieste = totaleAppuntamenti - inAttesa;
         double tassoConversione = richieste > 0 ? ((confermati + completati) * 100.0 / richieste) : 0;
         stats.put("tassoConversione", Math.round(tassoConversione * 100.0) / 100.0);
         
         // SERVIZI PIÙ RICHIESTI (top 5)
-        Map<String, Long> serviziRichiesti = tuttiAppuntamenti.stream()
-            .collect(Collectors.groupingBy(Appuntamento::getTipoServizio, Collectors.counting()));
-        List<Map.Entry<String, Long>> topServizi = serviziRichiesti.entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            .limit(5)
+        List<Map.Entry<String, Long>> topServizi = appuntamentoRepository
+            .findServiziPiuRichiesti(PageRequest.of(0, 5)).stream()
+            .map(c -> Map.entry(c.chiave(), c.totale()))
             .collect(Collectors.toList());
         stats.put("topServizi", topServizi);
         
         // STATISTICHE CONTATTI
-        List<Contatto> tuttiContatti = contattoRepository.findAllByOrderByDataInvioDesc();
-        stats.put("totaleContatti", tuttiContatti.size());
-        stats.put("contattiNonLetti", tuttiContatti.stream().filter(c -> !c.isLetto()).count());
+        stats.put("totaleContatti", contattoRepository.count());
+        stats.put("contattiNonLetti", contattoRepository.countByLetto(false));
         
         // STATISTICHE PORTFOLIO
-        List<Lavoro> tuttiLavori = lavoroRepository.findAll();
-        stats.put("totaleLavori", tuttiLavori.size());
-        stats.put("lavoriPubblicati", tuttiLavori.stream().filter(Lavoro::isPubblicato).count());
+        stats.put("totaleLavori", lavoroRepository.count());
+        stats.put("lavoriPubblicati", lavoroRepository.countByPubblicato(true));
         
         // TREND ULTIMO MESE (confronto con mese precedente)
         LocalDateTime inizioMeseCorrente = YearMonth.now().atDay(1).atStartOfDay();
         LocalDateTime inizioMesePrecedente = YearMonth.now().minusMonths(1).atDay(1).atStartOfDay();
         
-        long appuntamentiMeseCorrente = tuttiAppuntamenti.stream()
-            .filter(a -> a.getDataCreazione().isAfter(inizioMeseCorrente))
-            .count();
-        long appuntamentiMesePrecedente = tuttiAppuntamenti.stream()
-            .filter(a -> a.getDataCreazione().isAfter(inizioMesePrecedente) 
-                      && a.getDataCreazione().isBefore(inizioMeseCorrente))
-            .count();
+        long appuntamentiMeseCorrente = appuntamentoRepository.countCreatiTra(
+            inizioMeseCorrente, inizioMeseCorrente.plusMonths(1));
+        long appuntamentiMesePrecedente = appuntamentoRepository.countCreatiTra(
+            inizioMesePrecedente, inizioMeseCorrente);
         
         double crescitaPercentuale = appuntamentiMesePrecedente > 0 
             ? ((appuntamentiMeseCorrente - appuntamentiMesePrecedente) * 100.0 / appuntamentiMesePrecedente)
@@ -106,11 +107,8 @@ public class StatisticheService {
         stats.put("crescitaMensile", Math.round(crescitaPercentuale * 100.0) / 100.0);
         
         // MOTIVI DI RIFIUTO PIÙ COMUNI (per migliorare il servizio)
-        List<Appuntamento> rifiutati = tuttiAppuntamenti.stream()
-            .filter(a -> a.getStato() == Appuntamento.StatoAppuntamento.ANNULLATO)
-            .filter(a -> a.getMotivazioneRifiuto() != null)
-            .collect(Collectors.toList());
-        stats.put("totaleRifiutati", rifiutati.size());
+        stats.put("totaleRifiutati",
+            appuntamentoRepository.countByStatoAndMotivazioneRifiutoIsNotNull(Appuntamento.StatoAppuntamento.ANNULLATO));
         
         return stats;
     }
@@ -118,41 +116,34 @@ public class StatisticheService {
     /**
      * Calcola statistiche mensili per grafici trend.
      * 
+     * Una sola query raggruppata per anno, mese e stato (al massimo 4 righe per mese).
+     * 
      * @param numeroMesi Quanti mesi indietro guardare
      * @return Lista di statistiche per ogni mese
      */
     public List<Map<String, Object>> getStatisticheMensili(int numeroMesi) {
-        List<Map<String, Object>> statsMensili = new ArrayList<>();
-        List<Appuntamento> tuttiAppuntamenti = appuntamentoRepository.findAll();
+        YearMonth primoMese = YearMonth.now().minusMonths(numeroMesi - 1L);
+        Map<YearMonth, Map<Appuntamento.StatoAppuntamento, Long>> perMese = new HashMap<>();
+        for (ConteggioMensile conteggio : appuntamentoRepository.contaPerMeseEStato(primoMese.atDay(1).atStartOfDay())) {
+            perMese.computeIfAbsent(YearMonth.of(conteggio.anno(), conteggio.mese()),
+                    m -> new EnumMap<>(Appuntamento.StatoAppuntamento.class))
+                .put(conteggio.stato(), conteggio.totale());
+        }
         
-        for (int i = numeroMesi - 1; i >= 0; i--) {
-            YearMonth mese = YearMonth.now().minusMonths(i);
-            LocalDateTime inizioMese = mese.atDay(1).atStartOfDay();
-            LocalDateTime fineMese = mese.atEndOfMonth().atTime(23, 59, 59);
-            
-            List<Appuntamento> appuntamentiMese = tuttiAppuntamenti.stream()
-                .filter(a -> a.getDataCreazione().isAfter(inizioMese) 
-                          && a.getDataCreazione().isBefore(fineMese))
-                .collect(Collectors.toList());
+        List<Map<String, Object>> statsMensili = new ArrayList<>();
+        for (int i = 0; i < numeroMesi; i++) {
+            YearMonth mese = primoMese.plusMonths(i);
+            Map<Appuntamento.StatoAppuntamento, Long> perStato = perMese.getOrDefault(mese, Map.of());
             
             Map<String, Object> statMese = new HashMap<>();
             statMese.put("mese", mese.toString());
-            statMese.put("totale", appuntamentiMese.size());
-            statMese.put("confermati", contaPerStato(appuntamentiMese, Appuntamento.StatoAppuntamento.CONFERMATO));
-            statMese.put("annullati", contaPerStato(appuntamentiMese, Appuntamento.StatoAppuntamento.ANNULLATO));
+            statMese.put("totale", perStato.values().stream().mapToLong(Long::longValue).sum());
+            statMese.put("confermati", perStato.getOrDefault(Appuntamento.StatoAppuntamento.CONFERMATO, 0L));
+            statMese.put("annullati", perStato.getOrDefault(Appuntamento.StatoAppuntamento.ANNULLATO, 0L));
             
             statsMensili.add(statMese);
         }
         
         return statsMensili;
     }
-    
-    /**
-     * Helper: conta appuntamenti per stato specifico.
-     */
-    private long contaPerStato(List<Appuntamento> appuntamenti, Appuntamento.StatoAppuntamento stato) {
-        return appuntamenti.stream()
-            .filter(a -> a.getStato() == stato)
-            .count();
-    }
 }
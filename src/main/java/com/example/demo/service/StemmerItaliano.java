@@ -0,0 +1,322 @@
+package com.example.demo.service;
+
+/**
+ * Stemmer per l'italiano (algoritmo Snowball "italian", Java puro).
+ *
+ * Riduce le parole alla radice, così "muratore", "muratori" e "muratrice"
+ * (o "competenza", "competenze", "competente") diventano lo stesso termine
+ * nell'indice di ricerca delle candidature.
+ *
+ * PASSI (vedi snowballstem.org/algorithms/italian):
+ * 0. Pronomi attaccati ai gerundi/infiniti (es: "facendolo" → "facendo")
+ * 1. Suffissi standard (-amento, -azione, -ità, -mente, -ista, ...)
+ * 2. Suffissi verbali, solo se il passo 1 non ha tolto nulla
+ * 3. Vocale finale e "ch"/"gh" → "c"/"g"
+ *
+ * Le regioni RV, R1 e R2 dell'algoritmo limitano i suffissi rimovibili:
+ * le parole brevi restano quasi intatte.
+ *
+ * Thread-safe: nessuno stato, solo metodi statici.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public final class StemmerItaliano {
+
+    private static final String[] PRONOMI = {
+        "gliela", "gliele", "glieli", "glielo", "gliene",
+        "sene", "mela", "mele", "meli", "melo", "mene", "tela", "tele", "teli", "telo", "tene",
+        "cela", "cele", "celi", "celo", "cene", "vela", "vele", "veli", "velo", "vene",
+        "gli", "ci", "la", "le", "li", "lo", "mi", "ne", "si", "ti", "vi"
+    };
+
+    private static final String[] SUFFISSI_STANDARD = {
+        // Gruppo 1: eliminati in R2
+        "anza", "anze", "ico", "ici", "ica", "ice", "iche", "ichi", "ismo", "ismi",
+        "abile", "abili", "ibile", "ibili", "ista", "iste", "isti", "istà", "istè", "istì",
+        "oso", "osi", "osa", "ose", "mente", "atrice", "atrici", "ante", "anti",
+        // Gruppi con regole proprie
+        "azione", "azioni", "atore", "atori", "logia", "logie",
+        "uzione", "uzioni", "usione", "usioni", "enza", "enze",
+        "amento", "amenti", "imento", "imenti", "amente", "ità", "ivo", "ivi", "iva", "ive"
+    };
+
+    private static final String[] SUFFISSI_VERBALI = {
+        "ammo", "ando", "ano", "are", "arono", "asse", "assero", "assi", "assimo", "ata", "ate", "ati",
+        "ato", "ava", "avamo", "avano", "avate", "avi", "avo", "emmo", "enda", "ende", "endi", "endo",
+        "erà", "erai", "eranno", "ere", "erebbe", "erebbero", "erei", "eremmo", "eremo", "ereste",
+        "eresti", "erete", "erò", "erono", "essero", "ete", "eva", "evamo", "evano", "evate", "evi",
+        "evo", "iamo", "immo", "irà", "irai", "iranno", "ire", "irebbe", "irebbero", "irei", "iremmo",
+        "iremo", "ireste", "iresti", "irete", "irò", "irono", "isca", "iscano", "isce", "isci", "isco",
+        "iscono", "issero", "ita", "ite", "iti", "ito", "iva", "ivamo", "ivano", "ivate", "ivi", "ivo",
+        "ar", "ir"
+    };
+
+    private StemmerItaliano() {
+    }
+
+    /**
+     * Radice di una parola già in minuscolo (es: "cartongessisti" → "cartongess").
+     */
+    public static String radice(String parola) {
+        if (parola.length() < 3) {
+            return parola;
+        }
+        StringBuilder w = new StringBuilder(preludio(parola));
+        int rv = regioneRv(w);
+        int r1 = regioneR(w, 0);
+        int r2 = regioneR(w, r1);
+
+        pronomi(w, rv);
+        if (!suffissiStandard(w, rv, r1, r2)) {
+            suffissiVerbali(w, rv);
+        }
+        vocaleFinale(w, rv);
+
+        // Postludio: le "i"/"u" marcate come consonanti tornano minuscole
+        for (int i = 0; i < w.length(); i++) {
+            char c = w.charAt(i);
+            if (c == 'I' || c == 'U') {
+                w.setCharAt(i, Character.toLowerCase(c));
+            }
+        }
+        return w.toString();
+    }
+
+    /**
+     * Accenti acuti → gravi; "qu" e "i"/"u" tra vocali marcate (maiuscole) come consonanti.
+     */
+    private static String preludio(String parola) {
+        StringBuilder w = new StringBuilder(parola.length());
+        for (int i = 0; i < parola.length(); i++) {
+            char c = parola.charAt(i);
+            w.append(switch (c) {
+                case 'á' -> 'à';
+                case 'é' -> 'è';
+                case 'í' -> 'ì';
+                case 'ó' -> 'ò';
+                case 'ú' -> 'ù';
+                default -> c;
+            });
+        }
+        for (int i = 0; i < w.length(); i++) {
+            char c = w.charAt(i);
+            if (c == 'u' && i > 0 && w.charAt(i - 1) == 'q') {
+                w.setCharAt(i, 'U');
+            } else if ((c == 'i' || c == 'u') && i > 0 && i + 1 < w.length()
+                && vocale(w.charAt(i - 1)) && vocale(w.charAt(i + 1))) {
+                w.setCharAt(i, Character.toUpperCase(c));
+            }
+        }
+        return w.toString();
+    }
+
+    private static boolean vocale(char c) {
+        return switch (c) {
+            case 'a', 'e', 'i', 'o', 'u', 'à', 'è', 'ì', 'ò', 'ù' -> true;
+            default -> false;
+        };
+    }
+
+    private static int regioneRv(CharSequence w) {
+        int n = w.length();
+        if (n < 2) {
+            return n;
+        }
+        if (!vocale(w.charAt(1))) {
+            // Dopo la prima vocale successiva
+            for (int i = 2; i < n; i++) {
+                if (vocale(w.charAt(i))) {
+                    return i + 1;
+                }
+            }
+            return n;
+        }
+        if (vocale(w.charAt(0))) {
+            // Due vocali iniziali: dopo la prima consonante successiva
+            for (int i = 2; i < n; i++) {
+                if (!vocale(w.charAt(i))) {
+                    return i + 1;
+                }
+            }
+            return n;
+        }
+        // Consonante + vocale: dopo la terza lettera
+        return Math.min(3, n);
+    }
+
+    /**
+     * R1 (da=0) o R2 (da=R1): dopo la prima non-vocale che segue una vocale.
+     */
+    private static int regioneR(CharSequence w, int da) {
+        for (int i = da + 1; i < w.length(); i++) {
+            if (!vocale(w.charAt(i)) && vocale(w.charAt(i - 1))) {
+                return i + 1;
+            }
+        }
+        return w.length();
+    }
+
+    private static boolean finisce(CharSequence w, String suffisso, int regione) {
+        int inizio = w.length() - suffisso.length();
+        return inizio >= regione && w.toString().endsWith(suffisso);
+    }
+
+    private static String piuLungo(CharSequence w, String[] suffissi) {
+        String trovato = null;
+        String parola = w.toString();
+        for (String s : suffissi) {
+            if (parola.endsWith(s) && (trovato == null || s.length() > trovato.length())) {
+                trovato = s;
+            }
+        }
+        return trovato;
+    }
+
+    private static void taglia(StringBuilder w, String suffisso) {
+        w.setLength(w.length() - suffisso.length());
+    }
+
+    private static void pronomi(StringBuilder w, int rv) {
+        String pronome = piuLungo(w, PRONOMI);
+        if (pronome == null || w.length() - pronome.length() < rv) {
+            return;
+        }
+        String resto = w.substring(0, w.length() - pronome.length());
+        for (String gerundio : new String[] {"ando", "endo"}) {
+            if (resto.endsWith(gerundio) && resto.length() - gerundio.length() >= rv) {
+                taglia(w, pronome);
+                return;
+            }
+        }
+        for (String infinito : new String[] {"ar", "er", "ir"}) {
+            if (resto.endsWith(infinito) && resto.length() - infinito.length() >= rv) {
+                taglia(w, pronome);
+                w.append('e');
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true se è stato tolto o sostituito un suffisso
+     */
+    private static boolean suffissiStandard(StringBuilder w, int rv, int r1, int r2) {
+        String s = piuLungo(w, SUFFISSI_STANDARD);
+        if (s == null) {
+            return false;
+        }
+        switch (s) {
+            case "azione", "azioni", "atore", "atori" -> {
+                if (!finisce(w, s, r2)) {
+                    return false;
+                }
+                taglia(w, s);
+                tagliaSeInRegione(w, "ic", r2);
+            }
+            case "logia", "logie" -> {
+                if (!finisce(w, s, r2)) {
+                    return false;
+                }
+                taglia(w, s);
+                w.append("log");
+            }
+            case "uzione", "uzioni", "usione", "usioni" -> {
+                if (!finisce(w, s, r2)) {
+                    return false;
+                }
+                taglia(w, s);
+                w.append('u');
+            }
+            case "enza", "enze" -> {
+                if (!finisce(w, s, r2)) {
+                    return false;
+                }
+                taglia(w, s);
+                w.append("ente");
+            }
+            case "amento", "amenti", "imento", "imenti" -> {
+                if (!finisce(w, s, rv)) {
+                    return false;
+                }
+                taglia(w, s);
+            }
+            case "amente" -> {
+                if (!finisce(w, s, r1)) {
+                    return false;
+                }
+                taglia(w, s);
+                if (tagliaSeInRegione(w, "iv", r2)) {
+                    tagliaSeInRegione(w, "at", r2);
+                } else if (!tagliaSeInRegione(w, "os", r2) && !tagliaSeInRegione(w, "ic", r2)) {
+                    tagliaSeInRegione(w, "abil", r2);
+                }
+            }
+            case "ità" -> {
+                if (!finisce(w, s, r2)) {
+                    return false;
+                }
+                taglia(w, s);
+                if (!tagliaSeInRegione(w, "abil", r2) && !tagliaSeInRegione(w, "ic", r2)) {
+                    tagliaSeInRegione(w, "iv", r2);
+                }
+            }
+            case "ivo", "ivi", "iva", "ive" -> {
+                if (!finisce(w, s, r2)) {
+                    return false;
+                }
+                taglia(w, s);
+                if (tagliaSeInRegione(w, "at", r2)) {
+                    tagliaSeInRegione(w, "ic", r2);
+                }
+            }
+            default -> {
+                if (!finisce(w, s, r2)) {
+                    return false;
+                }
+                taglia(w, s);
+            }
+        }
+        return true;
+    }
+
+    private static boolean tagliaSeInRegione(StringBuilder w, String suffisso, int regione) {
+        if (finisce(w, suffisso, regione)) {
+            taglia(w, suffisso);
+            return true;
+        }
+        return false;
+    }
+
+    private static void suffissiVerbali(StringBuilder w, int rv) {
+        // Il suffisso deve stare tutto in RV: si cerca il più lungo che ci sta
+        String trovato = null;
+        for (String s : SUFFISSI_VERBALI) {
+            if (finisce(w, s, rv) && (trovato == null || s.length() > trovato.length())) {
+                trovato = s;
+            }
+        }
+        if (trovato != null) {
+            taglia(w, trovato);
+        }
+    }
+
+    private static void vocaleFinale(StringBuilder w, int rv) {
+        int ultimo = w.length() - 1;
+        if (ultimo >= rv && ultimo >= 0) {
+            char c = w.charAt(ultimo);
+            if (c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'à' || c == 'è' || c == 'ì' || c == 'ò') {
+                w.setLength(ultimo);
+                if (w.length() - 1 >= rv && w.charAt(w.length() - 1) == 'i') {
+                    w.setLength(w.length() - 1);
+                }
+            }
+        }
+        if (w.length() >= 2 && w.length() - 1 >= rv) {
+            char penultima = w.charAt(w.length() - 2);
+            if (w.charAt(w.length() - 1) == 'h' && (penultima == 'c' || penultima == 'g')) {
+                w.setLength(w.length() - 1);
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.stereotype.Component;
 
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
+import java.util.regex.Pattern;
 
 /**
  * Validatore per le regole di business degli appuntamenti.
@@ -16,6 +17,9 @@ import java.time.LocalDateTime;
  * - Anticipo minimo: almeno 2 ore di preavviso
  * - Durata appuntamento: sempre 1 ora (60 minuti)
  * 
+ * validaStorico applica le stesse regole tranne quelle legate al momento
+ * attuale (data futura, preavviso): serve per importare appuntamenti passati.
+ * 
  * @author Firmato $₿420
  * @since 2025
  */
@@ -25,6 +29,10 @@ public class AppuntamentoValidator {
     private static final int ORA_APERTURA = 8;
     private static final int ORA_CHIUSURA = 20;
     private static final int ORE_PREAVVISO_MINIMO = 2;
+    private static final int CIFRE_TELEFONO_MINIME = 10;
+    
+    // Compilata una volta: con l'importazione la validazione gira su migliaia di righe
+    private static final Pattern FORMATO_EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
     
     /**
      * Valida tutte le regole di business per un appuntamento.
@@ -51,6 +59,22 @@ public class AppuntamentoValidator {
             );
         }
         
+        validaStorico(appuntamento);
+    }
+    
+    /**
+     * Valida le regole che non dipendono dal momento attuale (regole 3-7):
+     * giorni e orari lavorativi, campi obbligatori, formato email e telefono.
+     * 
+     * Usata dall'importazione CSV di appuntamenti passati, dove le regole
+     * "data futura" e "preavviso minimo" non hanno senso.
+     * 
+     * @param appuntamento L'appuntamento da validare (data obbligatoria)
+     * @throws IllegalArgumentException se una regola non è rispettata
+     */
+    public void validaStorico(Appuntamento appuntamento) {
+        LocalDateTime dataOra = appuntamento.getDataAppuntamento();
+        
         // REGOLA 3: Solo giorni lavorativi (Lunedì-Venerdì, no weekend)
         DayOfWeek giornoSettimana = dataOra.getDayOfWeek();
         if (giornoSettimana == DayOfWeek.SATURDAY || giornoSettimana == DayOfWeek.SUNDAY) {
@@ -91,19 +115,29 @@ public class AppuntamentoValidator {
         }
         
         // REGOLA 6: Validazione formato email (basilare)
-        if (!appuntamento.getEmail().matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$")) {
+        if (!FORMATO_EMAIL.matcher(appuntamento.getEmail()).matches()) {
             throw new IllegalArgumentException("Formato email non valido");
         }
         
         // REGOLA 7: Validazione telefono (almeno 10 cifre)
-        String telefonoSenzaSpazi = appuntamento.getTelefono().replaceAll("[^0-9]", "");
-        if (telefonoSenzaSpazi.length() < 10) {
+        if (contaCifre(appuntamento.getTelefono()) < CIFRE_TELEFONO_MINIME) {
             throw new IllegalArgumentException(
                 "Numero di telefono non valido. Inserisci un numero completo (es: +39 380 1590128)"
             );
         }
     }
     
+    private static int contaCifre(String testo) {
+        int cifre = 0;
+        for (int i = 0; i < testo.length(); i++) {
+            char c = testo.charAt(i);
+            if (c >= '0' && c <= '9') {
+                cifre++;
+            }
+        }
+        return cifre;
+    }
+    
     /**
      * Verifica se una data cade in un giorno festivo italiano.
      * 
@@ -0,0 +1,26 @@
+-- ============================================
+-- V4 - ID DA SEQUENZA (INSERT IN BATCH)
+-- ============================================
+-- Con GenerationType.IDENTITY l'id arriva solo dopo l'INSERT: Hibernate deve
+-- eseguire ogni riga subito e il batch JDBC non parte mai. Le entità usano ora
+-- una sequenza con allocationSize = 50 (ottimizzatore pooled): una chiamata
+-- riserva 50 id e gli insert vanno al database a blocchi.
+--
+-- Il valore iniziale è max(id) + 50: l'ottimizzatore pooled usa i 50 id che
+-- precedono il valore letto, quindi il primo id nuovo è max(id) + 1.
+-- Le colonne id restano "generated by default": gli id esistenti non cambiano.
+
+create sequence appuntamento_seq start with 1 increment by 50;
+alter sequence appuntamento_seq restart with (select coalesce(max(id), 0) + 50 from appuntamento);
+
+create sequence contatto_seq start with 1 increment by 50;
+alter sequence contatto_seq restart with (select coalesce(max(id), 0) + 50 from contatto);
+
+create sequence lavoro_seq start with 1 increment by 50;
+alter sequence lavoro_seq restart with (select coalesce(max(id), 0) + 50 from lavoro);
+
+create sequence candidature_seq start with 1 increment by 50;
+alter sequence candidature_seq restart with (select coalesce(max(id), 0) + 50 from candidature);
+
+create sequence campagne_seq start with 1 increment by 50;
+alter sequence campagne_seq restart with (select coalesce(max(id), 0) + 50 from campagne);
@@ -0,0 +1,65 @@
+-- ============================================
+-- V2 - CAMPAGNE, TESTI DEI CV, DUPLICATI - MySQL (profilo mysql)
+-- ============================================
+-- Tabelle e colonne aggiunte dopo lo schema iniziale. Sui database creati
+-- con ddl-auto=update (registrati alla versione 1) è la prima migrazione
+-- eseguita, quindi non deve dare per scontato nulla oltre V1.
+
+-- Campagne email (CampagnaService)
+create table campagne (
+    falliti integer not null,
+    inviati integer not null,
+    totale_stimato integer not null,
+    data_avvio datetime(6),
+    data_creazione datetime(6) not null,
+    data_fine datetime(6),
+    filtro_data_da datetime(6),
+    filtro_dataa datetime(6),
+    id bigint not null auto_increment,
+    filtro_stato varchar(50) not null,
+    nome varchar(100) not null,
+    ultimo_destinatario varchar(100),
+    oggetto varchar(200) not null,
+    ultimo_errore varchar(500),
+    testo varchar(5000) not null,
+    stato enum ('ANNULLATA','BOZZA','COMPLETATA','INTERROTTA','IN_CORSO','IN_PAUSA') not null,
+    tipo_destinatari enum ('CANDIDATI','CLIENTI') not null,
+    primary key (id)
+) engine=InnoDB;
+
+-- Testo estratto dai CV (EstrazioneCvService); la coda si legge per stato e tentativo
+create table testi_cv (
+    caratteri integer,
+    tentativi integer not null,
+    candidatura_id bigint not null,
+    data_estrazione datetime(6),
+    prossimo_tentativo datetime(6) not null,
+    ultimo_errore varchar(500),
+    stato enum ('COMPLETATA','FALLITA','IN_CODA','NON_SUPPORTATO') not null,
+    testo_compresso mediumblob,
+    primary key (candidatura_id)
+) engine=InnoDB;
+
+create index idx_testi_cv_stato_tentativo
+   on testi_cv (stato, prossimo_tentativo);
+
+-- Possibili duplicati tra le candidature (IndiceDuplicati)
+alter table candidature add column possibile_duplicato_di bigint;
+alter table candidature add column somiglianza_duplicato float(53);
+alter table candidature add column motivo_duplicato varchar(200);
+
+-- Lista admin con paginazione keyset: filtri, poi data di invio e id
+create index idx_candidature_data
+   on candidature (data_invio, id);
+
+create index idx_candidature_stato_data
+   on candidature (stato, data_invio, id);
+
+create index idx_candidature_posizione_data
+   on candidature (posizione_richiesta, data_invio, id);
+
+create index idx_candidature_provincia_data
+   on candidature (provincia, data_invio, id);
+
+create index idx_candidature_stato_posizione_data
+   on candidature (stato, posizione_richiesta, data_invio, id);
@@ -0,0 +1,27 @@
+-- ============================================
+-- V4 - ID DA SEQUENZA (INSERT IN BATCH)
+-- ============================================
+-- Con GenerationType.IDENTITY l'id arriva solo dopo l'INSERT: Hibernate deve
+-- eseguire ogni riga subito e il batch JDBC non parte mai. Le entità usano ora
+-- una sequenza con allocationSize = 50 (ottimizzatore pooled): una chiamata
+-- riserva 50 id e gli insert vanno al database a blocchi.
+--
+-- Il valore iniziale è max(id) + 50: l'ottimizzatore pooled usa i 50 id che
+-- precedono il valore letto, quindi il primo id nuovo è max(id) + 1.
+-- MySQL non ha sequenze: Hibernate usa una tabella con una riga (next_val)
+-- aggiornata in una transazione separata. Le colonne auto_increment restano.
+
+create table appuntamento_seq (next_val bigint) engine=InnoDB;
+insert into appuntamento_seq select coalesce(max(id), 0) + 50 from appuntamento;
+
+create table contatto_seq (next_val bigint) engine=InnoDB;
+insert into contatto_seq select coalesce(max(id), 0) + 50 from contatto;
+
+create table lavoro_seq (next_val bigint) engine=InnoDB;
+insert into lavoro_seq select coalesce(max(id), 0) + 50 from lavoro;
+
+create table candidature_seq (next_val bigint) engine=InnoDB;
+insert into candidature_seq select coalesce(max(id), 0) + 50 from candidature;
+
+create table campagne_seq (next_val bigint) engine=InnoDB;
+insert into campagne_seq select coalesce(max(id), 0) + 50 from campagne;
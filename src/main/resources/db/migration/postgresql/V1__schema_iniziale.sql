@@ -0,0 +1,107 @@
+-- ============================================
+-- V1 - SCHEMA INIZIALE - PostgreSQL (prod, railway)
+-- ============================================
+-- Lo schema che Hibernate creava con ddl-auto=update prima di Flyway.
+-- Sui database già esistenti questa migrazione non viene eseguita:
+-- Flyway li registra alla versione 1 (spring.flyway.baseline-on-migrate)
+-- e applica solo le migrazioni successive. Per questo deve restare identico
+-- a quello schema: ogni tabella o colonna nuova va in una migrazione successiva
+-- (MigrazioneDaSchemaEsistenteTest).
+
+create table appuntamento (
+    data_annullamento timestamp(6),
+    data_appuntamento timestamp(6) not null,
+    data_creazione timestamp(6),
+    id bigint generated by default as identity,
+    descrizione varchar(1000),
+    motivazione_rifiuto varchar(2000),
+    cognome_cliente varchar(255) not null,
+    email varchar(255) not null,
+    indirizzo varchar(255),
+    nome_cliente varchar(255) not null,
+    stato varchar(255) check (stato in ('IN_ATTESA','CONFERMATO','COMPLETATO','ANNULLATO')),
+    telefono varchar(255) not null,
+    tipo_servizio varchar(255) not null,
+    primary key (id)
+);
+
+create table candidature (
+    data_nascita date not null,
+    data_processing_consent boolean not null,
+    non_ha_codice_fiscale boolean not null,
+    privacy_consent boolean not null,
+    provincia varchar(2) not null,
+    cap varchar(5) not null,
+    data_invio timestamp(6) not null,
+    data_risposta timestamp(6),
+    id bigint generated by default as identity,
+    codice_fiscale varchar(16),
+    telefono varchar(20) not null,
+    cognome varchar(50) not null,
+    disponibilita varchar(50) not null,
+    livello_esperienza varchar(50),
+    nome varchar(50) not null,
+    stato varchar(50),
+    tipo_contratto varchar(50),
+    citta varchar(100) not null,
+    email varchar(100) not null,
+    luogo_nascita varchar(100) not null,
+    posizione_richiesta varchar(100) not null,
+    titolo_studio varchar(100),
+    ultimo_lavoro varchar(100),
+    indirizzo varchar(200) not null,
+    cv_file_path varchar(500),
+    certificazioni TEXT,
+    competenze_tecniche TEXT,
+    cv_file_name varchar(255),
+    esperienza_precedente TEXT,
+    lingue TEXT,
+    messaggio_motivazionale TEXT,
+    messaggio_risposta TEXT,
+    note_admin TEXT,
+    primary key (id)
+);
+
+create table contatto (
+    letto boolean not null,
+    data_invio timestamp(6),
+    id bigint generated by default as identity,
+    messaggio varchar(2000) not null,
+    email varchar(255) not null,
+    nome varchar(255) not null,
+    telefono varchar(255),
+    primary key (id)
+);
+
+create table lavoro (
+    data_fine date,
+    data_inizio date,
+    pubblicato boolean not null,
+    id bigint generated by default as identity,
+    descrizione varchar(2000),
+    categoria varchar(255),
+    cliente varchar(255),
+    luogo varchar(255),
+    titolo varchar(255),
+    primary key (id)
+);
+
+create table lavoro_foto_dopo (
+    lavoro_id bigint not null,
+    foto_url varchar(255)
+);
+
+create table lavoro_foto_prima (
+    lavoro_id bigint not null,
+    foto_url varchar(255)
+);
+
+alter table if exists lavoro_foto_dopo
+   add constraint FKos3m8digxxm6kk3dm8waf77tq
+   foreign key (lavoro_id)
+   references lavoro;
+
+alter table if exists lavoro_foto_prima
+   add constraint FK8t0iv9kp9xnyf9h9cewgmll63
+   foreign key (lavoro_id)
+   references lavoro;
@@ -0,0 +1,51 @@
+-- ============================================
+-- V3 - INDICI PER LE QUERY DEI REPOSITORY
+-- ============================================
+-- Prima esistevano solo gli indici di candidature e testi_cv (V2).
+-- Ogni indice indica le query che serve; l'ordine delle colonne segue
+-- uguaglianza prima, poi intervallo/ordinamento (ORDER BY senza sort).
+-- IndiciQueryTest verifica con EXPLAIN su H2 che ogni query li usi.
+
+-- APPUNTAMENTO
+-- findByStatoOrderByDataAppuntamentoAsc, countByStato, destinatari campagna (stato + periodo)
+create index idx_appuntamento_stato_data on appuntamento (stato, data_appuntamento);
+-- findByEmailOrderByDataAppuntamentoDesc (storico cliente)
+create index idx_appuntamento_email_data on appuntamento (email, data_appuntamento);
+-- findByDataAppuntamentoBetween, prossimi appuntamenti della dashboard
+create index idx_appuntamento_data on appuntamento (data_appuntamento);
+-- countCreatiTra, contaPerMeseEStato (trend mensile)
+create index idx_appuntamento_creazione on appuntamento (data_creazione, stato);
+-- findServiziPiuRichiesti (raggruppa leggendo solo l'indice)
+create index idx_appuntamento_servizio on appuntamento (tipo_servizio);
+
+-- CONTATTO
+-- findByLettoOrderByDataInvioDesc (anche limitata), countByLetto
+create index idx_contatto_letto_data on contatto (letto, data_invio);
+-- findAllByOrderByDataInvioDesc
+create index idx_contatto_data on contatto (data_invio);
+
+-- LAVORO
+-- findByPubblicatoOrderByDataFineDesc, countByPubblicato
+create index idx_lavoro_pubblicato_data on lavoro (pubblicato, data_fine);
+-- findByCategoriaOrderByDataFineDesc
+create index idx_lavoro_categoria_data on lavoro (categoria, data_fine);
+
+-- CANDIDATURE (stato, data e filtri admin hanno già i loro indici)
+-- existsByCodiceFiscale (controllo duplicati a ogni invio)
+create index idx_candidature_codice_fiscale on candidature (codice_fiscale);
+-- findByEmailOrderByDataInvioDesc
+create index idx_candidature_email_data on candidature (email, data_invio);
+-- findByPossibileDuplicatoDiIsNotNullOrderByDataInvioDesc, countByPossibileDuplicatoDiIsNotNull
+create index idx_candidature_duplicato_data on candidature (possibile_duplicato_di, data_invio);
+
+-- CAMPAGNE
+-- findByStato (ripresa delle campagne IN_CORSO all'avvio)
+create index idx_campagne_stato on campagne (stato);
+-- findAllByOrderByDataCreazioneDesc
+create index idx_campagne_creazione on campagne (data_creazione);
+
+-- FOTO DEI LAVORI
+-- PostgreSQL non indicizza da solo le chiavi esterne (H2 e MySQL sì):
+-- senza questi indici caricare le foto di un lavoro legge tutta la tabella
+create index idx_lavoro_foto_prima_lavoro on lavoro_foto_prima (lavoro_id);
+create index idx_lavoro_foto_dopo_lavoro on lavoro_foto_dopo (lavoro_id);
@@ -0,0 +1,85 @@
+/**
+ * Pulsanti "Importa CSV" delle pagine admin (appuntamenti, lavori)
+ * Servizi Edili Elvis SRL
+ * 
+ * Uso nel template:
+ * - <button data-importa-csv="/admin/import/appuntamenti">Importa CSV</button>
+ * - <meta name="_csrf"> e <meta name="_csrf_header"> nell'head
+ * 
+ * Il file scelto viene inviato come corpo della richiesta (text/csv), così
+ * il server lo legge in streaming senza i limiti degli upload multipart.
+ * Al termine mostra quante righe sono state importate e le prime righe scartate.
+ * 
+ * @author Firmato $₿420
+ * @since 2025
+ */
+
+(function() {
+    'use strict';
+
+    // Righe scartate mostrate nel riepilogo (il dettaglio completo è nella risposta JSON)
+    const MAX_ERRORI_MOSTRATI = 10;
+
+    function meta(nome) {
+        const elemento = document.querySelector('meta[name="' + nome + '"]');
+        return elemento ? elemento.content : null;
+    }
+
+    function riepilogo(risultato) {
+        let testo = 'Importate ' + risultato.importate + ' righe, scartate ' + risultato.scartate + '.';
+        risultato.errori.slice(0, MAX_ERRORI_MOSTRATI).forEach(function(errore) {
+            testo += '\nRiga ' + errore.riga + ': ' + errore.messaggio;
+        });
+        if (risultato.scartate > MAX_ERRORI_MOSTRATI) {
+            testo += '\n…';
+        }
+        return testo;
+    }
+
+    function importa(pulsante, file) {
+        const headers = { 'Content-Type': 'text/csv', 'Accept': 'application/json' };
+        const csrfHeader = meta('_csrf_header');
+        if (csrfHeader) {
+            headers[csrfHeader] = meta('_csrf');
+        }
+        pulsante.disabled = true;
+        fetch(pulsante.dataset.importaCsv, { method: 'POST', headers: headers, body: file })
+            .then(function(risposta) {
+                return risposta.json().then(function(corpo) {
+                    if (!risposta.ok) {
+                        throw new Error(corpo.errore || ('Errore ' + risposta.status));
+                    }
+                    return corpo;
+                });
+            })
+            .then(function(risultato) {
+                alert(riepilogo(risultato));
+                if (risultato.importate > 0) {
+                    window.location.reload();
+                }
+            })
+            .catch(function(errore) {
+                alert('Importazione non riuscita: ' + errore.message);
+            })
+            .finally(function() {
+                pulsante.disabled = false;
+            });
+    }
+
+    document.querySelectorAll('[data-importa-csv]').forEach(function(pulsante) {
+        const scelta = document.createElement('input');
+        scelta.type = 'file';
+        scelta.accept = '.csv,text/csv';
+        scelta.hidden = true;
+        scelta.addEventListener('change', function() {
+            if (scelta.files.length > 0) {
+                importa(pulsante, scelta.files[0]);
+                scelta.value = '';
+            }
+        });
+        pulsante.after(scelta);
+        pulsante.addEventListener('click', function() {
+            scelta.click();
+        });
+    });
+})();
@@ -0,0 +1,258 @@
+package com.example.demo.carico;
+
+import com.example.demo.model.Lavoro;
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.repository.CandidaturaRepository;
+import com.example.demo.repository.ContattoRepository;
+import com.example.demo.repository.LavoroRepository;
+import com.example.demo.support.DatiSinteticiGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test di carico HTTP end-to-end: applicazione completa su porta casuale,
+ * database H2 popolato con dati sintetici, utenti virtuali concorrenti.
+ *
+ * DISABILITATO di default: si attiva solo con -Dcarico=true
+ *
+ * ESECUZIONE:
+ *   mvn test -Dtest=CaricoHttpTest -Dcarico=true
+ *   mvn test -Dtest=CaricoHttpTest -Dcarico=true -Dcarico.utenti=32 -Dcarico.durata=60
+ *
+ * PARAMETRI (proprietà di sistema):
+ * - carico.utenti        Utenti virtuali concorrenti (default 8)
+ * - carico.durata        Secondi di misura (default 30)
+ * - carico.riscaldamento Secondi di riscaldamento, non misurati (default 10)
+ * - carico.appuntamenti  Appuntamenti nel database (default 5000; contatti 1/5,
+ *                        lavori 1/20, candidature 1/10)
+ * - carico.seme          Seme dei dati e delle sequenze di richieste (default 42)
+ * - carico.etichetta     Nome libero del run (default: commit git corrente)
+ * - carico.confronta     Report JSON precedente: stampa la variazione del p95
+ * - carico.smtp.latenza  Millisecondi di attesa simulati per ogni invio email (default 0)
+ *
+ * THREAD VIRTUALI (prima/dopo, con SMTP lento e pool Tomcat ridotto):
+ *   mvn test -Dtest=CaricoHttpTest -Dcarico=true -Dcarico.utenti=64 -Dcarico.smtp.latenza=300 \
+ *       -Dserver.tomcat.threads.max=16 -Dspring.threads.virtual.enabled=false
+ *   (stesso comando con -Dspring.threads.virtual.enabled=true)
+ *
+ * REPORT:
+ * target/carico/carico-<data>.json (e copia in target/carico/ultimo.json) con
+ * p50/p95/p99, media, massimo, errori e richieste/secondo per endpoint.
+ *
+ * L'SMTP è sostituito da un mittente che scarta i messaggi (dopo l'eventuale
+ * latenza simulata): si misura l'applicazione, non il server di posta.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "carico", matches = "true")
+class CaricoHttpTest {
+
+    // Credenziali dell'utente admin definito in SecurityConfig
+    private static final String UTENTE_ADMIN = "elvisadmin";
+    private static final String PASSWORD_ADMIN = "adminelvis12345";
+
+    @TestConfiguration
+    static class MailFinta {
+        @Bean
+        JavaMailSender javaMailSender() {
+            long latenza = Long.getLong("carico.smtp.latenza", 0L);
+            return new JavaMailSenderImpl() {
+                @Override
+                protected void doSend(MimeMessage[] messaggi, Object[] originali) {
+                    // Nessun invio reale: solo l'attesa di un server SMTP lento
+                    try {
+                        Thread.sleep(latenza);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+        }
+    }
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private ContattoRepository contattoRepository;
+
+    @Autowired
+    private LavoroRepository lavoroRepository;
+
+    @Autowired
+    private CandidaturaRepository candidaturaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void caricoMisto() throws Exception {
+        int utenti = Integer.getInteger("carico.utenti", 8);
+        int durata = Integer.getInteger("carico.durata", 30);
+        int riscaldamento = Integer.getInteger("carico.riscaldamento", 10);
+        int appuntamenti = Integer.getInteger("carico.appuntamenti", 5000);
+        long seme = Long.getLong("carico.seme", 42L);
+
+        // Arrange - database popolato
+        DatiSinteticiGenerator generatore = new DatiSinteticiGenerator(seme);
+        appuntamentoRepository.saveAll(generatore.appuntamenti(appuntamenti));
+        contattoRepository.saveAll(generatore.contatti(Math.max(1, appuntamenti / 5)));
+        lavoroRepository.saveAll(generatore.lavori(Math.max(1, appuntamenti / 20)));
+        candidaturaRepository.saveAll(generatore.candidature(Math.max(1, appuntamenti / 10)));
+        List<Long> idLavori = lavoroRepository.findByPubblicatoOrderByDataFineDesc(true).stream()
+            .map(Lavoro::getId)
+            .toList();
+
+        // Act - riscaldamento (scartato, altro seme: non occupa gli slot della misura) e misura
+        esegui(utenti, Duration.ofSeconds(riscaldamento), seme + 10_000, idLavori, new RegistroLatenze());
+        RegistroLatenze registro = new RegistroLatenze();
+        Duration misurata = esegui(utenti, Duration.ofSeconds(durata), seme, idLavori, registro);
+
+        // Assert - report scritto e nessun endpoint sempre in errore
+        List<RegistroLatenze.RisultatoEndpoint> risultati = registro.riepilogo(misurata);
+        Map<String, Object> configurazione = new LinkedHashMap<>();
+        configurazione.put("utenti", utenti);
+        configurazione.put("durataSecondi", durata);
+        configurazione.put("riscaldamentoSecondi", riscaldamento);
+        configurazione.put("appuntamenti", appuntamenti);
+        configurazione.put("seme", seme);
+        configurazione.put("smtpLatenzaMs", Long.getLong("carico.smtp.latenza", 0L));
+        configurazione.put("threadVirtuali", environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false));
+        configurazione.put("tomcatThreadMax", environment.getProperty("server.tomcat.threads.max", Integer.class, 200));
+        Path report = scriviReport(configurazione, risultati);
+        stampa(risultati, report);
+
+        assertThat(risultati).isNotEmpty();
+        assertThat(risultati).allSatisfy(r -> assertThat(r.errori()).isLessThan(r.richieste()));
+    }
+
+    /**
+     * Fa girare gli utenti virtuali fino alla scadenza.
+     *
+     * @return Durata effettiva (fino alla fine dell'ultimo scenario in corso)
+     */
+    private Duration esegui(int utenti, Duration durata, long seme, List<Long> idLavori,
+                            RegistroLatenze registro) throws Exception {
+        if (durata.isZero()) {
+            return durata;
+        }
+        URI base = URI.create("http://localhost:" + porta);
+        // Lato client sempre thread virtuali: centinaia di utenti senza centinaia di thread
+        ExecutorService esecutore = Executors.newVirtualThreadPerTaskExecutor();
+        long inizio = System.nanoTime();
+        long scadenza = inizio + durata.toNanos();
+        try {
+            List<Future<?>> attivi = new ArrayList<>();
+            for (int u = 0; u < utenti; u++) {
+                ScenariCarico scenari = new ScenariCarico(
+                    new ClienteHttp(base, registro), seme + u, idLavori, UTENTE_ADMIN, PASSWORD_ADMIN);
+                attivi.add(esecutore.submit(() -> {
+                    while (System.nanoTime() < scadenza) {
+                        scenari.prossimo();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : attivi) {
+                f.get();
+            }
+        } finally {
+            esecutore.shutdownNow();
+            esecutore.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        return Duration.ofNanos(System.nanoTime() - inizio);
+    }
+
+    private Path scriviReport(Map<String, Object> configurazione,
+                              List<RegistroLatenze.RisultatoEndpoint> risultati) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("etichetta", System.getProperty("carico.etichetta", commitCorrente()));
+        report.put("data", LocalDateTime.now().withNano(0).toString());
+        report.put("java", Runtime.version().toString());
+        report.put("configurazione", configurazione);
+        report.put("endpoint", risultati);
+
+        Path cartella = Path.of("target", "carico");
+        Files.createDirectories(cartella);
+        Path file = cartella.resolve("carico-"
+            + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        Files.copy(file, cartella.resolve("ultimo.json"), StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    private void stampa(List<RegistroLatenze.RisultatoEndpoint> risultati, Path report) throws Exception {
+        Map<String, Double> p95Precedenti = new LinkedHashMap<>();
+        String confronta = System.getProperty("carico.confronta");
+        if (confronta != null) {
+            for (JsonNode e : objectMapper.readTree(Path.of(confronta).toFile()).path("endpoint")) {
+                p95Precedenti.put(e.path("endpoint").asText(), e.path("p95Ms").asDouble());
+            }
+        }
+
+        System.out.println("📊 RISULTATI CARICO → " + report.toAbsolutePath());
+        System.out.printf("%-28s %8s %7s %9s %9s %9s %9s %10s%n",
+            "endpoint", "richieste", "errori", "req/s", "p50 ms", "p95 ms", "p99 ms", "Δp95");
+        for (RegistroLatenze.RisultatoEndpoint r : risultati) {
+            Double precedente = p95Precedenti.get(r.endpoint());
+            String delta = precedente == null || precedente == 0 ? "" :
+                String.format("%+.1f%%", (r.p95Ms() - precedente) / precedente * 100);
+            System.out.printf("%-28s %8d %7d %9.1f %9.2f %9.2f %9.2f %10s%n",
+                r.endpoint(), r.richieste(), r.errori(), r.richiesteAlSecondo(),
+                r.p50Ms(), r.p95Ms(), r.p99Ms(), delta);
+        }
+    }
+
+    private static String commitCorrente() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").start();
+            try (BufferedReader out = new BufferedReader(
+                    new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+                String commit = out.readLine();
+                return git.waitFor() == 0 && commit != null ? commit : "sconosciuto";
+            }
+        } catch (Exception e) {
+            return "sconosciuto";
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.carico;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Client HTTP di un singolo utente virtuale.
+ *
+ * Ha i propri cookie (sessione, login admin) e ricorda l'ultimo token CSRF
+ * trovato in una pagina, come farebbe un browser prima di inviare un form.
+ * Ogni richiesta viene misurata e registrata nel RegistroLatenze con
+ * l'etichetta dell'endpoint (es: "GET /lavori/{id}").
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public class ClienteHttp {
+
+    // Campo nascosto aggiunto da Thymeleaf ai form con th:action
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    private final HttpClient client;
+    private final URI base;
+    private final RegistroLatenze registro;
+
+    private String csrf;
+
+    public ClienteHttp(URI base, RegistroLatenze registro) {
+        this.client = HttpClient.newBuilder()
+            .cookieHandler(new CookieManager())
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        this.base = base;
+        this.registro = registro;
+    }
+
+    /**
+     * GET misurato.
+     *
+     * @param percorso Percorso reale (es: /lavori/12)
+     * @param endpoint Etichetta per il report (es: GET /lavori/{id})
+     * @return Corpo della risposta, null se la richiesta è fallita
+     */
+    public String get(String percorso, String endpoint) {
+        return esegui(HttpRequest.newBuilder(base.resolve(percorso)).GET(), endpoint);
+    }
+
+    /**
+     * POST di un form, con il token CSRF dell'ultima pagina letta.
+     */
+    public String postForm(String percorso, String endpoint, Map<String, String> campi) {
+        StringJoiner corpo = new StringJoiner("&");
+        campi.forEach((nome, valore) -> corpo.add(codifica(nome) + "=" + codifica(valore)));
+        if (csrf != null) {
+            corpo.add("_csrf=" + codifica(csrf));
+        }
+        return esegui(HttpRequest.newBuilder(base.resolve(percorso))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(corpo.toString())), endpoint);
+    }
+
+    /**
+     * Login nell'area admin (non misurato: avviene una volta per utente).
+     *
+     * @return true se il server ha reindirizzato alla dashboard
+     */
+    public boolean loginAdmin(String utente, String password) throws IOException, InterruptedException {
+        HttpResponse<String> pagina = client.send(
+            HttpRequest.newBuilder(base.resolve("/admin/login")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        aggiornaCsrf(pagina.body());
+        HttpResponse<Void> risposta = client.send(
+            HttpRequest.newBuilder(base.resolve("/admin/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "username=" + codifica(utente) + "&password=" + codifica(password) + "&_csrf=" + codifica(csrf)))
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+        return risposta.headers().firstValue("Location").orElse("").endsWith("/admin/dashboard");
+    }
+
+    private String esegui(HttpRequest.Builder richiesta, String endpoint) {
+        long inizio = System.nanoTime();
+        try {
+            HttpResponse<String> risposta = client.send(
+                richiesta.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+            // I redirect (es: POST-redirect-GET) sono esiti corretti
+            boolean errore = risposta.statusCode() >= 400;
+            registro.registra(endpoint, System.nanoTime() - inizio, errore);
+            aggiornaCsrf(risposta.body());
+            return errore ? null : risposta.body();
+        } catch (IOException e) {
+            registro.registra(endpoint, System.nanoTime() - inizio, true);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void aggiornaCsrf(String html) {
+        if (html == null) {
+            return;
+        }
+        Matcher m = CSRF.matcher(html);
+        if (m.find()) {
+            csrf = m.group(1);
+        }
+    }
+
+    private static String codifica(String valore) {
+        return URLEncoder.encode(valore == null ? "" : valore, StandardCharsets.UTF_8);
+    }
+}
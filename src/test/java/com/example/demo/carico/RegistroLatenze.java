@@ -0,0 +1,112 @@
+package com.example.demo.carico;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Raccoglie le latenze delle richieste HTTP, raggruppate per endpoint.
+ *
+ * Ogni campione è un tempo in nanosecondi; le richieste fallite (eccezione o
+ * status >= 400) sono contate come errori ma la loro latenza resta nei percentili,
+ * perché anche una risposta d'errore lenta pesa sull'utente.
+ *
+ * Thread-safe: ogni utente virtuale registra dal proprio thread.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public class RegistroLatenze {
+
+    /**
+     * Risultato aggregato di un endpoint (tempi in millisecondi).
+     */
+    public record RisultatoEndpoint(
+        String endpoint,
+        long richieste,
+        long errori,
+        double richiesteAlSecondo,
+        double mediaMs,
+        double p50Ms,
+        double p95Ms,
+        double p99Ms,
+        double maxMs) {
+    }
+
+    private final Map<String, Campioni> perEndpoint = new ConcurrentHashMap<>();
+
+    public void registra(String endpoint, long nanos, boolean errore) {
+        perEndpoint.computeIfAbsent(endpoint, e -> new Campioni()).aggiungi(nanos, errore);
+    }
+
+    /**
+     * Riepilogo per endpoint, ordinato per nome.
+     *
+     * @param durata Durata della misura, per calcolare il throughput
+     */
+    public List<RisultatoEndpoint> riepilogo(Duration durata) {
+        double secondi = Math.max(durata.toNanos(), 1) / 1e9;
+        List<RisultatoEndpoint> risultati = new ArrayList<>();
+        perEndpoint.forEach((endpoint, campioni) -> risultati.add(campioni.riepiloga(endpoint, secondi)));
+        risultati.sort(Comparator.comparing(RisultatoEndpoint::endpoint));
+        return risultati;
+    }
+
+    private static class Campioni {
+        private long[] nanos = new long[1024];
+        private int numero;
+        private long errori;
+
+        synchronized void aggiungi(long latenza, boolean errore) {
+            if (numero == nanos.length) {
+                nanos = Arrays.copyOf(nanos, numero * 2);
+            }
+            nanos[numero++] = latenza;
+            if (errore) {
+                errori++;
+            }
+        }
+
+        synchronized RisultatoEndpoint riepiloga(String endpoint, double secondi) {
+            long[] ordinati = Arrays.copyOf(nanos, numero);
+            Arrays.sort(ordinati);
+            double somma = 0;
+            for (long n : ordinati) {
+                somma += n;
+            }
+            return new RisultatoEndpoint(
+                endpoint,
+                numero,
+                errori,
+                arrotonda(numero / secondi),
+                millis(numero == 0 ? 0 : somma / numero),
+                millis(percentile(ordinati, 50)),
+                millis(percentile(ordinati, 95)),
+                millis(percentile(ordinati, 99)),
+                millis(numero == 0 ? 0 : ordinati[numero - 1]));
+        }
+    }
+
+    /**
+     * Percentile "nearest rank" su un array ordinato.
+     */
+    static long percentile(long[] ordinati, int percentuale) {
+        if (ordinati.length == 0) {
+            return 0;
+        }
+        int rango = (int) Math.ceil(percentuale / 100.0 * ordinati.length);
+        return ordinati[Math.max(0, rango - 1)];
+    }
+
+    private static double millis(double nanos) {
+        return arrotonda(nanos / 1_000_000.0);
+    }
+
+    private static double arrotonda(double valore) {
+        return Math.round(valore * 100.0) / 100.0;
+    }
+}
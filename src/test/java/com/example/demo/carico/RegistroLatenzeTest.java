@@ -0,0 +1,52 @@
+package com.example.demo.carico;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test per RegistroLatenze: percentili e throughput del report di carico.
+ */
+class RegistroLatenzeTest {
+
+    @Test
+    void testPercentileNearestRank() {
+        long[] ordinati = new long[100];
+        for (int i = 0; i < ordinati.length; i++) {
+            ordinati[i] = i + 1;
+        }
+
+        assertThat(RegistroLatenze.percentile(ordinati, 50)).isEqualTo(50);
+        assertThat(RegistroLatenze.percentile(ordinati, 95)).isEqualTo(95);
+        assertThat(RegistroLatenze.percentile(ordinati, 99)).isEqualTo(99);
+        assertThat(RegistroLatenze.percentile(new long[0], 99)).isZero();
+    }
+
+    @Test
+    void testRiepilogoPerEndpoint() {
+        // Arrange - 10 richieste da 1..10 ms, una in errore
+        RegistroLatenze registro = new RegistroLatenze();
+        for (int ms = 1; ms <= 10; ms++) {
+            registro.registra("GET /lavori", ms * 1_000_000L, ms == 10);
+        }
+        registro.registra("GET /api/stats/mese", 2_000_000L, false);
+
+        // Act
+        List<RegistroLatenze.RisultatoEndpoint> risultati = registro.riepilogo(Duration.ofSeconds(2));
+
+        // Assert - ordinati per nome
+        assertThat(risultati).extracting(RegistroLatenze.RisultatoEndpoint::endpoint)
+            .containsExactly("GET /api/stats/mese", "GET /lavori");
+        RegistroLatenze.RisultatoEndpoint lavori = risultati.get(1);
+        assertThat(lavori.richieste()).isEqualTo(10);
+        assertThat(lavori.errori()).isEqualTo(1);
+        assertThat(lavori.richiesteAlSecondo()).isEqualTo(5.0);
+        assertThat(lavori.mediaMs()).isEqualTo(5.5);
+        assertThat(lavori.p50Ms()).isEqualTo(5.0);
+        assertThat(lavori.p99Ms()).isEqualTo(10.0);
+        assertThat(lavori.maxMs()).isEqualTo(10.0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.carico;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.support.DatiSinteticiGenerator;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Scenari di traffico di un utente virtuale, ricavati dall'uso reale del sito.
+ *
+ * MIX (pesi su 100):
+ * - 45 Visitatore: elenco lavori + dettaglio di un lavoro
+ * - 20 Prenotazione: form /prenota + invio (POST con CSRF)
+ * - 15 Admin: polling della dashboard (dopo login)
+ * - 20 API: /api/stats/* usate dai widget e da integrazioni esterne
+ *
+ * Ogni utente virtuale ha il proprio seme: due esecuzioni con la stessa
+ * configurazione generano la stessa sequenza di richieste.
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public class ScenariCarico {
+
+    private static final String[] API_STATISTICHE = {
+        "/api/stats/dashboard", "/api/stats/appuntamenti", "/api/stats/mese", "/api/stats/riepilogo"
+    };
+
+    private final ClienteHttp client;
+    private final DatiSinteticiGenerator generatore;
+    private final Random random;
+    private final List<Long> idLavori;
+    private final String utenteAdmin;
+    private final String passwordAdmin;
+
+    private boolean adminAutenticato;
+
+    public ScenariCarico(ClienteHttp client, long seme, List<Long> idLavori,
+                         String utenteAdmin, String passwordAdmin) {
+        this.client = client;
+        this.generatore = new DatiSinteticiGenerator(seme);
+        this.random = new Random(seme);
+        this.idLavori = idLavori;
+        this.utenteAdmin = utenteAdmin;
+        this.passwordAdmin = passwordAdmin;
+    }
+
+    /**
+     * Esegue uno scenario scelto secondo i pesi del mix.
+     */
+    public void prossimo() throws IOException, InterruptedException {
+        int n = random.nextInt(100);
+        if (n < 45) {
+            visitatore();
+        } else if (n < 65) {
+            prenotazione();
+        } else if (n < 80) {
+            admin();
+        } else {
+            api();
+        }
+    }
+
+    void visitatore() {
+        client.get("/lavori", "GET /lavori");
+        if (!idLavori.isEmpty()) {
+            long id = idLavori.get(random.nextInt(idLavori.size()));
+            client.get("/lavori/" + id, "GET /lavori/{id}");
+        }
+    }
+
+    void prenotazione() {
+        // La pagina del form fornisce sessione e token CSRF
+        client.get("/prenota", "GET /prenota");
+        Appuntamento a = generatore.appuntamentoValido();
+        Map<String, String> campi = new LinkedHashMap<>();
+        campi.put("nomeCliente", a.getNomeCliente());
+        campi.put("cognomeCliente", a.getCognomeCliente());
+        campi.put("email", a.getEmail());
+        campi.put("telefono", a.getTelefono());
+        campi.put("dataAppuntamento", a.getDataAppuntamento().toString());
+        campi.put("tipoServizio", a.getTipoServizio());
+        campi.put("indirizzo", a.getIndirizzo());
+        campi.put("descrizione", a.getDescrizione());
+        client.postForm("/prenota", "POST /prenota", campi);
+    }
+
+    void admin() throws IOException, InterruptedException {
+        if (!adminAutenticato) {
+            adminAutenticato = client.loginAdmin(utenteAdmin, passwordAdmin);
+        }
+        client.get("/admin/dashboard", "GET /admin/dashboard");
+        // La pagina è un guscio: i dati arrivano dai widget, come farebbe il browser
+        client.get("/admin/dashboard/dati", "GET /admin/dashboard/dati");
+    }
+
+    void api() {
+        String percorso = API_STATISTICHE[random.nextInt(API_STATISTICHE.length)];
+        client.get(percorso, "GET " + percorso);
+    }
+}
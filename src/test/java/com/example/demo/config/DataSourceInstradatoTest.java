@@ -0,0 +1,158 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test per DataSourceInstradato con due database H2 in memoria (primario e replica).
+ *
+ * Ogni database ha una tabella "origine" con il proprio nome: la lettura dice
+ * da dove è arrivata la connessione. Sulla replica la tabella "ritardo" simula
+ * il ritardo di replicazione letto da verificaReplica.
+ */
+class DataSourceInstradatoTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong orologio = new AtomicLong();
+    private final AtomicBoolean replicaSpenta = new AtomicBoolean();
+
+    private DataSourceInstradato instradato;
+    private JdbcTemplate jdbc;
+    private JdbcTemplate replicaJdbc;
+    private TransactionTemplate lettura;
+    private TransactionTemplate scrittura;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource primaria = h2("primaria");
+        DataSource replica = new DelegatingDataSource(h2("replica")) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (replicaSpenta.get()) {
+                    throw new SQLException("Connection refused");
+                }
+                return super.getConnection();
+            }
+        };
+        prepara(primaria, "primaria");
+        prepara(replica, "replica");
+        replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("create table ritardo (secondi double)");
+        replicaJdbc.update("insert into ritardo values (0)");
+
+        instradato = new DataSourceInstradato(primaria, replica, Duration.ofSeconds(2),
+            "select secondi from ritardo", meterRegistry, orologio::get);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(instradato);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transazioni = new DataSourceTransactionManager(dataSource);
+        lettura = new TransactionTemplate(transazioni);
+        lettura.setReadOnly(true);
+        scrittura = new TransactionTemplate(transazioni);
+    }
+
+    @Test
+    void testReadOnly_LeggeDallaReplica_ScrittureSulPrimario() {
+        // Arrange
+        instradato.verificaReplica();
+
+        // Act
+        String daLettura = lettura.execute(stato -> origine());
+        String daScrittura = scrittura.execute(stato -> origine());
+
+        // Assert
+        assertThat(daLettura).isEqualTo("replica");
+        assertThat(daScrittura).isEqualTo("primaria");
+        assertThat(meterRegistry.get("datasource.letture").tag("destinazione", "replica").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void testDopoUnaScrittura_LettureSulPrimarioPerRitardoMax() {
+        // Arrange
+        instradato.verificaReplica();
+
+        // Act: commit di una scrittura, poi letture prima e dopo i 2 secondi
+        scrittura.executeWithoutResult(stato -> jdbc.update("update origine set nome = nome"));
+        orologio.addAndGet(Duration.ofMillis(1_500).toNanos());
+        String subito = lettura.execute(stato -> origine());
+        orologio.addAndGet(Duration.ofMillis(600).toNanos());
+        String dopo = lettura.execute(stato -> origine());
+
+        // Assert
+        assertThat(subito).isEqualTo("primaria");
+        assertThat(dopo).isEqualTo("replica");
+    }
+
+    @Test
+    void testReplicaInRitardo_LettureSulPrimarioFinoAlRecupero() {
+        // Arrange
+        replicaJdbc.update("update ritardo set secondi = 5");
+
+        // Act
+        instradato.verificaReplica();
+        String inRitardo = lettura.execute(stato -> origine());
+        replicaJdbc.update("update ritardo set secondi = 0.5");
+        instradato.verificaReplica();
+        String allineata = lettura.execute(stato -> origine());
+
+        // Assert
+        assertThat(inRitardo).isEqualTo("primaria");
+        assertThat(allineata).isEqualTo("replica");
+        assertThat(meterRegistry.get("datasource.replica.ritardo").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testReplicaNonRaggiungibile_RipiegaSulPrimario() {
+        // Arrange
+        instradato.verificaReplica();
+        replicaSpenta.set(true);
+
+        // Act: la connessione alla replica fallisce durante la lettura
+        String durante = lettura.execute(stato -> origine());
+        instradato.verificaReplica();
+
+        // Assert
+        assertThat(durante).isEqualTo("primaria");
+        assertThat(instradato.isReplicaUtilizzabile()).isFalse();
+        assertThat(meterRegistry.get("datasource.replica.ritardo").gauge().value()).isNaN();
+
+        // Replica di nuovo su: il controllo successivo la riattiva
+        replicaSpenta.set(false);
+        instradato.verificaReplica();
+        String ripristinata = lettura.execute(stato -> origine());
+        assertThat(ripristinata).isEqualTo("replica");
+    }
+
+    private String origine() {
+        return jdbc.queryForObject("select nome from origine", String.class);
+    }
+
+    private static JdbcDataSource h2(String nome) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + nome + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return h2;
+    }
+
+    private static void prepara(DataSource dataSource, String nome) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table origine (nome varchar(20))");
+        jdbc.update("insert into origine values (?)", nome);
+    }
+}
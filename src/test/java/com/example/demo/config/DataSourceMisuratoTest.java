@@ -0,0 +1,155 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test per DataSourceMisurato e FiltroBudgetSql su un database H2 in memoria.
+ */
+class DataSourceMisuratoTest {
+
+    private JdbcDataSource h2;
+    private final List<DataSourceMisurato.QueryLenta> lente = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:misurato;DB_CLOSE_DELAY=-1");
+        try (Connection c = h2.getConnection(); Statement s = c.createStatement()) {
+            s.execute("create table if not exists prova (id int, nome varchar(50), data timestamp)");
+        }
+    }
+
+    @Test
+    void testContaIstruzioniDellaRichiesta() throws Exception {
+        // Arrange
+        DataSource misurato = DataSourceMisurato.avvolgi(h2, Duration.ofHours(1), lente::add);
+
+        // Act
+        DataSourceMisurato.ContatoreSql contatore = DataSourceMisurato.ContatoreSql.inizia("GET /prova");
+        try {
+            eseguiQuery(misurato, 3);
+        } finally {
+            DataSourceMisurato.ContatoreSql.termina();
+        }
+        // Fuori dalla richiesta non si conta più
+        eseguiQuery(misurato, 1);
+
+        // Assert
+        assertThat(contatore.getIstruzioni()).isEqualTo(3);
+        assertThat(contatore.getTempo()).isPositive();
+        assertThat(lente).isEmpty();
+    }
+
+    @Test
+    void testTaskPropagatoContaSulContatoreDellaRichiesta() throws Exception {
+        // Arrange: pool di un thread, come un esecutore con TaskDecorator
+        DataSource misurato = DataSourceMisurato.avvolgi(h2, Duration.ofHours(1), lente::add);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        DataSourceMisurato.ContatoreSql contatore = DataSourceMisurato.ContatoreSql.inizia("GET /admin/dashboard");
+        try {
+            // Act
+            pool.submit(DataSourceMisurato.ContatoreSql.propaga(() -> eseguiQuery(misurato, 2))).get();
+            eseguiQuery(misurato, 1);
+        } finally {
+            DataSourceMisurato.ContatoreSql.termina();
+        }
+        // Il thread del pool non conserva il contatore dopo il task
+        pool.submit(() -> assertThat(DataSourceMisurato.ContatoreSql.corrente()).isNull()).get();
+        pool.shutdown();
+
+        // Assert
+        assertThat(contatore.getIstruzioni()).isEqualTo(3);
+    }
+
+    @Test
+    void testQueryLentaRiportaFormaSenzaValori() throws Exception {
+        // Arrange - soglia zero: ogni query è "lenta"
+        DataSource misurato = DataSourceMisurato.avvolgi(h2, Duration.ZERO, lente::add);
+
+        // Act
+        try (Connection c = misurato.getConnection();
+             PreparedStatement ps = c.prepareStatement("select * from prova where nome = ? and data > ?")) {
+            ps.setString(1, "mario.rossi@example.com");
+            ps.setObject(2, LocalDateTime.now());
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+            }
+        }
+
+        // Assert
+        assertThat(lente).hasSize(1);
+        DataSourceMisurato.QueryLenta query = lente.get(0);
+        assertThat(query.sql()).isEqualTo("select * from prova where nome = ? and data > ?");
+        assertThat(query.parametri()).isEqualTo("(String, LocalDateTime)");
+        assertThat(query.toString()).doesNotContain("mario.rossi");
+        assertThat(query.endpoint()).isNull();
+    }
+
+    @Test
+    void testUnwrapRestituisceOriginale() throws Exception {
+        DataSource misurato = DataSourceMisurato.avvolgi(h2, Duration.ofHours(1), lente::add);
+
+        assertThat(misurato.unwrap(JdbcDataSource.class)).isSameAs(h2);
+        assertThat(misurato.isWrapperFor(JdbcDataSource.class)).isTrue();
+    }
+
+    @Test
+    void testFiltroRegistraMetricheEBudget() throws Exception {
+        // Arrange - budget di 2 istruzioni, la richiesta ne esegue 5
+        DataSource misurato = DataSourceMisurato.avvolgi(h2, Duration.ofHours(1), lente::add);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FiltroBudgetSql filtro = new FiltroBudgetSql(registry, 2, Duration.ofMinutes(1));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/lavori/7");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/lavori/{id}");
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) {
+                eseguiQuery(misurato, 5);
+            }
+        };
+
+        // Act
+        filtro.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertThat(registry.get("http.sql.istruzioni").tag("uri", "/lavori/{id}").summary().totalAmount())
+            .isEqualTo(5);
+        assertThat(registry.get("http.sql.fuori.budget").tag("uri", "/lavori/{id}").counter().count())
+            .isEqualTo(1);
+    }
+
+    private static void eseguiQuery(DataSource dataSource, int volte) {
+        try (Connection c = dataSource.getConnection();
+             PreparedStatement ps = c.prepareStatement("select count(*) from prova where id = ?")) {
+            for (int i = 0; i < volte; i++) {
+                ps.setInt(1, i);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.config;
+
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.support.DatiSinteticiGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test dell'instradamento primario/replica con JPA e open-in-view.
+ *
+ * Con open-in-view la richiesta usa un solo EntityManager per tutte le sue
+ * transazioni (qui legato a mano come fa OpenEntityManagerInViewInterceptor).
+ * Se Hibernate tenesse la connessione fino alla chiusura dell'EntityManager,
+ * una prima transazione readOnly legherebbe la richiesta alla replica e la
+ * scrittura successiva finirebbe lì. I due database H2 hanno lo stesso schema
+ * (Flyway su entrambi) ma nessuna replicazione: ogni riga resta dove è stata scritta.
+ */
+@DataJpaTest(properties = {
+    "datasource.replica.attiva=true",
+    "datasource.replica.username=sa",
+    "datasource.replica.query-ritardo=select 0",
+    "datasource.replica.ritardo-max-ms=0"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReplicaDataSourceConfig.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaOpenInViewTest {
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSourceInstradato dataSourceInstradato;
+
+    @Autowired
+    @Qualifier("dataSourcePrimaria")
+    private DataSource primaria;
+
+    @Autowired
+    @Qualifier("dataSourceReplica")
+    private DataSource replica;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void dueDatabase(DynamicPropertyRegistry registry) {
+        String replicaUrl = "jdbc:h2:mem:replica-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        Flyway.configure()
+            .dataSource(replicaUrl, "sa", "")
+            .locations("classpath:db/migration/h2")
+            .load()
+            .migrate();
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:primaria-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        registry.add("datasource.replica.url", () -> replicaUrl);
+    }
+
+    @Test
+    void testOpenInView_LetturaPoiScrittura_ScritturaSulPrimario() {
+        // Arrange: come POST /prenota, controllo dello slot (readOnly) e poi salvataggio
+        dataSourceInstradato.verificaReplica();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+
+        // Act
+        try {
+            appuntamentoRepository.count();
+            appuntamentoRepository.save(new DatiSinteticiGenerator(7L).appuntamentoValido());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+
+        // Assert: la lettura dalla replica, l'INSERT sul primario
+        assertThat(meterRegistry.get("datasource.letture").tag("destinazione", "replica").counter().count())
+            .isEqualTo(1);
+        assertThat(righe(primaria)).isEqualTo(1);
+        assertThat(righe(replica)).isZero();
+    }
+
+    private static Integer righe(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("select count(*) from appuntamento", Integer.class);
+    }
+}
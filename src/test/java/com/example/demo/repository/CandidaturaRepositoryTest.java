@@ -0,0 +1,176 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.model.CandidaturaRiga;
+import com.example.demo.model.TestoCv;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test della lista paginata candidature (CandidaturaRepositoryImpl) su H2.
+ *
+ * Verifica che la paginazione a chiave non perda né ripeta righe con la stessa
+ * dataInvio, che i filtri si combinino in AND e che gli indici compositi esistano.
+ * Verifica anche il filtro dei possibili duplicati, le righe per id dei risultati
+ * della ricerca e la ricerca a blocchi dei CV ancora senza riga in testi_cv.
+ */
+@DataJpaTest
+class CandidaturaRepositoryTest {
+
+    private static final LocalDateTime STESSO_ISTANTE = LocalDateTime.of(2025, 10, 16, 9, 0);
+
+    @Autowired
+    private CandidaturaRepository candidaturaRepository;
+
+    @Autowired
+    private TestoCvRepository testoCvRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // 7 candidature, 5 inviate nello stesso istante (l'id decide l'ordine)
+        String[] posizioni = {"Muratore", "Muratore", "Elettricista", "Muratore", "Idraulico", "Muratore", "Muratore"};
+        String[] stati = {"Nuovo", "Nuovo", "Nuovo", "Rifiutato", "Nuovo", "Nuovo", "Nuovo"};
+        for (int i = 0; i < posizioni.length; i++) {
+            Candidatura c = candidatura(i, posizioni[i], stati[i], i % 2 == 0 ? "RM" : "MI");
+            // Con gli id da sequenza l'INSERT parte solo al flush, prima dell'update via SQL
+            candidaturaRepository.saveAndFlush(c);
+            // dataInvio è impostata da @PrePersist e non aggiornabile: si fissa via SQL
+            jdbcTemplate.update("update candidature set data_invio = ? where id = ?",
+                i < 5 ? STESSO_ISTANTE : STESSO_ISTANTE.minusDays(i), c.getId());
+        }
+    }
+
+    @Test
+    void testTrovaPagina_ScorreTutteLeRigheSenzaDoppioni() {
+        // Act: pagine da 2 seguendo il cursore (dataInvio, id) dell'ultima riga
+        List<CandidaturaRiga> viste = new ArrayList<>();
+        LocalDateTime dopoData = null;
+        Long dopoId = null;
+        List<CandidaturaRiga> pagina;
+        do {
+            pagina = candidaturaRepository.trovaPagina(FiltroCandidature.nessuno(), dopoData, dopoId, 2);
+            viste.addAll(pagina);
+            if (!pagina.isEmpty()) {
+                dopoData = pagina.get(pagina.size() - 1).dataInvio();
+                dopoId = pagina.get(pagina.size() - 1).id();
+            }
+        } while (pagina.size() == 2);
+
+        // Assert: 7 righe distinte, ordinate per (dataInvio, id) decrescenti
+        assertThat(viste).hasSize(7);
+        assertThat(viste).extracting(CandidaturaRiga::id).doesNotHaveDuplicates();
+        for (int i = 1; i < viste.size(); i++) {
+            CandidaturaRiga prima = viste.get(i - 1);
+            CandidaturaRiga dopo = viste.get(i);
+            assertThat(prima.dataInvio().isAfter(dopo.dataInvio())
+                || (prima.dataInvio().isEqual(dopo.dataInvio()) && prima.id() > dopo.id())).isTrue();
+        }
+    }
+
+    @Test
+    void testTrovaPagina_FiltriCombinati() {
+        // Act: Muratore + Nuovo + RM (vuoti e maiuscole normalizzati dal filtro)
+        List<CandidaturaRiga> righe = candidaturaRepository.trovaPagina(
+            new FiltroCandidature("Nuovo", "Muratore", " ", "rm", ""), null, null, 50);
+
+        // Assert: indici 0 e 6 (la 3 è Rifiutata, le dispari sono MI)
+        assertThat(righe).extracting(CandidaturaRiga::nome).containsExactly("Nome0", "Nome6");
+        assertThat(righe).allSatisfy(r -> assertThat(r.getNomeCompleto()).startsWith("Nome"));
+    }
+
+    @Test
+    void testTrovaPagina_SoloDuplicatiAPagine() {
+        // Arrange: tre candidature segnalate, due con la stessa dataInvio
+        List<Candidatura> tutte = candidaturaRepository.findAll(Sort.by("id"));
+        for (int i : new int[] {1, 2, 5}) {
+            jdbcTemplate.update("update candidature set possibile_duplicato_di = ? where id = ?",
+                tutte.get(0).getId(), tutte.get(i).getId());
+        }
+        FiltroCandidature duplicati = new FiltroCandidature(null, null, null, null, null, true);
+
+        // Act
+        List<CandidaturaRiga> prima = candidaturaRepository.trovaPagina(duplicati, null, null, 2);
+        CandidaturaRiga ultima = prima.get(1);
+        List<CandidaturaRiga> seconda = candidaturaRepository.trovaPagina(duplicati, ultima.dataInvio(), ultima.id(), 2);
+
+        // Assert: più recenti prima, nessuna candidatura non segnalata
+        assertThat(prima).extracting(CandidaturaRiga::id).containsExactly(tutte.get(2).getId(), tutte.get(1).getId());
+        assertThat(seconda).extracting(CandidaturaRiga::id).containsExactly(tutte.get(5).getId());
+        assertThat(seconda.get(0).possibileDuplicatoDi()).isEqualTo(tutte.get(0).getId());
+    }
+
+    @Test
+    void testTrovaRighe_ProiezionePerId() {
+        // Arrange
+        List<Candidatura> tutte = candidaturaRepository.findAll(Sort.by("id"));
+
+        // Act
+        List<CandidaturaRiga> righe = candidaturaRepository.trovaRighe(List.of(tutte.get(3).getId(), tutte.get(0).getId()));
+
+        // Assert
+        assertThat(righe).extracting(CandidaturaRiga::getNomeCompleto)
+            .containsExactlyInAnyOrder("Nome0 Cognome0", "Nome3 Cognome3");
+        assertThat(candidaturaRepository.trovaRighe(List.of())).isEmpty();
+    }
+
+    @Test
+    void testIdConCvSenzaTesto_SoloCandidatureConCvMaiAccodate() {
+        // Arrange: CV sulle prime quattro, una già con la sua riga testi_cv
+        List<Candidatura> tutte = candidaturaRepository.findAll(Sort.by("id"));
+        for (Candidatura c : tutte.subList(0, 4)) {
+            jdbcTemplate.update("update candidature set cv_file_path = ? where id = ?", "uploads/cv/" + c.getId() + ".pdf", c.getId());
+        }
+        testoCvRepository.saveAndFlush(TestoCv.inCoda(tutte.get(1).getId()));
+
+        // Act: blocchi da 2 dopo l'ultimo id
+        List<Long> primo = candidaturaRepository.findIdConCvSenzaTesto(0, PageRequest.of(0, 2));
+        List<Long> secondo = candidaturaRepository.findIdConCvSenzaTesto(primo.get(1), PageRequest.of(0, 2));
+
+        // Assert
+        assertThat(primo).containsExactly(tutte.get(0).getId(), tutte.get(2).getId());
+        assertThat(secondo).containsExactly(tutte.get(3).getId());
+    }
+
+    @Test
+    void testIndiciCompositi() {
+        List<String> indici = jdbcTemplate.queryForList(
+            "select index_name from information_schema.indexes where table_name = 'CANDIDATURE'", String.class);
+
+        assertThat(indici).map(String::toLowerCase).contains(
+            "idx_candidature_data", "idx_candidature_stato_data", "idx_candidature_posizione_data",
+            "idx_candidature_provincia_data", "idx_candidature_stato_posizione_data");
+    }
+
+    private static Candidatura candidatura(int i, String posizione, String stato, String provincia) {
+        Candidatura c = new Candidatura();
+        c.setNome("Nome" + i);
+        c.setCognome("Cognome" + i);
+        c.setDataNascita(LocalDate.of(1990, 1, 1));
+        c.setLuogoNascita("Roma");
+        c.setEmail("candidato" + i + "@example.com");
+        c.setTelefono("333123456" + i);
+        c.setIndirizzo("Via Roma " + i);
+        c.setCitta("Roma");
+        c.setProvincia(provincia);
+        c.setCap("00100");
+        c.setPosizioneRichiesta(posizione);
+        c.setDisponibilita("Immediata");
+        c.setStato(stato);
+        return c;
+    }
+}
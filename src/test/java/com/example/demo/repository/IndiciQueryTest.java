@@ -0,0 +1,240 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Campagna;
+import com.example.demo.model.Candidatura;
+import com.example.demo.model.TestoCv;
+import com.example.demo.support.DatiSinteticiGenerator;
+import org.assertj.core.api.SoftAssertions;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Verifica con EXPLAIN di H2 che ogni query dei repository usi un indice
+ * (migrazione V3__indici_query) sul dataset sintetico dei benchmark.
+ *
+ * Lo schema è quello creato da Flyway, non da Hibernate: il test fallisce se
+ * una migrazione perde un indice o se una query cambia forma e non lo usa più.
+ * L'SQL è quello generato davvero da Hibernate, letto da uno StatementInspector
+ * e rieseguito come EXPLAIN.
+ *
+ * ESCLUSE:
+ * - findAll, findById e gli altri metodi ereditati da JpaRepository
+ *   (lettura completa o chiave primaria)
+ * - findByPosizioneRichiestaContainingIgnoreCase: LIKE '%...%' non può usare
+ *   un B-tree, la ricerca per testo passa da IndiceCandidature
+ * - findByCandidaturaIdInAndStato e gli update per id: chiave primaria
+ */
+@DataJpaTest
+class IndiciQueryTest {
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private ContattoRepository contattoRepository;
+
+    @Autowired
+    private LavoroRepository lavoroRepository;
+
+    @Autowired
+    private CandidaturaRepository candidaturaRepository;
+
+    @Autowired
+    private CampagnaRepository campagnaRepository;
+
+    @Autowired
+    private TestoCvRepository testoCvRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RegistroSql registroSql;
+
+    private final LocalDateTime adesso = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        // Stesse proporzioni di DatabaseSintetico con 1000 appuntamenti
+        DatiSinteticiGenerator generatore = new DatiSinteticiGenerator(42L);
+        appuntamentoRepository.saveAll(generatore.appuntamenti(1000));
+        contattoRepository.saveAll(generatore.contatti(200));
+        lavoroRepository.saveAll(generatore.lavori(50));
+        List<Candidatura> candidature = candidaturaRepository.saveAll(generatore.candidature(200));
+        testoCvRepository.saveAll(candidature.stream().map(c -> TestoCv.inCoda(c.getId())).toList());
+        appuntamentoRepository.flush();
+    }
+
+    @Test
+    void testAppuntamentoRepository_OgniQueryUsaUnIndice() {
+        SoftAssertions verifiche = new SoftAssertions();
+        Appuntamento.StatoAppuntamento confermato = Appuntamento.StatoAppuntamento.CONFERMATO;
+
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_EMAIL_DATA",
+            () -> appuntamentoRepository.findByEmailOrderByDataAppuntamentoDesc("mario.rossi0@example.com"));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_STATO_DATA",
+            () -> appuntamentoRepository.findByStatoOrderByDataAppuntamentoAsc(confermato));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_DATA",
+            () -> appuntamentoRepository.findByDataAppuntamentoBetween(adesso, adesso.plusDays(7)));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_STATO_DATA",
+            () -> appuntamentoRepository.findByStatoAndDataAppuntamentoBetweenOrderByDataAppuntamentoAsc(confermato,
+                adesso.minusDays(30), adesso.plusDays(180)));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_STATO_DATA",
+            () -> appuntamentoRepository.findDestinatariCampagna(confermato, adesso.minusYears(1), adesso, "",
+                PageRequest.ofSize(100)));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_STATO_DATA",
+            () -> appuntamentoRepository.countDestinatariCampagna(confermato, adesso.minusYears(1), adesso));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_STATO_DATA",
+            () -> appuntamentoRepository.countByStato(confermato));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_STATO_DATA",
+            () -> appuntamentoRepository.countByStatoAndMotivazioneRifiutoIsNotNull(Appuntamento.StatoAppuntamento.ANNULLATO));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_CREAZIONE",
+            () -> appuntamentoRepository.countCreatiTra(adesso.minusMonths(1), adesso));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_SERVIZIO",
+            () -> appuntamentoRepository.findServiziPiuRichiesti(PageRequest.ofSize(5)));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_CREAZIONE",
+            () -> appuntamentoRepository.contaPerMeseEStato(adesso.minusMonths(6)));
+        usaIndice(verifiche, "IDX_APPUNTAMENTO_DATA",
+            () -> appuntamentoRepository.findByDataAppuntamentoGreaterThanEqualOrderByDataAppuntamentoAsc(adesso,
+                PageRequest.ofSize(8)));
+
+        verifiche.assertAll();
+    }
+
+    @Test
+    void testContattoELavoroRepository_OgniQueryUsaUnIndice() {
+        SoftAssertions verifiche = new SoftAssertions();
+
+        usaIndice(verifiche, "IDX_CONTATTO_LETTO_DATA", () -> contattoRepository.findByLettoOrderByDataInvioDesc(false));
+        usaIndice(verifiche, "IDX_CONTATTO_LETTO_DATA",
+            () -> contattoRepository.findByLettoOrderByDataInvioDesc(false, PageRequest.ofSize(5)));
+        usaIndice(verifiche, "IDX_CONTATTO_DATA", () -> contattoRepository.findAllByOrderByDataInvioDesc());
+        usaIndice(verifiche, "IDX_CONTATTO_LETTO_DATA", () -> contattoRepository.countByLetto(false));
+
+        usaIndice(verifiche, "IDX_LAVORO_PUBBLICATO_DATA", () -> lavoroRepository.findByPubblicatoOrderByDataFineDesc(true));
+        usaIndice(verifiche, "IDX_LAVORO_CATEGORIA_DATA",
+            () -> lavoroRepository.findByCategoriaOrderByDataFineDesc("Ristrutturazioni"));
+        usaIndice(verifiche, "IDX_LAVORO_PUBBLICATO_DATA", () -> lavoroRepository.countByPubblicato(true));
+
+        verifiche.assertAll();
+    }
+
+    @Test
+    void testCandidaturaRepository_OgniQueryUsaUnIndice() {
+        SoftAssertions verifiche = new SoftAssertions();
+
+        usaIndice(verifiche, "IDX_CANDIDATURE_STATO_DATA", () -> candidaturaRepository.findByStatoOrderByDataInvioDesc("Nuovo"));
+        usaIndice(verifiche, "IDX_CANDIDATURE_DATA",
+            () -> candidaturaRepository.findByDataInvioBetweenOrderByDataInvioDesc(adesso.minusDays(30), adesso));
+        usaIndice(verifiche, "IDX_CANDIDATURE_DATA", () -> candidaturaRepository.findAllByOrderByDataInvioDesc());
+        usaIndice(verifiche, "IDX_CANDIDATURE_STATO_DATA", () -> candidaturaRepository.countByStato("Nuovo"));
+        usaIndice(verifiche, "IDX_CANDIDATURE_CODICE_FISCALE",
+            () -> candidaturaRepository.existsByCodiceFiscale("RSSMRA80A01L219X"));
+        usaIndice(verifiche, "IDX_CANDIDATURE_EMAIL_DATA",
+            () -> candidaturaRepository.findByEmailOrderByDataInvioDesc("mario.rossi0@example.com"));
+        // H2 non cerca "is not null" in un indice: scorre idx_candidature_data già ordinato
+        // (nessun sort, nessuna lettura della tabella). PostgreSQL usa idx_candidature_duplicato_data.
+        usaIndice(verifiche, "IDX_CANDIDATURE_DATA",
+            () -> candidaturaRepository.trovaPagina(new FiltroCandidature(null, null, null, null, null, true), null, null, 50));
+        usaIndice(verifiche, "IDX_CANDIDATURE_DUPLICATO_DATA",
+            () -> candidaturaRepository.countByPossibileDuplicatoDiIsNotNull());
+        usaIndice(verifiche, "IDX_CANDIDATURE_STATO_DATA",
+            () -> candidaturaRepository.findDestinatariCampagna("Nuovo", "", PageRequest.ofSize(100)));
+        usaIndice(verifiche, "IDX_CANDIDATURE_STATO_DATA", () -> candidaturaRepository.countDestinatariCampagna("Nuovo"));
+        usaIndice(verifiche, "IDX_CANDIDATURE_DATA",
+            () -> candidaturaRepository.trovaPagina(FiltroCandidature.nessuno(), adesso, 100L, 50));
+        usaIndice(verifiche, "IDX_CANDIDATURE_STATO_POSIZIONE_DATA",
+            () -> candidaturaRepository.trovaPagina(new FiltroCandidature("Nuovo", "Muratore", null, null, null), null, null, 50));
+
+        verifiche.assertAll();
+    }
+
+    @Test
+    void testCampagnaETestoCvRepository_OgniQueryUsaUnIndice() {
+        SoftAssertions verifiche = new SoftAssertions();
+
+        usaIndice(verifiche, "IDX_CAMPAGNE_CREAZIONE", () -> campagnaRepository.findAllByOrderByDataCreazioneDesc());
+        usaIndice(verifiche, "IDX_CAMPAGNE_STATO",
+            () -> campagnaRepository.findByStato(Campagna.StatoCampagna.IN_CORSO));
+
+        usaIndice(verifiche, "IDX_TESTI_CV_STATO_TENTATIVO",
+            () -> testoCvRepository.findByStatoAndProssimoTentativoLessThanEqualOrderByProssimoTentativo(
+                TestoCv.StatoEstrazione.IN_CODA, adesso, PageRequest.ofSize(20)));
+        usaIndice(verifiche, "IDX_TESTI_CV_STATO_TENTATIVO", () -> testoCvRepository.countByStato(TestoCv.StatoEstrazione.IN_CODA));
+
+        verifiche.assertAll();
+    }
+
+    /**
+     * Esegue la query del repository, poi EXPLAIN sullo stesso SQL: il piano
+     * deve passare dall'indice atteso e non leggere l'intera tabella.
+     */
+    private void usaIndice(SoftAssertions verifiche, String indice, Runnable query) {
+        registroSql.svuota();
+        query.run();
+        List<String> select = registroSql.select();
+        verifiche.assertThat(select).as("SQL di %s", indice).isNotEmpty();
+        for (String sql : select) {
+            String piano = explain(sql);
+            verifiche.assertThat(piano).as(sql).contains("PUBLIC." + indice).doesNotContain("tableScan");
+        }
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute("explain " + sql, (PreparedStatement istruzione) -> {
+            // H2 sceglie il piano senza guardare i valori dei parametri
+            for (int i = 1; i <= istruzione.getParameterMetaData().getParameterCount(); i++) {
+                istruzione.setObject(i, null);
+            }
+            try (ResultSet piano = istruzione.executeQuery()) {
+                piano.next();
+                return piano.getString(1);
+            }
+        });
+    }
+
+    /**
+     * Registra le istruzioni SQL che Hibernate invia al database.
+     */
+    @TestConfiguration
+    static class RegistroSql implements StatementInspector {
+
+        private final List<String> istruzioni = new CopyOnWriteArrayList<>();
+
+        @Bean
+        HibernatePropertiesCustomizer registraSql() {
+            return proprieta -> proprieta.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+        }
+
+        @Override
+        public String inspect(String sql) {
+            istruzioni.add(sql);
+            return sql;
+        }
+
+        void svuota() {
+            istruzioni.clear();
+        }
+
+        List<String> select() {
+            return new ArrayList<>(istruzioni.stream().filter(sql -> sql.strip().startsWith("select")).toList());
+        }
+    }
+}
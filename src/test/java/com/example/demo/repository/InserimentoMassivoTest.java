@@ -0,0 +1,96 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Lavoro;
+import com.example.demo.support.DatiSinteticiGenerator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test per InserimentoMassivo: gli INSERT devono partire a blocchi.
+ *
+ * Le statistiche di Hibernate contano le istruzioni preparate: con il batch
+ * JDBC e gli id da sequenza sono circa 2 ogni 50 righe (un blocco di INSERT
+ * e una chiamata alla sequenza), con IDENTITY sarebbero una per riga.
+ */
+@DataJpaTest
+class InserimentoMassivoTest {
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private LavoroRepository lavoroRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final DatiSinteticiGenerator generatore = new DatiSinteticiGenerator(42L);
+
+    private Statistics statistiche;
+
+    @BeforeEach
+    void setUp() {
+        statistiche = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiche.clear();
+    }
+
+    @Test
+    void testInserisciTutti_AppuntamentiInBatch() {
+        // Arrange
+        List<Appuntamento> appuntamenti = generatore.appuntamenti(1000);
+
+        // Act
+        int inserite = appuntamentoRepository.inserisciTutti(appuntamenti);
+
+        // Assert
+        assertThat(inserite).isEqualTo(1000);
+        assertThat(statistiche.getEntityInsertCount()).isEqualTo(1000);
+        assertThat(statistiche.getPrepareStatementCount()).isLessThanOrEqualTo(45);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from appuntamento", Long.class))
+            .isEqualTo(1000);
+        assertThat(appuntamenti).extracting(Appuntamento::getId).doesNotContainNull().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void testInserisciTutti_LavoriConFotoInBatch() {
+        // Arrange
+        List<Lavoro> lavori = generatore.lavori(200);
+        long foto = lavori.stream().mapToLong(l -> l.getFotoPrima().size() + l.getFotoDopo().size()).sum();
+
+        // Act
+        lavoroRepository.inserisciTutti(lavori);
+
+        // Assert: lavori e righe delle due collezioni, ciascuno a blocchi
+        assertThat(jdbcTemplate.queryForObject(
+            "select (select count(*) from lavoro_foto_prima) + (select count(*) from lavoro_foto_dopo)", Long.class))
+            .isEqualTo(foto);
+        assertThat(statistiche.getPrepareStatementCount()).isLessThan(40);
+    }
+
+    @Test
+    void testInserisciTutti_NonRiempieLaCacheDiSecondoLivello() {
+        // Arrange
+        List<Lavoro> lavori = generatore.lavori(10);
+
+        // Act
+        lavoroRepository.inserisciTutti(lavori);
+
+        // Assert
+        assertThat(statistiche.getSecondLevelCachePutCount()).isZero();
+        assertThat(entityManagerFactory.getCache().contains(Lavoro.class, lavori.get(0).getId())).isFalse();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Campagna;
+import com.example.demo.model.Candidatura;
+import com.example.demo.support.DatiSinteticiGenerator;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test dell'aggiornamento di un database già in uso prima di Flyway.
+ *
+ * Il database parte dallo schema che Hibernate creava con ddl-auto=update
+ * (db/schema-prima-di-flyway-h2.sql) con qualche riga già salvata. All'avvio
+ * Flyway lo registra alla versione 1 e applica le migrazioni successive;
+ * Hibernate poi valida le entità (ddl-auto=validate): se V1 contenesse
+ * tabelle o colonne che quei database non hanno, il contesto non partirebbe.
+ */
+@DataJpaTest(properties = {
+    "spring.flyway.baseline-on-migrate=true",
+    "spring.flyway.baseline-version=1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MigrazioneDaSchemaEsistenteTest {
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private CandidaturaRepository candidaturaRepository;
+
+    @Autowired
+    private CampagnaRepository campagnaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void databaseEsistente(DynamicPropertyRegistry registry) throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:esistente-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        h2.setUser("sa");
+        try (Connection connessione = h2.getConnection()) {
+            ScriptUtils.executeSqlScript(connessione, new ClassPathResource("db/schema-prima-di-flyway-h2.sql"));
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(h2);
+        for (String nome : List.of("Anna", "Luca")) {
+            jdbc.update("insert into appuntamento (nome_cliente, cognome_cliente, email, telefono, tipo_servizio, "
+                + "data_appuntamento, data_creazione, stato) values (?, 'Bianchi', 'cliente@example.com', "
+                + "'3330000001', 'Tinteggiatura', timestamp '2025-05-10 09:00:00', timestamp '2025-05-01 10:00:00', "
+                + "'CONFERMATO')", nome);
+        }
+        jdbc.update("insert into candidature (nome, cognome, email, telefono, data_nascita, luogo_nascita, indirizzo, "
+            + "citta, cap, provincia, posizione_richiesta, disponibilita, data_invio, stato, privacy_consent, "
+            + "data_processing_consent, non_ha_codice_fiscale) values ('Marco', 'Neri', 'marco@example.com', "
+            + "'3330000003', date '1990-01-01', 'Roma', 'Via Po 1', 'Roma', '00100', 'RM', 'Muratore', 'Immediata', "
+            + "timestamp '2025-05-04 10:00:00', 'NUOVA', true, true, false)");
+        registry.add("spring.datasource.url", h2::getURL);
+    }
+
+    @Test
+    void testAvvio_BaselineVersione1PoiMigrazioniSuccessive() {
+        // Act
+        List<String> storico = jdbcTemplate.queryForList(
+            "select \"version\" || ':' || \"success\" from \"flyway_schema_history\" "
+                + "where \"version\" is not null order by \"installed_rank\"", String.class);
+        String primaVoce = jdbcTemplate.queryForObject(
+            "select \"description\" from \"flyway_schema_history\" where \"version\" = '1'", String.class);
+
+        // Assert
+        assertThat(storico).containsExactly("1:TRUE", "2:TRUE", "3:TRUE", "4:TRUE");
+        assertThat(primaVoce).isEqualTo("<< Flyway Baseline >>");
+    }
+
+    @Test
+    void testRigheEsistenti_LeggibiliENuoviIdDopoQuelliEsistenti() {
+        // Arrange
+        DatiSinteticiGenerator generatore = new DatiSinteticiGenerator(42L);
+        Candidatura esistente = candidaturaRepository.findAll().get(0);
+        Candidatura nuova = generatore.candidature(1).get(0);
+        nuova.setPossibileDuplicatoDi(esistente.getId());
+        nuova.setSomiglianzaDuplicato(0.9);
+        Campagna campagna = new Campagna();
+        campagna.setNome("Primavera");
+        campagna.setTipoDestinatari(Campagna.TipoDestinatari.CLIENTI);
+        campagna.setFiltroStato("CONFERMATO");
+        campagna.setOggetto("Offerta");
+        campagna.setTesto("Testo");
+
+        // Act
+        Appuntamento appuntamento = appuntamentoRepository.saveAndFlush(generatore.appuntamentoValido());
+        candidaturaRepository.saveAndFlush(nuova);
+        campagnaRepository.saveAndFlush(campagna);
+
+        // Assert
+        assertThat(appuntamentoRepository.findAll()).extracting(Appuntamento::getNomeCliente)
+            .contains("Anna", "Luca");
+        assertThat(appuntamento.getId()).isGreaterThan(2L);
+        assertThat(nuova.getId()).isGreaterThan(esistente.getId());
+        assertThat(esistente.getPossibileDuplicatoDi()).isNull();
+        assertThat(campagna.getId()).isNotNull();
+    }
+}
@@ -2,12 +2,16 @@ package com.example.demo.service;
 
 import com.example.demo.model.Appuntamento;
 import com.example.demo.repository.AppuntamentoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -15,6 +19,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -36,6 +41,12 @@ class AppuntamentoServiceTest {
     @Mock
     private WhatsAppService whatsAppService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private AppuntamentoService appuntamentoService;
 
@@ -70,6 +81,26 @@ class AppuntamentoServiceTest {
 
         // Verifica che il repository save sia stato chiamato
         verify(appuntamentoRepository, times(1)).save(appuntamentoTest);
+        assertThat(meterRegistry.get("prenotazione.creazione").tag("esito", "creata").timer().count()).isEqualTo(1);
+        verify(eventPublisher).publishEvent(new AppuntamentoCreato(appuntamentoTest));
+    }
+
+    @Test
+    void testCreaAppuntamento_SlotOccupato_RegistraEsito() {
+        // Arrange: slot già preso da un appuntamento confermato
+        Appuntamento esistente = new Appuntamento();
+        esistente.setDataAppuntamento(appuntamentoTest.getDataAppuntamento());
+        esistente.setStato(Appuntamento.StatoAppuntamento.CONFERMATO);
+        when(appuntamentoRepository.findAll()).thenReturn(List.of(esistente));
+
+        // Act & Assert
+        assertThatThrownBy(() -> appuntamentoService.creaAppuntamento(appuntamentoTest))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("FASCIA_ORARIA_NON_DISPONIBILE");
+        assertThat(meterRegistry.get("prenotazione.creazione").tag("esito", "slot_occupato").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("slot.verifica").tag("esito", "occupato").timer().count()).isEqualTo(1);
+        verify(appuntamentoRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
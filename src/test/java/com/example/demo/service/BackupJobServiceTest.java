@@ -0,0 +1,166 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitari per BackupJobService.
+ *
+ * Verifica il comportamento single-flight (click ripetuti = un solo job),
+ * il calcolo dell'avanzamento e la verifica degli archivi in background.
+ */
+@ExtendWith(MockitoExtension.class)
+class BackupJobServiceTest {
+
+    @Mock
+    private BackupService backupService;
+
+    @Mock
+    private BackupRestoreService backupRestoreService;
+
+    @InjectMocks
+    private BackupJobService backupJobService;
+
+    @AfterEach
+    void tearDown() {
+        backupJobService.chiudi();
+    }
+
+    @Test
+    void testClickRipetutiAvvianoUnSoloBackup() throws Exception {
+        // Arrange: il backup resta in corso finché il test non lo sblocca
+        CountDownLatch avviato = new CountDownLatch(1);
+        CountDownLatch sblocca = new CountDownLatch(1);
+        when(backupService.stimaDimensione()).thenReturn(new BackupService.Stima(1000, 4));
+        when(backupService.backupManuale(any())).thenAnswer(invocation -> {
+            BackupService.Avanzamento avanzamento = invocation.getArgument(0);
+            avanzamento.aggiorna(250, 1);
+            avviato.countDown();
+            sblocca.await(5, TimeUnit.SECONDS);
+            avanzamento.aggiorna(1000, 4);
+            return true;
+        });
+
+        // Act
+        BackupJobService.StatoBackup primo = backupJobService.avvia();
+        assertThat(avviato.await(5, TimeUnit.SECONDS)).isTrue();
+        BackupJobService.StatoBackup secondo = backupJobService.avvia();
+        BackupJobService.StatoBackup inCorso = backupJobService.stato();
+
+        // Assert
+        assertThat(secondo.id()).isEqualTo(primo.id());
+        assertThat(inCorso.stato()).isEqualTo(BackupJobService.StatoJob.IN_CORSO);
+        assertThat(inCorso.bytesElaborati()).isEqualTo(250);
+        assertThat(inCorso.percentuale()).isEqualTo(25);
+        assertThat(inCorso.etaSecondi()).isNotNull();
+
+        sblocca.countDown();
+        BackupJobService.StatoBackup finale = attendiFine();
+        assertThat(finale.stato()).isEqualTo(BackupJobService.StatoJob.COMPLETATO);
+        assertThat(finale.percentuale()).isEqualTo(100);
+        assertThat(finale.fileElaborati()).isEqualTo(4);
+        verify(backupService, times(1)).backupManuale(any());
+    }
+
+    @Test
+    void testNuovoJobDopoBackupConcluso() throws Exception {
+        // Arrange
+        when(backupService.stimaDimensione()).thenReturn(new BackupService.Stima(0, 0));
+        when(backupService.backupManuale(any())).thenReturn(false, true);
+
+        // Act
+        long primoId = backupJobService.avvia().id();
+        BackupJobService.StatoBackup primo = attendiFine();
+        long secondoId = backupJobService.avvia().id();
+        BackupJobService.StatoBackup secondo = attendiFine();
+
+        // Assert
+        assertThat(primo.stato()).isEqualTo(BackupJobService.StatoJob.FALLITO);
+        assertThat(secondoId).isGreaterThan(primoId);
+        assertThat(secondo.stato()).isEqualTo(BackupJobService.StatoJob.COMPLETATO);
+    }
+
+    @Test
+    void testVerifica_InBackgroundConAvanzamentoEdEsito() throws Exception {
+        // Arrange: la verifica resta in corso finché il test non la sblocca
+        Path archivio = Path.of("backups", "2025-10-16_03-00_uploads.zip");
+        CountDownLatch avviata = new CountDownLatch(1);
+        CountDownLatch sblocca = new CountDownLatch(1);
+        when(backupRestoreService.risolviArchivio("2025-10-16_03-00_uploads.zip")).thenReturn(archivio);
+        when(backupRestoreService.stimaVerifica(List.of(archivio))).thenReturn(new BackupService.Stima(2000, 10));
+        when(backupRestoreService.verificaArchivio(eq(archivio), any())).thenAnswer(invocation -> {
+            BackupService.Avanzamento avanzamento = invocation.getArgument(1);
+            avanzamento.aggiorna(500, 3);
+            avviata.countDown();
+            sblocca.await(5, TimeUnit.SECONDS);
+            return esito("2025-10-16_03-00_uploads.zip", List.of());
+        });
+
+        // Act
+        BackupJobService.StatoBackup avvio = backupJobService.avviaVerifica("2025-10-16_03-00_uploads.zip");
+        assertThat(avviata.await(5, TimeUnit.SECONDS)).isTrue();
+        BackupJobService.StatoBackup inCorso = backupJobService.stato();
+        BackupJobService.StatoBackup backup = backupJobService.avvia();
+        sblocca.countDown();
+        BackupJobService.StatoBackup finale = attendiFine();
+
+        // Assert: nessun backup avviato durante la verifica (un job alla volta)
+        assertThat(avvio.tipo()).isEqualTo(BackupJobService.TipoJob.VERIFICA);
+        assertThat(inCorso.percentuale()).isEqualTo(25);
+        assertThat(inCorso.fileElaborati()).isEqualTo(3);
+        assertThat(backup.id()).isEqualTo(avvio.id());
+        assertThat(finale.stato()).isEqualTo(BackupJobService.StatoJob.COMPLETATO);
+        assertThat(finale.esito()).isEqualTo("✅ 2025-10-16_03-00_uploads.zip (10 file verificati)");
+        verify(backupService, never()).backupManuale(any());
+    }
+
+    @Test
+    void testVerificaUltimi_ArchivioCorrotto_JobFallitoConErrori() throws Exception {
+        // Arrange
+        List<Path> ultimi = List.of(Path.of("backups", "db.zip"), Path.of("backups", "up.zip"));
+        when(backupRestoreService.ultimiBackup()).thenReturn(ultimi);
+        when(backupRestoreService.stimaVerifica(ultimi)).thenReturn(new BackupService.Stima(100, 2));
+        when(backupRestoreService.verificaUltimi(any())).thenReturn(Map.of(
+            "uploads", esito("up.zip", List.of("foto.jpg: SHA-256 diverso dal manifest"))));
+
+        // Act
+        backupJobService.avviaVerifica(null);
+        BackupJobService.StatoBackup finale = attendiFine();
+
+        // Assert
+        assertThat(finale.tipo()).isEqualTo(BackupJobService.TipoJob.VERIFICA);
+        assertThat(finale.stato()).isEqualTo(BackupJobService.StatoJob.FALLITO);
+        assertThat(finale.esito()).isEqualTo("❌ up.zip: [foto.jpg: SHA-256 diverso dal manifest]");
+    }
+
+    private static BackupRestoreService.EsitoVerifica esito(String archivio, List<String> errori) {
+        return new BackupRestoreService.EsitoVerifica(archivio, errori.isEmpty(), true, 10, 4000, errori,
+            Duration.ofMillis(5), LocalDateTime.now());
+    }
+
+    private BackupJobService.StatoBackup attendiFine() throws InterruptedException {
+        long scadenza = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        BackupJobService.StatoBackup stato = backupJobService.stato();
+        while (stato.stato() == BackupJobService.StatoJob.IN_CORSO && System.nanoTime() < scadenza) {
+            Thread.sleep(10);
+            stato = backupJobService.stato();
+        }
+        return stato;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.repository.CandidaturaRepository;
+import com.example.demo.support.DatiSinteticiGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test su H2 degli indici delle candidature dopo il ripristino del database.
+ *
+ * Il ripristino riscrive il database fuori da Hibernate: ricerca full-text
+ * e controllo dei duplicati devono rispondere con le candidature
+ * dell'archivio, non con quelle presenti prima del ripristino.
+ * Il database ha un nome suo perché il ripristino lo svuota.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:ripristino-indici")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BackupRestoreService.class, CalendarioService.class, IndiceCandidature.class, IndiceDuplicati.class,
+    SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BackupRestoreServiceIndiciTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private BackupRestoreService backupRestoreService;
+
+    @Autowired
+    private IndiceCandidature indiceCandidature;
+
+    @Autowired
+    private IndiceDuplicati indiceDuplicati;
+
+    @Autowired
+    private CandidaturaRepository candidaturaRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Set<Path> backupEsistenti;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        backupEsistenti = backupPresenti();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        candidaturaRepository.deleteAll();
+        // Copie di sicurezza scritte dal ripristino in backups/
+        for (Path sicurezza : backupPresenti()) {
+            if (!backupEsistenti.contains(sicurezza)) {
+                Files.delete(sicurezza);
+            }
+        }
+    }
+
+    @Test
+    void testRipristinoDatabase_IndiciRicostruitiDaiDatiRipristinati() throws Exception {
+        // Arrange: l'archivio contiene il piastrellista, il database in uso solo il cartongessista
+        DatiSinteticiGenerator generatore = new DatiSinteticiGenerator(21L);
+        Candidatura archiviata = candidaturaRepository.save(candidatura(generatore, "piastrellista"));
+        Path archivio = creaArchivioDatabase();
+        candidaturaRepository.delete(archiviata);
+        Candidatura attuale = candidaturaRepository.save(candidatura(generatore, "cartongessista"));
+        indiceCandidature.ricostruisci();
+        indiceDuplicati.ricostruisci();
+
+        // Act
+        backupRestoreService.ripristinaDatabase(archivio);
+
+        // Assert: ricerca
+        assertThat(indiceCandidature.cerca("piastrellista", null, 10))
+            .extracting(IndiceCandidature.Risultato::id)
+            .containsExactly(archiviata.getId());
+        assertThat(indiceCandidature.cerca("cartongessista", null, 10)).isEmpty();
+
+        // Assert: duplicati (stessi dati, nuova candidatura senza ID)
+        Long idArchiviata = archiviata.getId();
+        archiviata.setId(null);
+        attuale.setId(null);
+        assertThat(indiceDuplicati.cerca(archiviata))
+            .hasValueSatisfying(sospetto -> assertThat(sospetto.id()).isEqualTo(idArchiviata));
+        assertThat(indiceDuplicati.cerca(attuale)).isEmpty();
+        assertThat(indiceDuplicati.getNumeroDocumenti()).isEqualTo(1);
+    }
+
+    private static Candidatura candidatura(DatiSinteticiGenerator generatore, String competenza) {
+        Candidatura candidatura = generatore.candidature(1).get(0);
+        candidatura.setCompetenzeTecniche(competenza);
+        return candidatura;
+    }
+
+    /**
+     * Archivio come quello di BackupService: il contenuto attuale del database
+     * copiato in un H2 su file, compresso con il manifest.
+     */
+    private Path creaArchivioDatabase() throws Exception {
+        Path dump = tempDir.resolve("archivio.sql");
+        new JdbcTemplate(dataSource).execute("SCRIPT TO '" + dump.toAbsolutePath() + "'");
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:file:" + tempDir.resolve("archivio/servizi").toAbsolutePath().toString().replace('\\', '/'));
+        h2.setUser("sa");
+        JdbcTemplate copia = new JdbcTemplate(h2);
+        copia.execute("RUNSCRIPT FROM '" + dump.toAbsolutePath() + "'");
+        copia.execute("SHUTDOWN");
+
+        Path archivio = tempDir.resolve("2025-10-16_03-00_database.zip");
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try (OutputStream out = Files.newOutputStream(archivio);
+             ParallelZipWriter zip = new ParallelZipWriter(out, pool, 2, 6)) {
+            zip.aggiungi(tempDir.resolve("archivio/servizi.mv.db"), "servizi.mv.db");
+            zip.aggiungiManifest();
+            zip.finish();
+        } finally {
+            pool.shutdownNow();
+        }
+        return archivio;
+    }
+
+    private static Set<Path> backupPresenti() throws IOException {
+        Path dir = Path.of(BackupService.BACKUP_DIR);
+        if (!Files.isDirectory(dir)) {
+            return Set.of();
+        }
+        try (Stream<Path> file = Files.list(dir)) {
+            return file.collect(Collectors.toSet());
+        }
+    }
+}
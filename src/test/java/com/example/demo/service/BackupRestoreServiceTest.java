@@ -0,0 +1,279 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Answers;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test unitari per la verifica degli archivi di BackupRestoreService.
+ *
+ * Gli archivi vengono creati con ParallelZipWriter + manifest, esattamente
+ * come fa BackupService, e poi corrotti di proposito.
+ *
+ * Il ripristino del database usa due H2 su file nella cartella temporanea:
+ * quello "in uso", creato dalle migrazioni Flyway, e quello dell'archivio.
+ */
+class BackupRestoreServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService pool;
+    private BackupRestoreService backupRestoreService;
+    private Set<Path> backupEsistenti;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pool = Executors.newFixedThreadPool(2);
+        backupRestoreService = new BackupRestoreService();
+        backupEsistenti = backupPresenti();
+        ReflectionTestUtils.setField(backupRestoreService, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.shutdownNow();
+        // Copie di sicurezza scritte dal ripristino del database in backups/
+        for (Path sicurezza : backupPresenti()) {
+            if (!backupEsistenti.contains(sicurezza)) {
+                Files.delete(sicurezza);
+            }
+        }
+    }
+
+    private static Set<Path> backupPresenti() throws IOException {
+        Path dir = Path.of(BackupService.BACKUP_DIR);
+        if (!Files.isDirectory(dir)) {
+            return Set.of();
+        }
+        try (Stream<Path> file = Files.list(dir)) {
+            return file.collect(Collectors.toSet());
+        }
+    }
+
+    @Test
+    void testVerifica_ArchivioIntegro() throws Exception {
+        // Arrange
+        Path archivio = creaArchivio(true);
+
+        // Act
+        BackupRestoreService.EsitoVerifica esito = backupRestoreService.verificaArchivio(archivio);
+
+        // Assert
+        assertThat(esito.valido()).isTrue();
+        assertThat(esito.manifestPresente()).isTrue();
+        assertThat(esito.entryVerificate()).isEqualTo(2);
+        assertThat(esito.errori()).isEmpty();
+    }
+
+    @Test
+    void testVerifica_AvanzamentoFinoAllaStima() throws Exception {
+        // Arrange
+        Path archivio = creaArchivio(true);
+        BackupService.Stima stima = backupRestoreService.stimaVerifica(List.of(archivio));
+        List<long[]> avanzamenti = new java.util.ArrayList<>();
+
+        // Act
+        backupRestoreService.verificaArchivio(archivio, (bytes, file) -> avanzamenti.add(new long[] {bytes, file}));
+
+        // Assert: una segnalazione per entry, senza superare la dimensione dell'archivio
+        assertThat(stima.file()).isEqualTo(2);
+        assertThat(avanzamenti).hasSize(2);
+        assertThat(avanzamenti.get(1)[1]).isEqualTo(2);
+        assertThat(avanzamenti.get(1)[0]).isPositive().isLessThanOrEqualTo(stima.bytes());
+    }
+
+    @Test
+    void testVerifica_ByteCorrottoRilevato() throws Exception {
+        // Arrange: altera un byte nei dati della foto (salvata STORED)
+        Path archivio = creaArchivio(true);
+        byte[] bytes = Files.readAllBytes(archivio);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(archivio, bytes);
+
+        // Act
+        BackupRestoreService.EsitoVerifica esito = backupRestoreService.verificaArchivio(archivio);
+
+        // Assert
+        assertThat(esito.valido()).isFalse();
+        assertThat(esito.errori()).isNotEmpty();
+    }
+
+    @Test
+    void testVerifica_ArchivioTroncato() throws Exception {
+        // Arrange
+        Path archivio = creaArchivio(true);
+        byte[] bytes = Files.readAllBytes(archivio);
+        Files.write(archivio, java.util.Arrays.copyOf(bytes, bytes.length - 30));
+
+        // Act
+        BackupRestoreService.EsitoVerifica esito = backupRestoreService.verificaArchivio(archivio);
+
+        // Assert
+        assertThat(esito.valido()).isFalse();
+    }
+
+    @Test
+    void testVerifica_ArchivioSenzaManifestVerificatoConCrc() throws Exception {
+        // Arrange: archivi creati prima dell'introduzione del manifest
+        Path archivio = creaArchivio(false);
+
+        // Act
+        BackupRestoreService.EsitoVerifica esito = backupRestoreService.verificaArchivio(archivio);
+
+        // Assert
+        assertThat(esito.valido()).isTrue();
+        assertThat(esito.manifestPresente()).isFalse();
+    }
+
+    @Test
+    void testRipristinoDatabase_ArchivioPrimaDiFlyway_SchemaAggiornato() throws Exception {
+        // Arrange: archivio di un database creato con ddl-auto=update, senza Flyway né sequenze
+        JdbcTemplate live = preparaDatabaseInUso();
+        Path archivio = creaArchivioDatabase(jdbc -> {
+            ScriptUtils.executeSqlScript(jdbc.getDataSource().getConnection(),
+                new ClassPathResource("db/schema-prima-di-flyway-h2.sql"));
+            jdbc.update("insert into appuntamento (id, nome_cliente, cognome_cliente, email, telefono, tipo_servizio, "
+                + "data_appuntamento, stato) values (7, 'Anna', 'Bianchi', 'anna@example.com', '3330000001', "
+                + "'Tinteggiatura', timestamp '2025-05-10 09:00:00', 'CONFERMATO')");
+        });
+
+        // Act
+        BackupRestoreService.EsitoRipristino esito = backupRestoreService.ripristinaDatabase(archivio);
+
+        // Assert: dati dell'archivio, storico Flyway e sequenze dopo gli id esistenti
+        assertThat(esito.entryRipristinate()).isEqualTo(1);
+        assertThat(live.queryForList("select nome_cliente from appuntamento", String.class)).containsExactly("Anna");
+        assertThat(live.queryForList("select \"version\" from \"flyway_schema_history\" "
+            + "where \"version\" is not null order by \"installed_rank\"", String.class))
+            .containsExactly("1", "2", "3", "4");
+        assertThat(live.queryForObject("select next value for appuntamento_seq", Long.class)).isEqualTo(57L);
+        assertThat(live.queryForObject("select count(*) from campagne", Long.class)).isZero();
+    }
+
+    @Test
+    void testRipristinoDatabase_ArchivioPiuRecente_RifiutatoSenzaToccareIDati() throws Exception {
+        // Arrange: archivio di una versione futura (migrazione 99 sconosciuta)
+        JdbcTemplate live = preparaDatabaseInUso();
+        live.update("insert into contatto (id, nome, email, messaggio, letto) values (1, 'Sara', 's@example.com', 'Ciao', false)");
+        Path archivio = creaArchivioDatabase(jdbc -> {
+            migra(jdbc.getDataSource());
+            jdbc.update("insert into \"flyway_schema_history\" (\"installed_rank\", \"version\", \"description\", "
+                + "\"type\", \"script\", \"installed_by\", \"execution_time\", \"success\") "
+                + "values (99, '99', 'futura', 'SQL', 'V99__futura.sql', 'sa', 0, true)");
+        });
+
+        // Act & Assert
+        assertThatThrownBy(() -> backupRestoreService.ripristinaDatabase(archivio))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("99");
+        assertThat(live.queryForList("select nome from contatto", String.class)).containsExactly("Sara");
+    }
+
+    /**
+     * Database "in uso" creato da Flyway come all'avvio, collegato al service.
+     */
+    private JdbcTemplate preparaDatabaseInUso() {
+        JdbcDataSource dataSource = h2(tempDir.resolve("live/servizi"));
+        Flyway flyway = migra(dataSource);
+        ReflectionTestUtils.setField(backupRestoreService, "dataSource", dataSource);
+        ReflectionTestUtils.setField(backupRestoreService, "flyway", flyway);
+        ReflectionTestUtils.setField(backupRestoreService, "dbUsername", "sa");
+        ReflectionTestUtils.setField(backupRestoreService, "dbPassword", "");
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(mock(SessionFactory.class, Answers.RETURNS_MOCKS));
+        ReflectionTestUtils.setField(backupRestoreService, "entityManagerFactory", entityManagerFactory);
+        ReflectionTestUtils.setField(backupRestoreService, "calendarioService", new CalendarioService());
+        ReflectionTestUtils.setField(backupRestoreService, "indiceCandidature", mock(IndiceCandidature.class));
+        ReflectionTestUtils.setField(backupRestoreService, "indiceDuplicati", mock(IndiceDuplicati.class));
+        return new JdbcTemplate(dataSource);
+    }
+
+    private static Flyway migra(javax.sql.DataSource dataSource) {
+        Flyway flyway = Flyway.configure()
+            .dataSource(dataSource)
+            .locations("classpath:db/migration/h2")
+            .baselineOnMigrate(true)
+            .baselineVersion("1")
+            .load();
+        flyway.migrate();
+        return flyway;
+    }
+
+    private interface Preparazione {
+        void esegui(JdbcTemplate jdbc) throws Exception;
+    }
+
+    private Path creaArchivioDatabase(Preparazione preparazione) throws Exception {
+        JdbcDataSource dataSource = h2(tempDir.resolve("archivio/servizi"));
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        preparazione.esegui(jdbc);
+        jdbc.execute("SHUTDOWN");
+
+        Path archivio = tempDir.resolve("2025-10-16_03-00_database.zip");
+        try (OutputStream out = Files.newOutputStream(archivio);
+             ParallelZipWriter zip = new ParallelZipWriter(out, pool, 2, 6)) {
+            zip.aggiungi(tempDir.resolve("archivio/servizi.mv.db"), "servizi.mv.db");
+            zip.aggiungiManifest();
+            zip.finish();
+        }
+        return archivio;
+    }
+
+    private static JdbcDataSource h2(Path file) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:file:" + file.toAbsolutePath().toString().replace('\\', '/'));
+        h2.setUser("sa");
+        return h2;
+    }
+
+    private Path creaArchivio(boolean conManifest) throws Exception {
+        Path nota = tempDir.resolve("nota.txt");
+        Files.writeString(nota, "Preventivo bagno ".repeat(500), StandardCharsets.UTF_8);
+        Path foto = tempDir.resolve("foto.jpg");
+        byte[] contenutoFoto = new byte[100_000];
+        new Random(7).nextBytes(contenutoFoto);
+        Files.write(foto, contenutoFoto);
+
+        Path archivio = tempDir.resolve("2025-10-16_03-00_uploads.zip");
+        try (OutputStream out = Files.newOutputStream(archivio);
+             ParallelZipWriter zip = new ParallelZipWriter(out, pool, 2, 6)) {
+            zip.aggiungi(nota, "nota.txt");
+            zip.aggiungi(foto, "lavori/foto.jpg");
+            if (conManifest) {
+                zip.aggiungiManifest();
+            }
+            zip.finish();
+        }
+        return archivio;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.repository.AppuntamentoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test per CalendarioService su H2.
+ *
+ * Senza transazione del test: ogni save() fa commit, così i listener
+ * post-commit di Hibernate scattano come in produzione. Le statistiche di
+ * Hibernate contano le query: un feed servito dalla memoria non ne fa.
+ */
+@DataJpaTest(properties = "calendario.token=segreto-di-prova")
+@Import(CalendarioService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CalendarioServiceTest {
+
+    @Autowired
+    private CalendarioService calendarioService;
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final LocalDate oggi = LocalDate.now(ZoneId.of("Europe/Rome"));
+
+    @AfterEach
+    void tearDown() {
+        appuntamentoRepository.deleteAll();
+    }
+
+    @Test
+    void testFeed_SoloConfermatiNellaFinestra() {
+        // Arrange
+        Appuntamento confermato = appuntamentoRepository.save(appuntamento("Mario", Appuntamento.StatoAppuntamento.CONFERMATO,
+            oggi.plusDays(3).atTime(9, 30)));
+        appuntamentoRepository.save(appuntamento("Attesa", Appuntamento.StatoAppuntamento.IN_ATTESA,
+            oggi.plusDays(3).atTime(11, 0)));
+        appuntamentoRepository.save(appuntamento("Vecchio", Appuntamento.StatoAppuntamento.CONFERMATO,
+            oggi.minusDays(31).atTime(11, 0)));
+        appuntamentoRepository.save(appuntamento("Lontano", Appuntamento.StatoAppuntamento.CONFERMATO,
+            oggi.plusDays(181).atTime(11, 0)));
+
+        // Act
+        String ics = new String(calendarioService.getFeed().corpo(), StandardCharsets.UTF_8);
+
+        // Assert
+        assertThat(ics).startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n").endsWith("END:VCALENDAR\r\n");
+        assertThat(ics).containsOnlyOnce("BEGIN:VEVENT");
+        assertThat(ics).contains("UID:appuntamento-" + confermato.getId() + "@servizi-edili-elvis\r\n");
+        assertThat(ics).contains("SUMMARY:Ristrutturazione bagno - Mario Rossi\r\n");
+        assertThat(ics).contains("LOCATION:Via Roma 1\\, Milano\r\n");
+        assertThat(ics).contains("STATUS:CONFIRMED\r\n");
+        assertThat(ics).doesNotContain("Attesa", "Vecchio", "Lontano");
+
+        // Orari in UTC: 9:30 a Roma sono le 7:30 (ora legale) o le 8:30
+        String ora = confermato.getDataAppuntamento().atZone(ZoneId.of("Europe/Rome"))
+            .withZoneSameInstant(ZoneId.of("UTC")).toLocalTime().toString().replace(":", "");
+        assertThat(ics).contains("DTSTART:" + oggi.plusDays(3).toString().replace("-", "") + "T" + ora + "00Z\r\n");
+    }
+
+    @Test
+    void testTestoLungo_EscapeEPiegaturaA75Byte() {
+        // Arrange: accenti (2 byte) ed emoji (4 byte) non vanno spezzati
+        Appuntamento appuntamento = appuntamento("Niccolò", Appuntamento.StatoAppuntamento.CONFERMATO,
+            oggi.plusDays(1).atTime(8, 0));
+        appuntamento.setDescrizione("Perdita; sotto il lavandino\\doccia\n".repeat(3) + "àèìòù 🏠".repeat(20));
+        appuntamentoRepository.save(appuntamento);
+
+        // Act
+        String ics = new String(calendarioService.getFeed().corpo(), StandardCharsets.UTF_8);
+
+        // Assert
+        for (String riga : ics.split("\r\n")) {
+            assertThat(riga.getBytes(StandardCharsets.UTF_8).length).isLessThanOrEqualTo(75);
+        }
+        String descrizione = ics.replace("\r\n ", "");
+        assertThat(descrizione).contains("Perdita\\; sotto il lavandino\\\\doccia\\nPerdita");
+        assertThat(descrizione).contains("àèìòù 🏠".repeat(20));
+    }
+
+    @Test
+    void testSecondaRichiesta_NessunaQueryStessoEtag() {
+        // Arrange
+        appuntamentoRepository.save(appuntamento("Mario", Appuntamento.StatoAppuntamento.CONFERMATO,
+            oggi.plusDays(2).atTime(10, 0)));
+        CalendarioService.Feed primo = calendarioService.getFeed();
+        Statistics statistiche = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiche.clear();
+
+        // Act
+        CalendarioService.Feed secondo = calendarioService.getFeed();
+
+        // Assert
+        assertThat(secondo).isSameAs(primo);
+        assertThat(statistiche.getPrepareStatementCount()).isZero();
+        assertThat(primo.etag()).matches("\"[0-9a-f]{32}\"");
+    }
+
+    @Test
+    void testModificaCommittata_RigeneraFeed() {
+        // Arrange
+        Appuntamento appuntamento = appuntamentoRepository.save(appuntamento("Mario",
+            Appuntamento.StatoAppuntamento.IN_ATTESA, oggi.plusDays(2).atTime(10, 0)));
+        CalendarioService.Feed vuoto = calendarioService.getFeed();
+
+        // Act: conferma dell'appuntamento (commit in save)
+        appuntamento.setStato(Appuntamento.StatoAppuntamento.CONFERMATO);
+        appuntamentoRepository.save(appuntamento);
+        CalendarioService.Feed dopoConferma = calendarioService.getFeed();
+
+        // Assert
+        assertThat(vuoto.corpo()).asString(StandardCharsets.UTF_8).doesNotContain("BEGIN:VEVENT");
+        assertThat(dopoConferma.etag()).isNotEqualTo(vuoto.etag());
+        assertThat(dopoConferma.corpo()).asString(StandardCharsets.UTF_8).contains("SUMMARY:Ristrutturazione bagno - Mario Rossi");
+
+        // Stesso contenuto dopo un'invalidazione: stesso ETag, i client ricevono ancora 304
+        calendarioService.invalida();
+        CalendarioService.Feed rigenerato = calendarioService.getFeed();
+        assertThat(rigenerato).isNotSameAs(dopoConferma);
+        assertThat(rigenerato.etag()).isEqualTo(dopoConferma.etag());
+    }
+
+    @Test
+    void testIsTokenValido() {
+        // Act & Assert
+        assertThat(calendarioService.isTokenValido("segreto-di-prova")).isTrue();
+        assertThat(calendarioService.isTokenValido("segreto-di-prov")).isFalse();
+        assertThat(calendarioService.isTokenValido("")).isFalse();
+        assertThat(calendarioService.isTokenValido(null)).isFalse();
+    }
+
+    private static Appuntamento appuntamento(String nome, Appuntamento.StatoAppuntamento stato, LocalDateTime data) {
+        Appuntamento appuntamento = new Appuntamento();
+        appuntamento.setNomeCliente(nome);
+        appuntamento.setCognomeCliente("Rossi");
+        appuntamento.setEmail("mario.rossi@example.com");
+        appuntamento.setTelefono("3331234567");
+        appuntamento.setTipoServizio("Ristrutturazione bagno");
+        appuntamento.setIndirizzo("Via Roma 1, Milano");
+        appuntamento.setDataAppuntamento(data);
+        appuntamento.setStato(stato);
+        return appuntamento;
+    }
+}
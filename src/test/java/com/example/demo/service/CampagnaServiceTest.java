@@ -0,0 +1,202 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Campagna;
+import com.example.demo.model.DestinatarioCampagna;
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.repository.CampagnaRepository;
+import com.example.demo.repository.CandidaturaRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.InternetAddress;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitari per CampagnaService.
+ *
+ * Verifica l'invio a blocchi con cursore, il completamento,
+ * l'interruzione in caso di errore SMTP e i destinatari rifiutati.
+ */
+@ExtendWith(MockitoExtension.class)
+class CampagnaServiceTest {
+
+    @Mock
+    private CampagnaRepository campagnaRepository;
+
+    @Mock
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Mock
+    private CandidaturaRepository candidaturaRepository;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    @Spy
+    private EmailTemplateEngine templateEngine = new EmailTemplateEngine();
+
+    @InjectMocks
+    private CampagnaService campagnaService;
+
+    private Campagna campagna;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(campagnaService, "fromEmail", "noreply@example.com");
+        ReflectionTestUtils.setField(campagnaService, "dimensioneBlocco", 2);
+        ReflectionTestUtils.setField(campagnaService, "limitePerMinuto", 1000);
+        ReflectionTestUtils.setField(campagnaService, "raffica", 100);
+        ReflectionTestUtils.setField(campagnaService, "limiteGiornaliero", 1000);
+        campagnaService.inizializzaLimiti();
+
+        campagna = new Campagna();
+        campagna.setId(1L);
+        campagna.setNome("Promemoria settimana");
+        campagna.setTipoDestinatari(Campagna.TipoDestinatari.CLIENTI);
+        campagna.setFiltroStato("CONFERMATO");
+        campagna.setOggetto("I vostri appuntamenti");
+        campagna.setTesto("Vi ricordiamo gli appuntamenti della prossima settimana.");
+        campagna.setStato(Campagna.StatoCampagna.IN_CORSO);
+
+        when(campagnaRepository.findById(1L)).thenReturn(Optional.of(campagna));
+        // Il repository aggiorna il cursore come farebbe l'UPDATE sul database
+        lenient().when(campagnaRepository.registraAvanzamento(eq(1L), anyString(), anyInt(), anyInt()))
+            .thenAnswer(invocation -> {
+                campagna.setUltimoDestinatario(invocation.getArgument(1));
+                campagna.setInviati(campagna.getInviati() + (int) invocation.getArgument(2));
+                return 1;
+            });
+    }
+
+    @Test
+    void testInvioABlocchiFinoACompletamento() {
+        // Arrange: 3 destinatari, blocchi da 2
+        when(appuntamentoRepository.findDestinatariCampagna(eq(Appuntamento.StatoAppuntamento.CONFERMATO),
+                any(), any(), eq(""), any()))
+            .thenReturn(List.of(dest("a@example.com", "Anna"), dest("b@example.com", "Bruno")));
+        when(appuntamentoRepository.findDestinatariCampagna(any(), any(), any(), eq("b@example.com"), any()))
+            .thenReturn(List.of(dest("c@example.com", "Carla")));
+        when(appuntamentoRepository.findDestinatariCampagna(any(), any(), any(), eq("c@example.com"), any()))
+            .thenReturn(List.of());
+
+        // Act
+        campagnaService.esegui(1L);
+
+        // Assert
+        ArgumentCaptor<SimpleMailMessage[]> blocchi = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(mailSender, times(2)).send(blocchi.capture());
+        assertThat(blocchi.getAllValues().get(0)).hasSize(2);
+        assertThat(blocchi.getAllValues().get(0)[0].getText()).startsWith("Gentile Anna,");
+        assertThat(campagna.getInviati()).isEqualTo(3);
+        assertThat(campagna.getUltimoDestinatario()).isEqualTo("c@example.com");
+        verify(campagnaRepository).cambiaStato(eq(1L), any(), eq(Campagna.StatoCampagna.COMPLETATA), isNull(), any());
+    }
+
+    @Test
+    void testErroreSmtpInterrompeSenzaAvanzareIlCursore() {
+        // Arrange
+        when(appuntamentoRepository.findDestinatariCampagna(any(), any(), any(), eq(""), any()))
+            .thenReturn(List.of(dest("a@example.com", "Anna")));
+        doThrow(new MailSendException("Connessione rifiutata"))
+            .when(mailSender).send(any(SimpleMailMessage[].class));
+
+        // Act
+        campagnaService.esegui(1L);
+
+        // Assert
+        verify(campagnaRepository, never()).registraAvanzamento(any(), any(), anyInt(), anyInt());
+        verify(campagnaRepository).cambiaStato(eq(1L), any(), eq(Campagna.StatoCampagna.INTERROTTA),
+            contains("Connessione rifiutata"), isNull());
+    }
+
+    @Test
+    void testBloccoInteramenteRifiutato_FallitiECursoreAvanza() throws Exception {
+        // Arrange: il server rifiuta entrambi i destinatari del primo blocco (RCPT TO)
+        when(appuntamentoRepository.findDestinatariCampagna(any(), any(), any(), eq(""), any()))
+            .thenReturn(List.of(dest("x@invalido.test", "Xena"), dest("y@invalido.test", "Yuri")));
+        when(appuntamentoRepository.findDestinatariCampagna(any(), any(), any(), eq("y@invalido.test"), any()))
+            .thenReturn(List.of(dest("c@example.com", "Carla")));
+        when(appuntamentoRepository.findDestinatariCampagna(any(), any(), any(), eq("c@example.com"), any()))
+            .thenReturn(List.of());
+        doAnswer(invocation -> {
+            Object[] messaggi = invocation.getArguments();
+            if (messaggi.length < 2) {
+                return null;
+            }
+            Map<Object, Exception> falliti = new LinkedHashMap<>();
+            for (Object messaggio : messaggi) {
+                falliti.put(messaggio, new SendFailedException("550 5.1.1 User unknown", null, null, null,
+                    new InternetAddress[] {new InternetAddress(((SimpleMailMessage) messaggio).getTo()[0])}));
+            }
+            throw new MailSendException(falliti);
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        // Act
+        campagnaService.esegui(1L);
+
+        // Assert
+        verify(campagnaRepository).registraAvanzamento(1L, "y@invalido.test", 0, 2);
+        verify(campagnaRepository).registraAvanzamento(1L, "c@example.com", 1, 0);
+        verify(campagnaRepository).cambiaStato(eq(1L), any(), eq(Campagna.StatoCampagna.COMPLETATA), isNull(), any());
+        verify(campagnaRepository, never()).cambiaStato(eq(1L), any(), eq(Campagna.StatoCampagna.INTERROTTA), any(), any());
+    }
+
+    @Test
+    void testConnessioneCadutaDuranteIlBlocco_InterrompeSenzaAvanzare() {
+        // Arrange: come JavaMailSenderImpl, un rifiuto e poi la connessione persa per il resto del blocco
+        when(appuntamentoRepository.findDestinatariCampagna(any(), any(), any(), eq(""), any()))
+            .thenReturn(List.of(dest("x@invalido.test", "Xena"), dest("b@example.com", "Bruno")));
+        doAnswer(invocation -> {
+            Object[] messaggi = invocation.getArguments();
+            Map<Object, Exception> falliti = new LinkedHashMap<>();
+            falliti.put(messaggi[0], new SendFailedException("550 5.1.1 User unknown", null, null, null,
+                new InternetAddress[] {new InternetAddress("x@invalido.test")}));
+            falliti.put(messaggi[1], new MessagingException("Connection reset"));
+            throw new MailSendException(falliti);
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        // Act
+        campagnaService.esegui(1L);
+
+        // Assert
+        verify(campagnaRepository, never()).registraAvanzamento(any(), any(), anyInt(), anyInt());
+        verify(campagnaRepository).cambiaStato(eq(1L), any(), eq(Campagna.StatoCampagna.INTERROTTA),
+            contains("Connection reset"), isNull());
+    }
+
+    @Test
+    void testCampagnaInPausaNonInvia() {
+        // Arrange
+        campagna.setStato(Campagna.StatoCampagna.IN_PAUSA);
+
+        // Act
+        campagnaService.esegui(1L);
+
+        // Assert
+        verifyNoInteractions(mailSender, appuntamentoRepository);
+    }
+
+    private static DestinatarioCampagna dest(String email, String nome) {
+        return new DestinatarioCampagna(email, nome);
+    }
+}
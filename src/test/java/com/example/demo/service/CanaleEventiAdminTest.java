@@ -0,0 +1,242 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test unitari per CanaleEventiAdmin.
+ *
+ * Verifica la consegna degli eventi alle connessioni aperte, il rinvio degli
+ * eventi persi da Last-Event-ID tramite il buffer circolare, l'evento
+ * "ricarica" quando il buffer non basta o l'id è di un avvio precedente,
+ * la chiusura delle connessioni lente (completate sull'esecutore), il limite
+ * di connessioni e l'heartbeat.
+ */
+@ExtendWith(MockitoExtension.class)
+class CanaleEventiAdminTest {
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private CanaleEventiAdmin canale;
+
+    @BeforeEach
+    void setUp() {
+        // Invio sincrono: ogni evento arriva all'emitter prima che pubblica() ritorni
+        ReflectionTestUtils.setField(canale, "esecutore", (TaskExecutor) Runnable::run);
+        ReflectionTestUtils.setField(canale, "dimensioneBuffer", 5);
+        ReflectionTestUtils.setField(canale, "codaConnessione", 4);
+        ReflectionTestUtils.setField(canale, "connessioniMax", 3);
+        canale.inizializza();
+    }
+
+    @Test
+    void testPubblica_ConsegnatoAlleConnessioniAperte() {
+        // Arrange
+        EmitterRegistrato primo = new EmitterRegistrato();
+        EmitterRegistrato secondo = new EmitterRegistrato();
+        canale.registra(primo, null);
+        canale.registra(secondo, null);
+
+        // Act
+        canale.pubblica("contatto", 9L, "Mario <mario@example.com>");
+
+        // Assert: commento iniziale con tempo di riconnessione, poi l'evento
+        assertThat(primo.messaggi).hasSize(2);
+        assertThat(primo.messaggi.get(0)).contains(":connesso").contains("retry:3000");
+        assertThat(primo.messaggi.get(1)).contains("id:" + canale.idSse(1)).contains("event:contatto").contains("Mario <mario@example.com>");
+        assertThat(secondo.messaggi).hasSize(2);
+        assertThat(meterRegistry.get("admin.eventi.pubblicati").tag("tipo", "contatto").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("admin.eventi.connessioni").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void testRegistra_LastEventId_RinviaSoloGliEventiPersi() {
+        // Arrange
+        canale.pubblica("appuntamento", 1L, "primo");
+        canale.pubblica("contatto", 2L, "secondo");
+        canale.pubblica("candidatura", 3L, "terzo");
+        EmitterRegistrato emitter = new EmitterRegistrato();
+
+        // Act: il browser ha già ricevuto l'evento 1
+        canale.registra(emitter, canale.idSse(1));
+
+        // Assert
+        assertThat(emitter.messaggi).hasSize(3);
+        assertThat(emitter.messaggi.get(1)).contains("id:" + canale.idSse(2)).contains("secondo");
+        assertThat(emitter.messaggi.get(2)).contains("id:" + canale.idSse(3)).contains("terzo");
+    }
+
+    @Test
+    void testRegistra_EventiNonPiuNelBuffer_ChiedeRicarica() {
+        // Arrange: 8 eventi, buffer da 5
+        for (long i = 1; i <= 8; i++) {
+            canale.pubblica("contatto", i, "messaggio " + i);
+        }
+        EmitterRegistrato persoTroppo = new EmitterRegistrato();
+        EmitterRegistrato dopoRiavvio = new EmitterRegistrato();
+
+        // Act
+        canale.registra(persoTroppo, canale.idSse(2));
+        canale.registra(dopoRiavvio, canale.idSse(500));
+
+        // Assert
+        assertThat(persoTroppo.messaggi).hasSize(2);
+        assertThat(persoTroppo.messaggi.get(1)).contains("event:ricarica");
+        assertThat(dopoRiavvio.messaggi.get(1)).contains("event:ricarica");
+    }
+
+    @Test
+    void testRegistra_IdDiUnAvvioPrecedente_ChiedeRicaricaAncheSeIlNumeroEsiste() {
+        // Arrange: dopo il riavvio la numerazione riparte e raggiunge di nuovo 2..5
+        for (long i = 1; i <= 5; i++) {
+            canale.pubblica("contatto", i, "messaggio " + i);
+        }
+        EmitterRegistrato avvioPrecedente = new EmitterRegistrato();
+        EmitterRegistrato senzaEpoca = new EmitterRegistrato();
+
+        // Act: id ricevuti prima del riavvio (e nel vecchio formato, solo numero)
+        canale.registra(avvioPrecedente, "0-2");
+        canale.registra(senzaEpoca, "2");
+
+        // Assert: nessun evento del nuovo avvio scambiato per già ricevuto
+        assertThat(avvioPrecedente.messaggi).hasSize(2);
+        assertThat(avvioPrecedente.messaggi.get(1)).contains("event:ricarica");
+        assertThat(senzaEpoca.messaggi).hasSize(2);
+        assertThat(senzaEpoca.messaggi.get(1)).contains("event:ricarica");
+    }
+
+    @Test
+    void testPubblica_ConnessioneLentaChiusaSenzaBloccare() {
+        // Arrange: esecutore che non svuota mai le code (client che non legge)
+        ReflectionTestUtils.setField(canale, "esecutore", (TaskExecutor) compito -> { });
+        EmitterRegistrato lento = new EmitterRegistrato();
+        canale.registra(lento, null);
+
+        // Act: oltre la coda della connessione (4)
+        for (long i = 1; i <= 10; i++) {
+            canale.pubblica("appuntamento", i, "prenotazione " + i);
+        }
+
+        // Assert: connessione chiusa, eventi comunque nel buffer per la riconnessione
+        assertThat(canale.getNumeroConnessioni()).isZero();
+        assertThat(lento.messaggi).isEmpty();
+        assertThat(meterRegistry.get("admin.eventi.connessioni.chiuse").tag("motivo", "lenta").counter().count())
+            .isEqualTo(1);
+        ReflectionTestUtils.setField(canale, "esecutore", (TaskExecutor) Runnable::run);
+        EmitterRegistrato riconnesso = new EmitterRegistrato();
+        canale.registra(riconnesso, canale.idSse(8));
+        assertThat(riconnesso.messaggi).hasSize(3);
+        assertThat(riconnesso.messaggi.get(2)).contains("id:" + canale.idSse(10));
+    }
+
+    @Test
+    void testConnessioneLenta_CompletataSullEsecutoreNonDaChiPubblica() {
+        // Arrange: i task dell'esecutore restano in attesa finché il test non li esegue
+        List<Runnable> compiti = new ArrayList<>();
+        ReflectionTestUtils.setField(canale, "esecutore", (TaskExecutor) compiti::add);
+        EmitterRegistrato lento = new EmitterRegistrato();
+        canale.registra(lento, null);
+
+        // Act: la coda si riempie mentre un invio è "in corso"
+        for (long i = 1; i <= 6; i++) {
+            canale.pubblica("contatto", i, "messaggio " + i);
+        }
+
+        // Assert: chi pubblica ha solo chiuso la connessione, complete() è un task dell'esecutore
+        assertThat(canale.getNumeroConnessioni()).isZero();
+        assertThat(lento.completamenti).isZero();
+        new ArrayList<>(compiti).forEach(Runnable::run);
+        assertThat(lento.completamenti).isEqualTo(1);
+    }
+
+    @Test
+    void testRegistra_ConnessioniConcorrenti_MaiOltreIlMassimo() throws Exception {
+        // Arrange: 12 dashboard aprono insieme, massimo 3
+        ExecutorService thread = Executors.newFixedThreadPool(12);
+        CountDownLatch via = new CountDownLatch(1);
+        List<Future<Boolean>> esiti = new ArrayList<>();
+
+        // Act
+        try {
+            for (int i = 0; i < 12; i++) {
+                esiti.add(thread.submit(() -> {
+                    via.await();
+                    try {
+                        canale.registra(new EmitterRegistrato(), null);
+                        return true;
+                    } catch (ResponseStatusException e) {
+                        return false;
+                    }
+                }));
+            }
+            via.countDown();
+            int accettate = 0;
+            for (Future<Boolean> esito : esiti) {
+                accettate += esito.get() ? 1 : 0;
+            }
+
+            // Assert
+            assertThat(accettate).isEqualTo(3);
+            assertThat(canale.getNumeroConnessioni()).isEqualTo(3);
+        } finally {
+            thread.shutdownNow();
+        }
+    }
+
+    @Test
+    void testHeartbeat_InviaCommento() {
+        // Arrange
+        EmitterRegistrato emitter = new EmitterRegistrato();
+        canale.registra(emitter, null);
+
+        // Act
+        canale.heartbeat();
+
+        // Assert
+        assertThat(emitter.messaggi).hasSize(2);
+        assertThat(emitter.messaggi.get(1)).isEqualTo(":heartbeat\n\n");
+    }
+
+    /**
+     * Emitter che registra i messaggi invece di scriverli sulla risposta HTTP.
+     */
+    private static final class EmitterRegistrato extends SseEmitter {
+
+        private final List<String> messaggi = new ArrayList<>();
+        private int completamenti;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            messaggi.add(builder.build().stream()
+                .map(parte -> String.valueOf(parte.getData()))
+                .collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completamenti++;
+        }
+    }
+}
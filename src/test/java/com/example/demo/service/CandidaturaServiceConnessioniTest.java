@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.repository.CandidaturaRepository;
+import com.example.demo.support.DatiSinteticiGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test su H2 delle connessioni usate da CandidaturaService.salvaCandidatura.
+ *
+ * La richiesta ha un EntityManager aperto (open-in-view, legato a mano come
+ * fa OpenEntityManagerInViewInterceptor): dopo il salvataggio la connessione
+ * deve essere già tornata al pool, mentre la pagina di conferma viene generata.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CandidaturaService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CandidaturaServiceConnessioniTest {
+
+    @Autowired
+    private CandidaturaService candidaturaService;
+
+    @Autowired
+    private CandidaturaRepository candidaturaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockitoBean
+    private JavaMailSender mailSender;
+
+    @MockitoBean
+    private EmailTemplateEngine templateEngine;
+
+    @MockitoBean
+    private FileStorageService fileStorageService;
+
+    @MockitoBean
+    private IndiceCandidature indiceCandidature;
+
+    @MockitoBean
+    private EstrazioneCvService estrazioneCvService;
+
+    @MockitoBean
+    private IndiceDuplicati indiceDuplicati;
+
+    @Test
+    void testSalvaCandidatura_OpenInView_ConnessioneRestituitaDopoIlCommit() throws Exception {
+        // Arrange
+        Candidatura candidatura = new DatiSinteticiGenerator(11L).candidature(1).get(0);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        int attiveDopo;
+
+        // Act
+        try {
+            candidaturaService.salvaCandidatura(candidatura, null);
+            attiveDopo = ((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+
+        // Assert: EntityManager ancora aperto, ma nessuna connessione occupata
+        try {
+            assertThat(candidaturaRepository.count()).isEqualTo(1);
+            assertThat(attiveDopo).isZero();
+        } finally {
+            candidaturaRepository.deleteAll();
+        }
+    }
+}
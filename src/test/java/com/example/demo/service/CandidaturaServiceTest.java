@@ -0,0 +1,197 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.model.CandidaturaRiga;
+import com.example.demo.repository.CandidaturaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitari per CandidaturaService.
+ *
+ * Verifica l'invio a stadi: INSERT in transazione breve, email solo
+ * dopo il commit (evento CandidaturaRicevuta), pulizia del CV se l'INSERT fallisce.
+ */
+@ExtendWith(MockitoExtension.class)
+class CandidaturaServiceTest {
+
+    @Mock
+    private CandidaturaRepository candidaturaRepository;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private IndiceCandidature indiceCandidature;
+
+    @Mock
+    private EstrazioneCvService estrazioneCvService;
+
+    @Mock
+    private IndiceDuplicati indiceDuplicati;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    private CandidaturaService candidaturaService;
+
+    private Candidatura candidaturaTest;
+
+    @BeforeEach
+    void setUp() {
+        candidaturaService = new CandidaturaService(candidaturaRepository, mailSender,
+            new EmailTemplateEngine(), fileStorageService,
+            new TransactionTemplate(transactionManager), eventPublisher, indiceCandidature,
+            estrazioneCvService, indiceDuplicati);
+
+        candidaturaTest = new Candidatura();
+        candidaturaTest.setNome("Mario");
+        candidaturaTest.setCognome("Rossi");
+        candidaturaTest.setCodiceFiscale("RSSMRA80A01H501U");
+        candidaturaTest.setEmail("mario.rossi@example.com");
+        candidaturaTest.setTelefono("3331234567");
+        candidaturaTest.setPosizioneRichiesta("Muratore");
+        candidaturaTest.setDataInvio(LocalDateTime.of(2025, 10, 16, 9, 0));
+    }
+
+    @Test
+    void testSalvaCandidatura_PubblicaEventoSenzaInviareEmail() throws Exception {
+        // Arrange
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(candidaturaRepository.save(candidaturaTest)).thenAnswer(inv -> {
+            candidaturaTest.setId(7L);
+            return candidaturaTest;
+        });
+
+        // Act
+        Candidatura result = candidaturaService.salvaCandidatura(candidaturaTest, null);
+
+        // Assert: INSERT e evento nella stessa transazione, email rimandate al listener
+        assertThat(result.getId()).isEqualTo(7L);
+        ArgumentCaptor<Object> evento = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        assertThat(evento.getValue()).isEqualTo(new CandidaturaRicevuta(candidaturaTest));
+        verify(transactionManager).commit(any());
+        verify(indiceCandidature).aggiorna(candidaturaTest);
+        verify(estrazioneCvService).accoda(candidaturaTest);
+        verify(indiceDuplicati).aggiorna(candidaturaTest);
+        assertThat(result.getPossibileDuplicatoDi()).isNull();
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void testSalvaCandidatura_PossibileDuplicatoSegnalatoNonBloccato() throws Exception {
+        // Arrange
+        candidaturaTest.setCodiceFiscale(null);
+        candidaturaTest.setNonHaCodiceFiscale(true);
+        when(indiceDuplicati.cerca(candidaturaTest))
+            .thenReturn(Optional.of(new IndiceDuplicati.Sospetto(3L, 0.75, "email, telefono")));
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(candidaturaRepository.save(candidaturaTest)).thenReturn(candidaturaTest);
+
+        // Act
+        Candidatura result = candidaturaService.salvaCandidatura(candidaturaTest, null);
+
+        // Assert: salvata comunque, con la segnalazione per l'admin
+        assertThat(result.getPossibileDuplicatoDi()).isEqualTo(3L);
+        assertThat(result.getSomiglianzaDuplicato()).isEqualTo(0.75);
+        assertThat(result.getMotivoDuplicato()).isEqualTo("email, telefono");
+        verify(eventPublisher).publishEvent(any(CandidaturaRicevuta.class));
+    }
+
+    @Test
+    void testSalvaCandidatura_CodiceFiscaleDuplicato() {
+        // Arrange
+        when(candidaturaRepository.existsByCodiceFiscale("RSSMRA80A01H501U")).thenReturn(true);
+
+        // Act & Assert
+        assertThatThrownBy(() -> candidaturaService.salvaCandidatura(candidaturaTest, null))
+            .isInstanceOf(IllegalArgumentException.class);
+        verify(candidaturaRepository, never()).save(any());
+        verifyNoInteractions(transactionManager, eventPublisher);
+    }
+
+    @Test
+    void testSalvaCandidatura_InsertFallito_EliminaCv() throws Exception {
+        // Arrange
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(candidaturaRepository.save(candidaturaTest))
+            .thenThrow(new DataIntegrityViolationException("codice_fiscale duplicato"));
+        MockMultipartFile cv = new MockMultipartFile("cvFile", "cv.pdf", "application/pdf", new byte[] {1, 2, 3});
+
+        // Act
+        assertThatThrownBy(() -> candidaturaService.salvaCandidatura(candidaturaTest, cv))
+            .isInstanceOf(DataIntegrityViolationException.class);
+
+        // Assert: CV scritto prima della transazione, poi rimosso; nessun evento
+        assertThat(candidaturaTest.getCvFilePath()).isNotNull();
+        assertThat(Files.exists(Path.of(candidaturaTest.getCvFilePath()))).isFalse();
+        verify(transactionManager).rollback(any());
+        verifyNoInteractions(eventPublisher, indiceCandidature, estrazioneCvService);
+    }
+
+    @Test
+    void testCercaConPunteggio_MantieneLOrdineDellIndice() {
+        // Arrange: il database restituisce le righe in ordine di id, l'indice per rilevanza
+        when(indiceCandidature.cerca("muratore cartongesso", null, 10)).thenReturn(List.of(
+            new IndiceCandidature.Risultato(3L, 2.5, 2),
+            new IndiceCandidature.Risultato(1L, 0.8, 1)));
+        when(candidaturaRepository.trovaRighe(List.of(3L, 1L))).thenReturn(List.of(riga(1L), riga(3L)));
+
+        // Act
+        List<CandidaturaService.CandidaturaTrovata> risultati =
+            candidaturaService.cercaConPunteggio("muratore cartongesso", "", 10);
+
+        // Assert
+        assertThat(risultati).extracting(r -> r.candidatura().id()).containsExactly(3L, 1L);
+        assertThat(risultati.get(0).terminiTrovati()).isEqualTo(2);
+    }
+
+    @Test
+    void testSuCandidaturaRicevuta_InviaConfermaENotificaAdmin() {
+        // Arrange
+        candidaturaTest.setId(7L);
+
+        // Act
+        candidaturaService.suCandidaturaRicevuta(new CandidaturaRicevuta(candidaturaTest));
+
+        // Assert
+        ArgumentCaptor<SimpleMailMessage> email = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailSender, times(2)).send(email.capture());
+        assertThat(email.getAllValues().get(0).getTo()).containsExactly("mario.rossi@example.com");
+    }
+
+    private static CandidaturaRiga riga(Long id) {
+        return new CandidaturaRiga(id, LocalDateTime.now(), "Mario", "Rossi", null, "Roma", "RM", "Muratore",
+            null, "Immediata", "mario.rossi@example.com", "3331234567", null, "Nuovo", null, null);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test unitari per DashboardAggregationService.
+ *
+ * Verifica che i widget siano caricati in parallelo (tempo ≈ widget più lento),
+ * che un widget oltre la scadenza o in errore diventi un segnaposto senza
+ * bloccare gli altri, che un esecutore pieno non faccia girare i widget nel
+ * thread della richiesta e che le metriche per widget riportino l'esito.
+ */
+@ExtendWith(MockitoExtension.class)
+class DashboardAggregationServiceTest {
+
+    @Mock
+    private DashboardService dashboardService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private DashboardAggregationService aggregationService;
+
+    private SimpleAsyncTaskExecutor esecutore;
+
+    @BeforeEach
+    void setUp() {
+        esecutore = new SimpleAsyncTaskExecutor("dashboard-test-");
+        esecutore.setVirtualThreads(true);
+        ReflectionTestUtils.setField(aggregationService, "esecutore", esecutore);
+        ReflectionTestUtils.setField(aggregationService, "timeoutMs", 500L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        esecutore.close();
+    }
+
+    @Test
+    void testCaricaTutti_InParalleloTempoDelPiuLento() {
+        // Arrange: cinque widget da 200 ms ciascuno (in sequenza sarebbero 1 s)
+        when(dashboardService.kpi()).thenAnswer(inv -> lento(200, Map.of("totaleAppuntamenti", 3L)));
+        when(dashboardService.prossimiAppuntamenti(DashboardAggregationService.RIGHE_APPUNTAMENTI))
+            .thenAnswer(inv -> lento(200, List.of()));
+        when(dashboardService.contattiNonLetti(DashboardAggregationService.RIGHE_CONTATTI))
+            .thenAnswer(inv -> lento(200, List.of()));
+        when(dashboardService.trend(DashboardAggregationService.MESI_TREND)).thenAnswer(inv -> lento(200, List.of()));
+        when(dashboardService.ultimeCandidature(DashboardAggregationService.RIGHE_CANDIDATURE))
+            .thenAnswer(inv -> lento(200, List.of()));
+
+        // Act
+        long inizio = System.nanoTime();
+        Map<String, Object> dati = aggregationService.caricaTutti();
+        long durataMs = (System.nanoTime() - inizio) / 1_000_000;
+
+        // Assert
+        assertThat(dati).containsOnlyKeys("kpi", "appuntamenti", "contatti", "trend", "candidature");
+        assertThat(dati.get("kpi")).isEqualTo(Map.of("totaleAppuntamenti", 3L));
+        assertThat(durataMs).isLessThan(700);
+        assertThat(meterRegistry.get("dashboard.widget.durata").tag("esito", "ok").timers()).hasSize(5);
+        assertThat(meterRegistry.get("dashboard.caricamento.durata").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testCaricaTutti_WidgetLentoOInErroreDiventaSegnaposto() {
+        // Arrange
+        when(dashboardService.kpi()).thenReturn(Map.of("totaleAppuntamenti", 3L));
+        when(dashboardService.prossimiAppuntamenti(DashboardAggregationService.RIGHE_APPUNTAMENTI))
+            .thenAnswer(inv -> lento(5_000, List.of()));
+        when(dashboardService.contattiNonLetti(DashboardAggregationService.RIGHE_CONTATTI))
+            .thenThrow(new IllegalStateException("database non raggiungibile"));
+        when(dashboardService.trend(DashboardAggregationService.MESI_TREND)).thenReturn(List.of());
+        when(dashboardService.ultimeCandidature(DashboardAggregationService.RIGHE_CANDIDATURE)).thenReturn(List.of());
+
+        // Act
+        long inizio = System.nanoTime();
+        Map<String, Object> dati = aggregationService.caricaTutti();
+        long durataMs = (System.nanoTime() - inizio) / 1_000_000;
+
+        // Assert: la pagina non aspetta il widget lento oltre la scadenza
+        assertThat(durataMs).isLessThan(2_000);
+        assertThat(dati.get("appuntamenti")).isEqualTo(DashboardAggregationService.segnaposto("timeout"));
+        assertThat(dati.get("contatti")).isEqualTo(DashboardAggregationService.segnaposto("errore"));
+        assertThat(dati.get("kpi")).isEqualTo(Map.of("totaleAppuntamenti", 3L));
+        assertThat(dati.get("trend")).isEqualTo(List.of());
+        assertThat(meterRegistry.get("dashboard.widget.durata").tag("widget", "appuntamenti")
+            .tag("esito", "timeout").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("dashboard.widget.durata").tag("widget", "contatti")
+            .tag("esito", "errore").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testEsecutorePieno_SegnapostoSenzaUsareIlThreadDellaRichiesta() {
+        // Arrange: un solo thread e nessuna coda, come esecutoreDashboard sotto carico
+        ThreadPoolTaskExecutor pieno = new ThreadPoolTaskExecutor();
+        pieno.setCorePoolSize(1);
+        pieno.setMaxPoolSize(1);
+        pieno.setQueueCapacity(0);
+        pieno.initialize();
+        ReflectionTestUtils.setField(aggregationService, "esecutore", pieno);
+        when(dashboardService.kpi()).thenAnswer(inv -> lento(100, Map.of("totaleAppuntamenti", 3L)));
+
+        // Act
+        Map<String, Object> dati;
+        try {
+            dati = aggregationService.caricaTutti();
+        } finally {
+            pieno.shutdown();
+        }
+
+        // Assert: il widget occupa l'unico thread, gli altri non partono affatto
+        assertThat(dati.get("kpi")).isEqualTo(Map.of("totaleAppuntamenti", 3L));
+        assertThat(dati).containsEntry("appuntamenti", DashboardAggregationService.segnaposto("occupato"))
+            .containsEntry("trend", DashboardAggregationService.segnaposto("occupato"));
+        assertThat(meterRegistry.get("dashboard.widget.durata").tag("esito", "occupato").timers()).hasSize(4);
+        verify(dashboardService, never()).trend(DashboardAggregationService.MESI_TREND);
+        verify(dashboardService, never()).ultimeCandidature(DashboardAggregationService.RIGHE_CANDIDATURE);
+    }
+
+    private static <T> T lento(long millis, T valore) throws InterruptedException {
+        Thread.sleep(millis);
+        return valore;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.repository.ContattoRepository;
+import com.example.demo.repository.FiltroCandidature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitari per DashboardService.
+ *
+ * Verifica che ogni widget resti limitato (righe e mesi massimi, anche con
+ * parametri fuori scala) e che i contatori unifichino statistiche e candidature.
+ */
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    @Mock
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Mock
+    private ContattoRepository contattoRepository;
+
+    @Mock
+    private StatisticheService statisticheService;
+
+    @Mock
+    private CandidaturaService candidaturaService;
+
+    @InjectMocks
+    private DashboardService dashboardService;
+
+    @Test
+    void testKpi_UnisceStatisticheECandidature() {
+        // Arrange
+        when(statisticheService.getStatisticheDashboard()).thenReturn(Map.of("totaleAppuntamenti", 12L));
+        when(candidaturaService.getStatistiche()).thenReturn(new CandidaturaService.CandidaturaStats(40, 5, 3, 2, 1, 29));
+        when(candidaturaService.contaPossibiliDuplicati()).thenReturn(4L);
+
+        // Act
+        Map<String, Object> kpi = dashboardService.kpi();
+
+        // Assert
+        assertThat(kpi).containsEntry("totaleAppuntamenti", 12L)
+            .containsEntry("candidatureTotali", 40L)
+            .containsEntry("candidatureNuove", 5L)
+            .containsEntry("candidatureDuplicati", 4L);
+    }
+
+    @Test
+    void testWidgetLista_LimiteRiportatoNelMassimo() {
+        // Arrange
+        ArgumentCaptor<Pageable> pagina = ArgumentCaptor.forClass(Pageable.class);
+        when(appuntamentoRepository.findByDataAppuntamentoGreaterThanEqualOrderByDataAppuntamentoAsc(
+            any(LocalDateTime.class), pagina.capture())).thenReturn(List.of());
+        when(contattoRepository.findByLettoOrderByDataInvioDesc(eq(false), pagina.capture())).thenReturn(List.of());
+
+        // Act
+        dashboardService.prossimiAppuntamenti(100_000);
+        dashboardService.contattiNonLetti(-3);
+
+        // Assert
+        assertThat(pagina.getAllValues()).extracting(Pageable::getPageSize)
+            .containsExactly(DashboardService.MAX_RIGHE, 1);
+    }
+
+    @Test
+    void testTrendECandidature_Limitati() {
+        // Arrange
+        when(candidaturaService.trovaPagina(any(FiltroCandidature.class), isNull(), isNull(), anyInt()))
+            .thenReturn(new CandidaturaService.PaginaCandidature(List.of(), null, null));
+
+        // Act
+        dashboardService.trend(600);
+        dashboardService.ultimeCandidature(1000);
+
+        // Assert
+        verify(statisticheService).getStatisticheMensili(DashboardService.MAX_MESI);
+        verify(candidaturaService).trovaPagina(FiltroCandidature.nessuno(), null, null, DashboardService.MAX_RIGHE);
+    }
+}
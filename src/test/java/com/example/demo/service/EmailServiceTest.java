@@ -1,17 +1,23 @@
 package com.example.demo.service;
 
 import com.example.demo.model.Appuntamento;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 
 import java.time.LocalDateTime;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -26,6 +32,12 @@ class EmailServiceTest {
     @Mock
     private JavaMailSender mailSender;
 
+    @Spy
+    private EmailTemplateEngine templateEngine = new EmailTemplateEngine();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private EmailService emailService;
 
@@ -65,5 +77,23 @@ class EmailServiceTest {
 
         // Assert
         verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
+        assertThat(meterRegistry.get("email.invio")
+            .tag("template", "admin-nuovo-appuntamento.v1")
+            .tag("esito", "ok")
+            .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvioFallito_RegistraEsitoErrore() {
+        // Arrange - server SMTP non raggiungibile
+        doThrow(new MailSendException("Connessione rifiutata")).when(mailSender).send(any(SimpleMailMessage.class));
+
+        // Act & Assert - l'eccezione arriva al chiamante, l'esito viene comunque misurato
+        assertThatThrownBy(() -> emailService.inviaEmailConfermaAppuntamento(appuntamento))
+            .isInstanceOf(MailSendException.class);
+        assertThat(meterRegistry.get("email.invio")
+            .tag("template", "appuntamento-ricevuto.v1")
+            .tag("esito", "errore")
+            .timer().count()).isEqualTo(1);
     }
 }
@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static com.example.demo.service.EmailTemplateEngine.valori;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test unitari per EmailTemplateEngine.
+ *
+ * Usa i template reali in src/main/resources/email/.
+ */
+class EmailTemplateEngineTest {
+
+    private final EmailTemplateEngine engine = new EmailTemplateEngine();
+
+    @Test
+    void testRenderSostituisceSegnapostoEFormattaDate() {
+        // Arrange
+        Map<String, Object> valori = valori(
+            "nomeCliente", "Mario",
+            "cognomeCliente", "Rossi",
+            "dataAppuntamento", LocalDateTime.of(2025, 10, 16, 14, 30),
+            "tipoServizio", "Ristrutturazione",
+            "indirizzo", null);
+
+        // Act
+        EmailTemplateEngine.EmailRenderizzata email = engine.render("appuntamento-confermato.v1", valori);
+
+        // Assert
+        assertThat(email.oggetto()).isEqualTo("✅ Appuntamento Confermato - Servizi Edili Elvis SRL");
+        assertThat(email.testo())
+            .startsWith("Gentile Mario Rossi,\n\n")
+            .contains("Data e Ora: 16/10/2025 alle ore 14:30\n")
+            .contains("Luogo intervento: Da concordare\n")
+            .endsWith("www.serviziedilielvis.it")
+            .doesNotContain("{{");
+        assertThat(email.html()).contains("16/10/2025 alle ore 14:30").doesNotContain("{{");
+    }
+
+    @Test
+    void testHtmlEscapaIValori() {
+        // Arrange
+        Map<String, Object> valori = valori(
+            "nomeCliente", "<script>",
+            "cognomeCliente", "O'Neil",
+            "dataAppuntamento", LocalDateTime.of(2025, 10, 16, 14, 30),
+            "tipoServizio", "A & B",
+            "motivazione", "Riga 1\nRiga 2");
+
+        // Act
+        EmailTemplateEngine.EmailRenderizzata email = engine.render("appuntamento-rifiutato.v1", valori);
+
+        // Assert: il testo semplice resta invariato, l'HTML no
+        assertThat(email.testo()).contains("Gentile <script> O'Neil").contains("Riga 1\nRiga 2");
+        assertThat(email.html())
+            .contains("&lt;script&gt; O&#39;Neil")
+            .contains("A &amp; B")
+            .contains("Riga 1<br>\nRiga 2")
+            .doesNotContain("<script>");
+    }
+
+    @Test
+    void testTemplateSoloTestoSenzaHtml() {
+        // Act
+        EmailTemplateEngine.EmailRenderizzata email = engine.render("admin-nuovo-contatto.v1",
+            valori("nome", "Luca", "email", "luca@example.com", "telefono", null, "messaggio", "Preventivo"));
+
+        // Assert
+        assertThat(email.oggetto()).isEqualTo("💬 NUOVO MESSAGGIO CONTATTO - Luca");
+        assertThat(email.testo()).contains("Telefono: Non fornito");
+        assertThat(email.html()).isNull();
+    }
+
+    @Test
+    void testTemplateInesistente() {
+        assertThatThrownBy(() -> engine.render("inesistente.v1", Map.of()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Contatto;
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.repository.ContattoRepository;
+import com.example.demo.support.DatiSinteticiGenerator;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test per EsportazioneCsvService e ScrittoreCsv su H2.
+ *
+ * Verifica il formato del CSV (BOM, separatore, virgolette, UTF-8, formule
+ * neutralizzate), che l'intestazione parta prima delle righe e che
+ * l'EntityManager non trattenga le entità già esportate.
+ */
+@DataJpaTest
+@Import(EsportazioneCsvService.class)
+class EsportazioneCsvServiceTest {
+
+    @Autowired
+    private EsportazioneCsvService esportazioneCsvService;
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private ContattoRepository contattoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void testEsportaAppuntamenti_TutteLeRigheConMemoriaLimitata() throws Exception {
+        // Arrange
+        appuntamentoRepository.inserisciTutti(new DatiSinteticiGenerator(42L).appuntamenti(1_200));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long righe = esportazioneCsvService.esportaAppuntamenti(out);
+
+        // Assert: intestazione + 1200 righe, contesto svuotato ogni BLOCCO righe
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(righe).isEqualTo(1_200);
+        assertThat(csv.split("\r\n")).hasSize(1_201);
+        assertThat(csv).startsWith("﻿id;data_appuntamento;stato;");
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount())
+            .isLessThanOrEqualTo(EsportazioneCsvService.BLOCCO);
+    }
+
+    @Test
+    void testEsportaContatti_FormatoCampi() throws Exception {
+        // Arrange
+        Contatto contatto = new Contatto();
+        contatto.setNome("Niccolò D'Angelo");
+        contatto.setEmail("niccolo@example.com");
+        contatto.setMessaggio("=HYPERLINK(\"http://x\")\nSeconda riga; con \"virgolette\" 🏠");
+        contatto.setDataInvio(LocalDateTime.of(2025, 3, 7, 9, 5, 0));
+        contatto.setLetto(true);
+        contattoRepository.saveAndFlush(contatto);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        esportazioneCsvService.esportaContatti(out);
+
+        // Assert
+        String[] righe = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(righe[1]).isEqualTo(contatto.getId() + ";2025-03-07 09:05:00;1;Niccolò D'Angelo;"
+            + "niccolo@example.com;;\"'=HYPERLINK(\"\"http://x\"\")\nSeconda riga; con \"\"virgolette\"\" 🏠\"");
+    }
+
+    @Test
+    void testEsportazione_IntestazioneInviataPrimaDelleRighe() throws Exception {
+        // Arrange: conta i flush arrivati all'OutputStream della risposta
+        appuntamentoRepository.inserisciTutti(new DatiSinteticiGenerator(42L).appuntamenti(10));
+        AtomicInteger flush = new AtomicInteger();
+        ByteArrayOutputStream ricevuti = new ByteArrayOutputStream();
+        OutputStream risposta = new OutputStream() {
+            @Override
+            public void write(int b) {
+                ricevuti.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                ricevuti.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                if (flush.incrementAndGet() == 1) {
+                    assertThat(ricevuti.toString(StandardCharsets.UTF_8)).endsWith("data_annullamento\r\n");
+                }
+            }
+        };
+
+        // Act
+        esportazioneCsvService.esportaAppuntamenti(risposta);
+
+        // Assert: flush dell'intestazione e flush finale
+        assertThat(flush.get()).isEqualTo(2);
+        assertThat(ricevuti.toString(StandardCharsets.UTF_8).split("\r\n")).hasSize(11);
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.model.TestoCv;
+import com.example.demo.repository.CandidaturaRepository;
+import com.example.demo.repository.TestoCvRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitari per EstrazioneCvService ed EstrattoreTestoCv.
+ *
+ * Verifica l'estrazione reale da DOCX e PDF generati al volo, lo stato
+ * NON_SUPPORTATO per i .doc, i nuovi tentativi con attesa crescente e lo
+ * stato FALLITA a tentativi esauriti, e il recupero a blocchi dei CV delle
+ * candidature salvate prima dell'estrazione.
+ */
+@ExtendWith(MockitoExtension.class)
+class EstrazioneCvServiceTest {
+
+    @Mock
+    private TestoCvRepository testoCvRepository;
+
+    @Mock
+    private CandidaturaRepository candidaturaRepository;
+
+    @Spy
+    private EstrattoreTestoCv estrattore = new EstrattoreTestoCv();
+
+    @Mock
+    private IndiceCandidature indiceCandidature;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private ThreadPoolTaskExecutor esecutore;
+
+    @InjectMocks
+    private EstrazioneCvService estrazioneCvService;
+
+    @TempDir
+    Path cartella;
+
+    private TestoCv riga;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(estrazioneCvService, "tentativiMax", 3);
+        ReflectionTestUtils.setField(estrazioneCvService, "ritardoBaseMinuti", 1L);
+        riga = TestoCv.inCoda(5L);
+        // Non usato dal recupero delle candidature precedenti
+        lenient().when(testoCvRepository.findById(5L)).thenReturn(Optional.of(riga));
+    }
+
+    @Test
+    void testEstrai_Docx_SalvaTestoEAggiornaIndice() throws Exception {
+        // Arrange
+        Path docx = cartella.resolve("cv.docx");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(docx))) {
+            zip.putNextEntry(new ZipEntry("word/document.xml"));
+            zip.write(("<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">"
+                + "<w:body><w:p><w:r><w:t>Muratore   specializzato</w:t></w:r></w:p>"
+                + "<w:p><w:r><w:t>Ponteggi</w:t><w:tab/><w:t>e intonaci</w:t></w:r></w:p></w:body></w:document>")
+                .getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        candidaturaConCv(docx);
+
+        // Act
+        estrazioneCvService.estrai(5L);
+
+        // Assert
+        assertThat(riga.getStato()).isEqualTo(TestoCv.StatoEstrazione.COMPLETATA);
+        assertThat(riga.getTesto()).isEqualTo("Muratore specializzato\nPonteggi e intonaci");
+        assertThat(riga.getCaratteri()).isEqualTo(riga.getTesto().length());
+        verify(testoCvRepository).save(riga);
+        verify(indiceCandidature).aggiornaCv(5L, riga.getTesto());
+        assertThat(meterRegistry.get("cv.estrazione.durata").tag("tipo", "docx").tag("esito", "completata")
+            .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testEstrai_Pdf_SalvaTesto() throws Exception {
+        // Arrange
+        Path pdf = cartella.resolve("cv.pdf");
+        try (PDDocument documento = new PDDocument()) {
+            PDPage pagina = new PDPage();
+            documento.addPage(pagina);
+            try (PDPageContentStream contenuto = new PDPageContentStream(documento, pagina)) {
+                contenuto.beginText();
+                contenuto.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                contenuto.newLineAtOffset(50, 700);
+                contenuto.showText("Elettricista con patentino PES");
+                contenuto.endText();
+            }
+            documento.save(pdf.toFile());
+        }
+        candidaturaConCv(pdf);
+
+        // Act
+        estrazioneCvService.estrai(5L);
+
+        // Assert
+        assertThat(riga.getStato()).isEqualTo(TestoCv.StatoEstrazione.COMPLETATA);
+        assertThat(riga.getTesto()).isEqualTo("Elettricista con patentino PES");
+    }
+
+    @Test
+    void testEstrai_Doc_NonSupportato() {
+        // Arrange
+        candidaturaConCv(cartella.resolve("cv.doc"));
+
+        // Act
+        estrazioneCvService.estrai(5L);
+
+        // Assert
+        assertThat(riga.getStato()).isEqualTo(TestoCv.StatoEstrazione.NON_SUPPORTATO);
+        verify(testoCvRepository).save(riga);
+        verifyNoInteractions(indiceCandidature);
+    }
+
+    @Test
+    void testEstrai_FileCorrotto_RiprovaConAttesaCrescentePoiFallita() throws Exception {
+        // Arrange: un "PDF" che non è un PDF
+        Path corrotto = cartella.resolve("cv.pdf");
+        try (OutputStream out = Files.newOutputStream(corrotto)) {
+            out.write("non sono un pdf".getBytes(StandardCharsets.UTF_8));
+        }
+        candidaturaConCv(corrotto);
+
+        // Act & Assert: primo errore → nuovo tentativo tra 1 minuto
+        estrazioneCvService.estrai(5L);
+        assertThat(riga.getStato()).isEqualTo(TestoCv.StatoEstrazione.IN_CODA);
+        assertThat(riga.getTentativi()).isEqualTo(1);
+        assertThat(riga.getUltimoErrore()).isNotBlank();
+        assertThat(riga.getProssimoTentativo()).isBetween(
+            LocalDateTime.now().plusSeconds(50), LocalDateTime.now().plusMinutes(1));
+
+        // Secondo errore → tra 4 minuti
+        estrazioneCvService.estrai(5L);
+        assertThat(riga.getTentativi()).isEqualTo(2);
+        assertThat(riga.getProssimoTentativo()).isAfter(LocalDateTime.now().plusMinutes(3));
+
+        // Terzo errore (tentativiMax = 3) → FALLITA, non più ripresa
+        estrazioneCvService.estrai(5L);
+        assertThat(riga.getStato()).isEqualTo(TestoCv.StatoEstrazione.FALLITA);
+        estrazioneCvService.estrai(5L);
+        assertThat(riga.getTentativi()).isEqualTo(3);
+        verify(indiceCandidature, never()).aggiornaCv(eq(5L), anyString());
+    }
+
+    @Test
+    void testEstrai_CandidaturaEliminata_RimuoveLaRiga() {
+        // Arrange
+        when(candidaturaRepository.findById(5L)).thenReturn(Optional.empty());
+
+        // Act
+        estrazioneCvService.estrai(5L);
+
+        // Assert
+        verify(testoCvRepository).delete(riga);
+        verify(testoCvRepository, never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAccodaCandidaturePrecedenti_ABlocchiDopoLUltimoId() {
+        // Arrange: un blocco pieno e uno parziale
+        List<Long> pieno = LongStream.rangeClosed(1, EstrazioneCvService.BLOCCO_RECUPERO).boxed().toList();
+        long ultimo = EstrazioneCvService.BLOCCO_RECUPERO;
+        when(candidaturaRepository.findIdConCvSenzaTesto(eq(0L), any())).thenReturn(pieno);
+        when(candidaturaRepository.findIdConCvSenzaTesto(eq(ultimo), any())).thenReturn(List.of(ultimo + 3));
+
+        // Act
+        estrazioneCvService.accodaCandidaturePrecedenti();
+
+        // Assert: una saveAll per blocco, righe IN_CODA con l'id della candidatura
+        ArgumentCaptor<List<TestoCv>> salvate = ArgumentCaptor.forClass(List.class);
+        verify(testoCvRepository, times(2)).saveAll(salvate.capture());
+        assertThat(salvate.getAllValues().get(0)).hasSize(EstrazioneCvService.BLOCCO_RECUPERO);
+        assertThat(salvate.getAllValues().get(1)).singleElement().satisfies(testo -> {
+            assertThat(testo.getCandidaturaId()).isEqualTo(ultimo + 3);
+            assertThat(testo.getStato()).isEqualTo(TestoCv.StatoEstrazione.IN_CODA);
+        });
+        verify(candidaturaRepository, times(2)).findIdConCvSenzaTesto(anyLong(), any());
+    }
+
+    private void candidaturaConCv(Path file) {
+        Candidatura candidatura = new Candidatura();
+        candidatura.setId(5L);
+        candidatura.setCvFilePath(file.toString());
+        when(candidaturaRepository.findById(5L)).thenReturn(Optional.of(candidatura));
+        lenient().when(candidaturaRepository.existsById(5L)).thenReturn(true);
+    }
+}
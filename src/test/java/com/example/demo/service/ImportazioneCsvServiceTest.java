@@ -0,0 +1,197 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Lavoro;
+import com.example.demo.repository.AppuntamentoRepository;
+import com.example.demo.repository.LavoroRepository;
+import com.example.demo.validator.AppuntamentoValidator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test per ImportazioneCsvService e LettoreCsv su H2.
+ *
+ * Verifica che lo storico passi la validazione senza la regola "data futura",
+ * che le righe non valide vengano scartate con il numero di riga e che gli
+ * INSERT partano a blocchi. Il test sull'interruzione gira senza la
+ * transazione del test, come una richiesta vera: ogni blocco fa commit.
+ */
+@DataJpaTest
+@Import({ImportazioneCsvService.class, AppuntamentoValidator.class})
+class ImportazioneCsvServiceTest {
+
+    private static final String INTESTAZIONE =
+        "﻿id;data_appuntamento;stato;nome;cognome;email;telefono;servizio;descrizione\r\n";
+
+    @Autowired
+    private ImportazioneCsvService importazioneCsvService;
+
+    @Autowired
+    private AppuntamentoRepository appuntamentoRepository;
+
+    @Autowired
+    private LavoroRepository lavoroRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testImportaAppuntamenti_StoricoValidoERigheScartate() throws Exception {
+        // Arrange: riga 2 e 5 valide (passate), 3 di sabato, 4 con email errata, 6 con data illeggibile
+        String csv = INTESTAZIONE
+            + "7;2019-03-04 10:00:00;;Mario;Rossi;mario@example.com;+39 333 1234567;Bagno;\"Rifacimento; con \"\"doccia\"\"\"\r\n"
+            + "8;2019-03-09 10:00:00;;Anna;Bianchi;anna@example.com;3331234567;Tetto;\r\n"
+            + "9;2019-03-05 10:00:00;;Luca;Verdi;luca-at-example.com;3331234567;Tetto;\r\n"
+            + "10;06/03/2019 15:30;annullato;Sara;Neri;sara@example.com;3331234567;Cucina;'=SOMMA(A1)\r\n"
+            + "11;ieri;;Paolo;Gialli;paolo@example.com;3331234567;Cucina;\r\n";
+
+        // Act
+        ImportazioneCsvService.Risultato risultato = importazioneCsvService.importaAppuntamenti(new StringReader(csv));
+
+        // Assert
+        assertThat(risultato.importate()).isEqualTo(2);
+        assertThat(risultato.scartate()).isEqualTo(3);
+        assertThat(risultato.errori()).extracting(ImportazioneCsvService.ErroreRiga::riga).containsExactly(3L, 4L, 6L);
+        assertThat(risultato.errori().get(1).messaggio()).isEqualTo("Formato email non valido");
+
+        List<Appuntamento> salvati = appuntamentoRepository.findAll();
+        Appuntamento mario = salvati.stream().filter(a -> a.getNomeCliente().equals("Mario")).findFirst().orElseThrow();
+        assertThat(mario.getStato()).isEqualTo(Appuntamento.StatoAppuntamento.COMPLETATO);
+        assertThat(mario.getDataCreazione()).isEqualTo(LocalDateTime.of(2019, 3, 4, 10, 0));
+        assertThat(mario.getDescrizione()).isEqualTo("Rifacimento; con \"doccia\"");
+        Appuntamento sara = salvati.stream().filter(a -> a.getNomeCliente().equals("Sara")).findFirst().orElseThrow();
+        assertThat(sara.getStato()).isEqualTo(Appuntamento.StatoAppuntamento.ANNULLATO);
+        assertThat(sara.getDescrizione()).isEqualTo("=SOMMA(A1)");
+    }
+
+    @Test
+    void testImportaAppuntamenti_ColonneMancanti_NienteImportato() {
+        // Arrange
+        Reader csv = new StringReader("nome,cognome\nMario,Rossi\n");
+
+        // Act + Assert
+        assertThatThrownBy(() -> importazioneCsvService.importaAppuntamenti(csv))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("data_appuntamento")
+            .hasMessageContaining("servizio");
+        assertThat(appuntamentoRepository.count()).isZero();
+    }
+
+    @Test
+    void testImportaAppuntamenti_MolteRigheInBatch() throws Exception {
+        // Arrange: 2000 righe generate al volo, mai tutte in memoria come testo
+        Statistics statistiche = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiche.clear();
+        Reader csv = new RigheGenerate(2_000);
+
+        // Act
+        ImportazioneCsvService.Risultato risultato = importazioneCsvService.importaAppuntamenti(csv);
+
+        // Assert: circa 2 istruzioni ogni 50 righe (blocco di INSERT + sequenza)
+        assertThat(risultato.importate()).isEqualTo(2_000);
+        assertThat(risultato.scartate()).isZero();
+        assertThat(statistiche.getPrepareStatementCount()).isLessThanOrEqualTo(90);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testImportaAppuntamenti_LetturaInterrotta_BlocchiGiaInseritiEliminati() {
+        // Arrange: due blocchi interi già inseriti quando il client si disconnette
+        Reader csv = new RigheGenerate(ImportazioneCsvService.BLOCCO * 2 + 10, true);
+
+        // Act + Assert
+        try {
+            assertThatThrownBy(() -> importazioneCsvService.importaAppuntamenti(csv))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Connessione interrotta");
+            assertThat(appuntamentoRepository.count()).isZero();
+        } finally {
+            appuntamentoRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void testImportaLavori_VirgolaDateItalianeEFoto() throws Exception {
+        // Arrange
+        String csv = "titolo,categoria,data_inizio,data_fine,pubblicato,foto_prima,foto_dopo\n"
+            + "Bagno Rossi,Bagni,01/02/2020,2020-02-20,sì,/uploads/lavori/a.jpg | /uploads/lavori/b.jpg,/uploads/lavori/c.jpg\n"
+            + ",Bagni,,,no,,\n"
+            + "Tetto Bianchi,Tetti,2020-05-10,2020-05-01,,,\n";
+
+        // Act
+        ImportazioneCsvService.Risultato risultato = importazioneCsvService.importaLavori(new StringReader(csv));
+
+        // Assert
+        assertThat(risultato.importate()).isEqualTo(1);
+        assertThat(risultato.errori()).extracting(ImportazioneCsvService.ErroreRiga::messaggio)
+            .containsExactly("Il titolo è obbligatorio", "data_fine precedente a data_inizio");
+        Lavoro lavoro = lavoroRepository.findAll().get(0);
+        assertThat(lavoro.isPubblicato()).isTrue();
+        assertThat(lavoro.getDataInizio()).isEqualTo(LocalDate.of(2020, 2, 1));
+        assertThat(lavoro.getFotoPrima()).containsExactly("/uploads/lavori/a.jpg", "/uploads/lavori/b.jpg");
+        assertThat(lavoro.getFotoDopo()).containsExactly("/uploads/lavori/c.jpg");
+    }
+
+    /**
+     * CSV di appuntamenti validi prodotto riga per riga durante la lettura;
+     * se interrotta, dopo l'ultima riga la lettura fallisce.
+     */
+    private static final class RigheGenerate extends Reader {
+
+        private final int totale;
+        private final boolean interrotta;
+        private int prodotte = -1;
+        private String corrente = "data_appuntamento;nome;cognome;email;telefono;servizio\n";
+        private int posizione;
+
+        RigheGenerate(int totale) {
+            this(totale, false);
+        }
+
+        RigheGenerate(int totale, boolean interrotta) {
+            this.totale = totale;
+            this.interrotta = interrotta;
+        }
+
+        @Override
+        public int read(char[] destinazione, int inizio, int lunghezza) throws IOException {
+            if (posizione == corrente.length()) {
+                if (++prodotte == totale) {
+                    if (interrotta) {
+                        throw new IOException("Connessione interrotta");
+                    }
+                    return -1;
+                }
+                LocalDate giorno = LocalDate.of(2018, 1, 1).plusWeeks(prodotte % 300);
+                corrente = giorno + " 09:00;Nome" + prodotte + ";Cognome;cliente" + prodotte
+                    + "@example.com;333 123 4567;Ristrutturazione\n";
+                posizione = 0;
+            }
+            int n = Math.min(lunghezza, corrente.length() - posizione);
+            corrente.getChars(posizione, posizione + n, destinazione, inizio);
+            posizione += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
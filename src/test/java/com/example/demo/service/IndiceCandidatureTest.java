@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.repository.CandidaturaRepository;
+import com.example.demo.repository.TestoCvRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test unitari per IndiceCandidature e StemmerItaliano.
+ *
+ * Verifica stemming, ordinamento BM25, filtro per stato e sincronizzazione
+ * (sostituzione e rimozione) dell'indice in memoria, testo dei CV compreso.
+ */
+@ExtendWith(MockitoExtension.class)
+class IndiceCandidatureTest {
+
+    @Mock
+    private CandidaturaRepository candidaturaRepository;
+
+    @Mock
+    private TestoCvRepository testoCvRepository;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private IndiceCandidature indice;
+
+    @BeforeEach
+    void setUp() {
+        indice.aggiorna(candidatura(1L, "Muratore", "Intonaci e muratura portante", "Nuovo"));
+        indice.aggiorna(candidatura(2L, "Cartongessista",
+            "Pareti e controsoffitti in cartongesso, patentino per piattaforme aeree", "Nuovo"));
+        indice.aggiorna(candidatura(3L, "Muratore",
+            "Muratori in squadra: cartongesso e massetti. Patentino muletto", "In Valutazione"));
+    }
+
+    @Test
+    void testStemmerRiduceLeFlessioniAllaStessaRadice() {
+        assertThat(StemmerItaliano.radice("muratore")).isEqualTo(StemmerItaliano.radice("muratori"));
+        assertThat(StemmerItaliano.radice("competenze")).isEqualTo(StemmerItaliano.radice("competenza"));
+        assertThat(StemmerItaliano.radice("certificazioni")).isEqualTo("certif");
+        assertThat(StemmerItaliano.radice("abbandonarono")).isEqualTo("abbandon");
+    }
+
+    @Test
+    void testCercaOrdinaPerRilevanza() {
+        // Act
+        List<IndiceCandidature.Risultato> risultati = indice.cerca("muratori cartongesso patentino", null, 10);
+
+        // Assert: la 3 contiene tutti e tre i termini, la 1 solo "muratore"
+        assertThat(risultati).extracting(IndiceCandidature.Risultato::id).containsExactly(3L, 2L, 1L);
+        assertThat(risultati.get(0).terminiTrovati()).isEqualTo(3);
+        assertThat(risultati.get(0).punteggio()).isGreaterThan(risultati.get(1).punteggio());
+    }
+
+    @Test
+    void testCercaFiltraPerStatoERispettaIlLimite() {
+        assertThat(indice.cerca("cartongesso", "Nuovo", 10))
+            .extracting(IndiceCandidature.Risultato::id).containsExactly(2L);
+        assertThat(indice.cerca("muratore cartongesso", null, 1)).hasSize(1);
+        assertThat(indice.cerca("di con per", null, 10)).isEmpty();
+    }
+
+    @Test
+    void testAggiornaERimuoviMantengonoLIndiceAllineato() {
+        // Arrange: la 1 cambia competenze, la 2 viene eliminata
+        indice.aggiorna(candidatura(1L, "Muratore", "Posa cartongesso", "Contattato"));
+        indice.rimuovi(2L);
+
+        // Act
+        List<IndiceCandidature.Risultato> risultati = indice.cerca("intonaci cartongesso", null, 10);
+
+        // Assert
+        assertThat(risultati).extracting(IndiceCandidature.Risultato::id).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(indice.cerca("intonaci", null, 10)).isEmpty();
+        assertThat(indice.getNumeroDocumenti()).isEqualTo(2);
+    }
+
+    @Test
+    void testTestoCvCercabileConPesoMinoreDelModulo() {
+        // Arrange: "ponteggi" nel modulo della 1 e solo nel CV della 2
+        indice.aggiorna(candidatura(1L, "Muratore", "Montaggio ponteggi", "Nuovo"));
+        indice.aggiornaCv(2L, "Esperienza: montaggio ponteggi per cinque anni");
+
+        // Act
+        List<IndiceCandidature.Risultato> risultati = indice.cerca("ponteggi", null, 10);
+
+        // Assert: il campo del modulo pesa più del CV
+        assertThat(risultati).extracting(IndiceCandidature.Risultato::id).containsExactly(1L, 2L);
+        assertThat(indice.getNumeroCv()).isEqualTo(1);
+
+        // Una nuova modifica del modulo non cancella il CV; la rimozione sì
+        indice.aggiorna(candidatura(2L, "Cartongessista", "Controsoffitti", "Nuovo"));
+        assertThat(indice.cerca("ponteggi", null, 10)).hasSize(2);
+        indice.rimuovi(2L);
+        assertThat(indice.cerca("ponteggi", null, 10))
+            .extracting(IndiceCandidature.Risultato::id).containsExactly(1L);
+        assertThat(indice.getNumeroCv()).isZero();
+    }
+
+    private static Candidatura candidatura(Long id, String posizione, String competenze, String stato) {
+        Candidatura c = new Candidatura();
+        c.setId(id);
+        c.setPosizioneRichiesta(posizione);
+        c.setCompetenzeTecniche(competenze);
+        c.setStato(stato);
+        return c;
+    }
+}
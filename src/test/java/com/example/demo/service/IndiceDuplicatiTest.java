@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Candidatura;
+import com.example.demo.repository.CandidaturaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test unitari per IndiceDuplicati.
+ *
+ * Verifica la normalizzazione delle chiavi, il riconoscimento dei doppioni con
+ * chiavi esatte in comune o solo simili (MinHash/LSH), l'assenza di falsi
+ * positivi tra persone diverse e la rimozione dall'indice.
+ */
+@ExtendWith(MockitoExtension.class)
+class IndiceDuplicatiTest {
+
+    @Mock
+    private CandidaturaRepository candidaturaRepository;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private IndiceDuplicati indice;
+
+    @BeforeEach
+    void setUp() {
+        indice.aggiorna(candidatura(1L, "Mario", "Rossi", LocalDate.of(1980, 1, 15),
+            "mario.rossi@gmail.com", "3331234567"));
+        indice.aggiorna(candidatura(2L, "Giulia", "Bianchi", LocalDate.of(1992, 6, 3),
+            "giulia.bianchi@libero.it", "3479876543"));
+    }
+
+    @Test
+    void testNormalizzazioneChiavi() {
+        assertThat(IndiceDuplicati.emailNormalizzata(" Mario.Rossi+lavoro@GoogleMail.com "))
+            .isEqualTo("mariorossi@gmail.com");
+        assertThat(IndiceDuplicati.emailNormalizzata("m.rossi@libero.it")).isEqualTo("m.rossi@libero.it");
+        assertThat(IndiceDuplicati.telefonoNormalizzato("+39 333 123 4567")).isEqualTo("3331234567");
+        assertThat(IndiceDuplicati.telefonoNormalizzato("0039-333-1234567")).isEqualTo("3331234567");
+        assertThat(IndiceDuplicati.nomeNormalizzato("José", "D'Angelo")).isEqualTo("angelo d jose");
+        assertThat(IndiceDuplicati.nomeNormalizzato("Rossi", "Mario"))
+            .isEqualTo(IndiceDuplicati.nomeNormalizzato("MARIO", "rossi"));
+    }
+
+    @Test
+    void testCerca_ChiaviEsatteDopoNormalizzazione() {
+        // Arrange: stessa persona, senza codice fiscale, email e telefono scritti diversamente
+        Candidatura nuova = candidatura(null, "Rossi", "Mario", LocalDate.of(1980, 1, 15),
+            "MarioRossi+cv@gmail.com", "+39 333 1234567");
+
+        // Act
+        Optional<IndiceDuplicati.Sospetto> sospetto = indice.cerca(nuova);
+
+        // Assert
+        assertThat(sospetto).isPresent();
+        assertThat(sospetto.get().id()).isEqualTo(1L);
+        assertThat(sospetto.get().motivo()).isEqualTo("email, telefono, nome e data di nascita");
+        assertThat(sospetto.get().somiglianza()).isGreaterThan(0.9);
+    }
+
+    @Test
+    void testCerca_DatiSimiliSenzaChiaviInComune() {
+        // Arrange: errore nel cognome, email su un altro dominio, una cifra del telefono diversa
+        Candidatura nuova = candidatura(null, "Mario", "Rosi", LocalDate.of(1980, 1, 15),
+            "mario.rossi@libero.it", "3331234569");
+
+        // Act
+        Optional<IndiceDuplicati.Sospetto> sospetto = indice.cerca(nuova);
+
+        // Assert
+        assertThat(sospetto).isPresent();
+        assertThat(sospetto.get().id()).isEqualTo(1L);
+        assertThat(sospetto.get().motivo()).isEqualTo("dati simili");
+    }
+
+    @Test
+    void testCerca_NessunFalsoPositivoTraPersoneDiverse() {
+        // Arrange: molte candidature diverse tra loro
+        for (long i = 0; i < 2000; i++) {
+            indice.aggiorna(candidatura(100 + i, "Nome" + (char) ('a' + i % 26) + i, "Cognome" + i * 7,
+                LocalDate.of(1970 + (int) (i % 30), 1 + (int) (i % 12), 1 + (int) (i % 28)),
+                "utente" + i + "@example.com", String.format("34%08d", i * 7919)));
+        }
+        Candidatura nuova = candidatura(null, "Luca", "Verdi", LocalDate.of(1985, 3, 20),
+            "luca.verdi@example.com", "3201112233");
+
+        // Act & Assert
+        assertThat(indice.cerca(nuova)).isEmpty();
+        assertThat(indice.getNumeroDocumenti()).isEqualTo(2002);
+    }
+
+    @Test
+    void testRimuovi_NonPiuSegnalata() {
+        // Arrange
+        Candidatura nuova = candidatura(null, "Giulia", "Bianchi", LocalDate.of(1992, 6, 3),
+            "giulia.bianchi@libero.it", "3479876543");
+
+        // Act
+        indice.rimuovi(2L);
+
+        // Assert
+        assertThat(indice.cerca(nuova)).isEmpty();
+        assertThat(indice.getNumeroDocumenti()).isEqualTo(1);
+    }
+
+    private static Candidatura candidatura(Long id, String nome, String cognome, LocalDate dataNascita,
+                                           String email, String telefono) {
+        Candidatura c = new Candidatura();
+        c.setId(id);
+        c.setNome(nome);
+        c.setCognome(cognome);
+        c.setDataNascita(dataNascita);
+        c.setEmail(email);
+        c.setTelefono(telefono);
+        c.setNonHaCodiceFiscale(true);
+        return c;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.model.Lavoro;
+import com.example.demo.repository.LavoroRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test della cache di secondo livello sui lavori (CacheConfig) con Hibernate reale su H2.
+ *
+ * Senza transazione di test: ogni chiamata al service apre e chiude la propria
+ * sessione, come in produzione, quindi le letture successive passano davvero
+ * dalla cache. Verifica che salvaLavoro ed eliminaLavoro invalidino sia le
+ * liste in cache sia il lavoro letto per id.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LavoroService.class, CacheConfig.class})
+class LavoroServiceCacheTest {
+
+    @Autowired
+    private LavoroService lavoroService;
+
+    @Autowired
+    private LavoroRepository lavoroRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private FileStorageService fileStorageService;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistiche;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistiche = sessionFactory.getStatistics();
+        statistiche.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        lavoroRepository.deleteAll();
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    @Test
+    void testGetLavoriPubblicati_SecondaLetturaDallaCache() {
+        // Arrange
+        Lavoro lavoro = lavoroService.salvaLavoro(lavoro("Bagno Villa Rossi", "Ristrutturazioni"));
+
+        // Act
+        lavoroService.getLavoriPubblicati();
+        List<Lavoro> seconda = lavoroService.getLavoriPubblicati();
+        lavoroService.getLavoriPerCategoria("Ristrutturazioni");
+        lavoroService.getLavoriPerCategoria("Ristrutturazioni");
+
+        // Assert
+        assertThat(seconda).extracting(Lavoro::getId).containsExactly(lavoro.getId());
+        assertThat(statistiche.getQueryCacheHitCount()).isEqualTo(2);
+        assertThat(statistiche.getQueryCacheMissCount()).isEqualTo(2);
+        assertThat(sessionFactory.getCache().containsEntity(Lavoro.class, lavoro.getId())).isTrue();
+        assertThat(statistiche.getDomainDataRegionStatistics("lavori").getHitCount()).isPositive();
+    }
+
+    @Test
+    void testSalvaLavoro_InvalidaListeEdEntita() {
+        // Arrange: lista e dettaglio già in cache
+        Lavoro lavoro = lavoroService.salvaLavoro(lavoro("Bagno Villa Rossi", "Ristrutturazioni"));
+        lavoroService.getLavoriPubblicati();
+        lavoroService.getLavoroById(lavoro.getId());
+
+        // Act
+        lavoro.setTitolo("Bagno e cucina Villa Rossi");
+        lavoroService.salvaLavoro(lavoro);
+        List<Lavoro> dopo = lavoroService.getLavoriPubblicati();
+
+        // Assert: la lista viene rieseguita (nessun hit) e mostra il titolo nuovo
+        assertThat(statistiche.getQueryCacheHitCount()).isZero();
+        assertThat(dopo).extracting(Lavoro::getTitolo).containsExactly("Bagno e cucina Villa Rossi");
+        assertThat(lavoroService.getLavoroById(lavoro.getId()))
+            .hasValueSatisfying(l -> assertThat(l.getTitolo()).isEqualTo("Bagno e cucina Villa Rossi"));
+
+        // Un nuovo lavoro compare subito nella lista in cache
+        lavoroService.salvaLavoro(lavoro("Tetto Famiglia B.", "Tetti"));
+        assertThat(lavoroService.getLavoriPubblicati()).hasSize(2);
+    }
+
+    @Test
+    void testEliminaLavoro_RimossoDaCacheEListe() {
+        // Arrange
+        Lavoro lavoro = lavoroService.salvaLavoro(lavoro("Bagno Villa Rossi", "Ristrutturazioni"));
+        lavoroService.getLavoriPubblicati();
+        lavoroService.getLavoriPerCategoria("Ristrutturazioni");
+        lavoroService.getLavoroById(lavoro.getId());
+
+        // Act
+        lavoroService.eliminaLavoro(lavoro.getId());
+
+        // Assert
+        assertThat(lavoroService.getLavoroById(lavoro.getId())).isEmpty();
+        assertThat(lavoroService.getLavoriPubblicati()).isEmpty();
+        assertThat(lavoroService.getLavoriPerCategoria("Ristrutturazioni")).isEmpty();
+        assertThat(statistiche.getQueryCacheHitCount()).isZero();
+    }
+
+    private static Lavoro lavoro(String titolo, String categoria) {
+        Lavoro lavoro = new Lavoro();
+        lavoro.setTitolo(titolo);
+        lavoro.setCategoria(categoria);
+        lavoro.setDataFine(LocalDate.of(2025, 9, 30));
+        lavoro.setPubblicato(true);
+        lavoro.getFotoPrima().add("/uploads/lavori/prima.jpg");
+        lavoro.getFotoDopo().add("/uploads/lavori/dopo.jpg");
+        return lavoro;
+    }
+}
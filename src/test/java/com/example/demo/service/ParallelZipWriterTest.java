@@ -0,0 +1,216 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test unitari per ParallelZipWriter.
+ *
+ * Verifica che gli archivi prodotti siano ZIP validi, leggibili sia con
+ * ZipFile (central directory) sia con ZipInputStream (lettura sequenziale).
+ */
+class ParallelZipWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testArchivioLeggibileConContenutoCorretto() throws Exception {
+        // Arrange
+        Path testo = scrivi("note.txt", "Ristrutturazione bagno ".repeat(1000).getBytes(StandardCharsets.UTF_8));
+        Path foto = scrivi("lavori/foto.jpg", bytesCasuali(200_000, 1));
+        Path zipPath = tempDir.resolve("backup.zip");
+
+        // Act
+        try (OutputStream out = Files.newOutputStream(zipPath);
+             ParallelZipWriter zip = new ParallelZipWriter(out, pool, 4, 6)) {
+            zip.aggiungi(testo, "note.txt");
+            zip.aggiungi(foto, "lavori/foto.jpg");
+            zip.aggiungi("manifest.txt", "ok".getBytes(StandardCharsets.UTF_8));
+            zip.finish();
+            assertThat(zip.getNumeroEntry()).isEqualTo(3);
+        }
+
+        // Assert
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            ZipEntry entryTesto = zipFile.getEntry("note.txt");
+            ZipEntry entryFoto = zipFile.getEntry("lavori/foto.jpg");
+
+            assertThat(entryTesto.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+            assertThat(entryTesto.getCompressedSize()).isLessThan(entryTesto.getSize());
+            // I formati già compressi non vengono ricompressi
+            assertThat(entryFoto.getMethod()).isEqualTo(ZipEntry.STORED);
+
+            assertThat(leggi(zipFile.getInputStream(entryTesto))).isEqualTo(Files.readAllBytes(testo));
+            assertThat(leggi(zipFile.getInputStream(entryFoto))).isEqualTo(Files.readAllBytes(foto));
+            assertThat(new String(leggi(zipFile.getInputStream(zipFile.getEntry("manifest.txt"))), StandardCharsets.UTF_8))
+                .isEqualTo("ok");
+        }
+    }
+
+    @Test
+    void testFileGrandeCompressoInStreaming() throws Exception {
+        // Arrange: file comprimibile oltre la soglia della memoria
+        byte[] contenuto = new byte[(int) ParallelZipWriter.MAX_ENTRY_IN_MEMORIA + 1024];
+        for (int i = 0; i < contenuto.length; i++) {
+            contenuto[i] = (byte) ('a' + (i % 7));
+        }
+        Path database = scrivi("servizi.mv.db", contenuto);
+        Path zipPath = tempDir.resolve("database.zip");
+
+        // Act
+        try (OutputStream out = Files.newOutputStream(zipPath);
+             ParallelZipWriter zip = new ParallelZipWriter(out, pool, 2, 1)) {
+            zip.aggiungi(database, "servizi.mv.db");
+            zip.finish();
+        }
+
+        // Assert: lettura sequenziale (usa il data descriptor)
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipPath))) {
+            ZipEntry entry = zis.getNextEntry();
+            assertThat(entry.getName()).isEqualTo("servizi.mv.db");
+            assertThat(zis.readAllBytes()).isEqualTo(contenuto);
+            assertThat(zis.getNextEntry()).isNull();
+        }
+    }
+
+    @Test
+    void testFileGrandeCompressoABlocchiInParallelo() throws Exception {
+        // Arrange: multiplo esatto del blocco (l'ultimo blocco è vuoto), testo con ripetizioni a lunga distanza
+        String[] parole = {"bagno", "cucina", "piastrelle", "intonaco", "cartongesso", "tinteggiatura", "massetto"};
+        Random random = new Random(3);
+        StringBuilder testo = new StringBuilder();
+        while (testo.length() < 9 * ParallelZipWriter.BLOCCO_PARALLELO) {
+            testo.append(parole[random.nextInt(parole.length)]).append(random.nextInt(100)).append(' ');
+        }
+        byte[] contenuto = testo.substring(0, 9 * ParallelZipWriter.BLOCCO_PARALLELO).getBytes(StandardCharsets.UTF_8);
+        Path database = scrivi("servizi.mv.db", contenuto);
+        Path zipPath = tempDir.resolve("database.zip");
+
+        // Act
+        BackupManifest.Voce voce;
+        try (OutputStream out = Files.newOutputStream(zipPath);
+             ParallelZipWriter zip = new ParallelZipWriter(out, pool, 3, 6)) {
+            zip.aggiungi(database, "servizi.mv.db");
+            zip.finish();
+            voce = zip.getManifest().get(0);
+        }
+
+        // Assert: un solo stream deflate valido, compresso quasi come in un unico passaggio
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipPath))) {
+            assertThat(zis.getNextEntry().getName()).isEqualTo("servizi.mv.db");
+            assertThat(zis.readAllBytes()).isEqualTo(contenuto);
+        }
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            ZipEntry entry = zipFile.getEntry("servizi.mv.db");
+            assertThat(leggi(zipFile.getInputStream(entry))).isEqualTo(contenuto);
+            assertThat(entry.getCompressedSize()).isLessThan(dimensioneDeflate(contenuto, 6) * 101 / 100);
+        }
+        assertThat(voce.dimensione()).isEqualTo(contenuto.length);
+        assertThat(voce.sha256Hex()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenuto)));
+    }
+
+    @Test
+    void testFileGrandeGiaCompressoScrittoSenzaRicomprimere() throws Exception {
+        // Arrange: video oltre la soglia della memoria
+        byte[] contenuto = bytesCasuali((int) ParallelZipWriter.MAX_ENTRY_IN_MEMORIA + 12_345, 5);
+        Path video = scrivi("lavori/cantiere.mp4", contenuto);
+        Path zipPath = tempDir.resolve("uploads.zip");
+
+        // Act
+        try (OutputStream out = Files.newOutputStream(zipPath);
+             ParallelZipWriter zip = new ParallelZipWriter(out, pool, 2, 6)) {
+            zip.aggiungi(video, "lavori/cantiere.mp4");
+            zip.finish();
+        }
+
+        // Assert: blocchi deflate non compressi, overhead trascurabile
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipPath))) {
+            zis.getNextEntry();
+            assertThat(zis.readAllBytes()).isEqualTo(contenuto);
+        }
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            assertThat(zipFile.getEntry("lavori/cantiere.mp4").getCompressedSize())
+                .isLessThan(contenuto.length + contenuto.length / 1000);
+        }
+    }
+
+    @Test
+    void testFileEliminatoDuranteIlBackupVieneSaltato() throws Exception {
+        // Arrange
+        Path presente = scrivi("a.txt", "presente".getBytes(StandardCharsets.UTF_8));
+        Path mancante = tempDir.resolve("eliminato.txt");
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelZipWriter zip = new ParallelZipWriter(out, pool, 2, 6)) {
+            zip.aggiungi(presente, "a.txt");
+            zip.aggiungi(mancante, "eliminato.txt");
+            zip.finish();
+
+            // Assert
+            assertThat(zip.getNumeroEntry()).isEqualTo(1);
+            assertThat(zip.getEntrySaltate()).isEqualTo(1);
+        }
+    }
+
+    private Path scrivi(String nome, byte[] contenuto) throws Exception {
+        Path path = tempDir.resolve(nome);
+        Files.createDirectories(path.getParent());
+        Files.write(path, contenuto);
+        return path;
+    }
+
+    private byte[] bytesCasuali(int lunghezza, long seed) {
+        byte[] bytes = new byte[lunghezza];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static long dimensioneDeflate(byte[] contenuto, int livello) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, new Deflater(livello, true))) {
+            deflate.write(contenuto);
+        }
+        return out.size();
+    }
+
+    private byte[] leggi(InputStream in) throws Exception {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+}
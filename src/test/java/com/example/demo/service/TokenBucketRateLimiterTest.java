@@ -0,0 +1,66 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test unitari per TokenBucketRateLimiter (orologio simulato, nessuna attesa reale).
+ */
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong orologio = new AtomicLong(0);
+
+    @Test
+    void testRafficaLimitataDallaCapacita() {
+        // Arrange: 10 gettoni di raffica, 20 al minuto
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 20, Duration.ofMinutes(1), orologio::get);
+
+        // Act & Assert
+        assertThat(limiter.tentaAcquisire(10)).isTrue();
+        assertThat(limiter.tentaAcquisire(1)).isFalse();
+    }
+
+    @Test
+    void testRicaricaProporzionaleAlTempo() throws Exception {
+        // Arrange
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 20, Duration.ofMinutes(1), orologio::get);
+        limiter.tentaAcquisire(10);
+
+        // Act: dopo 15 secondi si ricaricano 5 gettoni
+        orologio.addAndGet(Duration.ofSeconds(15).toNanos());
+
+        // Assert
+        assertThat(limiter.getDisponibili()).isEqualTo(5);
+        assertThat(limiter.acquisisci(8)).isEqualTo(5);
+    }
+
+    @Test
+    void testMaiOltreLaCapacita() {
+        // Arrange
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 20, Duration.ofMinutes(1), orologio::get);
+
+        // Act: un'ora di inattività
+        orologio.addAndGet(Duration.ofHours(1).toNanos());
+
+        // Assert
+        assertThat(limiter.getDisponibili()).isEqualTo(10);
+    }
+
+    @Test
+    void testRestituisciGettoniNonUsati() throws Exception {
+        // Arrange
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 20, Duration.ofMinutes(1), orologio::get);
+        int presi = limiter.acquisisci(10);
+
+        // Act
+        limiter.restituisci(4);
+
+        // Assert
+        assertThat(presi).isEqualTo(10);
+        assertThat(limiter.getDisponibili()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.demo.support;
+
+import com.example.demo.model.Appuntamento;
+import com.example.demo.model.Candidatura;
+import com.example.demo.model.Contatto;
+import com.example.demo.model.Lavoro;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generatore di dati sintetici realistici e riproducibili (stesso seme = stessi dati).
+ *
+ * Usato da benchmark JMH (src/benchmark/java) e test di carico per popolare
+ * un database H2 embedded con volumi configurabili.
+ *
+ * DISTRIBUZIONE APPUNTAMENTI:
+ * - Date da 12 mesi fa a 2 mesi nel futuro, solo giorni feriali 8:00-19:00
+ * - Stati: ~25% IN_ATTESA, ~40% CONFERMATO, ~25% COMPLETATO, ~10% ANNULLATO
+ * - Circa un cliente su cinque ha più appuntamenti (stessa email)
+ *
+ * @author Firmato $₿420
+ * @since 2025
+ */
+public class DatiSinteticiGenerator {
+
+    private static final String[] NOMI = {
+        "Mario", "Luca", "Giulia", "Francesca", "Marco", "Anna", "Paolo", "Sara",
+        "Giuseppe", "Chiara", "Alessandro", "Elena", "Andrea", "Valentina", "Roberto", "Laura"
+    };
+    private static final String[] COGNOMI = {
+        "Rossi", "Russo", "Ferrari", "Esposito", "Bianchi", "Romano", "Colombo", "Ricci",
+        "Marino", "Greco", "Bruno", "Gallo", "Conti", "De Luca", "Costa", "Giordano"
+    };
+    private static final String[] SERVIZI = {
+        "Ristrutturazione", "Imbiancatura", "Pavimentazione", "Tetti e Coperture",
+        "Impianti Elettrici", "Bagni e Cucine", "Cartongesso", "Sopralluogo"
+    };
+    private static final String[] CITTA = {
+        "Torino", "Moncalieri", "Collegno", "Rivoli", "Nichelino", "Settimo Torinese", "Chieri", "Pinerolo"
+    };
+    private static final String[] POSIZIONI = {
+        "Muratore", "Carpentiere", "Elettricista", "Idraulico", "Imbianchino", "Piastrellista", "Manovale"
+    };
+    private static final String[] STATI_CANDIDATURA = {
+        "Nuovo", "In Valutazione", "Contattato", "Accettato", "Rifiutato"
+    };
+    private static final String[] PAROLE = {
+        "bagno", "cucina", "parete", "soffitto", "pavimento", "infiltrazione", "umidità", "piastrelle",
+        "impianto", "preventivo", "sopralluogo", "urgente", "rifacimento", "tetto", "grondaia", "intonaco"
+    };
+
+    private final Random random;
+    private final LocalDateTime riferimento;
+
+    public DatiSinteticiGenerator(long seme) {
+        this(seme, LocalDate.now().atStartOfDay());
+    }
+
+    public DatiSinteticiGenerator(long seme, LocalDateTime riferimento) {
+        this.random = new Random(seme);
+        this.riferimento = riferimento;
+    }
+
+    public List<Appuntamento> appuntamenti(int numero) {
+        List<Appuntamento> risultato = new ArrayList<>(numero);
+        String emailRipetuta = null;
+        for (int i = 0; i < numero; i++) {
+            Appuntamento a = new Appuntamento();
+            String nome = scegli(NOMI);
+            String cognome = scegli(COGNOMI);
+            a.setNomeCliente(nome);
+            a.setCognomeCliente(cognome);
+            // Clienti abituali: riusa l'email di un cliente precedente
+            if (emailRipetuta != null && random.nextInt(5) == 0) {
+                a.setEmail(emailRipetuta);
+            } else {
+                a.setEmail(email(nome, cognome, i));
+                emailRipetuta = a.getEmail();
+            }
+            a.setTelefono(telefono());
+            a.setDataAppuntamento(dataLavorativa(-365, 60));
+            a.setTipoServizio(scegli(SERVIZI));
+            a.setIndirizzo("Via " + scegli(COGNOMI) + " " + (1 + random.nextInt(150)) + ", " + scegli(CITTA));
+            a.setDescrizione(frase(8 + random.nextInt(30)));
+            a.setStato(statoAppuntamento());
+            a.setDataCreazione(a.getDataAppuntamento().minusDays(1 + random.nextInt(20)));
+            risultato.add(a);
+        }
+        return risultato;
+    }
+
+    /**
+     * Un appuntamento valido per AppuntamentoValidator (futuro, feriale, orario di apertura).
+     */
+    public Appuntamento appuntamentoValido() {
+        Appuntamento a = appuntamenti(1).get(0);
+        a.setDataAppuntamento(dataLavorativa(3, 30));
+        a.setStato(Appuntamento.StatoAppuntamento.IN_ATTESA);
+        return a;
+    }
+
+    public List<Contatto> contatti(int numero) {
+        List<Contatto> risultato = new ArrayList<>(numero);
+        for (int i = 0; i < numero; i++) {
+            Contatto c = new Contatto();
+            String nome = scegli(NOMI);
+            String cognome = scegli(COGNOMI);
+            c.setNome(nome + " " + cognome);
+            c.setEmail(email(nome, cognome, i));
+            c.setTelefono(random.nextInt(4) == 0 ? null : telefono());
+            c.setMessaggio(frase(15 + random.nextInt(60)));
+            c.setDataInvio(riferimento.minusMinutes(random.nextInt(365 * 24 * 60)));
+            c.setLetto(random.nextInt(3) != 0);
+            risultato.add(c);
+        }
+        return risultato;
+    }
+
+    public List<Lavoro> lavori(int numero) {
+        List<Lavoro> risultato = new ArrayList<>(numero);
+        for (int i = 0; i < numero; i++) {
+            Lavoro l = new Lavoro();
+            l.setTitolo(scegli(SERVIZI) + " " + scegli(CITTA));
+            l.setDescrizione(frase(20 + random.nextInt(80)));
+            l.setCliente(scegli(NOMI) + " " + scegli(COGNOMI));
+            l.setLuogo(scegli(CITTA));
+            LocalDate inizio = riferimento.toLocalDate().minusDays(random.nextInt(730));
+            l.setDataInizio(inizio);
+            l.setDataFine(inizio.plusDays(1 + random.nextInt(60)));
+            l.setCategoria(scegli(SERVIZI));
+            l.setPubblicato(random.nextInt(5) != 0);
+            List<String> prima = new ArrayList<>();
+            List<String> dopo = new ArrayList<>();
+            for (int f = random.nextInt(4); f > 0; f--) {
+                prima.add("/uploads/lavori/prima-" + i + "-" + f + ".jpg");
+                dopo.add("/uploads/lavori/dopo-" + i + "-" + f + ".jpg");
+            }
+            l.setFotoPrima(prima);
+            l.setFotoDopo(dopo);
+            risultato.add(l);
+        }
+        return risultato;
+    }
+
+    public List<Candidatura> candidature(int numero) {
+        List<Candidatura> risultato = new ArrayList<>(numero);
+        for (int i = 0; i < numero; i++) {
+            Candidatura c = new Candidatura();
+            String nome = scegli(NOMI);
+            String cognome = scegli(COGNOMI);
+            c.setNome(nome);
+            c.setCognome(cognome);
+            c.setDataNascita(LocalDate.of(1965 + random.nextInt(40), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+            c.setLuogoNascita(scegli(CITTA));
+            c.setNonHaCodiceFiscale(true);
+            c.setEmail(email(nome, cognome, i));
+            c.setTelefono(telefono());
+            c.setIndirizzo("Via " + scegli(COGNOMI) + " " + (1 + random.nextInt(150)));
+            c.setCitta(scegli(CITTA));
+            c.setProvincia("TO");
+            c.setCap(String.format("10%03d", random.nextInt(1000)));
+            c.setPosizioneRichiesta(scegli(POSIZIONI));
+            c.setLivelloEsperienza(random.nextBoolean() ? "Junior" : "Senior");
+            c.setEsperienzaPrecedente(frase(10 + random.nextInt(40)));
+            c.setCompetenzeTecniche(frase(5 + random.nextInt(15)));
+            c.setDisponibilita("Immediata");
+            c.setMessaggioMotivazionale(frase(20 + random.nextInt(60)));
+            c.setPrivacyConsent(true);
+            c.setDataProcessingConsent(true);
+            c.setStato(scegli(STATI_CANDIDATURA));
+            risultato.add(c);
+        }
+        return risultato;
+    }
+
+    /**
+     * Giorno feriale alle 8:00-19:00, tra "daGiorni" e "aGiorni" dal riferimento.
+     */
+    public LocalDateTime dataLavorativa(int daGiorni, int aGiorni) {
+        LocalDateTime data;
+        do {
+            data = riferimento.plusDays(daGiorni + random.nextInt(aGiorni - daGiorni))
+                .withHour(8 + random.nextInt(11))
+                .withMinute(random.nextBoolean() ? 0 : 30);
+        } while (data.getDayOfWeek() == DayOfWeek.SATURDAY || data.getDayOfWeek() == DayOfWeek.SUNDAY);
+        return data;
+    }
+
+    private Appuntamento.StatoAppuntamento statoAppuntamento() {
+        int n = random.nextInt(100);
+        if (n < 25) {
+            return Appuntamento.StatoAppuntamento.IN_ATTESA;
+        } else if (n < 65) {
+            return Appuntamento.StatoAppuntamento.CONFERMATO;
+        } else if (n < 90) {
+            return Appuntamento.StatoAppuntamento.COMPLETATO;
+        }
+        return Appuntamento.StatoAppuntamento.ANNULLATO;
+    }
+
+    private String email(String nome, String cognome, int progressivo) {
+        return (nome + "." + cognome.replace(" ", "")).toLowerCase() + progressivo + "@example.com";
+    }
+
+    private String telefono() {
+        return "3" + (100_000_000L + (long) (random.nextDouble() * 899_999_999L));
+    }
+
+    private String frase(int parole) {
+        StringBuilder sb = new StringBuilder(parole * 9);
+        for (int i = 0; i < parole; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(scegli(PAROLE));
+        }
+        return sb.toString();
+    }
+
+    private String scegli(String[] valori) {
+        return valori[random.nextInt(valori.length)];
+    }
+}
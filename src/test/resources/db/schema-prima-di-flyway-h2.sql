@@ -0,0 +1,93 @@
+-- ============================================
+-- SCHEMA ESISTENTE PRIMA DI FLYWAY - H2
+-- ============================================
+-- Lo schema che Hibernate creava con ddl-auto=update dalle entità del commit
+-- iniziale (prima di campagne, testi dei CV, duplicati e sequenze), esportato
+-- da H2 con SCRIPT NODATA. È il punto di partenza dei database già in uso:
+-- MigrazioneDaSchemaEsistenteTest lo porta alla versione attuale con Flyway.
+-- Non va aggiornato insieme alle entità.
+
+CREATE CACHED TABLE "PUBLIC"."APPUNTAMENTO"(
+    "ID" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1) NOT NULL,
+    "COGNOME_CLIENTE" CHARACTER VARYING(255) NOT NULL,
+    "DATA_ANNULLAMENTO" TIMESTAMP(6),
+    "DATA_APPUNTAMENTO" TIMESTAMP(6) NOT NULL,
+    "DATA_CREAZIONE" TIMESTAMP(6),
+    "DESCRIZIONE" CHARACTER VARYING(1000),
+    "EMAIL" CHARACTER VARYING(255) NOT NULL,
+    "INDIRIZZO" CHARACTER VARYING(255),
+    "MOTIVAZIONE_RIFIUTO" CHARACTER VARYING(2000),
+    "NOME_CLIENTE" CHARACTER VARYING(255) NOT NULL,
+    "STATO" ENUM('ANNULLATO', 'COMPLETATO', 'CONFERMATO', 'IN_ATTESA'),
+    "TELEFONO" CHARACTER VARYING(255) NOT NULL,
+    "TIPO_SERVIZIO" CHARACTER VARYING(255) NOT NULL
+);
+ALTER TABLE "PUBLIC"."APPUNTAMENTO" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_8" PRIMARY KEY("ID");
+CREATE CACHED TABLE "PUBLIC"."CANDIDATURE"(
+    "ID" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1) NOT NULL,
+    "CAP" CHARACTER VARYING(5) NOT NULL,
+    "CERTIFICAZIONI" CHARACTER VARYING,
+    "CITTA" CHARACTER VARYING(100) NOT NULL,
+    "CODICE_FISCALE" CHARACTER VARYING(16),
+    "COGNOME" CHARACTER VARYING(50) NOT NULL,
+    "COMPETENZE_TECNICHE" CHARACTER VARYING,
+    "CV_FILE_NAME" CHARACTER VARYING(255),
+    "CV_FILE_PATH" CHARACTER VARYING(500),
+    "DATA_INVIO" TIMESTAMP(6) NOT NULL,
+    "DATA_NASCITA" DATE NOT NULL,
+    "DATA_PROCESSING_CONSENT" BOOLEAN NOT NULL,
+    "DATA_RISPOSTA" TIMESTAMP(6),
+    "DISPONIBILITA" CHARACTER VARYING(50) NOT NULL,
+    "EMAIL" CHARACTER VARYING(100) NOT NULL,
+    "ESPERIENZA_PRECEDENTE" CHARACTER VARYING,
+    "INDIRIZZO" CHARACTER VARYING(200) NOT NULL,
+    "LINGUE" CHARACTER VARYING,
+    "LIVELLO_ESPERIENZA" CHARACTER VARYING(50),
+    "LUOGO_NASCITA" CHARACTER VARYING(100) NOT NULL,
+    "MESSAGGIO_MOTIVAZIONALE" CHARACTER VARYING,
+    "MESSAGGIO_RISPOSTA" CHARACTER VARYING,
+    "NOME" CHARACTER VARYING(50) NOT NULL,
+    "NON_HA_CODICE_FISCALE" BOOLEAN NOT NULL,
+    "NOTE_ADMIN" CHARACTER VARYING,
+    "POSIZIONE_RICHIESTA" CHARACTER VARYING(100) NOT NULL,
+    "PRIVACY_CONSENT" BOOLEAN NOT NULL,
+    "PROVINCIA" CHARACTER VARYING(2) NOT NULL,
+    "STATO" CHARACTER VARYING(50),
+    "TELEFONO" CHARACTER VARYING(20) NOT NULL,
+    "TIPO_CONTRATTO" CHARACTER VARYING(50),
+    "TITOLO_STUDIO" CHARACTER VARYING(100),
+    "ULTIMO_LAVORO" CHARACTER VARYING(100)
+);
+ALTER TABLE "PUBLIC"."CANDIDATURE" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_5" PRIMARY KEY("ID");
+CREATE CACHED TABLE "PUBLIC"."CONTATTO"(
+    "ID" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1) NOT NULL,
+    "DATA_INVIO" TIMESTAMP(6),
+    "EMAIL" CHARACTER VARYING(255) NOT NULL,
+    "LETTO" BOOLEAN NOT NULL,
+    "MESSAGGIO" CHARACTER VARYING(2000) NOT NULL,
+    "NOME" CHARACTER VARYING(255) NOT NULL,
+    "TELEFONO" CHARACTER VARYING(255)
+);
+ALTER TABLE "PUBLIC"."CONTATTO" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_C" PRIMARY KEY("ID");
+CREATE CACHED TABLE "PUBLIC"."LAVORO"(
+    "ID" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1) NOT NULL,
+    "CATEGORIA" CHARACTER VARYING(255),
+    "CLIENTE" CHARACTER VARYING(255),
+    "DATA_FINE" DATE,
+    "DATA_INIZIO" DATE,
+    "DESCRIZIONE" CHARACTER VARYING(2000),
+    "LUOGO" CHARACTER VARYING(255),
+    "PUBBLICATO" BOOLEAN NOT NULL,
+    "TITOLO" CHARACTER VARYING(255)
+);
+ALTER TABLE "PUBLIC"."LAVORO" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_85" PRIMARY KEY("ID");
+CREATE CACHED TABLE "PUBLIC"."LAVORO_FOTO_DOPO"(
+    "LAVORO_ID" BIGINT NOT NULL,
+    "FOTO_URL" CHARACTER VARYING(255)
+);
+CREATE CACHED TABLE "PUBLIC"."LAVORO_FOTO_PRIMA"(
+    "LAVORO_ID" BIGINT NOT NULL,
+    "FOTO_URL" CHARACTER VARYING(255)
+);
+ALTER TABLE "PUBLIC"."LAVORO_FOTO_PRIMA" ADD CONSTRAINT "PUBLIC"."FK8T0IV9KP9XNYF9H9CEWGMLL63" FOREIGN KEY("LAVORO_ID") REFERENCES "PUBLIC"."LAVORO"("ID") NOCHECK;
+ALTER TABLE "PUBLIC"."LAVORO_FOTO_DOPO" ADD CONSTRAINT "PUBLIC"."FKOS3M8DIGXXM6KK3DM8WAF77TQ" FOREIGN KEY("LAVORO_ID") REFERENCES "PUBLIC"."LAVORO"("ID") NOCHECK;